@@ -0,0 +1,267 @@
+/*
+ * Copyright 2019 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace;
+
+import edu.kit.ocrd.workspace.exception.WorkspaceException;
+import edu.kit.ocrd.workspace.validation.ValidationResult;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Utilities for BagIt bags as used by OCRD-ZIP.
+ * See documentation at: https://ocr-d.github.io/ocrd_zip
+ * - bagit.txt has to exist
+ * - METS is located at data/mets.xml (may be changed via 'Ocrd-Mets' in
+ * bag-info.txt)
+ * - checksums of all payload manifests (manifest-&lt;algorithm&gt;.txt) have
+ * to match
+ *
+ * The bag root may belong to any file system, e.g. the root of a zip file
+ * system, so bags may be validated without extracting them.
+ */
+public class BagItUtil {
+
+  /**
+   * Name of bag declaration.
+   */
+  public static final String BAGIT_FILE = "bagit.txt";
+  /**
+   * Name of bag metadata file.
+   */
+  public static final String BAG_INFO_FILE = "bag-info.txt";
+  /**
+   * Name of payload directory.
+   */
+  public static final String PAYLOAD_DIRECTORY = "data";
+  /**
+   * Default location of METS inside payload directory.
+   */
+  public static final String DEFAULT_METS = "mets.xml";
+  /**
+   * Key inside bag-info.txt defining location of METS.
+   */
+  public static final String OCRD_METS = "Ocrd-Mets";
+  /**
+   * Glob for payload manifests.
+   */
+  public static final String MANIFEST_GLOB = "manifest-*.txt";
+  /**
+   * Error message: Not a bag.
+   */
+  public static final String NO_BAG = "Not a BagIt bag (bagit.txt missing): ";
+  /**
+   * Error message: No payload manifest.
+   */
+  public static final String NO_MANIFEST = "No payload manifest found in bag: ";
+  /**
+   * Error message: Error reading manifest.
+   */
+  public static final String ERROR_READING_MANIFEST = "Error reading manifest: ";
+  /**
+   * Error message: Invalid line in manifest.
+   */
+  public static final String INVALID_MANIFEST_ENTRY = "Invalid entry in manifest: ";
+  /**
+   * Error message: File listed in manifest doesn't exist.
+   */
+  public static final String FILE_NOT_IN_BAG = "File listed in manifest doesn't exist: ";
+  /**
+   * Error message: Checksum doesn't match.
+   */
+  public static final String CHECKSUM_MISMATCH = "Checksum of file doesn't match manifest: ";
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(BagItUtil.class);
+
+  /**
+   * Test if directory is the root of a bag.
+   *
+   * @param bagRoot Root directory of bag.
+   * @return true if bagit.txt exists.
+   */
+  public static boolean isBag(final Path bagRoot) {
+    return Files.isRegularFile(bagRoot.resolve(BAGIT_FILE));
+  }
+
+  /**
+   * Get METS file of bag. The location may be defined by the key 'Ocrd-Mets'
+   * inside bag-info.txt relative to the payload directory.
+   *
+   * @param bagRoot Root directory of bag.
+   * @return METS file (may not exist).
+   */
+  public static Path getMetsFile(final Path bagRoot) {
+    String metsLocation = DEFAULT_METS;
+    Path bagInfo = bagRoot.resolve(BAG_INFO_FILE);
+    if (Files.isRegularFile(bagInfo)) {
+      try (BufferedReader reader = Files.newBufferedReader(bagInfo, StandardCharsets.UTF_8)) {
+        for (String line; (line = reader.readLine()) != null;) {
+          int separator = line.indexOf(':');
+          if (separator > 0 && line.substring(0, separator).trim().equals(OCRD_METS)) {
+            metsLocation = line.substring(separator + 1).trim();
+          }
+        }
+      } catch (IOException ex) {
+        LOGGER.error(ERROR_READING_MANIFEST + bagInfo, ex);
+        throw new WorkspaceException(ERROR_READING_MANIFEST + bagInfo, ex);
+      }
+    }
+    return bagRoot.resolve(PAYLOAD_DIRECTORY).resolve(metsLocation);
+  }
+
+  /**
+   * Validate checksums of all payload manifests using the given executor.
+   * The manifests are read by the calling thread, the checksums of the files
+   * are calculated in parallel. Findings are reported in the order of the
+   * entries inside the manifests.
+   *
+   * @param bagRoot Root directory of bag.
+   * @param executor Executor calculating the checksums.
+   * @return Future holding the findings.
+   */
+  public static CompletableFuture<ValidationResult> validateManifests(final Path bagRoot, final Executor executor) {
+    final List<CompletableFuture<ValidationResult>> entries = new ArrayList<>();
+    ValidationResult manifestResult = new ValidationResult();
+    int noOfManifests = 0;
+    try (DirectoryStream<Path> manifests = Files.newDirectoryStream(bagRoot, MANIFEST_GLOB)) {
+      for (Path manifest : manifests) {
+        noOfManifests++;
+        readManifest(bagRoot, manifest, executor, entries, manifestResult);
+      }
+    } catch (IOException ex) {
+      LOGGER.error(ERROR_READING_MANIFEST + bagRoot, ex);
+      manifestResult.addError(ERROR_READING_MANIFEST + bagRoot);
+    }
+    if (noOfManifests == 0 && manifestResult.isValid()) {
+      manifestResult.addError(NO_MANIFEST + bagRoot);
+    }
+    entries.add(0, CompletableFuture.completedFuture(manifestResult));
+    return CompletableFuture.allOf(entries.toArray(new CompletableFuture<?>[entries.size()])).thenApply(ignored -> {
+      ValidationResult result = new ValidationResult();
+      for (CompletableFuture<ValidationResult> entry : entries) {
+        result.merge(entry.join());
+      }
+      return result;
+    });
+  }
+
+  /**
+   * Read manifest and start calculating the checksums of all listed files.
+   *
+   * @param bagRoot Root directory of bag.
+   * @param manifest Manifest file (manifest-&lt;algorithm&gt;.txt).
+   * @param executor Executor calculating the checksums.
+   * @param entries Futures of all entries.
+   * @param result Result collecting errors of manifest.
+   * @throws IOException Error reading manifest.
+   */
+  private static void readManifest(final Path bagRoot, final Path manifest, final Executor executor, final List<CompletableFuture<ValidationResult>> entries, final ValidationResult result) throws IOException {
+    String fileName = manifest.getFileName().toString();
+    final String algorithm = fileName.substring("manifest-".length(), fileName.length() - ".txt".length());
+    if (ChecksumUtil.getAlgorithmName(algorithm) == null) {
+      result.addError(ChecksumUtil.UNSUPPORTED_ALGORITHM + algorithm + " (" + fileName + ")");
+      return;
+    }
+    LOGGER.debug("Validate manifest '{}'", manifest);
+    try (BufferedReader reader = Files.newBufferedReader(manifest, StandardCharsets.UTF_8)) {
+      for (String line; (line = reader.readLine()) != null;) {
+        line = line.trim();
+        if (line.isEmpty()) {
+          continue;
+        }
+        int separator = indexOfWhitespace(line);
+        if (separator < 0) {
+          result.addError(INVALID_MANIFEST_ENTRY + line);
+          continue;
+        }
+        final String checksum = line.substring(0, separator);
+        final String path = decodePath(line.substring(separator).trim());
+        // Only files inside the bag are allowed.
+        Path relativePath = bagRoot.getFileSystem().getPath(path).normalize();
+        if (relativePath.isAbsolute() || relativePath.startsWith("..")) {
+          result.addError(INVALID_MANIFEST_ENTRY + line);
+          continue;
+        }
+        final Path file = bagRoot.resolve(relativePath);
+        entries.add(CompletableFuture.supplyAsync(() -> validateChecksum(file, path, checksum, algorithm), executor));
+      }
+    }
+  }
+
+  /**
+   * Validate checksum of single file.
+   *
+   * @param file File.
+   * @param path Path of file as listed in manifest.
+   * @param checksum Expected checksum.
+   * @param algorithm Algorithm of checksum.
+   * @return Findings.
+   */
+  private static ValidationResult validateChecksum(final Path file, final String path, final String checksum, final String algorithm) {
+    ValidationResult result = new ValidationResult();
+    try {
+      if (!ChecksumUtil.getChecksum(file, algorithm).equalsIgnoreCase(checksum)) {
+        result.addError(CHECKSUM_MISMATCH + path);
+      }
+    } catch (NoSuchFileException nsfe) {
+      result.addError(FILE_NOT_IN_BAG + path);
+    } catch (IOException | RuntimeException ex) {
+      LOGGER.error(MetsUtil.ERROR_READING_FILE + path, ex);
+      result.addError(MetsUtil.ERROR_READING_FILE + path);
+    }
+    return result;
+  }
+
+  /**
+   * Get index of first whitespace.
+   *
+   * @param line Line.
+   * @return Index or -1 if there is no whitespace.
+   */
+  private static int indexOfWhitespace(final String line) {
+    for (int index = 0; index < line.length(); index++) {
+      if (Character.isWhitespace(line.charAt(index))) {
+        return index;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Decode path as defined by BagIt (CR, LF and '%' are percent encoded).
+   *
+   * @param path Path listed in manifest.
+   * @return Decoded path.
+   */
+  private static String decodePath(final String path) {
+    if (path.indexOf('%') < 0) {
+      return path;
+    }
+    return path.replace("%0D", "\r").replace("%0d", "\r").replace("%0A", "\n").replace("%0a", "\n").replace("%25", "%");
+  }
+}
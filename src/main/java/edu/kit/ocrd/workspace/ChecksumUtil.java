@@ -0,0 +1,136 @@
+/*
+ * Copyright 2019 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace;
+
+import edu.kit.ocrd.workspace.exception.WorkspaceException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Utilities for calculating checksums of files.
+ * Supported algorithms: MD5, SHA-1, SHA-256, SHA-512 (names are case
+ * insensitive and may be given without hyphen, e.g. 'sha256' as used by
+ * BagIt).
+ */
+public class ChecksumUtil {
+
+  /**
+   * Error message for unsupported algorithms.
+   */
+  public static final String UNSUPPORTED_ALGORITHM = "Unsupported checksum algorithm: ";
+  /**
+   * Size of buffer used for reading files.
+   */
+  public static final int BUFFER_SIZE = 64 * 1024;
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(ChecksumUtil.class);
+  /**
+   * Characters for hex encoding.
+   */
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  /**
+   * Get name of algorithm as used by MessageDigest.
+   *
+   * @param algorithm Name of algorithm (e.g. 'SHA-256', 'sha256').
+   * @return Name of algorithm or null if algorithm is not supported.
+   */
+  public static String getAlgorithmName(final String algorithm) {
+    String algorithmName = null;
+    if (algorithm != null) {
+      switch (algorithm.trim().toUpperCase(Locale.ROOT).replace("-", "")) {
+        case "MD5":
+          algorithmName = "MD5";
+          break;
+        case "SHA1":
+          algorithmName = "SHA-1";
+          break;
+        case "SHA256":
+          algorithmName = "SHA-256";
+          break;
+        case "SHA512":
+          algorithmName = "SHA-512";
+          break;
+        default:
+          break;
+      }
+    }
+    return algorithmName;
+  }
+
+  /**
+   * Get new instance of message digest for given algorithm.
+   *
+   * @param algorithm Name of algorithm (e.g. 'SHA-256', 'sha256').
+   * @return Message digest or exception if algorithm is not supported.
+   */
+  public static MessageDigest getMessageDigest(final String algorithm) {
+    String algorithmName = getAlgorithmName(algorithm);
+    if (algorithmName == null) {
+      throw new WorkspaceException(UNSUPPORTED_ALGORITHM + algorithm);
+    }
+    try {
+      return MessageDigest.getInstance(algorithmName);
+    } catch (NoSuchAlgorithmException nsae) {
+      LOGGER.error(UNSUPPORTED_ALGORITHM + algorithm, nsae);
+      throw new WorkspaceException(UNSUPPORTED_ALGORITHM + algorithm, nsae);
+    }
+  }
+
+  /**
+   * Calculate checksum of file. The path may belong to any file system (e.g.
+   * entry of a zip file).
+   *
+   * @param file File.
+   * @param algorithm Name of algorithm (e.g. 'SHA-256', 'sha256').
+   * @return Checksum as lower case hex string.
+   * @throws IOException Error reading file.
+   */
+  public static String getChecksum(final Path file, final String algorithm) throws IOException {
+    MessageDigest digest = getMessageDigest(algorithm);
+    byte[] buffer = new byte[BUFFER_SIZE];
+    try (InputStream inputStream = Files.newInputStream(file)) {
+      for (int read; (read = inputStream.read(buffer)) >= 0;) {
+        digest.update(buffer, 0, read);
+      }
+    }
+    return toHex(digest.digest());
+  }
+
+  /**
+   * Encode bytes as lower case hex string.
+   *
+   * @param bytes Bytes.
+   * @return Hex string.
+   */
+  public static String toHex(final byte[] bytes) {
+    char[] hex = new char[bytes.length * 2];
+    for (int index = 0; index < bytes.length; index++) {
+      hex[index * 2] = HEX_DIGITS[(bytes[index] >> 4) & 0xf];
+      hex[index * 2 + 1] = HEX_DIGITS[bytes[index] & 0xf];
+    }
+    return new String(hex);
+  }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright 2019 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace;
+
+import java.util.Arrays;
+
+/**
+ * Parser for the points of PAGE Coords ("x1,y1 x2,y2 ..."). The points are
+ * parsed character by character into primitive arrays which are reused for
+ * all polygons. So parsing doesn't allocate any memory once the arrays are
+ * large enough. Not thread safe, use one instance per thread.
+ */
+public class CoordsParser {
+
+  /**
+   * Result of parse for invalid points.
+   */
+  public static final int INVALID = -1;
+  /**
+   * Initial capacity of the point arrays.
+   */
+  private static final int INITIAL_CAPACITY = 64;
+  /**
+   * Maximum value of a coordinate before overflow.
+   */
+  private static final int MAX_VALUE = (Integer.MAX_VALUE - 9) / 10;
+  /**
+   * X coordinates of last parsed polygon.
+   */
+  private int[] x = new int[INITIAL_CAPACITY];
+  /**
+   * Y coordinates of last parsed polygon.
+   */
+  private int[] y = new int[INITIAL_CAPACITY];
+  /**
+   * Number of points of last parsed polygon.
+   */
+  private int noOfPoints;
+
+  /**
+   * Parse points. Coordinates have to be non negative integers, points are
+   * separated by whitespace.
+   *
+   * @param points Points (value of Coords/@points).
+   * @return Number of points or INVALID if points are malformed.
+   */
+  public int parse(final CharSequence points) {
+    noOfPoints = 0;
+    int length = points.length();
+    int index = 0;
+    while (true) {
+      // Skip whitespace between points.
+      while (index < length && isWhitespace(points.charAt(index))) {
+        index++;
+      }
+      if (index >= length) {
+        break;
+      }
+      // x
+      int value = 0;
+      int start = index;
+      for (char c; index < length && (c = points.charAt(index)) >= '0' && c <= '9'; index++) {
+        if (value > MAX_VALUE) {
+          return invalid();
+        }
+        value = value * 10 + (c - '0');
+      }
+      if (index == start || index >= length || points.charAt(index) != ',') {
+        return invalid();
+      }
+      int pointX = value;
+      index++;
+      // y
+      value = 0;
+      start = index;
+      for (char c; index < length && (c = points.charAt(index)) >= '0' && c <= '9'; index++) {
+        if (value > MAX_VALUE) {
+          return invalid();
+        }
+        value = value * 10 + (c - '0');
+      }
+      if (index == start || (index < length && !isWhitespace(points.charAt(index)))) {
+        return invalid();
+      }
+      if (noOfPoints == x.length) {
+        x = Arrays.copyOf(x, noOfPoints * 2);
+        y = Arrays.copyOf(y, noOfPoints * 2);
+      }
+      x[noOfPoints] = pointX;
+      y[noOfPoints] = value;
+      noOfPoints++;
+    }
+    return noOfPoints;
+  }
+
+  /**
+   * Get number of points of last parsed polygon.
+   *
+   * @return Number of points.
+   */
+  public int getNumberOfPoints() {
+    return noOfPoints;
+  }
+
+  /**
+   * Get x coordinate of point.
+   *
+   * @param point Index of point.
+   * @return x coordinate.
+   */
+  public int getX(final int point) {
+    return x[point];
+  }
+
+  /**
+   * Get y coordinate of point.
+   *
+   * @param point Index of point.
+   * @return y coordinate.
+   */
+  public int getY(final int point) {
+    return y[point];
+  }
+
+  /**
+   * Test if all points lie inside the image. Coordinates equal to width or
+   * height are accepted (border of image).
+   *
+   * @param width Width of image.
+   * @param height Height of image.
+   * @return true if no point lies outside.
+   */
+  public boolean isInside(final int width, final int height) {
+    for (int point = 0; point < noOfPoints; point++) {
+      if (x[point] > width || y[point] > height) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Get twice the (unsigned) area of the polygon. (Shoelace formula)
+   *
+   * @return Twice the area (0 for degenerate polygons).
+   */
+  public long getDoubleArea() {
+    long area = 0;
+    for (int point = 0; point < noOfPoints; point++) {
+      int next = point + 1 < noOfPoints ? point + 1 : 0;
+      area += (long) x[point] * y[next] - (long) x[next] * y[point];
+    }
+    return Math.abs(area);
+  }
+
+  /**
+   * Mark last parsed polygon as invalid.
+   *
+   * @return INVALID
+   */
+  private int invalid() {
+    noOfPoints = 0;
+    return INVALID;
+  }
+
+  /**
+   * Test for whitespace allowed between points.
+   *
+   * @param c Character.
+   * @return true for space, tab, carriage return or line feed.
+   */
+  private static boolean isWhitespace(final char c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+  }
+}
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2019 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.apache.tika.Tika;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Utilities for reading the content of files referenced by METS only once.
+ * Mimetype detection and checksum are both fed from the same bytes. Files are
+ * read via direct buffers (one per thread) on an executor with a fixed number
+ * of threads, so memory and concurrent I/O are bounded.
+ */
+public class FileScanUtil {
+
+  /**
+   * Number of threads reading files concurrently.
+   */
+  public static final int IO_THREADS = 4;
+  /**
+   * Size of the (direct) buffer used for reading files.
+   */
+  public static final int BUFFER_SIZE = 1024 * 1024;
+  /**
+   * Number of bytes used for detecting the mimetype.
+   */
+  public static final int HEADER_SIZE = 64 * 1024;
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(FileScanUtil.class);
+  /**
+   * Buffer of each thread.
+   */
+  private static final ThreadLocal<ByteBuffer> BUFFER = new ThreadLocal<ByteBuffer>() {
+    @Override
+    protected ByteBuffer initialValue() {
+      return ByteBuffer.allocateDirect(BUFFER_SIZE);
+    }
+  };
+  /**
+   * Executor reading the files.
+   */
+  private static final ExecutorService IO_EXECUTOR = Executors.newFixedThreadPool(IO_THREADS, new ThreadFactory() {
+    /**
+     * Number of created threads.
+     */
+    private final AtomicInteger noOfThreads = new AtomicInteger();
+
+    @Override
+    public Thread newThread(final Runnable runnable) {
+      Thread thread = new Thread(runnable, "file-scan-" + noOfThreads.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  });
+
+  /**
+   * Result of scanning a file.
+   */
+  public static class FileScan {
+
+    /**
+     * Detected mimetype (null if not detected).
+     */
+    private final String mimetype;
+    /**
+     * Checksum as lower case hex string (null if not calculated).
+     */
+    private final String checksum;
+
+    /**
+     * Constructor.
+     *
+     * @param mimetype Detected mimetype.
+     * @param checksum Checksum as lower case hex string.
+     */
+    public FileScan(final String mimetype, final String checksum) {
+      this.mimetype = mimetype;
+      this.checksum = checksum;
+    }
+
+    /**
+     * @return the mimetype
+     */
+    public String getMimetype() {
+      return mimetype;
+    }
+
+    /**
+     * @return the checksum
+     */
+    public String getChecksum() {
+      return checksum;
+    }
+  }
+
+  /**
+   * Get executor reading files. (IO_THREADS threads, independent of the
+   * executor running the checks)
+   *
+   * @return Executor
+   */
+  public static ExecutorService getIoExecutor() {
+    return IO_EXECUTOR;
+  }
+
+  /**
+   * Scan file asynchronously on the I/O executor.
+   *
+   * @param file File (may belong to any file system).
+   * @param tika Detector for mimetype (null if mimetype is not needed).
+   * @param checksumType Algorithm of checksum (null if checksum is not
+   * needed).
+   * @return Future holding the result. Errors are wrapped in a
+   * CompletionException.
+   */
+  public static CompletableFuture<FileScan> scanAsync(final Path file, final Tika tika, final String checksumType) {
+    return CompletableFuture.supplyAsync(() -> {
+      try {
+        return scan(file, tika, checksumType);
+      } catch (IOException ex) {
+        throw new CompletionException(ex);
+      }
+    }, IO_EXECUTOR);
+  }
+
+  /**
+   * Scan file. The file is read only once. If no checksum is needed only the
+   * header of the file is read.
+   *
+   * @param file File (may belong to any file system).
+   * @param tika Detector for mimetype (null if mimetype is not needed).
+   * @param checksumType Algorithm of checksum (null if checksum is not
+   * needed).
+   * @return Result holding mimetype and/or checksum.
+   * @throws IOException Error reading file.
+   */
+  public static FileScan scan(final Path file, final Tika tika, final String checksumType) throws IOException {
+    if (tika == null && checksumType == null) {
+      return new FileScan(null, null);
+    }
+    MessageDigest digest = checksumType != null ? ChecksumUtil.getMessageDigest(checksumType) : null;
+    byte[] header = tika != null ? new byte[HEADER_SIZE] : null;
+    int headerLength = 0;
+    ByteBuffer buffer = BUFFER.get();
+    buffer.clear();
+    try (SeekableByteChannel channel = Files.newByteChannel(file)) {
+      while (channel.read(buffer) >= 0) {
+        buffer.flip();
+        if (header != null && headerLength < header.length) {
+          int length = Math.min(buffer.remaining(), header.length - headerLength);
+          buffer.duplicate().get(header, headerLength, length);
+          headerLength += length;
+        }
+        if (digest != null) {
+          digest.update(buffer);
+        } else if (headerLength >= HEADER_SIZE) {
+          break;
+        }
+        buffer.clear();
+      }
+    }
+    String mimetype = null;
+    if (tika != null) {
+      mimetype = tika.detect(headerLength < HEADER_SIZE ? Arrays.copyOf(header, headerLength) : header, file.getFileName().toString());
+    }
+    String checksum = digest != null ? ChecksumUtil.toHex(digest.digest()) : null;
+    LOGGER.trace("Scanned '{}': mimetype: {}, checksum: {}", file, mimetype, checksum);
+    return new FileScan(mimetype, checksum);
+  }
+}
@@ -0,0 +1,317 @@
+/*
+ * Copyright 2019 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace;
+
+import edu.kit.ocrd.workspace.entity.MetsMetadata;
+import edu.kit.ocrd.workspace.index.MetsIndex;
+import edu.kit.ocrd.workspace.validation.MetadataRule;
+import edu.kit.ocrd.workspace.validation.ValidationResult;
+import java.util.ArrayList;
+import java.util.List;
+import org.jdom.Document;
+import org.jdom.Element;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Utility extracting descriptive metadata from METS document. All metadata is
+ * collected in one pass over the document instead of evaluating one XPath per
+ * field.
+ *
+ * Extracted (relative to mods:mods):
+ * - title: mods:titleInfo/mods:title[not(@type)]
+ * - subtitle: mods:titleInfo/mods:subTitle[not(@type)]
+ * - year: mods:originInfo/mods:dateIssued
+ * - author: mods:name[mods:role/mods:roleTerm='aut']/mods:displayForm
+ * - publisher: descendant mods:publisher[not(@keydate='yes')]
+ * - physical description: descendant mods:physicalDescription/mods:extent
+ * - PPN: mods:recordInfo/mods:recordIdentifier
+ * - language: descendant mods:languageTerm
+ * - classification: descendant mods:classification
+ * - genre: descendant mods:genre
+ *
+ * Outside of mods:mods:
+ * - license: texts of mets:amdSec/mets:rightsMD
+ * - number of images: files in mets:fileGrp[@USE='OCR-D-IMG']
+ */
+public class MetadataUtil {
+
+  /**
+   * Namespace of MODS.
+   */
+  public static final String MODS_NAMESPACE = "http://www.loc.gov/mods/v3";
+  /**
+   * USE of file group containing the images.
+   */
+  public static final String IMAGE_FILE_GRP = "OCR-D-IMG";
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(MetadataUtil.class);
+
+  /**
+   * Extract all metadata from METS.
+   *
+   * @param metsDocument METS document.
+   * @return MetsMetadata holding all metadata.
+   */
+  public static MetsMetadata extractMetadata(final Document metsDocument) {
+    MetsMetadata metadata = new MetsMetadata();
+    StringBuilder license = new StringBuilder();
+    for (Object child : metsDocument.getRootElement().getChildren()) {
+      Element element = (Element) child;
+      if (isMets(element, "dmdSec")) {
+        for (Element mods : getModsElements(element)) {
+          visitMods(mods, 1, metadata);
+        }
+      } else if (isMets(element, "amdSec")) {
+        for (Object rightsMd : element.getChildren()) {
+          if (isMets((Element) rightsMd, "rightsMD")) {
+            collectTexts((Element) rightsMd, license);
+          }
+        }
+      } else if (isMets(element, "fileSec")) {
+        metadata.setNumberOfImages(metadata.getNumberOfImages() + countImages(element));
+      }
+    }
+    if (license.length() > 0) {
+      metadata.setLicense(license.toString());
+    }
+    LOGGER.trace("Extracted metadata: {}", metadata);
+    return metadata;
+  }
+
+  /**
+   * Validate metadata of METS with the given rules. The document is traversed
+   * only once independent of the number of rules.
+   *
+   * @param metsDocument METS document.
+   * @param rules Rules validating the metadata.
+   * @return Findings of all rules.
+   */
+  public static ValidationResult validateMetadata(final Document metsDocument, final List<? extends MetadataRule> rules) {
+    ValidationResult result = new ValidationResult();
+    validateMetadata(extractMetadata(metsDocument), rules, result);
+    return result;
+  }
+
+  /**
+   * Validate extracted metadata with the given rules.
+   *
+   * @param metadata Metadata extracted from METS.
+   * @param rules Rules validating the metadata.
+   * @param result Result collecting all findings.
+   */
+  public static void validateMetadata(final MetsMetadata metadata, final List<? extends MetadataRule> rules, final ValidationResult result) {
+    for (MetadataRule rule : rules) {
+      rule.validate(metadata, result);
+    }
+  }
+
+  /**
+   * Get all mods:mods elements of dmdSec.
+   * (mets:dmdSec/mets:mdWrap/mets:xmlData/mods:mods)
+   *
+   * @param dmdSec dmdSec element.
+   * @return mods elements.
+   */
+  static List<Element> getModsElements(final Element dmdSec) {
+    List<Element> modsElements = new ArrayList<>();
+    for (Object mdWrap : dmdSec.getChildren()) {
+      if (isMets((Element) mdWrap, "mdWrap")) {
+        for (Object xmlData : ((Element) mdWrap).getChildren()) {
+          if (isMets((Element) xmlData, "xmlData")) {
+            for (Object mods : ((Element) xmlData).getChildren()) {
+              if (isMods((Element) mods, "mods")) {
+                modsElements.add((Element) mods);
+              }
+            }
+          }
+        }
+      }
+    }
+    return modsElements;
+  }
+
+  /**
+   * Visit all children of element inside MODS section.
+   *
+   * @param parent Parent element.
+   * @param depth Depth of children below mods:mods (1 for direct children).
+   * @param metadata Metadata collecting all values.
+   */
+  private static void visitMods(final Element parent, final int depth, final MetsMetadata metadata) {
+    String parentName = depth == 1 ? null : parent.getName();
+    for (Object child : parent.getChildren()) {
+      Element element = (Element) child;
+      if (!MODS_NAMESPACE.equals(element.getNamespaceURI())) {
+        continue;
+      }
+      String name = element.getName();
+      String value = element.getText().trim();
+      switch (name) {
+        case "title":
+          if (depth == 2 && "titleInfo".equals(parentName) && element.getAttribute("type") == null && metadata.getTitle() == null && !value.isEmpty()) {
+            metadata.setTitle(value);
+          }
+          break;
+        case "subTitle":
+          if (depth == 2 && "titleInfo".equals(parentName) && element.getAttribute("type") == null && metadata.getSubTitle() == null && !value.isEmpty()) {
+            metadata.setSubTitle(value);
+          }
+          break;
+        case "dateIssued":
+          if (depth == 2 && "originInfo".equals(parentName) && metadata.getYear() == null && !value.isEmpty()) {
+            metadata.setYear(value);
+          }
+          break;
+        case "publisher":
+          if (!"yes".equals(element.getAttributeValue("keydate")) && metadata.getPublisher() == null && !value.isEmpty()) {
+            metadata.setPublisher(value);
+          }
+          break;
+        case "extent":
+          if ("physicalDescription".equals(parentName) && metadata.getPhysicalDescription() == null && !value.isEmpty()) {
+            metadata.setPhysicalDescription(value);
+          }
+          break;
+        case "recordIdentifier":
+          if (depth == 2 && "recordInfo".equals(parentName) && metadata.getPpn() == null && !value.isEmpty()) {
+            metadata.setPpn(value);
+          }
+          break;
+        case "languageTerm":
+          if (!value.isEmpty()) {
+            metadata.addLanguage(value);
+          }
+          break;
+        case "classification":
+          if (!value.isEmpty()) {
+            metadata.addClassification(value);
+          }
+          break;
+        case "genre":
+          if (!value.isEmpty()) {
+            metadata.addGenre(value);
+          }
+          break;
+        case "name":
+          addAuthors(element, metadata);
+          break;
+        default:
+          visitMods(element, depth + 1, metadata);
+      }
+    }
+  }
+
+  /**
+   * Add display forms of name if name has role 'aut'.
+   *
+   * @param name mods:name element.
+   * @param metadata Metadata collecting all values.
+   */
+  private static void addAuthors(final Element name, final MetsMetadata metadata) {
+    boolean author = false;
+    for (Object role : name.getChildren()) {
+      if (isMods((Element) role, "role")) {
+        for (Object roleTerm : ((Element) role).getChildren()) {
+          if (isMods((Element) roleTerm, "roleTerm") && "aut".equals(((Element) roleTerm).getText())) {
+            author = true;
+          }
+        }
+      }
+    }
+    if (author) {
+      for (Object displayForm : name.getChildren()) {
+        if (isMods((Element) displayForm, "displayForm")) {
+          String value = ((Element) displayForm).getText().trim();
+          if (!value.isEmpty()) {
+            metadata.addAuthor(value);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Collect all texts of the leaf elements below element separated by ', '.
+   *
+   * @param element Element.
+   * @param texts Collected texts.
+   */
+  private static void collectTexts(final Element element, final StringBuilder texts) {
+    List<?> children = element.getChildren();
+    if (children.isEmpty()) {
+      String value = element.getText().trim();
+      if (!value.isEmpty()) {
+        if (texts.length() > 0) {
+          texts.append(", ");
+        }
+        texts.append(value);
+      }
+    } else {
+      for (Object child : children) {
+        collectTexts((Element) child, texts);
+      }
+    }
+  }
+
+  /**
+   * Count all files in image file groups (including nested file groups).
+   *
+   * @param parent fileSec or fileGrp element.
+   * @return Number of images.
+   */
+  private static int countImages(final Element parent) {
+    int images = 0;
+    for (Object child : parent.getChildren()) {
+      Element fileGrp = (Element) child;
+      if (isMets(fileGrp, "fileGrp")) {
+        if (IMAGE_FILE_GRP.equals(fileGrp.getAttributeValue("USE"))) {
+          for (Object file : fileGrp.getChildren()) {
+            if (isMets((Element) file, "file")) {
+              images++;
+            }
+          }
+        }
+        images += countImages(fileGrp);
+      }
+    }
+    return images;
+  }
+
+  /**
+   * Test for METS element with given name.
+   *
+   * @param element Element.
+   * @param name Local name.
+   * @return true if element matches.
+   */
+  static boolean isMets(final Element element, final String name) {
+    return name.equals(element.getName()) && MetsIndex.METS_NAMESPACE.equals(element.getNamespaceURI());
+  }
+
+  /**
+   * Test for MODS element with given name.
+   *
+   * @param element Element.
+   * @param name Local name.
+   * @return true if element matches.
+   */
+  static boolean isMods(final Element element, final String name) {
+    return name.equals(element.getName()) && MODS_NAMESPACE.equals(element.getNamespaceURI());
+  }
+}
@@ -0,0 +1,339 @@
+/*
+ * Copyright 2019 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace;
+
+import edu.kit.ocrd.workspace.exception.WorkspaceException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Coordinates updates of one METS file by many threads and processes. Files
+ * added by any thread are queued. A single task per METS file takes all
+ * queued files and adds them in one rewrite (MetsWriter). While a rewrite is
+ * running new files are collected for the next one (group commit).
+ *
+ * Each rewrite holds an exclusive OS lock on a lock file next to METS
+ * (mets.xml.lock), so coordinators of different processes never write at the
+ * same time. The future returned for each file completes after the METS
+ * containing the file was synced to disk, renamed and the rename was synced
+ * (directory entry).
+ *
+ * If a rewrite fails, the files of the batch are written one by one, so only
+ * the offending files (e.g. unknown page, duplicate ID) fail.
+ */
+public class MetsUpdateCoordinator {
+
+  /**
+   * Suffix of lock file.
+   */
+  public static final String LOCK_SUFFIX = ".lock";
+  /**
+   * Error locking METS.
+   */
+  public static final String ERROR_LOCKING_METS = "Error locking METS: ";
+  /**
+   * Default maximum number of files per rewrite.
+   */
+  public static final int DEFAULT_MAX_BATCH_SIZE = 10000;
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(MetsUpdateCoordinator.class);
+  /**
+   * Coordinators by (absolute) METS file.
+   */
+  private static final Map<Path, MetsUpdateCoordinator> COORDINATORS = new ConcurrentHashMap<>();
+  /**
+   * Executor shared by all coordinators.
+   */
+  private static final ExecutorService DEFAULT_EXECUTOR = Executors.newCachedThreadPool(new ThreadFactory() {
+    /**
+     * Number of created threads.
+     */
+    private final AtomicInteger noOfThreads = new AtomicInteger();
+
+    @Override
+    public Thread newThread(final Runnable runnable) {
+      Thread thread = new Thread(runnable, "mets-update-" + noOfThreads.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  });
+
+  /**
+   * Queued file.
+   */
+  private static class Entry {
+
+    /**
+     * USE of file group.
+     */
+    private final String use;
+    /**
+     * ID of file.
+     */
+    private final String id;
+    /**
+     * Mimetype of file.
+     */
+    private final String mimetype;
+    /**
+     * URL of file.
+     */
+    private final String url;
+    /**
+     * ID of page (may be null).
+     */
+    private final String pageId;
+    /**
+     * Future completed after writing.
+     */
+    private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+    /**
+     * Constructor.
+     *
+     * @param use USE of file group.
+     * @param id ID of file.
+     * @param mimetype Mimetype of file.
+     * @param url URL of file.
+     * @param pageId ID of page.
+     */
+    Entry(final String use, final String id, final String mimetype, final String url, final String pageId) {
+      this.use = use;
+      this.id = id;
+      this.mimetype = mimetype;
+      this.url = url;
+      this.pageId = pageId;
+    }
+  }
+  /**
+   * METS file.
+   */
+  private final Path metsFile;
+  /**
+   * Lock file.
+   */
+  private final Path lockFile;
+  /**
+   * Executor running the writes.
+   */
+  private final Executor executor;
+  /**
+   * Queued files.
+   */
+  private final ConcurrentLinkedQueue<Entry> queue = new ConcurrentLinkedQueue<>();
+  /**
+   * Is a write task scheduled or running?
+   */
+  private final AtomicBoolean scheduled = new AtomicBoolean();
+  /**
+   * Number of rewrites of METS.
+   */
+  private final AtomicLong numberOfWrites = new AtomicLong();
+  /**
+   * Maximum number of files per rewrite.
+   */
+  private volatile int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+
+  /**
+   * Constructor.
+   *
+   * @param metsFile METS file.
+   * @param executor Executor running the writes.
+   */
+  MetsUpdateCoordinator(final Path metsFile, final Executor executor) {
+    this.metsFile = metsFile;
+    this.lockFile = getLockFile(metsFile);
+    this.executor = executor;
+  }
+
+  /**
+   * Get coordinator of METS file. There is one coordinator per METS file and
+   * JVM.
+   *
+   * @param metsFile METS file.
+   * @return Coordinator.
+   */
+  public static MetsUpdateCoordinator getInstance(final Path metsFile) {
+    return COORDINATORS.computeIfAbsent(metsFile.toAbsolutePath().normalize(), path -> new MetsUpdateCoordinator(path, DEFAULT_EXECUTOR));
+  }
+
+  /**
+   * Get lock file of METS file.
+   *
+   * @param metsFile METS file.
+   * @return Lock file (may not exist).
+   */
+  public static Path getLockFile(final Path metsFile) {
+    return metsFile.resolveSibling(metsFile.getFileName().toString() + LOCK_SUFFIX);
+  }
+
+  /**
+   * Add file to METS. (See MetsWriter.addFile)
+   *
+   * @param use USE of file group (created if missing).
+   * @param id ID of file.
+   * @param mimetype Mimetype of file.
+   * @param url URL of file.
+   * @param pageId ID of page linking the file (may be null).
+   * @return Future completed after the file was written to METS.
+   * @throws IllegalArgumentException USE, ID, MIMETYPE or URL is null.
+   */
+  public CompletableFuture<Void> addFile(final String use, final String id, final String mimetype, final String url, final String pageId) {
+    if (use == null || id == null || mimetype == null || url == null) {
+      throw new IllegalArgumentException("USE, ID, MIMETYPE and URL must not be null!");
+    }
+    Entry entry = new Entry(use, id, mimetype, url, pageId);
+    queue.add(entry);
+    if (scheduled.compareAndSet(false, true)) {
+      executor.execute(this::drain);
+    }
+    return entry.future;
+  }
+
+  /**
+   * Get number of rewrites of METS done by this coordinator.
+   *
+   * @return Number of rewrites.
+   */
+  public long getNumberOfWrites() {
+    return numberOfWrites.get();
+  }
+
+  /**
+   * Set maximum number of files per rewrite.
+   *
+   * @param maxBatchSize Maximum number of files.
+   */
+  public void setMaxBatchSize(final int maxBatchSize) {
+    if (maxBatchSize < 1) {
+      throw new IllegalArgumentException("Batch size has to be positive!");
+    }
+    this.maxBatchSize = maxBatchSize;
+  }
+
+  /**
+   * Write queued files until queue is empty.
+   */
+  private void drain() {
+    boolean done = false;
+    try {
+      while (true) {
+        List<Entry> batch = new ArrayList<>();
+        for (Entry entry; batch.size() < maxBatchSize && (entry = queue.poll()) != null;) {
+          batch.add(entry);
+        }
+        if (batch.isEmpty()) {
+          scheduled.set(false);
+          // Files added after polling but before resetting the flag.
+          if (queue.isEmpty() || !scheduled.compareAndSet(false, true)) {
+            done = true;
+            return;
+          }
+        } else {
+          try {
+            writeBatch(batch);
+          } catch (Error error) {
+            for (Entry entry : batch) {
+              entry.future.completeExceptionally(error);
+            }
+            throw error;
+          }
+        }
+      }
+    } finally {
+      // Otherwise an error would prevent scheduling of further writes.
+      if (!done) {
+        scheduled.set(false);
+      }
+    }
+  }
+
+  /**
+   * Write batch. If writing fails, files are written one by one.
+   *
+   * @param batch Files to add.
+   */
+  private void writeBatch(final List<Entry> batch) {
+    MetsWriter writer = new MetsWriter();
+    List<Entry> accepted = new ArrayList<>();
+    for (Entry entry : batch) {
+      try {
+        writer.addFile(entry.use, entry.id, entry.mimetype, entry.url, entry.pageId);
+        accepted.add(entry);
+      } catch (IllegalArgumentException iae) {
+        // Arguments are checked by addFile, so ID was already added.
+        entry.future.completeExceptionally(new WorkspaceException(MetsWriter.DUPLICATE_ID + entry.id, iae));
+      }
+    }
+    if (accepted.isEmpty()) {
+      return;
+    }
+    try {
+      write(writer);
+      LOGGER.debug("Added {} file(s) to '{}' in one rewrite", accepted.size(), metsFile);
+      for (Entry entry : accepted) {
+        entry.future.complete(null);
+      }
+    } catch (RuntimeException ex) {
+      if (accepted.size() > 1) {
+        LOGGER.debug("Rewrite of '{}' failed, add files one by one", metsFile);
+        for (Entry entry : accepted) {
+          writeBatch(Collections.singletonList(entry));
+        }
+      } else {
+        accepted.get(0).future.completeExceptionally(ex);
+      }
+    }
+  }
+
+  /**
+   * Write METS while holding the lock file.
+   *
+   * @param writer Writer holding all additions.
+   */
+  private void write(final MetsWriter writer) {
+    try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+      // Lock is released by closing the channel.
+      channel.lock();
+      writer.write(metsFile);
+      numberOfWrites.incrementAndGet();
+    } catch (IOException ioe) {
+      String message = ERROR_LOCKING_METS + lockFile;
+      LOGGER.error(message, ioe);
+      throw new WorkspaceException(message, ioe);
+    }
+  }
+}
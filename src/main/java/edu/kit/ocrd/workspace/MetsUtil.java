@@ -15,18 +15,34 @@
  */
 package edu.kit.ocrd.workspace;
 
-import edu.kit.ocrd.workspace.entity.GroundTruthProperties;
+import edu.kit.ocrd.workspace.entity.MetsMetadata;
 import edu.kit.ocrd.workspace.exception.WorkspaceException;
+import edu.kit.ocrd.workspace.index.DocumentBackend;
+import edu.kit.ocrd.workspace.index.MetsIndex;
+import edu.kit.ocrd.workspace.validation.CheckScheduler;
+import edu.kit.ocrd.workspace.validation.RemoteFileChecker;
+import edu.kit.ocrd.workspace.validation.RuleProfile;
+import edu.kit.ocrd.workspace.validation.ValidationCheck;
+import edu.kit.ocrd.workspace.validation.ValidationProfile;
+import edu.kit.ocrd.workspace.validation.ValidationResult;
+import edu.kit.ocrd.workspace.validation.ValidationScope;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
 import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
 import org.apache.tika.Tika;
 import org.fzk.tools.xml.JaxenUtil;
 import org.jdom.Document;
@@ -60,6 +76,11 @@ public class MetsUtil {
    * Logger.
    */
   private static final Logger LOGGER = LoggerFactory.getLogger(MetsUtil.class);
+  /**
+   * Shared instance for detecting mimetypes. Tika is thread safe and very
+   * expensive to initialize, so it is created only once.
+   */
+  static final Tika TIKA = new Tika();
   /**
    * Namespaces used inside METS documents.
    */
@@ -165,6 +186,26 @@ public class MetsUtil {
      dummyMap.put(PHYSICAL_SEQUENCE, "//mets:div[@TYPE='physSequence']");
      metsMap = Collections.unmodifiableMap(dummyMap);
   }
+  /**
+   * Name of check node validating the schema.
+   */
+  private static final String SCHEMA_NODE = "schema";
+  /**
+   * Name of check node parsing the document.
+   */
+  private static final String DOCUMENT_NODE = "document";
+  /**
+   * Name of check node building the index.
+   */
+  private static final String INDEX_NODE = "index";
+  /**
+   * Name of check node validating the files.
+   */
+  private static final String FILES_NODE = "files";
+  /**
+   * Mimetype of PAGE files.
+   */
+  public static final String PAGE_MIMETYPE = "application/vnd.prima.page+xml";
   /**
    * Error messages: Missing identifier!
    */
@@ -193,6 +234,30 @@ public class MetsUtil {
    * Error messages: Wrong mimetype
    */
   public static final String WRONG_MIMETYPE = "Wrong mimetype for ID: ";
+  /**
+   * Error messages: Mimetype not allowed by rule profile.
+   */
+  public static final String MIMETYPE_NOT_ALLOWED = "Mimetype not allowed in filegrp with USE: ";
+  /**
+   * Error messages: Remote file not available.
+   */
+  public static final String REMOTE_FILE_NOT_AVAILABLE = "Remote file not available: ";
+  /**
+   * Warn messages: File not referenced by METS.
+   */
+  public static final String ORPHANED_FILE = "File not referenced by METS: ";
+  /**
+   * Error messages: Wrong checksum.
+   */
+  public static final String WRONG_CHECKSUM = "Wrong checksum for ID: ";
+  /**
+   * Error messages: Checksum without checksum type.
+   */
+  public static final String MISSING_CHECKSUM_TYPE = "Missing CHECKSUMTYPE for ID: ";
+  /**
+   * Error messages: Error reading file.
+   */
+  public static final String ERROR_READING_FILE = "Error reading file: ";
   /**
    * Error messages: Invalid XML
    */
@@ -216,253 +281,403 @@ public class MetsUtil {
    * OCR-D-GT-IMG-...) not a must
    *
    * @param metsDocument METS document.
+   * @param pathToMets Directory containing METS document.
    *
    * @return List with all found files.
    */
   public static boolean validateMetsFiles(Document metsDocument, Path pathToMets) {
-    boolean valid = true;
+    return validateMetsFiles(metsDocument, pathToMets, ValidationProfile.STANDARD);
+  }
+
+  /**
+   * Validate all files referenced by METS document. Only the file checks
+   * selected by the given profile are executed. Tests: - unique name for USE
+   * - same mimetype inside file grp - existence of files - mimetype of files -
+   * PAGE files valid against page.xsd - image URLs of PAGE files.
+   *
+   * @param metsDocument METS document.
+   * @param pathToMets Directory containing METS document.
+   * @param profile Selected checks.
+   *
+   * @return valid or Exception if not.
+   */
+  public static boolean validateMetsFiles(Document metsDocument, Path pathToMets, ValidationProfile profile) {
+    return validateMetsFiles(MetsIndex.build(metsDocument), pathToMets, profile);
+  }
+
+  /**
+   * Validate all files referenced by index of METS document. Only the file
+   * checks selected by the given profile are executed.
+   *
+   * @param metsIndex Index of METS document.
+   * @param pathToMets Directory containing METS document.
+   * @param profile Selected checks.
+   *
+   * @return valid or Exception if not.
+   */
+  public static boolean validateMetsFiles(MetsIndex metsIndex, Path pathToMets, ValidationProfile profile) {
+    ValidationResult result = new ValidationResult();
+    validateMetsFiles(metsIndex, pathToMets, profile, result);
+    if (!result.isValid()) {
+      LOGGER.error(result.getErrors().toString());
+    }
+    return result.assertValid();
+  }
+
+  /**
+   * Validate all files referenced by index of METS document. Only the file
+   * checks selected by the given profile are executed. All errors are
+   * reported to the given result.
+   *
+   * @param metsIndex Index of METS document.
+   * @param pathToMets Directory containing METS document.
+   * @param profile Selected checks.
+   * @param result Result collecting all errors.
+   */
+  public static void validateMetsFiles(MetsIndex metsIndex, Path pathToMets, ValidationProfile profile, ValidationResult result) {
+    validateMetsFiles(metsIndex, pathToMets, profile, null, result);
+  }
+
+  /**
+   * Validate only the files of the selected pages and file groups. The
+   * selection is resolved via the index of METS, so the costs depend on the
+   * number of selected files only. All errors are reported to the given
+   * result in ORDER of the pages.
+   *
+   * @param metsIndex Index of METS document.
+   * @param pathToMets Directory containing METS document.
+   * @param profile Selected checks.
+   * @param scope Selected pages and file groups.
+   * @param remoteFileChecker Checker for remote files (may be null).
+   * @param result Result collecting all errors.
+   * @see PageShardUtil#validatePages(edu.kit.ocrd.workspace.index.MetsIndex, java.nio.file.Path, edu.kit.ocrd.workspace.validation.ValidationProfile, edu.kit.ocrd.workspace.validation.RemoteFileChecker, java.util.concurrent.ForkJoinPool, edu.kit.ocrd.workspace.validation.ValidationScope, edu.kit.ocrd.workspace.validation.ValidationResult)
+   */
+  public static void validateMetsFiles(MetsIndex metsIndex, Path pathToMets, ValidationProfile profile, ValidationScope scope, RemoteFileChecker remoteFileChecker, ValidationResult result) {
+    PageShardUtil.validatePages(metsIndex, pathToMets, profile.without(ValidationCheck.FEATURES), remoteFileChecker, PageShardUtil.getDefaultPool(), scope, result);
+  }
+
+  /**
+   * Validate all files referenced by index of METS document. Only the file
+   * checks selected by the given profile are executed. If a remote file
+   * checker is given, existence and mimetype (Content-Type) of remote files
+   * (http/https) are also checked, otherwise remote files are ignored. All
+   * errors are reported to the given result.
+   *
+   * @param metsIndex Index of METS document.
+   * @param pathToMets Directory containing METS document.
+   * @param profile Selected checks.
+   * @param remoteFileChecker Checker for remote files (may be null).
+   * @param result Result collecting all errors.
+   */
+  public static void validateMetsFiles(MetsIndex metsIndex, Path pathToMets, ValidationProfile profile, RemoteFileChecker remoteFileChecker, ValidationResult result) {
     Set<String> fileGrp = new HashSet<>();
-    int noOfFileGrps = 0;
     String mimetypeOfGroup;
-    StringBuffer message = new StringBuffer();
-    String newLine = System.getProperties().getProperty("line.separator");
-    Tika tika = new Tika();
+    boolean checkExistence = profile.contains(ValidationCheck.FILE_EXISTENCE);
+    boolean checkMimetype = profile.contains(ValidationCheck.MIME_TYPE);
+    boolean checkChecksum = profile.contains(ValidationCheck.CHECKSUM);
+    boolean accessFiles = profile.isFileAccessNeeded();
+    RuleProfile rules = profile.getRules();
+    List<Path> pageFiles = new ArrayList<>();
+    Set<String> urls = new HashSet<>();
+    // Findings in order of files, content of files is checked asynchronously.
+    List<CompletableFuture<ValidationResult>> findings = new ArrayList<>();
+    ValidationResult fileResult = new ValidationResult();
+    findings.add(CompletableFuture.completedFuture(fileResult));
     LOGGER.info("Validate files from METS document.");
-    List nodes = JaxenUtil.getNodes(metsDocument, metsMap.get(FILE_GROUPS), namespaces);
-    LOGGER.trace("Found {} fileGrp(s)", nodes.size());
-    for (Object node : nodes) {
-      Element fileGrpElement = (Element) node;
-      String use = JaxenUtil.getAttributeValue(fileGrpElement, "./@USE");
-      noOfFileGrps++;
-      fileGrp.add(use);
-      if (fileGrp.size() < noOfFileGrps) {
-        message.append(USE_FILE_GRP_NOT_UNIQUE).append(use).append(newLine);
-        valid = false;
+    // Each directory is listed only once instead of testing each file.
+    Path[] localFiles = new Path[metsIndex.getNumberOfFiles()];
+    Map<Path, Set<String>> directories = new HashMap<>();
+    if (accessFiles) {
+      for (int file = 0; file < localFiles.length; file++) {
+        String url = metsIndex.getFileUrl(file);
+        if (url != null && !RemoteFileChecker.isRemote(url)) {
+          // Resolve on the file system of METS (may be a zip file system).
+          localFiles[file] = pathToMets.getFileSystem().getPath(pathToMets.toString(), url).normalize();
+          directories.put(localFiles[file].getParent(), null);
+        }
+      }
+      listDirectories(directories);
+    }
+    LOGGER.trace("Found {} fileGrp(s)", metsIndex.getNumberOfFileGrps());
+    for (int grp = 0; grp < metsIndex.getNumberOfFileGrps(); grp++) {
+      String use = metsIndex.getFileGrpUse(grp);
+      if (!fileGrp.add(use)) {
+        fileResult.addError(USE_FILE_GRP_NOT_UNIQUE + use);
       }
-      List fileNodes = JaxenUtil.getNodes(fileGrpElement, "./mets:file", namespaces);
-      LOGGER.trace("Found fileGrp with USE: {} containing {} file(s)", use, fileNodes.size());
+      int[] files = metsIndex.getFilesOfFileGrp(grp);
+      LOGGER.trace("Found fileGrp with USE: {} containing {} file(s)", use, files.length);
       mimetypeOfGroup = null;
-      for (Object node2 : fileNodes) {
-        Element fileElement = (Element) node2;
-        String id = JaxenUtil.getAttributeValue(fileElement, "./@ID");
-        String pageId;
-        try {
-          pageId = JaxenUtil.getAttributeValue(metsDocument, "//mets:div[./mets:fptr/@FILEID='" + id + "']/@ID", namespaces);
-        } catch (ArrayIndexOutOfBoundsException aioobe) {
-          // Try to find pageId using old style
-          pageId = JaxenUtil.getAttributeValue(fileElement, "./@GROUPID");
-        }
-        String mimetype = JaxenUtil.getAttributeValue(fileElement, "./@MIMETYPE");
+      for (int file : files) {
+        String id = metsIndex.getFileId(file);
+        String mimetype = metsIndex.getFileMimetype(file);
         if (mimetypeOfGroup != null) {
-          if (!mimetype.equals(mimetypeOfGroup)) {
-            message.append(DIFFERENT_MIMETYPES).append(use).append(newLine);
-            valid = false;
+          if (!mimetypeOfGroup.equals(mimetype)) {
+            fileResult.addError(DIFFERENT_MIMETYPES + use);
           }
         } else {
           mimetypeOfGroup = mimetype;
         }
-        String url = JaxenUtil.getAttributeValue(fileElement, "./mets:FLocat/@xlink:href", namespaces);
-        LOGGER.trace("Found file with id: {}, pageId: {}, mimetype: {}, url: {}", id, pageId, mimetype, url);
+        if (checkMimetype && !rules.isMimetypeAllowed(use, mimetype)) {
+          fileResult.addError(MIMETYPE_NOT_ALLOWED + use + " (ID: " + id + ", " + mimetype + ")");
+        }
+        String url = metsIndex.getFileUrl(file);
+        urls.add(url);
+        LOGGER.trace("Found file with id: {}, pageId: {}, mimetype: {}, url: {}", id, metsIndex.getPageIdOfFile(file), mimetype, url);
         // validate entries
         Path metsFile;
-        if (url.startsWith("http://")) {
+        CompletableFuture<ValidationResult> contentResult = null;
+        if (!accessFiles || url == null) {
           // ignore
+        } else if (RemoteFileChecker.isRemote(url)) {
+          if (remoteFileChecker != null) {
+            contentResult = remoteFileChecker.check(url).thenApply(response -> validateRemoteFile(response, id, mimetype, url, checkExistence, checkMimetype));
+          }
         } else {
-          metsFile = Paths.get(pathToMets.toString(), url);
-          try {
-            if (!metsFile.toFile().exists()) {
-              message.append(FILE_NOT_EXISTS).append(url).append(newLine);
-              valid = false;
-              continue;
+          metsFile = localFiles[file];
+          if (!directories.get(metsFile.getParent()).contains(metsFile.getFileName().toString())) {
+            if (checkExistence) {
+              fileResult.addError(FILE_NOT_EXISTS + url);
             }
-            String tikaMimetype = tika.detect(metsFile);
-            if (mimetype.equals("application/vnd.prima.page+xml")) {
-              // Additional tests for page files
-            } else if (!tikaMimetype.equals(mimetype)) {
-              message.append(WRONG_MIMETYPE).append(id).append(newLine);
-              valid = false;
-            }
-            if (tikaMimetype.startsWith("image")) {
-              // TODO: Test for image resolution X/Y Resolution > 150
-              // Not activated as most images have no valid values! 
-//              try {
-//                Parser parser = new AutoDetectParser();
-//                BodyContentHandler handler = new BodyContentHandler();
-//                Metadata metadata = new Metadata();
-//                FileInputStream inputstream = new FileInputStream(metsFile.toFile());
-//                ParseContext context = new ParseContext();
-//
-//                parser.parse(inputstream, handler, metadata, context);
-//
-//                if (Integer.parseInt(metadata.get("X Resolution")) < 150) {
-//                  message.append("Image resolution to low for image ").append(url).append(newLine);
-//                  valid = false;
-//                }
-//              } catch (SAXException ex) {
-//                java.util.logging.Logger.getLogger(MetsUtil.class.getName()).log(Level.SEVERE, null, ex);
-//              } catch (TikaException ex) {
-//                java.util.logging.Logger.getLogger(MetsUtil.class.getName()).log(Level.SEVERE, null, ex);
-//              }
-            }
-          } catch (IOException ex) {
-            LOGGER.error(ex.getMessage(), ex);
-            throw new WorkspaceException(message.toString(), ex);
+            continue;
+          }
+          boolean detectMimetype = checkMimetype && !PAGE_MIMETYPE.equals(mimetype);
+          String checksumType = checkChecksum ? getChecksumType(metsIndex, file, fileResult) : null;
+          if (detectMimetype || checksumType != null) {
+            // File is read only once for mimetype and checksum.
+            String checksum = metsIndex.getFileChecksum(file);
+            contentResult = FileScanUtil.scanAsync(metsFile, detectMimetype ? TIKA : null, checksumType).handle((scan, ex) -> validateFileScan(scan, ex, id, mimetype, checksum, url));
+          }
+          if (PAGE_MIMETYPE.equals(mimetype)) {
+            // Additional tests for page files
+            pageFiles.add(metsFile);
           }
+          // TODO: Test for image resolution X/Y Resolution > 150
+          // Not activated as most images have no valid values! 
+        }
+        if (contentResult != null) {
+          findings.add(contentResult);
+          fileResult = new ValidationResult();
+          findings.add(CompletableFuture.completedFuture(fileResult));
         }
       }
     }
-    if (!valid) {
-      LOGGER.error(message.toString());
-      throw new WorkspaceException(message.toString());
+    for (CompletableFuture<ValidationResult> finding : findings) {
+      result.merge(finding.join());
+    }
+    if (checkExistence) {
+      reportOrphanedFiles(directories, localFiles, pathToMets, result);
+    }
+    for (Path pageFile : pageFiles) {
+      try {
+        if (profile.contains(ValidationCheck.PAGE_SCHEMA)) {
+          PageUtil.validatePage(pageFile);
+        }
+        if (profile.contains(ValidationCheck.IMAGE_URL)) {
+          PageUtil.validateImageUrl(pageFile, urls);
+        }
+        if (profile.contains(ValidationCheck.COORDS)) {
+          PageUtil.validateCoords(pageFile, result);
+        }
+      } catch (WorkspaceException wse) {
+        result.addError(wse.getMessage());
+      }
     }
-    return valid;
   }
 
   /**
-   * Extract all metadata from METS.
-   *
-   * @param metsDocument METS file.
-   * @return MetsMetadata holding all metadata.
+   * Get algorithm for verifying the checksum of a file. Missing or unsupported
+   * algorithms are reported to the given result.
    *
-   * @throws Exception An error occurred during parsing METS file.
-   */
-  public static boolean validateMetadataFromMets(final Document metsDocument) throws Exception {
-    boolean valid = true;
-    // define XPaths
-    Element root = metsDocument.getRootElement();
-    String[] values = JaxenUtil.getValues(root, metsMap.get(TITLE), namespaces);
-    if (values.length >= 1) {
-      // validate title
+   * @param metsIndex Index of METS document.
+   * @param file Index of file.
+   * @param result Result collecting all errors.
+   * @return Algorithm or null if checksum can't be verified.
+   */
+  static String getChecksumType(final MetsIndex metsIndex, final int file, final ValidationResult result) {
+    if (metsIndex.getFileChecksum(file) == null) {
+      return null;
     }
-    values = JaxenUtil.getValues(root, metsMap.get(SUB_TITLE), namespaces);
-    if (values.length >= 1) {
-      // validate subTitle
+    String checksumType = metsIndex.getFileChecksumType(file);
+    if (checksumType == null) {
+      result.addError(MISSING_CHECKSUM_TYPE + metsIndex.getFileId(file));
+    } else if (ChecksumUtil.getAlgorithmName(checksumType) == null) {
+      result.addError(ChecksumUtil.UNSUPPORTED_ALGORITHM + checksumType + " (" + metsIndex.getFileId(file) + ")");
+      checksumType = null;
     }
-    values = JaxenUtil.getValues(root, metsMap.get(YEAR), namespaces);
-    if (values.length >= 1) {
-      // validate Year
-    }
-    values = JaxenUtil.getValues(root, metsMap.get(LICENSE), namespaces);
-    if (values.length >= 1) {
-      StringBuilder builder = new StringBuilder();
-      for (int i = 0; i < values.length; i++) {
-        if (values[i].trim().length() > 0) {
-          if (builder.length() > 0) {
-            builder.append(", ");
+    return checksumType;
+  }
+
+  /**
+   * List the content of the given directories. A missing directory results
+   * in an empty set.
+   *
+   * @param directories Map with all directories as keys. The (file) names of
+   * each directory are added as value.
+   */
+  static void listDirectories(final Map<Path, Set<String>> directories) {
+    for (Map.Entry<Path, Set<String>> directory : directories.entrySet()) {
+      Set<String> names = new HashSet<>();
+      if (directory.getKey() != null) {
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory.getKey())) {
+          for (Path entry : entries) {
+            names.add(entry.getFileName().toString());
           }
-          builder.append(values[i]);
+        } catch (NoSuchFileException | NotDirectoryException ex) {
+          LOGGER.trace("Directory '{}' doesn't exist.", directory.getKey());
+        } catch (IOException ex) {
+          LOGGER.error(ex.getMessage(), ex);
+          throw new WorkspaceException(ERROR_READING_FILE + directory.getKey(), ex);
         }
       }
-      // validate License
+      directory.setValue(names);
     }
-    values = JaxenUtil.getValues(root, metsMap.get(AUTHOR), namespaces);
-    if (values.length >= 1) {
-      // validate Author
+  }
+
+  /**
+   * Report all files not referenced by METS as warnings. Only the listed
+   * directories (except the directory of METS) are taken into account.
+   *
+   * @param directories All listed directories with their entries. (Entries
+   * referenced by METS are removed)
+   * @param localFiles All local files referenced by METS.
+   * @param pathToMets Directory containing METS document.
+   * @param result Result collecting all warnings.
+   */
+  static void reportOrphanedFiles(final Map<Path, Set<String>> directories, final Path[] localFiles, final Path pathToMets, final ValidationResult result) {
+    for (Path localFile : localFiles) {
+      if (localFile != null) {
+        directories.get(localFile.getParent()).remove(localFile.getFileName().toString());
+      }
     }
-    values = JaxenUtil.getValues(root, metsMap.get(NUMBER_OF_IMAGES), namespaces);
-    if (values.length >= 1) {
-      // validate NoOfPages
+    Path metsDirectory = pathToMets.normalize();
+    for (Map.Entry<Path, Set<String>> directory : directories.entrySet()) {
+      if (directory.getKey() == null || directory.getKey().equals(metsDirectory)) {
+        continue;
+      }
+      List<String> orphans = new ArrayList<>(directory.getValue());
+      Collections.sort(orphans);
+      for (String orphan : orphans) {
+        Path orphanedFile = directory.getKey().resolve(orphan);
+        if (Files.isRegularFile(orphanedFile)) {
+          result.addWarning(ORPHANED_FILE + metsDirectory.relativize(orphanedFile));
+        }
+      }
     }
+  }
 
-    values = JaxenUtil.getValues(root, metsMap.get(PUBLISHER), namespaces);
-    if (values.length >= 1) {
-      // validate Publisher
-    }
-    values = JaxenUtil.getValues(root, metsMap.get(PHYSICAL_DESCRIPTION), namespaces);
-    if (values.length >= 1) {
-      // validate PhysicalDescription 
+  /**
+   * Validate result of scanning a local file.
+   *
+   * @param scan Result of scan (null if an error occurred).
+   * @param error Error while scanning file (null if scan succeeded).
+   * @param id ID of file.
+   * @param mimetype Mimetype defined in METS.
+   * @param checksum Checksum defined in METS.
+   * @param url URL of file.
+   * @return Findings.
+   */
+  static ValidationResult validateFileScan(FileScanUtil.FileScan scan, Throwable error, String id, String mimetype, String checksum, String url) {
+    ValidationResult result = new ValidationResult();
+    if (error != null) {
+      LOGGER.error(ERROR_READING_FILE + url, error);
+      result.addError(ERROR_READING_FILE + url);
+    } else {
+      if (scan.getMimetype() != null && !scan.getMimetype().equals(mimetype)) {
+        result.addError(WRONG_MIMETYPE + id);
+      }
+      if (scan.getChecksum() != null && !scan.getChecksum().equalsIgnoreCase(checksum.trim())) {
+        result.addError(WRONG_CHECKSUM + id);
+      }
     }
-    values = JaxenUtil.getValues(root, metsMap.get(PPN), namespaces);
-    if (values.length >= 1) {
-      // validate Ppn
+    return result;
+  }
+
+  /**
+   * Validate response for a remote file.
+   *
+   * @param response Response of remote file checker.
+   * @param id ID of file.
+   * @param mimetype Mimetype defined in METS.
+   * @param url URL of file.
+   * @param checkExistence Report missing files.
+   * @param checkMimetype Report wrong mimetypes.
+   * @return Findings.
+   */
+  static ValidationResult validateRemoteFile(RemoteFileChecker.Response response, String id, String mimetype, String url, boolean checkExistence, boolean checkMimetype) {
+    ValidationResult result = new ValidationResult();
+    if (!response.isAvailable()) {
+      if (checkExistence) {
+        result.addError(REMOTE_FILE_NOT_AVAILABLE + url + " (" + response + ")");
+      }
+    } else if (checkMimetype && response.getContentType() != null
+            && !response.getContentType().equalsIgnoreCase(mimetype)) {
+      result.addError(WRONG_MIMETYPE + id);
     }
-    return valid;
+    return result;
   }
 
   /**
-   * Extract all language metadata from METS.
+   * Extract all metadata from METS.
    *
    * @param metsDocument METS file.
-   * @return List of LanguageMetadata holding all language metadata.
+   * @return true (metadata is not mandatory).
+   *
+   * @throws Exception An error occurred during parsing METS file.
+   */
+  public static boolean validateMetadataFromMets(final Document metsDocument) throws Exception {
+    // All fields are collected in one pass. Nothing is mandatory up to now.
+    MetsMetadata metadata = MetadataUtil.extractMetadata(metsDocument);
+    LOGGER.debug("Metadata of METS: {}", metadata);
+    return true;
+  }
+
+  /**
+   * Validate language metadata from METS.
+   *
+   * @param metsDocument METS file.
+   * @return true (language is not mandatory).
    *
    * @throws Exception An error occurred during parsing METS file.
    */
   public static boolean validateLanguageMetadataFromMets(final Document metsDocument) throws Exception {
-    boolean valid = false;
-    Element root = metsDocument.getRootElement();
-    String[] values = JaxenUtil.getValues(root, metsMap.get(LANGUAGE), namespaces);
-    if (values.length >= 1) {
-      for (String language : values) {
-        if (language.trim().length() > 1) {
-          valid = true; // validate Language
-        }
-      }
-    }
-    if (!valid) {
-      String message = MISSING_LANGUAGE;
-      LOGGER.warn(message);
-      //throw new WorkspaceException(message);
-      //Not mandatory
-      valid = true;
-    }
-    return valid;
+    return validateMetadataField(metsDocument, "language").isValid();
   }
 
   /**
-   * Extract all classification metadata from METS.
+   * Validate classification metadata from METS.
    *
    * @param metsDocument METS file.
-   * @return List of ClassificationMetadata holding all classification metadata.
+   * @return true (classification is not mandatory).
    *
    * @throws Exception An error occurred during parsing METS file.
    */
   public static boolean validateClassificationMetadataFromMets(final Document metsDocument) throws Exception {
-    boolean valid = false;
-    Element root = metsDocument.getRootElement();
-    String[] values = JaxenUtil.getValues(root, metsMap.get(CLASSIFICATION), namespaces);
-    if (values.length >= 1) {
-      for (String classification : values) {
-        if (classification.trim().length() > 1) {
-          valid = true; // validate Classification
-        }
-      }
-    }
-    if (!valid) {
-      String message = MISSING_CLASSIFICATION;
-      LOGGER.warn(message);
-      //throw new WorkspaceException(message);
-      //Not mandatory
-      valid = true;
-    }
-    return valid;
+    return validateMetadataField(metsDocument, "classification").isValid();
   }
 
   /**
-   * Extract all genre metadata from METS.
+   * Validate genre metadata from METS.
    *
    * @param metsDocument METS file.
-   * @return List of ClassificationMetadata holding all genre metadata.
+   * @return true (genre is not mandatory).
    *
    * @throws Exception An error occurred during parsing METS file.
    */
   public static boolean validateGenreMetadataFromMets(final Document metsDocument) throws Exception {
-    boolean valid = false;
-    Element root = metsDocument.getRootElement();
-    String[] values = JaxenUtil.getValues(root, metsMap.get(GENRE), namespaces);
-    if (values.length >= 1) {
-      for (String genre : values) {
-        if (genre.trim().length() > 1) {
-          valid = true;   // validate Genre
-        }
-      }
-    }
-    if (!valid) {
-      String message = MISSING_GENRE;
-      LOGGER.warn(message);
-      //throw new WorkspaceException(message);
-      valid = true;
-    }
-    return valid;
+    return validateMetadataField(metsDocument, "genre").isValid();
+  }
+
+  /**
+   * Validate one field of metadata from METS with the default rule.
+   *
+   * @param metsDocument METS file.
+   * @param field Name of field (e.g. 'language').
+   * @return Result of validation.
+   *
+   * @throws Exception An error occurred during parsing METS file.
+   */
+  static ValidationResult validateMetadataField(final Document metsDocument, final String field) throws Exception {
+    return MetadataUtil.validateMetadata(metsDocument, Collections.singletonList(RuleProfile.DEFAULT.getFieldRule(field)));
   }
 
   /**
@@ -472,27 +687,42 @@ public class MetsUtil {
    * @return true or Exception if not valid.
    */
   public static boolean validateFeaturesFromMets(final Document metsDocument) {
+    return validateFeaturesFromMets(MetsIndex.build(metsDocument));
+  }
+
+  /**
+   * Validate all ground truth metadata of all pages using index of METS.
+   *
+   * @param metsIndex Index of METS document.
+   * @return true or Exception if not valid.
+   */
+  public static boolean validateFeaturesFromMets(final MetsIndex metsIndex) {
+    return validateFeaturesFromMets(metsIndex, RuleProfile.DEFAULT);
+  }
+
+  /**
+   * Validate all ground truth metadata of all pages using index of METS.
+   * Labels declared as additional labels by the rules are also valid.
+   *
+   * @param metsIndex Index of METS document.
+   * @param rules Rules declaring additional labels.
+   * @return true or Exception if not valid.
+   */
+  public static boolean validateFeaturesFromMets(final MetsIndex metsIndex, final RuleProfile rules) {
     boolean valid = true;
     String invalidSemanticLabel = null;
-    Element root = metsDocument.getRootElement();
-    List physicalList = JaxenUtil.getNodes(root, metsMap.get(PHYSICAL_MAP), namespaces);
-    if (!physicalList.isEmpty()) {
-      Element structMap = (Element) physicalList.get(0);
-      List pageList = JaxenUtil.getNodes(structMap, metsMap.get(PAGE_NODES), namespaces);
-      if (!pageList.isEmpty()) {
-        for (Object pageObject : pageList) {
-          // Determine order, id and dmdid. 
-          Element pageNode = (Element) pageObject;
-          String order = XmlUtil.getAttribute(pageNode, "ORDER");
-          String id = XmlUtil.getAttribute(pageNode, "ID");
-          String dmdId = XmlUtil.getAttribute(pageNode, "DMDID");
-          String[] features = JaxenUtil.getValues(root, "//mets:dmdSec[@ID='" + dmdId + "']/mets:mdWrap[@OTHERMDTYPE='GT']/mets:xmlData/gt:gt/gt:state/@prop", namespaces);
-          for (String feature : features) {
-            // validate PageMetadata
-            if (GroundTruthProperties.get(feature) == null) {
-              invalidSemanticLabel = feature;
-              valid = false;
-            }
+    for (int page = 0; page < metsIndex.getNumberOfPages(); page++) {
+      String dmdIds = metsIndex.getPageDmdId(page);
+      if (dmdIds == null) {
+        continue;
+      }
+      // DMDID may hold a list of IDs.
+      for (String dmdId : dmdIds.trim().split("\\s+")) {
+        for (String feature : metsIndex.getGroundTruthProperties(dmdId)) {
+          // validate PageMetadata
+          if (!rules.isFeatureAllowed(feature)) {
+            invalidSemanticLabel = feature;
+            valid = false;
           }
         }
       }
@@ -556,6 +786,22 @@ public class MetsUtil {
     return valid;
   }
 
+  /**
+   * Exactly one physical map has to be present.
+   *
+   * @param metsIndex Index of METS document.
+   * @return valid or Exception if not.
+   */
+  public static boolean validatePhysicalMap(MetsIndex metsIndex) {
+    boolean valid = metsIndex.getNumberOfPhysicalSequences() == 1;
+    if (!valid) {
+      String message = MISSING_PHYSICAL_MAP;
+      LOGGER.error(message);
+      throw new WorkspaceException(message);
+    }
+    return valid;
+  }
+
   /**
    * Validate mets file against mets.xsd
    * (http://www.loc.gov/standards/mets/mets.xsd)
@@ -564,6 +810,18 @@ public class MetsUtil {
    * @return valid or Exception if not.
    */
   public static boolean validateMets(File metsFile) {
+    return validateMets(metsFile.toPath());
+  }
+
+  /**
+   * Validate mets file against mets.xsd
+   * (http://www.loc.gov/standards/mets/mets.xsd). The path may belong to any
+   * file system (e.g. entry of a zip file).
+   *
+   * @param metsFile Mets file
+   * @return valid or Exception if not.
+   */
+  public static boolean validateMets(Path metsFile) {
     boolean valid = false;
     valid = XmlUtil.validateXml(metsFile);
     return valid;
@@ -575,18 +833,188 @@ public class MetsUtil {
    *
    * @param metsFile Mets file
    * @return valid or Exception if not.
-   * @throws java.lang.Exception Errors found!
    */
   public static boolean validateCompleteMets(File metsFile) {
-    boolean valid;
-    valid = MetsUtil.validateMets(metsFile);
-    Document metsDocument = XmlUtil.getDocument(metsFile);
+    return validateCompleteMets(metsFile, ValidationProfile.STANDARD);
+  }
 
-    valid |= MetsUtil.validateUniqueIdentifier(metsDocument);
-    valid |= MetsUtil.validateFeaturesFromMets(metsDocument);
-    valid |= MetsUtil.validatePhysicalMap(metsDocument);
-    valid |= MetsUtil.validateMetsFiles(metsDocument, metsFile.toPath().getParent());
+  /**
+   * Validate mets file using the checks selected by the given profile. The
+   * METS document is only parsed if needed by at least one check and the
+   * referenced files are only accessed if needed.
+   *
+   * @param metsFile Mets file
+   * @param profile Selected checks.
+   * @return valid or Exception if not.
+   */
+  public static boolean validateCompleteMets(File metsFile, ValidationProfile profile) {
+    return validate(metsFile, profile).assertValid();
+  }
 
-    return valid;
+  /**
+   * Validate mets file using the checks selected by the given profile. The
+   * path may belong to any file system (e.g. entry of a zip file). All
+   * referenced files are resolved on the same file system.
+   *
+   * @param metsFile Mets file
+   * @param profile Selected checks.
+   * @return valid or Exception if not.
+   */
+  public static boolean validateCompleteMets(Path metsFile, ValidationProfile profile) {
+    return validate(metsFile, profile).assertValid();
+  }
+
+  /**
+   * Validate mets file using the checks selected by the given profile.
+   * Independent checks run in parallel:
+   * <pre>
+   * schema -+-&gt; structMap
+   *         +-&gt; document -+-&gt; identifier
+   *                       +-&gt; metadata
+   *                       +-&gt; index -+-&gt; features
+   *                                  +-&gt; physicalMap
+   *                                  +-&gt; naming
+   *                                  +-&gt; files
+   * </pre>
+   * If a check fails, all checks depending on it are skipped. The findings are
+   * returned in the order shown above.
+   *
+   * @param metsFile Mets file
+   * @param profile Selected checks.
+   * @return All findings.
+   */
+  public static ValidationResult validate(final File metsFile, final ValidationProfile profile) {
+    return validate(metsFile.toPath(), profile);
+  }
+
+  /**
+   * Validate mets file using the checks selected by the given profile. The
+   * path may belong to any file system (e.g. entry of a zip file). All
+   * referenced files are resolved on the same file system.
+   *
+   * @param metsFile Mets file
+   * @param profile Selected checks.
+   * @return All findings.
+   * @see #validate(java.io.File, edu.kit.ocrd.workspace.validation.ValidationProfile)
+   */
+  public static ValidationResult validate(final Path metsFile, final ValidationProfile profile) {
+    return validate(metsFile, profile, null);
+  }
+
+  /**
+   * Validate mets file using the checks selected by the given profile. If a
+   * remote file checker is given also the remote files (http/https) are
+   * checked.
+   *
+   * @param metsFile Mets file
+   * @param profile Selected checks.
+   * @param remoteFileChecker Checker for remote files (may be null).
+   * @return All findings.
+   * @see #validate(java.io.File, edu.kit.ocrd.workspace.validation.ValidationProfile)
+   */
+  public static ValidationResult validate(final Path metsFile, final ValidationProfile profile, final RemoteFileChecker remoteFileChecker) {
+    return validate(metsFile, profile, remoteFileChecker, null);
+  }
+
+  /**
+   * Validate mets file using the checks selected by the given profile. If a
+   * pool is given the checks of the pages (ground truth labels and referenced
+   * files) are split into one shard per page executed by the pool.
+   *
+   * @param metsFile Mets file
+   * @param profile Selected checks.
+   * @param remoteFileChecker Checker for remote files (may be null).
+   * @param pagePool Pool validating the pages (null for validating all files
+   * as one unit).
+   * @return All findings.
+   * @see PageShardUtil#validatePages(edu.kit.ocrd.workspace.index.MetsIndex, java.nio.file.Path, edu.kit.ocrd.workspace.validation.ValidationProfile, edu.kit.ocrd.workspace.validation.RemoteFileChecker, java.util.concurrent.ForkJoinPool, edu.kit.ocrd.workspace.validation.ValidationResult)
+   */
+  public static ValidationResult validate(final Path metsFile, final ValidationProfile profile, final RemoteFileChecker remoteFileChecker, final ForkJoinPool pagePool) {
+    return validate(metsFile, profile, remoteFileChecker, pagePool, XmlUtil.getDocumentBackend());
+  }
+
+  /**
+   * Validate mets file using the checks selected by the given profile and the
+   * given backend for building the index of METS. (The backend selected via
+   * XmlUtil stays untouched.)
+   *
+   * @param metsFile Mets file
+   * @param profile Selected checks.
+   * @param remoteFileChecker Checker for remote files (may be null).
+   * @param pagePool Pool validating the pages (null for validating all files
+   * as one unit).
+   * @param backend Backend building the index of METS.
+   * @return All findings.
+   */
+  public static ValidationResult validate(final Path metsFile, final ValidationProfile profile, final RemoteFileChecker remoteFileChecker, final ForkJoinPool pagePool, final DocumentBackend backend) {
+    LOGGER.debug("Validate '{}' with profile {} (backend: {})", metsFile, profile, backend);
+    final AtomicReference<Document> metsDocument = new AtomicReference<>();
+    final AtomicReference<MetsIndex> metsIndex = new AtomicReference<>();
+    CheckScheduler scheduler = new CheckScheduler();
+    String[] root = {};
+    if (profile.contains(ValidationCheck.SCHEMA)) {
+      scheduler.add(SCHEMA_NODE, result -> validateMets(metsFile));
+      root = new String[]{SCHEMA_NODE};
+    }
+    if (profile.contains(ValidationCheck.STRUCT_MAP)) {
+      // Streams through METS, so no parsed document is needed.
+      scheduler.add(ValidationCheck.STRUCT_MAP.toString(), result -> StructMapUtil.validateStructure(metsFile, result), root);
+    }
+    if (profile.isDocumentNeeded()) {
+      // With JDOM the index is built from the document, other backends build
+      // the index directly and the document is only parsed if needed.
+      boolean jdom = backend == DocumentBackend.JDOM;
+      if (jdom || profile.containsAny(ValidationCheck.IDENTIFIER, ValidationCheck.METADATA)) {
+        scheduler.add(DOCUMENT_NODE, result -> metsDocument.set(XmlUtil.getDocument(metsFile)), root);
+      }
+      if (profile.containsAny(ValidationCheck.FEATURES, ValidationCheck.PHYSICAL_MAP, ValidationCheck.NAMING) || profile.isFileAccessNeeded()) {
+        if (jdom) {
+          scheduler.add(INDEX_NODE, result -> metsIndex.set(MetsIndex.build(metsDocument.get())), DOCUMENT_NODE);
+        } else {
+          scheduler.add(INDEX_NODE, result -> metsIndex.set(backend.buildMetsIndex(metsFile)), root);
+        }
+      }
+      if (profile.contains(ValidationCheck.IDENTIFIER)) {
+        scheduler.add(ValidationCheck.IDENTIFIER.toString(), result -> validateUniqueIdentifier(metsDocument.get()), DOCUMENT_NODE);
+      }
+      if (profile.contains(ValidationCheck.FEATURES) && pagePool == null) {
+        scheduler.add(ValidationCheck.FEATURES.toString(), result -> validateFeaturesFromMets(metsIndex.get(), profile.getRules()), INDEX_NODE);
+      }
+      if (profile.contains(ValidationCheck.PHYSICAL_MAP)) {
+        scheduler.add(ValidationCheck.PHYSICAL_MAP.toString(), result -> validatePhysicalMap(metsIndex.get()), INDEX_NODE);
+      }
+      if (profile.contains(ValidationCheck.NAMING)) {
+        scheduler.add(ValidationCheck.NAMING.toString(), result -> NamingConventionUtil.validateNames(metsIndex.get(), result), INDEX_NODE);
+      }
+      if (profile.contains(ValidationCheck.METADATA)) {
+        scheduler.add(ValidationCheck.METADATA.toString(), result -> validateAllMetadata(metsDocument.get(), profile.getRules(), result), DOCUMENT_NODE);
+      }
+      if (pagePool != null) {
+        if (profile.contains(ValidationCheck.FEATURES) || profile.isFileAccessNeeded()) {
+          scheduler.add(FILES_NODE, result -> PageShardUtil.validatePages(metsIndex.get(), metsFile.toAbsolutePath().getParent(), profile, remoteFileChecker, pagePool, result), INDEX_NODE);
+        }
+      } else if (profile.isFileAccessNeeded()) {
+        scheduler.add(FILES_NODE, result -> validateMetsFiles(metsIndex.get(), metsFile.toAbsolutePath().getParent(), profile, remoteFileChecker, result), INDEX_NODE);
+      }
+    }
+    ValidationResult result = scheduler.run();
+    if (!result.isValid()) {
+      LOGGER.error(result.getErrors().toString());
+    }
+    return result;
+  }
+
+  /**
+   * Validate all descriptive metadata (metadata, language, classification,
+   * genre). The metadata is extracted once and checked by all metadata rules.
+   *
+   * @param metsDocument Document of Mets file
+   * @param rules Rules declaring the mandatory and recommended fields.
+   * @param result Result collecting all findings.
+   */
+  private static void validateAllMetadata(final Document metsDocument, final RuleProfile rules, final ValidationResult result) {
+    MetsMetadata metadata = MetadataUtil.extractMetadata(metsDocument);
+    LOGGER.debug("Metadata of METS: {}", metadata);
+    MetadataUtil.validateMetadata(metadata, rules.getMetadataRules(), result);
   }
 }
@@ -0,0 +1,767 @@
+/*
+ * Copyright 2019 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace;
+
+import edu.kit.ocrd.workspace.exception.WorkspaceException;
+import edu.kit.ocrd.workspace.index.MetsIndex;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.stream.XMLStreamWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Adds files, file groups and file pointers to a METS file without loading
+ * the document. The METS file is copied event by event (StAX) and the new
+ * elements are spliced in:
+ * - new files at the end of the (first) file group with the given USE
+ * - new file groups at the end of mets:fileSec (a new mets:fileSec is
+ * inserted before the first mets:structMap if missing)
+ * - new file pointers in front of the child divs of the page
+ * (mets:structMap[@TYPE='PHYSICAL']//mets:div[@TYPE='page'][@ID=pageId])
+ *
+ * The result is written to a temporary file next to the target which is
+ * synced to disk and renamed afterwards, so readers never see an incomplete
+ * METS. If an error occurs (e.g. unknown page, duplicate ID) the target stays
+ * untouched.
+ * Indentation of the new elements is taken from the document.
+ */
+public class MetsWriter {
+
+  /**
+   * Error writing METS.
+   */
+  public static final String ERROR_WRITING_METS = "Error writing METS: ";
+  /**
+   * Document is not METS.
+   */
+  public static final String NO_METS = "Root element is not mets:mets: ";
+  /**
+   * ID of new file already exists.
+   */
+  public static final String DUPLICATE_ID = "ID of new file already exists: ";
+  /**
+   * Page of new file not found.
+   */
+  public static final String UNKNOWN_PAGE = "Page of new file not found: ";
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(MetsWriter.class);
+  /**
+   * Factory for writers.
+   */
+  private static final XMLOutputFactory XML_OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+  /**
+   * Frame of file section.
+   */
+  private static final int FILE_SEC = 1;
+  /**
+   * Frame of file group.
+   */
+  private static final int FILE_GRP = 2;
+  /**
+   * Frame of physical structure map.
+   */
+  private static final int PHYSICAL_MAP = 3;
+  /**
+   * Frame of page.
+   */
+  private static final int PAGE = 4;
+  /**
+   * Frame of any other element.
+   */
+  private static final int OTHER = 0;
+
+  /**
+   * New file.
+   */
+  private static class NewFile {
+
+    /**
+     * ID of file.
+     */
+    private final String id;
+    /**
+     * Mimetype of file.
+     */
+    private final String mimetype;
+    /**
+     * URL of file.
+     */
+    private final String url;
+
+    /**
+     * Constructor.
+     *
+     * @param id ID of file.
+     * @param mimetype Mimetype of file.
+     * @param url URL of file.
+     */
+    NewFile(final String id, final String mimetype, final String url) {
+      this.id = id;
+      this.mimetype = mimetype;
+      this.url = url;
+    }
+  }
+
+  /**
+   * Open element while copying.
+   */
+  private static class Frame {
+
+    /**
+     * Type of frame.
+     */
+    private final int type;
+    /**
+     * USE of file group or ID of page.
+     */
+    private final String key;
+    /**
+     * Are file pointers still to be inserted? (pages only)
+     */
+    private boolean pending;
+
+    /**
+     * Constructor.
+     *
+     * @param type Type of frame.
+     * @param key USE of file group or ID of page.
+     */
+    Frame(final int type, final String key) {
+      this.type = type;
+      this.key = key;
+    }
+  }
+  /**
+   * New files by USE of file group (in order of adding).
+   */
+  private final Map<String, List<NewFile>> filesByFileGrp = new LinkedHashMap<>();
+  /**
+   * IDs of new files by ID of page.
+   */
+  private final Map<String, List<String>> fileIdsByPage = new LinkedHashMap<>();
+  /**
+   * IDs of all new files.
+   */
+  private final Set<String> newIds = new HashSet<>();
+
+  /**
+   * Add file group. (Only needed for empty file groups.)
+   *
+   * @param use USE of file group.
+   * @return Writer
+   */
+  public MetsWriter addFileGrp(final String use) {
+    if (use == null) {
+      throw new IllegalArgumentException("USE must not be null!");
+    }
+    if (!filesByFileGrp.containsKey(use)) {
+      filesByFileGrp.put(use, new ArrayList<>());
+    }
+    return this;
+  }
+
+  /**
+   * Add file.
+   *
+   * @param use USE of file group (created if missing).
+   * @param id ID of file.
+   * @param mimetype Mimetype of file.
+   * @param url URL of file.
+   * @param pageId ID of page linking the file (may be null).
+   * @return Writer
+   */
+  public MetsWriter addFile(final String use, final String id, final String mimetype, final String url, final String pageId) {
+    if (id == null || mimetype == null || url == null) {
+      throw new IllegalArgumentException("ID, MIMETYPE and URL must not be null!");
+    }
+    if (!newIds.add(id)) {
+      throw new IllegalArgumentException("File '" + id + "' already added!");
+    }
+    addFileGrp(use);
+    filesByFileGrp.get(use).add(new NewFile(id, mimetype, url));
+    if (pageId != null) {
+      List<String> fileIds = fileIdsByPage.get(pageId);
+      if (fileIds == null) {
+        fileIds = new ArrayList<>();
+        fileIdsByPage.put(pageId, fileIds);
+      }
+      fileIds.add(id);
+    }
+    return this;
+  }
+
+  /**
+   * Write all additions to METS file (in place).
+   *
+   * @param metsFile METS file.
+   */
+  public void write(final Path metsFile) {
+    write(metsFile, metsFile);
+  }
+
+  /**
+   * Copy METS file with all additions.
+   *
+   * @param source METS file.
+   * @param target Updated METS file (may be the same as source).
+   */
+  public void write(final Path source, final Path target) {
+    Path tempFile = null;
+    boolean success = false;
+    try {
+      // Unique name, so concurrent writers never share the temporary file.
+      Path directory = target.toAbsolutePath().getParent();
+      tempFile = Files.createTempFile(directory, target.getFileName().toString() + ".", ".tmp");
+      copyPermissions(Files.exists(target) ? target : source, tempFile);
+      try (InputStream inputStream = Files.newInputStream(source);
+              FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+        OutputStream outputStream = new BufferedOutputStream(Channels.newOutputStream(channel));
+        new Copy().copy(source, inputStream, outputStream);
+        outputStream.flush();
+        // Content has to be on disk before the rename.
+        channel.force(true);
+      }
+      try {
+        Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException amnse) {
+        Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+      }
+      success = true;
+      // Rename has to be on disk before the additions are reported as written.
+      syncDirectory(directory);
+      LOGGER.debug("Added {} file(s) to '{}'", newIds.size(), target);
+    } catch (IOException | XMLStreamException ex) {
+      String message = ERROR_WRITING_METS + target;
+      LOGGER.error(message, ex);
+      throw new WorkspaceException(message, ex);
+    } finally {
+      if (!success && tempFile != null) {
+        try {
+          Files.deleteIfExists(tempFile);
+        } catch (IOException ioe) {
+          LOGGER.warn("Can't delete '{}'", tempFile);
+        }
+      }
+    }
+  }
+
+  /**
+   * Force directory entries to disk. Ignored on platforms not able to open
+   * directories (e.g. Windows).
+   *
+   * @param directory Directory.
+   */
+  private static void syncDirectory(final Path directory) {
+    try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+      channel.force(true);
+    } catch (IOException | UnsupportedOperationException ex) {
+      LOGGER.debug("Can't sync directory '{}'", directory, ex);
+    }
+  }
+
+  /**
+   * Copy POSIX permissions (temporary files are only accessible by owner).
+   *
+   * @param source File providing permissions.
+   * @param target File getting permissions.
+   * @throws IOException Error setting permissions.
+   */
+  private static void copyPermissions(final Path source, final Path target) throws IOException {
+    try {
+      Files.setPosixFilePermissions(target, Files.getPosixFilePermissions(source));
+    } catch (UnsupportedOperationException uoe) {
+      LOGGER.trace("No POSIX permissions for '{}'", target);
+    }
+  }
+
+  /**
+   * State of a single copy.
+   */
+  private class Copy {
+
+    /**
+     * Reader.
+     */
+    private XMLStreamReader reader;
+    /**
+     * Writer.
+     */
+    private XMLStreamWriter writer;
+    /**
+     * Open elements.
+     */
+    private final List<Frame> frames = new ArrayList<>();
+    /**
+     * Indentation by depth (root element has depth 1).
+     */
+    private final Map<Integer, String> indentByDepth = new HashMap<>();
+    /**
+     * Whitespace not yet written.
+     */
+    private String pendingWhitespace;
+    /**
+     * Whitespace seen last.
+     */
+    private String lastWhitespace;
+    /**
+     * Start tag not yet written. (Written as empty element if end follows.)
+     */
+    private StartTag pendingStart;
+    /**
+     * Prefix of METS namespace.
+     */
+    private String metsPrefix = "mets";
+    /**
+     * Prefix of xlink namespace (null if not declared at root).
+     */
+    private String xlinkPrefix;
+    /**
+     * File groups already written.
+     */
+    private final Set<String> writtenFileGrps = new HashSet<>();
+    /**
+     * Pages already linked.
+     */
+    private final Set<String> linkedPages = new HashSet<>();
+    /**
+     * Was mets:fileSec found?
+     */
+    private boolean fileSecFound = false;
+
+    /**
+     * Copy METS.
+     *
+     * @param source Path of METS (for messages).
+     * @param inputStream METS.
+     * @param outputStream Updated METS.
+     * @throws XMLStreamException Error reading or writing xml.
+     */
+    void copy(final Path source, final InputStream inputStream, final OutputStream outputStream) throws XMLStreamException {
+      reader = XmlUtil.createXMLStreamReader(inputStream);
+      try {
+        String encoding = reader.getCharacterEncodingScheme() != null ? reader.getCharacterEncodingScheme() : "UTF-8";
+        writer = XML_OUTPUT_FACTORY.createXMLStreamWriter(outputStream, encoding);
+        writer.writeStartDocument(encoding, reader.getVersion() != null ? reader.getVersion() : "1.0");
+        writer.writeCharacters("\n");
+        while (reader.hasNext()) {
+          int event = reader.next();
+          if (event == XMLStreamConstants.END_ELEMENT) {
+            endElement();
+            continue;
+          }
+          writePendingStart();
+          switch (event) {
+            case XMLStreamConstants.START_ELEMENT:
+              startElement(source);
+              break;
+            case XMLStreamConstants.CHARACTERS:
+            case XMLStreamConstants.SPACE:
+              if (reader.isWhiteSpace() && !frames.isEmpty()) {
+                flushWhitespace();
+                pendingWhitespace = reader.getText();
+                lastWhitespace = pendingWhitespace;
+              } else {
+                flushWhitespace();
+                writer.writeCharacters(reader.getText());
+              }
+              break;
+            case XMLStreamConstants.CDATA:
+              flushWhitespace();
+              writer.writeCData(reader.getText());
+              break;
+            case XMLStreamConstants.COMMENT:
+              flushWhitespace();
+              writer.writeComment(reader.getText());
+              break;
+            case XMLStreamConstants.PROCESSING_INSTRUCTION:
+              flushWhitespace();
+              writer.writeProcessingInstruction(reader.getPITarget(), reader.getPIData());
+              break;
+            case XMLStreamConstants.ENTITY_REFERENCE:
+              flushWhitespace();
+              writer.writeEntityRef(reader.getLocalName());
+              break;
+            case XMLStreamConstants.END_DOCUMENT:
+              writer.writeEndDocument();
+              break;
+            default:
+              break;
+          }
+        }
+        for (String fileGrp : filesByFileGrp.keySet()) {
+          if (!writtenFileGrps.contains(fileGrp)) {
+            throw new WorkspaceException(ERROR_WRITING_METS + "no mets:fileSec and mets:structMap in " + source);
+          }
+        }
+        for (String pageId : fileIdsByPage.keySet()) {
+          if (!linkedPages.contains(pageId)) {
+            throw new WorkspaceException(UNKNOWN_PAGE + pageId);
+          }
+        }
+        writer.flush();
+      } finally {
+        reader.close();
+        if (writer != null) {
+          writer.close();
+        }
+      }
+    }
+
+    /**
+     * Handle start of element.
+     *
+     * @param source Path of METS (for messages).
+     * @throws XMLStreamException Error writing xml.
+     */
+    private void startElement(final Path source) throws XMLStreamException {
+      int depth = frames.size() + 1;
+      if (lastWhitespace != null) {
+        int newline = lastWhitespace.lastIndexOf('\n');
+        if (newline >= 0 && !indentByDepth.containsKey(depth)) {
+          indentByDepth.put(depth, lastWhitespace.substring(newline + 1));
+        }
+        lastWhitespace = null;
+      }
+      String localName = reader.getLocalName();
+      boolean mets = MetsIndex.METS_NAMESPACE.equals(reader.getNamespaceURI());
+      Frame parent = frames.isEmpty() ? null : frames.get(frames.size() - 1);
+      if (parent == null) {
+        if (!mets || !"mets".equals(localName)) {
+          throw new WorkspaceException(NO_METS + source);
+        }
+        metsPrefix = reader.getPrefix() != null ? reader.getPrefix() : "";
+        for (int index = 0; index < reader.getNamespaceCount(); index++) {
+          if (MetsIndex.XLINK_NAMESPACE.equals(reader.getNamespaceURI(index)) && reader.getNamespacePrefix(index) != null) {
+            xlinkPrefix = reader.getNamespacePrefix(index);
+          }
+        }
+      } else if (mets && depth == 2 && "structMap".equals(localName) && !fileSecFound) {
+        // Insert new file section in front of first structMap.
+        fileSecFound = true;
+        if (!filesByFileGrp.isEmpty()) {
+          newline(depth);
+          writer.writeStartElement(metsPrefix, "fileSec", MetsIndex.METS_NAMESPACE);
+          for (String fileGrp : filesByFileGrp.keySet()) {
+            writeFileGrp(fileGrp, depth + 1);
+          }
+          newline(depth);
+          writer.writeEndElement();
+        }
+      } else if (mets && "div".equals(localName) && parent.type == PAGE && parent.pending) {
+        writeFilePointers(parent, depth);
+      }
+      // IDs have to be unique for all elements (e.g. mets:div, mets:dmdSec).
+      String id = reader.getAttributeValue(null, "ID");
+      if (id != null && newIds.contains(id)) {
+        throw new WorkspaceException(DUPLICATE_ID + id);
+      }
+      flushWhitespace();
+      pendingStart = new StartTag(reader);
+      int type = OTHER;
+      String key = null;
+      if (mets) {
+        switch (localName) {
+          case "fileSec":
+            fileSecFound = true;
+            type = depth == 2 ? FILE_SEC : OTHER;
+            break;
+          case "fileGrp":
+            type = FILE_GRP;
+            key = reader.getAttributeValue(null, "USE");
+            break;
+          case "structMap":
+            type = "PHYSICAL".equals(reader.getAttributeValue(null, "TYPE")) ? PHYSICAL_MAP : OTHER;
+            break;
+          case "div":
+            if (isInPhysicalMap() && "page".equals(reader.getAttributeValue(null, "TYPE"))) {
+              type = PAGE;
+              key = reader.getAttributeValue(null, "ID");
+            }
+            break;
+          default:
+            break;
+        }
+      }
+      Frame frame = new Frame(type, key);
+      if (type == PAGE && key != null && fileIdsByPage.containsKey(key) && linkedPages.add(key)) {
+        frame.pending = true;
+      }
+      frames.add(frame);
+    }
+
+    /**
+     * Handle end of element.
+     *
+     * @throws XMLStreamException Error writing xml.
+     */
+    private void endElement() throws XMLStreamException {
+      int depth = frames.size();
+      Frame frame = frames.remove(depth - 1);
+      lastWhitespace = null;
+      List<String> newFileGrps = new ArrayList<>();
+      List<NewFile> newFiles = new ArrayList<>();
+      if (frame.type == FILE_GRP && frame.key != null && filesByFileGrp.containsKey(frame.key) && writtenFileGrps.add(frame.key)) {
+        newFiles.addAll(filesByFileGrp.get(frame.key));
+      } else if (frame.type == FILE_SEC) {
+        for (String fileGrp : filesByFileGrp.keySet()) {
+          if (!writtenFileGrps.contains(fileGrp)) {
+            newFileGrps.add(fileGrp);
+          }
+        }
+      }
+      boolean insert = !newFiles.isEmpty() || !newFileGrps.isEmpty() || (frame.type == PAGE && frame.pending);
+      if (pendingStart != null && !insert) {
+        pendingStart.write(writer, true);
+        pendingStart = null;
+        return;
+      }
+      writePendingStart();
+      for (NewFile file : newFiles) {
+        writeFile(file, depth + 1);
+      }
+      for (String fileGrp : newFileGrps) {
+        writeFileGrp(fileGrp, depth + 1);
+      }
+      if (frame.type == PAGE && frame.pending) {
+        writeFilePointers(frame, depth + 1);
+      }
+      if (insert && pendingWhitespace == null) {
+        newline(depth);
+      }
+      flushWhitespace();
+      writer.writeEndElement();
+    }
+
+    /**
+     * Is current element inside of physical structure map?
+     *
+     * @return true if inside.
+     */
+    private boolean isInPhysicalMap() {
+      for (Frame frame : frames) {
+        if (frame.type == PHYSICAL_MAP) {
+          return true;
+        }
+      }
+      return false;
+    }
+
+    /**
+     * Write new file group with all its new files.
+     *
+     * @param use USE of file group.
+     * @param depth Depth of file group.
+     * @throws XMLStreamException Error writing xml.
+     */
+    private void writeFileGrp(final String use, final int depth) throws XMLStreamException {
+      writtenFileGrps.add(use);
+      newline(depth);
+      List<NewFile> files = filesByFileGrp.get(use);
+      if (files.isEmpty()) {
+        writer.writeEmptyElement(metsPrefix, "fileGrp", MetsIndex.METS_NAMESPACE);
+        writer.writeAttribute("USE", use);
+      } else {
+        writer.writeStartElement(metsPrefix, "fileGrp", MetsIndex.METS_NAMESPACE);
+        writer.writeAttribute("USE", use);
+        for (NewFile file : files) {
+          writeFile(file, depth + 1);
+        }
+        newline(depth);
+        writer.writeEndElement();
+      }
+    }
+
+    /**
+     * Write new file.
+     *
+     * @param file File.
+     * @param depth Depth of file.
+     * @throws XMLStreamException Error writing xml.
+     */
+    private void writeFile(final NewFile file, final int depth) throws XMLStreamException {
+      newline(depth);
+      writer.writeStartElement(metsPrefix, "file", MetsIndex.METS_NAMESPACE);
+      writer.writeAttribute("ID", file.id);
+      writer.writeAttribute("MIMETYPE", file.mimetype);
+      newline(depth + 1);
+      writer.writeEmptyElement(metsPrefix, "FLocat", MetsIndex.METS_NAMESPACE);
+      String prefix = xlinkPrefix;
+      if (prefix == null) {
+        prefix = "xlink";
+        writer.writeNamespace(prefix, MetsIndex.XLINK_NAMESPACE);
+      }
+      writer.writeAttribute("LOCTYPE", "OTHER");
+      writer.writeAttribute("OTHERLOCTYPE", "FILE");
+      writer.writeAttribute(prefix, MetsIndex.XLINK_NAMESPACE, "href", file.url);
+      newline(depth);
+      writer.writeEndElement();
+    }
+
+    /**
+     * Write new file pointers of page.
+     *
+     * @param page Frame of page.
+     * @param depth Depth of file pointers.
+     * @throws XMLStreamException Error writing xml.
+     */
+    private void writeFilePointers(final Frame page, final int depth) throws XMLStreamException {
+      page.pending = false;
+      for (String fileId : fileIdsByPage.get(page.key)) {
+        newline(depth);
+        writer.writeEmptyElement(metsPrefix, "fptr", MetsIndex.METS_NAMESPACE);
+        writer.writeAttribute("FILEID", fileId);
+      }
+    }
+
+    /**
+     * Write newline and indentation if document is indented.
+     *
+     * @param depth Depth of following element.
+     * @throws XMLStreamException Error writing xml.
+     */
+    private void newline(final int depth) throws XMLStreamException {
+      String indent = indentByDepth.get(depth);
+      if (indent == null && indentByDepth.containsKey(2)) {
+        StringBuilder builder = new StringBuilder();
+        for (int level = 1; level < depth; level++) {
+          builder.append(indentByDepth.get(2));
+        }
+        indent = builder.toString();
+      }
+      if (indent != null) {
+        writer.writeCharacters("\n" + indent);
+      }
+    }
+
+    /**
+     * Write pending start tag (not empty).
+     *
+     * @throws XMLStreamException Error writing xml.
+     */
+    private void writePendingStart() throws XMLStreamException {
+      if (pendingStart != null) {
+        pendingStart.write(writer, false);
+        pendingStart = null;
+      }
+    }
+
+    /**
+     * Write pending whitespace.
+     *
+     * @throws XMLStreamException Error writing xml.
+     */
+    private void flushWhitespace() throws XMLStreamException {
+      if (pendingWhitespace != null) {
+        writer.writeCharacters(pendingWhitespace);
+        pendingWhitespace = null;
+      }
+    }
+  }
+
+  /**
+   * Start tag copied from reader.
+   */
+  private static class StartTag {
+
+    /**
+     * Prefix, local name and namespace of element.
+     */
+    private final String[] name;
+    /**
+     * Prefixes and URIs of declared namespaces.
+     */
+    private final String[] namespaces;
+    /**
+     * Prefix, namespace, local name and value of attributes.
+     */
+    private final String[] attributes;
+
+    /**
+     * Constructor.
+     *
+     * @param reader Reader positioned at start of element.
+     */
+    StartTag(final XMLStreamReader reader) {
+      name = new String[]{reader.getPrefix(), reader.getLocalName(), reader.getNamespaceURI()};
+      namespaces = new String[reader.getNamespaceCount() * 2];
+      for (int index = 0; index < reader.getNamespaceCount(); index++) {
+        namespaces[index * 2] = reader.getNamespacePrefix(index);
+        namespaces[index * 2 + 1] = reader.getNamespaceURI(index);
+      }
+      attributes = new String[reader.getAttributeCount() * 4];
+      for (int index = 0; index < reader.getAttributeCount(); index++) {
+        attributes[index * 4] = reader.getAttributePrefix(index);
+        attributes[index * 4 + 1] = reader.getAttributeNamespace(index);
+        attributes[index * 4 + 2] = reader.getAttributeLocalName(index);
+        attributes[index * 4 + 3] = reader.getAttributeValue(index);
+      }
+    }
+
+    /**
+     * Write start tag.
+     *
+     * @param writer Writer.
+     * @param empty Write empty element.
+     * @throws XMLStreamException Error writing xml.
+     */
+    void write(final XMLStreamWriter writer, final boolean empty) throws XMLStreamException {
+      String prefix = name[0] != null ? name[0] : "";
+      String namespace = name[2] != null ? name[2] : "";
+      if (empty) {
+        writer.writeEmptyElement(prefix, name[1], namespace);
+      } else {
+        writer.writeStartElement(prefix, name[1], namespace);
+      }
+      for (int index = 0; index < namespaces.length; index += 2) {
+        if (namespaces[index] == null || namespaces[index].isEmpty()) {
+          writer.writeDefaultNamespace(namespaces[index + 1] != null ? namespaces[index + 1] : "");
+        } else {
+          writer.writeNamespace(namespaces[index], namespaces[index + 1]);
+        }
+      }
+      for (int index = 0; index < attributes.length; index += 4) {
+        if (attributes[index + 1] == null || attributes[index + 1].isEmpty()) {
+          writer.writeAttribute(attributes[index + 2], attributes[index + 3]);
+        } else {
+          writer.writeAttribute(attributes[index] != null ? attributes[index] : "", attributes[index + 1], attributes[index + 2], attributes[index + 3]);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,221 @@
+/*
+ * Copyright 2019 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace;
+
+import edu.kit.ocrd.workspace.index.MetsIndex;
+import edu.kit.ocrd.workspace.validation.ValidationResult;
+
+/**
+ * Utility checking the naming conventions of file groups and files.
+ * See documentation at: https://ocr-d.github.io/mets
+ * <pre>
+ * USE := "OCR-D-" + PREFIX + WORKFLOW_STEP + ("-" + PROCESSOR)?
+ * PREFIX := ("" | "GT-")
+ * WORKFLOW_STEP := ("IMG" | "SEG" | "OCR" | "COR")
+ * PROCESSOR := [A-Z0-9\-]{3,}
+ *
+ * FILEID := USE + "_" + [0-9]{4}
+ * </pre>
+ * The grammar is deterministic, so each name is checked by a hand-written
+ * scanner reading every character exactly once without backtracking. Names are
+ * read as CharSequence views of the METS index, so no strings are created for
+ * valid names.
+ */
+public class NamingConventionUtil {
+
+  /**
+   * Warning: USE of file group doesn't match naming convention.
+   */
+  public static final String INVALID_FILE_GRP_NAME = "USE of file group doesn't match naming convention: ";
+  /**
+   * Warning: ID of file doesn't match naming convention.
+   */
+  public static final String INVALID_FILE_ID = "ID of file doesn't match naming convention: ";
+  /**
+   * Prefix of all names.
+   */
+  private static final String OCRD_PREFIX = "OCR-D-";
+  /**
+   * Optional prefix for ground truth.
+   */
+  private static final String GT_PREFIX = "GT-";
+  /**
+   * All workflow steps.
+   */
+  private static final String[] WORKFLOW_STEPS = {"IMG", "SEG", "OCR", "COR"};
+  /**
+   * Minimum length of processor.
+   */
+  private static final int MIN_PROCESSOR_LENGTH = 3;
+  /**
+   * Number of digits of page number in file ID.
+   */
+  private static final int PAGE_NUMBER_DIGITS = 4;
+  /**
+   * Result of scanner: name doesn't match.
+   */
+  private static final int NO_MATCH = -1;
+
+  /**
+   * Check naming conventions of all file groups and files. Violations are
+   * reported as warnings.
+   *
+   * @param metsIndex Index of METS document.
+   * @param result Result collecting all warnings.
+   */
+  public static void validateNames(final MetsIndex metsIndex, final ValidationResult result) {
+    for (int fileGrp = 0; fileGrp < metsIndex.getNumberOfFileGrps(); fileGrp++) {
+      String use = metsIndex.getFileGrpUse(fileGrp);
+      if (!isValidFileGrpUse(use)) {
+        result.addWarning(INVALID_FILE_GRP_NAME + use);
+      }
+    }
+    for (int file = 0; file < metsIndex.getNumberOfFiles(); file++) {
+      if (!isValidFileId(metsIndex.getFileIdView(file))) {
+        result.addWarning(INVALID_FILE_ID + metsIndex.getFileId(file));
+      }
+    }
+  }
+
+  /**
+   * Does USE of file group match naming convention?
+   *
+   * @param use USE of file group (may be null).
+   * @return true if USE is valid.
+   */
+  public static boolean isValidFileGrpUse(final CharSequence use) {
+    if (use == null) {
+      return false;
+    }
+    return scanUse(use, use.length()) == use.length();
+  }
+
+  /**
+   * Does ID of file match naming convention?
+   *
+   * @param id ID of file (may be null).
+   * @return true if ID is valid.
+   */
+  public static boolean isValidFileId(final CharSequence id) {
+    if (id == null) {
+      return false;
+    }
+    // Page number is fixed at the end, PROCESSOR may not contain '_'.
+    int end = id.length() - PAGE_NUMBER_DIGITS - 1;
+    if (end < 0 || id.charAt(end) != '_') {
+      return false;
+    }
+    for (int index = end + 1; index < id.length(); index++) {
+      if (!isDigit(id.charAt(index))) {
+        return false;
+      }
+    }
+    return scanUse(id, end) == end;
+  }
+
+  /**
+   * Scan "OCR-D-" + PREFIX + WORKFLOW_STEP + ("-" + PROCESSOR)? up to the
+   * given end.
+   *
+   * @param name Name.
+   * @param end End of USE part.
+   * @return Position after scanned part or NO_MATCH.
+   */
+  private static int scanUse(final CharSequence name, final int end) {
+    int position = scanLiteral(name, 0, OCRD_PREFIX);
+    if (position != NO_MATCH) {
+      // No workflow step starts with "GT-", so prefix is taken if present.
+      int afterPrefix = scanLiteral(name, position, GT_PREFIX);
+      if (afterPrefix != NO_MATCH) {
+        position = afterPrefix;
+      }
+      position = scanId(name, position, end);
+    }
+    return position;
+  }
+
+  /**
+   * Scan WORKFLOW_STEP + ("-" + PROCESSOR)? up to the given end.
+   *
+   * @param name Name.
+   * @param start Start of workflow step.
+   * @param end End of name part.
+   * @return Position after scanned part or NO_MATCH.
+   */
+  private static int scanId(final CharSequence name, final int start, final int end) {
+    int position = NO_MATCH;
+    for (String step : WORKFLOW_STEPS) {
+      position = scanLiteral(name, start, step);
+      if (position != NO_MATCH) {
+        break;
+      }
+    }
+    if (position == NO_MATCH || position > end) {
+      return NO_MATCH;
+    }
+    if (position < end) {
+      if (name.charAt(position) != '-' || end - position - 1 < MIN_PROCESSOR_LENGTH) {
+        return NO_MATCH;
+      }
+      for (position++; position < end; position++) {
+        if (!isProcessorChar(name.charAt(position))) {
+          return NO_MATCH;
+        }
+      }
+    }
+    return position;
+  }
+
+  /**
+   * Scan literal.
+   *
+   * @param name Name.
+   * @param start Start of literal.
+   * @param literal Expected literal.
+   * @return Position after literal or NO_MATCH.
+   */
+  private static int scanLiteral(final CharSequence name, final int start, final String literal) {
+    if (name.length() - start < literal.length()) {
+      return NO_MATCH;
+    }
+    for (int index = 0; index < literal.length(); index++) {
+      if (name.charAt(start + index) != literal.charAt(index)) {
+        return NO_MATCH;
+      }
+    }
+    return start + literal.length();
+  }
+
+  /**
+   * Is character allowed in PROCESSOR? ([A-Z0-9\-])
+   *
+   * @param character Character.
+   * @return true if allowed.
+   */
+  private static boolean isProcessorChar(final char character) {
+    return (character >= 'A' && character <= 'Z') || isDigit(character) || character == '-';
+  }
+
+  /**
+   * Is character an ASCII digit?
+   *
+   * @param character Character.
+   * @return true if digit.
+   */
+  private static boolean isDigit(final char character) {
+    return character >= '0' && character <= '9';
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2019 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace;
+
+import edu.kit.ocrd.workspace.entity.PageCompletenessReport;
+import edu.kit.ocrd.workspace.index.MetsIndex;
+import java.nio.file.Path;
+import java.util.BitSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Utility building the matrix of file groups and pages from the METS index.
+ * Each file is visited once (for each page linking it), so a processor which
+ * silently skipped pages shows up as missing pages of its file group.
+ *
+ * A file belongs to a page if it is linked by the page (mets:fptr) or, if it
+ * isn't linked at all, if its GROUPID is the ID of the page. (old style)
+ */
+public class PageCompletenessUtil {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(PageCompletenessUtil.class);
+
+  /**
+   * Build completeness report of METS file.
+   *
+   * @param metsFile METS file.
+   * @return Report.
+   */
+  public static PageCompletenessReport buildReport(final Path metsFile) {
+    return buildReport(XmlUtil.getMetsIndex(metsFile));
+  }
+
+  /**
+   * Build completeness report from METS index.
+   *
+   * @param metsIndex Index of METS document.
+   * @return Report.
+   */
+  public static PageCompletenessReport buildReport(final MetsIndex metsIndex) {
+    long startTime = System.currentTimeMillis();
+    int noOfPages = metsIndex.getNumberOfPages();
+    int noOfFileGrps = metsIndex.getNumberOfFileGrps();
+    int[] pages = Workspace.sortPagesByOrder(metsIndex);
+    String[] pageIds = new String[noOfPages];
+    int[] pageRank = new int[noOfPages];
+    for (int index = 0; index < noOfPages; index++) {
+      pageRank[pages[index]] = index;
+      pageIds[index] = metsIndex.getPageId(pages[index]);
+    }
+    String[] fileGrps = new String[noOfFileGrps];
+    BitSet[] coveredPages = new BitSet[noOfFileGrps];
+    BitSet[] duplicatePages = new BitSet[noOfFileGrps];
+    for (int fileGrp = 0; fileGrp < noOfFileGrps; fileGrp++) {
+      fileGrps[fileGrp] = metsIndex.getFileGrpUse(fileGrp);
+      coveredPages[fileGrp] = new BitSet(noOfPages);
+      duplicatePages[fileGrp] = new BitSet();
+    }
+    for (int page = 0; page < noOfPages; page++) {
+      int[] files = metsIndex.getFilesOfPage(page);
+      for (int index = 0; index < files.length; index++) {
+        if (files[index] != MetsIndex.NOT_FOUND && !isLinkedBefore(files, index)) {
+          addFile(coveredPages, duplicatePages, metsIndex.getFileGrpOfFile(files[index]), pageRank[page]);
+        }
+      }
+    }
+    for (int file = 0; file < metsIndex.getNumberOfFiles(); file++) {
+      if (metsIndex.getPageOfFile(file) == MetsIndex.NOT_FOUND) {
+        String groupId = metsIndex.getFileGroupId(file);
+        int page = groupId != null ? metsIndex.getPage(groupId) : MetsIndex.NOT_FOUND;
+        if (page != MetsIndex.NOT_FOUND) {
+          addFile(coveredPages, duplicatePages, metsIndex.getFileGrpOfFile(file), pageRank[page]);
+        }
+      }
+    }
+    PageCompletenessReport report = new PageCompletenessReport(fileGrps, pageIds, coveredPages, duplicatePages);
+    LOGGER.debug("Built completeness report in {} ms: {}", System.currentTimeMillis() - startTime, report);
+    return report;
+  }
+
+  /**
+   * Set bit of file group and page. If bit is already set, the page has
+   * duplicate files.
+   *
+   * @param coveredPages Pages with at least one file per file group.
+   * @param duplicatePages Pages with more than one file per file group.
+   * @param fileGrp Index of file group.
+   * @param page Position of page in ORDER.
+   */
+  private static void addFile(final BitSet[] coveredPages, final BitSet[] duplicatePages, final int fileGrp, final int page) {
+    if (coveredPages[fileGrp].get(page)) {
+      duplicatePages[fileGrp].set(page);
+    } else {
+      coveredPages[fileGrp].set(page);
+    }
+  }
+
+  /**
+   * Is the file at the given position already linked before by the same page?
+   * (Lists of files per page are short, so a linear scan is sufficient.)
+   *
+   * @param files Files linked by page.
+   * @param index Position of file.
+   * @return true if file is linked twice.
+   */
+  private static boolean isLinkedBefore(final int[] files, final int index) {
+    for (int before = 0; before < index; before++) {
+      if (files[before] == files[index]) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
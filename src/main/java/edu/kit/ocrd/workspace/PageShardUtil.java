@@ -0,0 +1,678 @@
+/*
+ * Copyright 2019 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace;
+
+import edu.kit.ocrd.workspace.exception.WorkspaceException;
+import edu.kit.ocrd.workspace.index.MetsIndex;
+import edu.kit.ocrd.workspace.validation.RemoteFileChecker;
+import edu.kit.ocrd.workspace.validation.RuleProfile;
+import edu.kit.ocrd.workspace.validation.ValidationCheck;
+import edu.kit.ocrd.workspace.validation.ValidationProfile;
+import edu.kit.ocrd.workspace.validation.ValidationResult;
+import edu.kit.ocrd.workspace.validation.ValidationScope;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Utility validating a workspace page by page. Each physical page
+ * (mets:div[@TYPE='page']) forms one shard holding its ground truth labels
+ * and all files linked via mets:fptr (incl. the PAGE documents). A file linked
+ * by several pages belongs to the first page in ORDER. Files not linked by
+ * any page are validated in an additional last shard.
+ *
+ * The validation may be restricted to selected pages and file groups (see
+ * ValidationScope). The selection is resolved via the index of METS, so only
+ * the selected files are accessed.
+ *
+ * The shards are executed on a work stealing pool, the findings are merged in
+ * ORDER of the pages independent of the order of execution. Checks spanning
+ * the whole workspace (unique USE of fileGrps, one mimetype per fileGrp and
+ * orphaned files) are done outside of the shards.
+ */
+public class PageShardUtil {
+
+  /**
+   * Checks executed per page.
+   */
+  public static final ValidationProfile PAGE_CHECKS = ValidationProfile.of(ValidationCheck.FEATURES,
+          ValidationCheck.FILE_EXISTENCE,
+          ValidationCheck.MIME_TYPE,
+          ValidationCheck.CHECKSUM,
+          ValidationCheck.PAGE_SCHEMA,
+          ValidationCheck.IMAGE_URL,
+          ValidationCheck.COORDS);
+  /**
+   * Error messages: Unknown page.
+   */
+  public static final String UNKNOWN_PAGE = "Unknown page: ";
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(PageShardUtil.class);
+  /**
+   * Pool shared by all validations. (One thread per processor)
+   */
+  private static final ForkJoinPool DEFAULT_POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), pool -> {
+    ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+    thread.setName("page-shard-" + thread.getPoolIndex());
+    thread.setDaemon(true);
+    return thread;
+  }, null, false);
+
+  /**
+   * Everything the shards of one validation share. All fields are only read
+   * while the shards are running.
+   */
+  private static class Context {
+
+    /**
+     * Index of METS document.
+     */
+    private final MetsIndex metsIndex;
+    /**
+     * Checker for remote files (may be null).
+     */
+    private final RemoteFileChecker remoteFileChecker;
+    /**
+     * Validate ground truth labels.
+     */
+    private final boolean checkFeatures;
+    /**
+     * Report missing files.
+     */
+    private final boolean checkExistence;
+    /**
+     * Validate mimetypes.
+     */
+    private final boolean checkMimetype;
+    /**
+     * Validate checksums.
+     */
+    private final boolean checkChecksum;
+    /**
+     * Validate PAGE against schema.
+     */
+    private final boolean checkPageSchema;
+    /**
+     * Validate image URLs inside PAGE.
+     */
+    private final boolean checkImageUrl;
+    /**
+     * Validate coordinates inside PAGE.
+     */
+    private final boolean checkCoords;
+    /**
+     * Any check reading files?
+     */
+    private final boolean accessFiles;
+    /**
+     * Rules used by the selected checks.
+     */
+    private final RuleProfile rules;
+    /**
+     * Selected file groups by index. (null for all file groups)
+     */
+    private final boolean[] fileGrps;
+    /**
+     * Local files by index of file. (null for remote files)
+     */
+    private final Path[] localFiles;
+    /**
+     * Names of all files by directory.
+     */
+    private final Map<Path, Set<String>> directories = new HashMap<>();
+    /**
+     * URLs of all files.
+     */
+    private final Set<String> urls = new HashSet<>();
+    /**
+     * Page of each shard. (NOT_FOUND for files without page)
+     */
+    private final List<Integer> pages = new ArrayList<>();
+    /**
+     * Files of each shard.
+     */
+    private final List<int[]> files = new ArrayList<>();
+
+    /**
+     * Constructor.
+     *
+     * @param metsIndex Index of METS document.
+     * @param profile Selected checks.
+     * @param remoteFileChecker Checker for remote files (may be null).
+     * @param fileGrps Selected file groups by index (null for all).
+     */
+    Context(final MetsIndex metsIndex, final ValidationProfile profile, final RemoteFileChecker remoteFileChecker, final boolean[] fileGrps) {
+      this.metsIndex = metsIndex;
+      this.remoteFileChecker = remoteFileChecker;
+      this.fileGrps = fileGrps;
+      checkFeatures = profile.contains(ValidationCheck.FEATURES);
+      checkExistence = profile.contains(ValidationCheck.FILE_EXISTENCE);
+      checkMimetype = profile.contains(ValidationCheck.MIME_TYPE);
+      checkChecksum = profile.contains(ValidationCheck.CHECKSUM);
+      checkPageSchema = profile.contains(ValidationCheck.PAGE_SCHEMA);
+      checkImageUrl = profile.contains(ValidationCheck.IMAGE_URL);
+      checkCoords = profile.contains(ValidationCheck.COORDS);
+      accessFiles = profile.isFileAccessNeeded();
+      rules = profile.getRules();
+      localFiles = new Path[metsIndex.getNumberOfFiles()];
+    }
+  }
+
+  /**
+   * Task validating a range of shards. The range is split until each task
+   * holds a single shard, idle threads steal the remaining halves.
+   */
+  private static class ShardTask extends RecursiveAction {
+
+    /**
+     * Version of serialized form.
+     */
+    private static final long serialVersionUID = 1L;
+    /**
+     * Context of validation.
+     */
+    private final transient Context context;
+    /**
+     * Findings of all shards.
+     */
+    private final transient ValidationResult[] results;
+    /**
+     * First shard (inclusive).
+     */
+    private final int from;
+    /**
+     * Last shard (exclusive).
+     */
+    private final int to;
+
+    /**
+     * Constructor.
+     *
+     * @param context Context of validation.
+     * @param results Findings of all shards.
+     * @param from First shard (inclusive).
+     * @param to Last shard (exclusive).
+     */
+    ShardTask(final Context context, final ValidationResult[] results, final int from, final int to) {
+      this.context = context;
+      this.results = results;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from > 1) {
+        int middle = (from + to) >>> 1;
+        invokeAll(new ShardTask(context, results, from, middle), new ShardTask(context, results, middle, to));
+      } else if (to > from) {
+        results[from] = validateShard(context, from);
+      }
+    }
+  }
+
+  /**
+   * Get pool shared by all validations. (One thread per processor)
+   *
+   * @return Pool
+   */
+  public static ForkJoinPool getDefaultPool() {
+    return DEFAULT_POOL;
+  }
+
+  /**
+   * Validate mets file using the checks selected by the given profile. The
+   * pages are validated in parallel using the default pool.
+   *
+   * @param metsFile Mets file
+   * @param profile Selected checks.
+   * @return All findings.
+   */
+  public static ValidationResult validate(final Path metsFile, final ValidationProfile profile) {
+    return MetsUtil.validate(metsFile, profile, null, DEFAULT_POOL);
+  }
+
+  /**
+   * Validate ground truth labels and files of the selected pages and file
+   * groups. Checks of the METS document itself are not executed. The pages
+   * and file groups are looked up in the index of METS, so only the selected
+   * files are accessed.
+   *
+   * @param metsFile Mets file
+   * @param profile Selected checks.
+   * @param scope Selected pages and file groups.
+   * @return All findings.
+   */
+  public static ValidationResult validate(final Path metsFile, final ValidationProfile profile, final ValidationScope scope) {
+    ValidationResult result = new ValidationResult();
+    validatePages(XmlUtil.getMetsIndex(metsFile), metsFile.toAbsolutePath().getParent(), profile, null, DEFAULT_POOL, scope, result);
+    return result;
+  }
+
+  /**
+   * Validate ground truth labels and files of all pages. Only the checks
+   * selected by the given profile are executed. All findings are reported to
+   * the given result in ORDER of the pages.
+   *
+   * @param metsIndex Index of METS document.
+   * @param pathToMets Directory containing METS document.
+   * @param profile Selected checks.
+   * @param remoteFileChecker Checker for remote files (may be null).
+   * @param pool Pool executing the shards.
+   * @param result Result collecting all findings.
+   */
+  public static void validatePages(final MetsIndex metsIndex, final Path pathToMets, final ValidationProfile profile, final RemoteFileChecker remoteFileChecker, final ForkJoinPool pool, final ValidationResult result) {
+    validatePages(metsIndex, pathToMets, profile, remoteFileChecker, pool, ValidationScope.ALL, result);
+  }
+
+  /**
+   * Validate ground truth labels and files of the selected pages and file
+   * groups. Files without page are only validated if all pages are selected,
+   * orphaned files only if the whole workspace is selected. Unknown pages
+   * are reported as errors. All findings are reported to the given result in
+   * ORDER of the pages.
+   *
+   * @param metsIndex Index of METS document.
+   * @param pathToMets Directory containing METS document.
+   * @param profile Selected checks.
+   * @param remoteFileChecker Checker for remote files (may be null).
+   * @param pool Pool executing the shards.
+   * @param scope Selected pages and file groups.
+   * @param result Result collecting all findings.
+   */
+  public static void validatePages(final MetsIndex metsIndex, final Path pathToMets, final ValidationProfile profile, final RemoteFileChecker remoteFileChecker, final ForkJoinPool pool,
+          final ValidationScope scope, final ValidationResult result) {
+    int[] pages = scope.isAllPages() ? Workspace.sortPagesByOrder(metsIndex) : selectPages(metsIndex, scope, result);
+    boolean[] fileGrps = null;
+    if (!scope.isAllFileGrps()) {
+      fileGrps = new boolean[metsIndex.getNumberOfFileGrps()];
+      for (int grp = 0; grp < fileGrps.length; grp++) {
+        fileGrps[grp] = scope.containsFileGrp(metsIndex.getFileGrpUse(grp));
+      }
+    }
+    Context context = new Context(metsIndex, profile, remoteFileChecker, fileGrps);
+    validateShards(context, pathToMets, pool, pages, scope.isAllPages(), scope.isAllPages() && scope.isAllFileGrps(), result);
+  }
+
+  /**
+   * Validate ground truth labels and files of a range of pages. The range
+   * refers to the pages sorted by ORDER. The checks spanning the whole
+   * workspace and the files without page are only validated if selected. So
+   * a workspace may be split into several ranges validated independently with
+   * only one of them validating the whole workspace. (Files linked by pages
+   * of different ranges are validated by each of them.)
+   *
+   * @param metsIndex Index of METS document.
+   * @param pathToMets Directory containing METS document.
+   * @param profile Selected checks.
+   * @param remoteFileChecker Checker for remote files (may be null).
+   * @param pool Pool executing the shards.
+   * @param fromPage First page in ORDER (inclusive).
+   * @param toPage Last page in ORDER (exclusive).
+   * @param workspaceChecks Also validate file groups, orphaned files and
+   * files without page.
+   * @param result Result collecting all findings.
+   */
+  public static void validatePages(final MetsIndex metsIndex, final Path pathToMets, final ValidationProfile profile, final RemoteFileChecker remoteFileChecker, final ForkJoinPool pool,
+          final int fromPage, final int toPage, final boolean workspaceChecks, final ValidationResult result) {
+    if (fromPage < 0 || toPage > metsIndex.getNumberOfPages() || fromPage > toPage) {
+      throw new IllegalArgumentException("Invalid page range [" + fromPage + ", " + toPage + ") for " + metsIndex.getNumberOfPages() + " page(s)!");
+    }
+    int[] pages = Arrays.copyOfRange(Workspace.sortPagesByOrder(metsIndex), fromPage, toPage);
+    Context context = new Context(metsIndex, profile, remoteFileChecker, null);
+    validateShards(context, pathToMets, pool, pages, workspaceChecks, workspaceChecks, result);
+  }
+
+  /**
+   * Validate the given pages (one shard each) on the pool.
+   *
+   * @param context Context of validation.
+   * @param pathToMets Directory containing METS document.
+   * @param pool Pool executing the shards.
+   * @param pages Indices of pages in ORDER.
+   * @param allPages Also validate file groups and files without page.
+   * @param workspaceChecks Also report orphaned files.
+   * @param result Result collecting all findings.
+   */
+  private static void validateShards(final Context context, final Path pathToMets, final ForkJoinPool pool, final int[] pages,
+          final boolean allPages, final boolean workspaceChecks, final ValidationResult result) {
+    createShards(context, pages, allPages);
+    if (context.accessFiles) {
+      if (allPages) {
+        validateFileGrps(context, result);
+      }
+      resolveFiles(context, pathToMets, workspaceChecks);
+    }
+    LOGGER.info("Validate {} of {} page(s) in {} shard(s).", pages.length, context.metsIndex.getNumberOfPages(), context.files.size());
+    ValidationResult[] results = new ValidationResult[context.files.size()];
+    pool.invoke(new ShardTask(context, results, 0, results.length));
+    for (ValidationResult shardResult : results) {
+      result.merge(shardResult);
+    }
+    if (context.accessFiles && context.checkExistence && workspaceChecks) {
+      MetsUtil.reportOrphanedFiles(context.directories, context.localFiles, pathToMets, result);
+    }
+  }
+
+  /**
+   * Look up the pages selected by scope. Ranges are resolved in ORDER of the
+   * pages.
+   *
+   * @param metsIndex Index of METS document.
+   * @param scope Selected pages.
+   * @param result Result collecting unknown pages and invalid ranges.
+   * @return Indices of selected pages in ORDER.
+   */
+  private static int[] selectPages(final MetsIndex metsIndex, final ValidationScope scope, final ValidationResult result) {
+    Set<Integer> pages = new TreeSet<>((first, second) -> Workspace.compareOrder(metsIndex, first, second));
+    for (String pageId : scope.getPageIds()) {
+      int page = metsIndex.getPage(pageId);
+      if (page == MetsIndex.NOT_FOUND) {
+        result.addError(UNKNOWN_PAGE + pageId);
+      } else {
+        pages.add(page);
+      }
+    }
+    if (!scope.getPageRanges().isEmpty()) {
+      int[] sortedPages = Workspace.sortPagesByOrder(metsIndex);
+      int[] position = new int[sortedPages.length];
+      for (int index = 0; index < sortedPages.length; index++) {
+        position[sortedPages[index]] = index;
+      }
+      for (String[] range : scope.getPageRanges()) {
+        int first = metsIndex.getPage(range[0]);
+        int last = metsIndex.getPage(range[1]);
+        if (first == MetsIndex.NOT_FOUND || last == MetsIndex.NOT_FOUND) {
+          result.addError(UNKNOWN_PAGE + (first == MetsIndex.NOT_FOUND ? range[0] : range[1]));
+        } else if (position[first] > position[last]) {
+          result.addError(ValidationScope.INVALID_PAGE_RANGE + range[0] + ValidationScope.RANGE_SEPARATOR + range[1]);
+        } else {
+          for (int index = position[first]; index <= position[last]; index++) {
+            pages.add(sortedPages[index]);
+          }
+        }
+      }
+    }
+    int[] selectedPages = new int[pages.size()];
+    int index = 0;
+    for (int page : pages) {
+      selectedPages[index++] = page;
+    }
+    return selectedPages;
+  }
+
+  /**
+   * Validate all file groups. (Unique USE and one mimetype per group)
+   *
+   * @param context Context of validation.
+   * @param result Result collecting all errors.
+   */
+  private static void validateFileGrps(final Context context, final ValidationResult result) {
+    MetsIndex metsIndex = context.metsIndex;
+    Set<String> fileGrp = new HashSet<>();
+    for (int grp = 0; grp < metsIndex.getNumberOfFileGrps(); grp++) {
+      if (context.fileGrps != null && !context.fileGrps[grp]) {
+        continue;
+      }
+      String use = metsIndex.getFileGrpUse(grp);
+      if (!fileGrp.add(use)) {
+        result.addError(MetsUtil.USE_FILE_GRP_NOT_UNIQUE + use);
+      }
+      String mimetypeOfGroup = null;
+      for (int file : metsIndex.getFilesOfFileGrp(grp)) {
+        String mimetype = metsIndex.getFileMimetype(file);
+        if (mimetypeOfGroup == null) {
+          mimetypeOfGroup = mimetype;
+        } else if (!mimetypeOfGroup.equals(mimetype)) {
+          result.addError(MetsUtil.DIFFERENT_MIMETYPES + use);
+        }
+        if (context.checkMimetype && !context.rules.isMimetypeAllowed(use, mimetype)) {
+          result.addError(MetsUtil.MIMETYPE_NOT_ALLOWED + use + " (ID: " + metsIndex.getFileId(file) + ", " + mimetype + ")");
+        }
+      }
+    }
+  }
+
+  /**
+   * Resolve local files and list their directories. URLs of all files are
+   * collected for validating the image URLs of PAGE documents.
+   *
+   * @param context Context of validation.
+   * @param pathToMets Directory containing METS document.
+   * @param allFiles Resolve all files (needed for reporting orphaned files) or
+   * only the files of the shards.
+   */
+  private static void resolveFiles(final Context context, final Path pathToMets, final boolean allFiles) {
+    MetsIndex metsIndex = context.metsIndex;
+    if (allFiles) {
+      for (int file = 0; file < metsIndex.getNumberOfFiles(); file++) {
+        resolveFile(context, pathToMets, file);
+      }
+    } else {
+      for (int[] files : context.files) {
+        for (int file : files) {
+          resolveFile(context, pathToMets, file);
+        }
+      }
+    }
+    if (context.checkImageUrl) {
+      for (int file = 0; file < metsIndex.getNumberOfFiles(); file++) {
+        context.urls.add(metsIndex.getFileUrl(file));
+      }
+    }
+    MetsUtil.listDirectories(context.directories);
+  }
+
+  /**
+   * Resolve a local file and register its directory.
+   *
+   * @param context Context of validation.
+   * @param pathToMets Directory containing METS document.
+   * @param file Index of file.
+   */
+  private static void resolveFile(final Context context, final Path pathToMets, final int file) {
+    String url = context.metsIndex.getFileUrl(file);
+    if (url != null && !RemoteFileChecker.isRemote(url)) {
+      // Resolve on the file system of METS (may be a zip file system).
+      context.localFiles[file] = pathToMets.getFileSystem().getPath(pathToMets.toString(), url).normalize();
+      context.directories.put(context.localFiles[file].getParent(), null);
+    }
+  }
+
+  /**
+   * Create one shard per page and a last shard holding all files without
+   * page. Only files of the selected file groups are taken into account. A
+   * file linked by several pages belongs to the first of them in ORDER.
+   *
+   * @param context Context of validation.
+   * @param pages Indices of pages in ORDER.
+   * @param filesWithoutPage Create shard for files without page.
+   */
+  private static void createShards(final Context context, final int[] pages, final boolean filesWithoutPage) {
+    MetsIndex metsIndex = context.metsIndex;
+    BitSet assigned = new BitSet();
+    for (int page : pages) {
+      int[] filesOfPage = metsIndex.getFilesOfPage(page);
+      int noOfFiles = 0;
+      for (int file : filesOfPage) {
+        if (file != MetsIndex.NOT_FOUND && !assigned.get(file) && isSelected(context, file)) {
+          assigned.set(file);
+          filesOfPage[noOfFiles++] = file;
+        }
+      }
+      context.pages.add(page);
+      context.files.add(Arrays.copyOf(filesOfPage, noOfFiles));
+    }
+    if (filesWithoutPage) {
+      int[] files = new int[metsIndex.getNumberOfFiles()];
+      int noOfFiles = 0;
+      for (int grp = 0; grp < metsIndex.getNumberOfFileGrps(); grp++) {
+        if (context.fileGrps != null && !context.fileGrps[grp]) {
+          continue;
+        }
+        for (int file : metsIndex.getFilesOfFileGrp(grp)) {
+          if (metsIndex.getPageOfFile(file) == MetsIndex.NOT_FOUND) {
+            files[noOfFiles++] = file;
+          }
+        }
+      }
+      if (noOfFiles > 0) {
+        context.pages.add(MetsIndex.NOT_FOUND);
+        context.files.add(Arrays.copyOf(files, noOfFiles));
+      }
+    }
+  }
+
+  /**
+   * Is file part of a selected file group?
+   *
+   * @param context Context of validation.
+   * @param file Index of file.
+   * @return true if file should be validated.
+   */
+  private static boolean isSelected(final Context context, final int file) {
+    return context.fileGrps == null || context.fileGrps[context.metsIndex.getFileGrpOfFile(file)];
+  }
+
+  /**
+   * Validate a single shard.
+   *
+   * @param context Context of validation.
+   * @param shard Index of shard.
+   * @return Findings of shard.
+   */
+  private static ValidationResult validateShard(final Context context, final int shard) {
+    ValidationResult result = new ValidationResult();
+    int page = context.pages.get(shard);
+    if (page != MetsIndex.NOT_FOUND && context.checkFeatures) {
+      validateFeatures(context.metsIndex, context.rules, page, result);
+    }
+    if (context.accessFiles) {
+      for (int file : context.files.get(shard)) {
+        validateFile(context, file, result);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Validate ground truth labels of a page.
+   *
+   * @param metsIndex Index of METS document.
+   * @param rules Rules declaring additional labels.
+   * @param page Index of page.
+   * @param result Result collecting all errors.
+   */
+  private static void validateFeatures(final MetsIndex metsIndex, final RuleProfile rules, final int page, final ValidationResult result) {
+    String dmdIds = metsIndex.getPageDmdId(page);
+    if (dmdIds == null) {
+      return;
+    }
+    // DMDID may hold a list of IDs.
+    for (String dmdId : dmdIds.trim().split("\\s+")) {
+      for (String feature : metsIndex.getGroundTruthProperties(dmdId)) {
+        if (!rules.isFeatureAllowed(feature)) {
+          result.addError(MetsUtil.WRONG_SEMANTIC_LABEL + feature + " (" + metsIndex.getPageId(page) + ")");
+        }
+      }
+    }
+  }
+
+  /**
+   * Validate a single file referenced by METS.
+   *
+   * @param context Context of validation.
+   * @param file Index of file.
+   * @param result Result collecting all errors.
+   */
+  private static void validateFile(final Context context, final int file, final ValidationResult result) {
+    MetsIndex metsIndex = context.metsIndex;
+    String url = metsIndex.getFileUrl(file);
+    if (url == null) {
+      return;
+    }
+    String id = metsIndex.getFileId(file);
+    String mimetype = metsIndex.getFileMimetype(file);
+    if (RemoteFileChecker.isRemote(url)) {
+      if (context.remoteFileChecker != null) {
+        // join() lets the pool compensate the blocked thread.
+        RemoteFileChecker.Response response = context.remoteFileChecker.check(url).join();
+        result.merge(MetsUtil.validateRemoteFile(response, id, mimetype, url, context.checkExistence, context.checkMimetype));
+      }
+      return;
+    }
+    Path localFile = context.localFiles[file];
+    if (!context.directories.get(localFile.getParent()).contains(localFile.getFileName().toString())) {
+      if (context.checkExistence) {
+        result.addError(MetsUtil.FILE_NOT_EXISTS + url);
+      }
+      return;
+    }
+    boolean detectMimetype = context.checkMimetype && !MetsUtil.PAGE_MIMETYPE.equals(mimetype);
+    String checksumType = context.checkChecksum ? MetsUtil.getChecksumType(metsIndex, file, result) : null;
+    if (detectMimetype || checksumType != null) {
+      FileScanUtil.FileScan scan = null;
+      IOException error = null;
+      try {
+        scan = FileScanUtil.scan(localFile, detectMimetype ? MetsUtil.TIKA : null, checksumType);
+      } catch (IOException ex) {
+        error = ex;
+      }
+      result.merge(MetsUtil.validateFileScan(scan, error, id, mimetype, metsIndex.getFileChecksum(file), url));
+    }
+    if (MetsUtil.PAGE_MIMETYPE.equals(mimetype)) {
+      validatePageFile(context, localFile, result);
+    }
+  }
+
+  /**
+   * Validate content of a PAGE document.
+   *
+   * @param context Context of validation.
+   * @param pageFile PAGE document.
+   * @param result Result collecting all errors.
+   */
+  private static void validatePageFile(final Context context, final Path pageFile, final ValidationResult result) {
+    try {
+      if (context.checkPageSchema) {
+        PageUtil.validatePage(pageFile);
+      }
+      if (context.checkImageUrl) {
+        PageUtil.validateImageUrl(pageFile, context.urls);
+      }
+      if (context.checkCoords) {
+        PageUtil.validateCoords(pageFile, result);
+      }
+    } catch (WorkspaceException wse) {
+      result.addError(wse.getMessage());
+    }
+  }
+}
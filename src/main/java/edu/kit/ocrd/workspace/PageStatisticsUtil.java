@@ -0,0 +1,199 @@
+/*
+ * Copyright 2019 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace;
+
+import edu.kit.ocrd.workspace.entity.PageStatistics;
+import edu.kit.ocrd.workspace.entity.WorkspaceStatistics;
+import edu.kit.ocrd.workspace.exception.WorkspaceException;
+import edu.kit.ocrd.workspace.index.MetsIndex;
+import edu.kit.ocrd.workspace.validation.CheckScheduler;
+import edu.kit.ocrd.workspace.validation.RemoteFileChecker;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Utility collecting content statistics of PAGE files. PAGE files are read
+ * with a streaming parser, so memory usage is independent of the size of the
+ * file. All PAGE namespaces registered in XmlUtil are supported.
+ *
+ * Collected:
+ * - regions (all elements named *Region) per type, TextRegions per @type
+ * - TextLines, Words and Glyphs
+ * - TextEquivs and characters inside TextEquiv/Unicode
+ */
+public class PageStatisticsUtil {
+
+  /**
+   * Error reading PAGE file.
+   */
+  public static final String ERROR_READING_PAGE = "Error reading PAGE file: ";
+  /**
+   * Error for unsupported PAGE namespace.
+   */
+  public static final String UNKNOWN_PAGE_NAMESPACE = "Unknown namespace for PAGE file: ";
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(PageStatisticsUtil.class);
+
+  /**
+   * Collect statistics of all PAGE files referenced by METS.
+   *
+   * @param metsFile METS file.
+   * @return Statistics of workspace.
+   */
+  public static WorkspaceStatistics getWorkspaceStatistics(final Path metsFile) {
+    MetsIndex metsIndex = XmlUtil.getMetsIndex(metsFile);
+    return getWorkspaceStatistics(metsIndex, metsFile.toAbsolutePath().getParent(), CheckScheduler.getDefaultExecutor());
+  }
+
+  /**
+   * Collect statistics of all local PAGE files (mimetype
+   * application/vnd.prima.page+xml) referenced by METS. The files are read in
+   * parallel.
+   *
+   * @param metsIndex Index of METS document.
+   * @param pathToMets Directory containing METS (may belong to any file
+   * system).
+   * @param executor Executor reading the PAGE files.
+   * @return Statistics of workspace (pages in order of METS).
+   */
+  public static WorkspaceStatistics getWorkspaceStatistics(final MetsIndex metsIndex, final Path pathToMets, final Executor executor) {
+    long startTime = System.currentTimeMillis();
+    List<CompletableFuture<PageStatistics>> pages = new ArrayList<>();
+    for (int file = 0; file < metsIndex.getNumberOfFiles(); file++) {
+      String url = metsIndex.getFileUrl(file);
+      if (MetsUtil.PAGE_MIMETYPE.equals(metsIndex.getFileMimetype(file)) && url != null && !RemoteFileChecker.isRemote(url)) {
+        final Path pageFile = pathToMets.getFileSystem().getPath(pathToMets.toString(), url).normalize();
+        pages.add(CompletableFuture.supplyAsync(() -> getStatistics(pageFile), executor));
+      }
+    }
+    WorkspaceStatistics statistics = new WorkspaceStatistics();
+    try {
+      for (CompletableFuture<PageStatistics> page : pages) {
+        statistics.addPage(page.join());
+      }
+    } catch (CompletionException ce) {
+      if (ce.getCause() instanceof WorkspaceException) {
+        throw (WorkspaceException) ce.getCause();
+      }
+      throw ce;
+    }
+    LOGGER.debug("Collected statistics of {} PAGE file(s) in {} ms.", pages.size(), System.currentTimeMillis() - startTime);
+    return statistics;
+  }
+
+  /**
+   * Collect statistics of a single PAGE file.
+   *
+   * @param pageFile PAGE file (may belong to any file system).
+   * @return Statistics of PAGE file.
+   */
+  public static PageStatistics getStatistics(final Path pageFile) {
+    PageStatistics statistics = new PageStatistics(pageFile.toString());
+    try (InputStream inputStream = Files.newInputStream(pageFile)) {
+      XMLStreamReader reader = XmlUtil.createXMLStreamReader(inputStream);
+      try {
+        collectStatistics(reader, statistics, pageFile);
+      } finally {
+        reader.close();
+      }
+    } catch (IOException | XMLStreamException ex) {
+      String message = ERROR_READING_PAGE + pageFile;
+      LOGGER.error(message, ex);
+      throw new WorkspaceException(message, ex);
+    }
+    return statistics;
+  }
+
+  /**
+   * Collect statistics while streaming through PAGE document.
+   *
+   * @param reader Parser positioned before root element.
+   * @param statistics Statistics collecting all values.
+   * @param pageFile PAGE file (for error messages).
+   * @throws XMLStreamException Error parsing document.
+   */
+  private static void collectStatistics(final XMLStreamReader reader, final PageStatistics statistics, final Path pageFile) throws XMLStreamException {
+    reader.nextTag();
+    String namespace = reader.getNamespaceURI();
+    if (!XmlUtil.isPageNamespace(namespace)) {
+      String message = UNKNOWN_PAGE_NAMESPACE + namespace + " (" + pageFile + ")";
+      LOGGER.error(message);
+      throw new WorkspaceException(message);
+    }
+    // Depth of open TextEquiv and Unicode elements (0 if not inside).
+    int depth = 1;
+    int textEquivDepth = 0;
+    int unicodeDepth = 0;
+    while (reader.hasNext()) {
+      int event = reader.next();
+      if (event == XMLStreamConstants.START_ELEMENT) {
+        depth++;
+        if (!namespace.equals(reader.getNamespaceURI())) {
+          continue;
+        }
+        String name = reader.getLocalName();
+        switch (name) {
+          case "TextLine":
+            statistics.addTextLine();
+            break;
+          case "Word":
+            statistics.addWord();
+            break;
+          case "Glyph":
+            statistics.addGlyph();
+            break;
+          case "TextEquiv":
+            statistics.addTextEquiv();
+            textEquivDepth = depth;
+            break;
+          case "Unicode":
+            if (textEquivDepth == depth - 1) {
+              unicodeDepth = depth;
+            }
+            break;
+          default:
+            if (name.endsWith("Region")) {
+              statistics.addRegion(name, reader.getAttributeValue(null, "type"));
+            }
+        }
+      } else if (event == XMLStreamConstants.END_ELEMENT) {
+        if (depth == unicodeDepth) {
+          unicodeDepth = 0;
+        } else if (depth == textEquivDepth) {
+          textEquivDepth = 0;
+        }
+        depth--;
+      } else if (unicodeDepth > 0 && (event == XMLStreamConstants.CHARACTERS || event == XMLStreamConstants.CDATA)) {
+        // Count directly on the parser's buffer without creating strings.
+        statistics.addCharacters(Character.codePointCount(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength()));
+      }
+    }
+  }
+}
@@ -16,7 +16,17 @@
 package edu.kit.ocrd.workspace;
 
 import edu.kit.ocrd.workspace.exception.WorkspaceException;
+import edu.kit.ocrd.workspace.validation.ValidationResult;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collection;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import org.fzk.tools.xml.JaxenUtil;
 import org.jdom.Document;
 import org.jdom.Namespace;
@@ -36,10 +46,30 @@ public class PageUtil {
    * Path for image URL.
    */
   public static final String IMAGE_PATH = "page:Page/@imageFilename";
+  /**
+   * Error message for malformed points of Coords.
+   */
+  public static final String INVALID_COORDS = "Invalid points of Coords: ";
+  /**
+   * Error message for Coords with less than three points.
+   */
+  public static final String TOO_FEW_POINTS = "Coords with less than three points: ";
+  /**
+   * Error message for Coords without area.
+   */
+  public static final String DEGENERATE_COORDS = "Coords without area: ";
+  /**
+   * Error message for Coords outside of image.
+   */
+  public static final String COORDS_OUTSIDE_IMAGE = "Coords outside of image: ";
   /**
    * Logger.
    */
   private static final Logger LOGGER = LoggerFactory.getLogger(PageUtil.class);
+  /**
+   * Parser for points (one per thread).
+   */
+  private static final ThreadLocal<CoordsParser> COORDS_PARSER = ThreadLocal.withInitial(CoordsParser::new);
 
   /**
    * Validate image urls.
@@ -49,25 +79,44 @@ public class PageUtil {
    * @return valid or Exception if not.
    */
   public static boolean validateImageUrl(final File pageFile, final File metsFile) throws Exception {
+    Document metsDocument = JaxenUtil.getDocument(metsFile);
+    String[] attributesValues = JaxenUtil.getAttributesValues(metsDocument, "//mets:FLocat/@xlink:href", MetsUtil.getNamespaces());
+    return validateImageUrl(pageFile, Arrays.asList(attributesValues));
+  }
+
+  /**
+   * Validate image urls against the URLs referenced by METS. This allows
+   * collecting the URLs only once for all PAGE files of a workspace.
+   *
+   * @param pageFile PAGE file
+   * @param urls All URLs referenced by METS (mets:FLocat/@xlink:href).
+   * @return valid or Exception if not.
+   */
+  public static boolean validateImageUrl(final File pageFile, final Collection<String> urls) {
+    return validateImageUrl(pageFile.toPath(), urls);
+  }
+
+  /**
+   * Validate image urls against the URLs referenced by METS. The path may
+   * belong to any file system (e.g. entry of a zip file).
+   *
+   * @param pageFile PAGE file
+   * @param urls All URLs referenced by METS (mets:FLocat/@xlink:href).
+   * @return valid or Exception if not.
+   */
+  public static boolean validateImageUrl(final Path pageFile, final Collection<String> urls) {
     boolean valid = false;
-    String message = WRONG_IMAGE_URL + pageFile.getPath();
-    Document pageDocument = JaxenUtil.getDocument(pageFile);
+    String message = WRONG_IMAGE_URL + pageFile.toString();
+    Document pageDocument = XmlUtil.getDocument(pageFile);
     String pageNamespace = XmlUtil.getNamespace(pageDocument);
     Namespace[] namespaces = {Namespace.getNamespace("page", pageNamespace)};
-    Document metsDocument = JaxenUtil.getDocument(metsFile);
     String[] values = JaxenUtil.getValues(pageDocument, IMAGE_PATH, namespaces);
     if (values.length == 1) {
       String imageUrl = values[0];
       if (imageUrl.startsWith("file://")) {
         imageUrl = imageUrl.substring(7);
       }
-      String[] attributesValues = JaxenUtil.getAttributesValues(metsDocument, "//mets:FLocat/@xlink:href", MetsUtil.getNamespaces());
-      for (String value : attributesValues) {
-        if (value.equals(imageUrl)) {
-          valid = true;
-          break;
-        }
-      }
+      valid = urls.contains(imageUrl);
     }
     if (!valid) {
       LOGGER.error(message);
@@ -84,8 +133,106 @@ public class PageUtil {
    * @return valid or Exception if not.
    */
   public static boolean validatePage(final File pageFile) {
+    return validatePage(pageFile.toPath());
+  }
+
+  /**
+   * Validate page file against page.xsd. The path may belong to any file
+   * system (e.g. entry of a zip file).
+   *
+   * @param pageFile PAGE file
+   * @return valid or Exception if not.
+   */
+  public static boolean validatePage(final Path pageFile) {
     boolean valid = false;
     valid = XmlUtil.validateXml(pageFile);
     return valid;
   }
+
+  /**
+   * Validate geometry of all Coords inside PAGE file. Each polygon has to have
+   * at least three points, a non-zero area and has to lie inside the image
+   * (Page/@imageWidth, Page/@imageHeight). The file is read with a streaming
+   * parser and the points are parsed without creating intermediate objects.
+   *
+   * @param pageFile PAGE file (may belong to any file system).
+   * @param result Result collecting all findings.
+   */
+  public static void validateCoords(final Path pageFile, final ValidationResult result) {
+    CoordsParser parser = COORDS_PARSER.get();
+    try (InputStream inputStream = Files.newInputStream(pageFile)) {
+      XMLStreamReader reader = XmlUtil.createXMLStreamReader(inputStream);
+      try {
+        validateCoords(reader, parser, pageFile, result);
+      } finally {
+        reader.close();
+      }
+    } catch (IOException | XMLStreamException ex) {
+      String message = MetsUtil.ERROR_READING_FILE + pageFile;
+      LOGGER.error(message, ex);
+      throw new WorkspaceException(message, ex);
+    }
+  }
+
+  /**
+   * Validate geometry of all Coords while streaming through PAGE document.
+   *
+   * @param reader Parser positioned before root element.
+   * @param parser Parser for points.
+   * @param pageFile PAGE file (for messages).
+   * @param result Result collecting all findings.
+   * @throws XMLStreamException Error parsing document.
+   */
+  private static void validateCoords(final XMLStreamReader reader, final CoordsParser parser, final Path pageFile, final ValidationResult result) throws XMLStreamException {
+    int width = Integer.MAX_VALUE;
+    int height = Integer.MAX_VALUE;
+    // Id (or name) of the element owning the Coords.
+    String id = null;
+    while (reader.hasNext()) {
+      if (reader.next() != XMLStreamConstants.START_ELEMENT) {
+        continue;
+      }
+      String name = reader.getLocalName();
+      if ("Coords".equals(name)) {
+        String points = reader.getAttributeValue(null, "points");
+        if (points == null) {
+          continue;
+        }
+        int noOfPoints = parser.parse(points);
+        if (noOfPoints == CoordsParser.INVALID) {
+          result.addError(INVALID_COORDS + pageFile + " (" + id + ")");
+        } else if (noOfPoints < 3) {
+          result.addError(TOO_FEW_POINTS + pageFile + " (" + id + ")");
+        } else if (parser.getDoubleArea() == 0) {
+          result.addError(DEGENERATE_COORDS + pageFile + " (" + id + ")");
+        } else if (!parser.isInside(width, height)) {
+          result.addError(COORDS_OUTSIDE_IMAGE + pageFile + " (" + id + ")");
+        }
+      } else if ("Page".equals(name)) {
+        width = parseDimension(reader.getAttributeValue(null, "imageWidth"));
+        height = parseDimension(reader.getAttributeValue(null, "imageHeight"));
+        id = name;
+      } else if (!"AlternativeImage".equals(name)) {
+        String elementId = reader.getAttributeValue(null, "id");
+        id = elementId != null ? elementId : name;
+      }
+    }
+  }
+
+  /**
+   * Parse dimension of image.
+   *
+   * @param dimension Value of imageWidth or imageHeight.
+   * @return Dimension or Integer.MAX_VALUE if not set (no bounds check).
+   */
+  private static int parseDimension(final String dimension) {
+    if (dimension != null) {
+      try {
+        return Integer.parseInt(dimension.trim());
+      } catch (NumberFormatException nfe) {
+        LOGGER.debug("Invalid dimension of image: '{}'", dimension);
+      }
+    }
+    return Integer.MAX_VALUE;
+  }
 }
@@ -0,0 +1,328 @@
+/*
+ * Copyright 2019 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace;
+
+import edu.kit.ocrd.workspace.entity.ReconciliationReport;
+import edu.kit.ocrd.workspace.exception.WorkspaceException;
+import edu.kit.ocrd.workspace.index.MetsIndex;
+import edu.kit.ocrd.workspace.index.MetsSnapshot;
+import edu.kit.ocrd.workspace.validation.RemoteFileChecker;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Utilities for reconciling the files of a workspace directory with the files
+ * referenced by METS. The directory tree is walked in parallel (one task per
+ * directory) and each file found is joined with a hash map of all referenced
+ * paths. Only the paths of files with findings are held in memory.
+ *
+ * Reported:
+ * - missing files: referenced by METS but not on disk
+ * - orphaned files: on disk but not referenced by METS (with size)
+ * - case mismatched files: referenced by METS, but on disk with different case
+ *   only (other case variants of a referenced file are orphaned)
+ */
+public class ReconciliationUtil {
+
+  /**
+   * Number of threads walking the directory tree.
+   */
+  public static final int PARALLELISM = 4;
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(ReconciliationUtil.class);
+  /**
+   * State of referenced file: not found.
+   */
+  private static final int NOT_FOUND = 0;
+  /**
+   * State of referenced file: found.
+   */
+  private static final int FOUND = 1;
+  /**
+   * State of referenced file: found with different case.
+   */
+  private static final int CASE_MISMATCH = 2;
+  /**
+   * Comparator sorting entries by path.
+   */
+  private static final Comparator<ReconciliationReport.Entry> BY_PATH = Comparator.comparing(ReconciliationReport.Entry::getPath);
+
+  /**
+   * Reconcile workspace of METS file.
+   *
+   * @param metsFile METS file. (Directory of METS is the workspace, METS, its
+   * snapshot and lock file are never reported as orphaned)
+   * @return Report.
+   */
+  public static ReconciliationReport reconcile(final Path metsFile) {
+    MetsIndex metsIndex = XmlUtil.getMetsIndex(metsFile);
+    Path workspace = metsFile.toAbsolutePath().getParent();
+    Set<String> ignoredPaths = new HashSet<>();
+    ignoredPaths.add(getRelativePath(workspace, metsFile.toAbsolutePath().toString()));
+    ignoredPaths.add(getRelativePath(workspace, MetsSnapshot.getSnapshotFile(metsFile.toAbsolutePath()).toString()));
+    ignoredPaths.add(getRelativePath(workspace, MetsUpdateCoordinator.getLockFile(metsFile.toAbsolutePath()).toString()));
+    return reconcile(metsIndex, workspace, ignoredPaths);
+  }
+
+  /**
+   * Reconcile workspace directory with the local files referenced by METS.
+   * Remote files (http/https) and files outside of the workspace are ignored.
+   *
+   * @param metsIndex Index of METS document.
+   * @param workspace Workspace directory (may belong to any file system).
+   * @param ignoredPaths Paths relative to workspace which are never reported
+   * as orphaned (e.g. METS file).
+   * @return Report.
+   */
+  public static ReconciliationReport reconcile(final MetsIndex metsIndex, final Path workspace, final Set<String> ignoredPaths) {
+    long startTime = System.currentTimeMillis();
+    // Build side of hash join.
+    Map<String, Integer> referencedFiles = new HashMap<>();
+    Map<String, Integer> referencedFilesIgnoreCase = new HashMap<>();
+    String[] referencedPaths = new String[metsIndex.getNumberOfFiles()];
+    for (int file = 0; file < metsIndex.getNumberOfFiles(); file++) {
+      String path = getRelativePath(workspace, metsIndex.getFileUrl(file));
+      if (path != null && !referencedFiles.containsKey(path)) {
+        referencedFiles.put(path, file);
+        referencedPaths[file] = path;
+        referencedFilesIgnoreCase.putIfAbsent(path.toLowerCase(Locale.ROOT), file);
+      }
+    }
+    Walker walker = new Walker(referencedFiles, referencedFilesIgnoreCase, referencedPaths, ignoredPaths);
+    ForkJoinPool pool = new ForkJoinPool(PARALLELISM);
+    try {
+      pool.invoke(walker.newTask(workspace, ""));
+    } finally {
+      pool.shutdown();
+    }
+    if (walker.error.get() != null) {
+      throw walker.error.get();
+    }
+    // Resolve case mismatches after the walk: a case variant only stands in
+    // for a referenced file not found with exact path (first variant wins).
+    List<ReconciliationReport.Entry> caseMismatchedFiles = new ArrayList<>();
+    List<ReconciliationReport.Entry> entries = new ArrayList<>(walker.caseCandidates);
+    entries.sort(BY_PATH);
+    for (ReconciliationReport.Entry entry : entries) {
+      if (walker.states.compareAndSet(referencedFiles.get(entry.getReferencedPath()), NOT_FOUND, CASE_MISMATCH)) {
+        caseMismatchedFiles.add(entry);
+      } else if (!ignoredPaths.contains(entry.getPath())) {
+        walker.orphanedFiles.add(new ReconciliationReport.Entry(entry.getPath(), null, entry.getSize()));
+      }
+    }
+    // Collect results.
+    ReconciliationReport report = new ReconciliationReport();
+    entries = new ArrayList<>(walker.orphanedFiles);
+    entries.sort(BY_PATH);
+    for (ReconciliationReport.Entry entry : entries) {
+      report.addOrphanedFile(entry);
+    }
+    for (ReconciliationReport.Entry entry : caseMismatchedFiles) {
+      report.addCaseMismatchedFile(entry);
+    }
+    List<String> paths = new ArrayList<>(referencedFiles.keySet());
+    Collections.sort(paths);
+    long matched = 0;
+    for (String path : paths) {
+      int state = walker.states.get(referencedFiles.get(path));
+      if (state == NOT_FOUND) {
+        report.addMissingFile(new ReconciliationReport.Entry(path, path, -1));
+      } else if (state == FOUND) {
+        matched++;
+      }
+    }
+    report.setNumberOfFiles(walker.numberOfFiles.get());
+    report.setNumberOfMatchedFiles(matched);
+    LOGGER.debug("Reconciled {} file(s) of '{}' in {} ms.", walker.numberOfFiles.get(), workspace, System.currentTimeMillis() - startTime);
+    return report;
+  }
+
+  /**
+   * Get path relative to workspace as used for the hash join.
+   *
+   * @param workspace Workspace directory.
+   * @param url URL of file.
+   * @return Normalized relative path with '/' as separator or null if file
+   * is remote or outside of workspace.
+   */
+  static String getRelativePath(final Path workspace, final String url) {
+    if (url == null || RemoteFileChecker.isRemote(url)) {
+      return null;
+    }
+    String localUrl = url.startsWith("file://") ? url.substring(7) : url;
+    Path path = workspace.getFileSystem().getPath(localUrl).normalize();
+    if (path.isAbsolute()) {
+      Path absoluteWorkspace = workspace.toAbsolutePath().normalize();
+      if (!path.startsWith(absoluteWorkspace)) {
+        return null;
+      }
+      path = absoluteWorkspace.relativize(path);
+    }
+    if (path.getNameCount() == 0 || path.startsWith("..") || path.toString().isEmpty()) {
+      return null;
+    }
+    StringBuilder relativePath = new StringBuilder();
+    for (Path name : path) {
+      if (relativePath.length() > 0) {
+        relativePath.append('/');
+      }
+      relativePath.append(name.toString());
+    }
+    return relativePath.toString();
+  }
+
+  /**
+   * State shared by all tasks walking the directory tree.
+   */
+  private static class Walker {
+
+    /**
+     * Referenced files (relative path to index of file).
+     */
+    private final Map<String, Integer> referencedFiles;
+    /**
+     * Referenced files (lower case relative path to index of file).
+     */
+    private final Map<String, Integer> referencedFilesIgnoreCase;
+    /**
+     * Referenced paths (index of file to relative path).
+     */
+    private final String[] referencedPaths;
+    /**
+     * Paths never reported as orphaned.
+     */
+    private final Set<String> ignoredPaths;
+    /**
+     * State of each referenced file.
+     */
+    private final AtomicIntegerArray states;
+    /**
+     * Orphaned files.
+     */
+    private final ConcurrentLinkedQueue<ReconciliationReport.Entry> orphanedFiles = new ConcurrentLinkedQueue<>();
+    /**
+     * Files matching a referenced file only if case is ignored (resolved
+     * after the walk).
+     */
+    private final ConcurrentLinkedQueue<ReconciliationReport.Entry> caseCandidates = new ConcurrentLinkedQueue<>();
+    /**
+     * Number of files found.
+     */
+    private final AtomicLong numberOfFiles = new AtomicLong();
+    /**
+     * First error while walking.
+     */
+    private final AtomicReference<WorkspaceException> error = new AtomicReference<>();
+
+    /**
+     * Constructor.
+     *
+     * @param referencedFiles Referenced files.
+     * @param referencedFilesIgnoreCase Referenced files (lower case).
+     * @param referencedPaths Referenced paths (index of file to path).
+     * @param ignoredPaths Paths never reported as orphaned.
+     */
+    Walker(final Map<String, Integer> referencedFiles, final Map<String, Integer> referencedFilesIgnoreCase, final String[] referencedPaths, final Set<String> ignoredPaths) {
+      this.referencedFiles = referencedFiles;
+      this.referencedFilesIgnoreCase = referencedFilesIgnoreCase;
+      this.referencedPaths = referencedPaths;
+      this.ignoredPaths = ignoredPaths;
+      this.states = new AtomicIntegerArray(referencedPaths.length);
+    }
+
+    /**
+     * Create task walking one directory.
+     *
+     * @param directory Directory.
+     * @param prefix Relative path of directory (empty or ending with '/').
+     * @return Task
+     */
+    RecursiveAction newTask(final Path directory, final String prefix) {
+      return new RecursiveAction() {
+        @Override
+        protected void compute() {
+          List<RecursiveAction> subTasks = new ArrayList<>();
+          try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+            for (Path entry : entries) {
+              BasicFileAttributes attributes = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+              String name = entry.getFileName().toString();
+              // zip file systems report directories with trailing '/'
+              if (name.endsWith("/")) {
+                name = name.substring(0, name.length() - 1);
+              }
+              if (attributes.isDirectory()) {
+                subTasks.add(newTask(entry, prefix + name + "/"));
+              } else {
+                visitFile(prefix + name, attributes.size());
+              }
+            }
+          } catch (IOException ex) {
+            LOGGER.error(MetsUtil.ERROR_READING_FILE + directory, ex);
+            error.compareAndSet(null, new WorkspaceException(MetsUtil.ERROR_READING_FILE + directory, ex));
+          }
+          invokeAll(subTasks);
+        }
+      };
+    }
+
+    /**
+     * Join file found on disk with referenced files.
+     *
+     * @param path Relative path of file.
+     * @param size Size of file.
+     */
+    private void visitFile(final String path, final long size) {
+      numberOfFiles.incrementAndGet();
+      Integer file = referencedFiles.get(path);
+      if (file != null) {
+        states.set(file, FOUND);
+        return;
+      }
+      file = referencedFilesIgnoreCase.get(path.toLowerCase(Locale.ROOT));
+      if (file != null) {
+        // Exact path may still be found by another task.
+        caseCandidates.add(new ReconciliationReport.Entry(path, referencedPaths[file], size));
+        return;
+      }
+      if (!ignoredPaths.contains(path)) {
+        orphanedFiles.add(new ReconciliationReport.Entry(path, null, size));
+      }
+    }
+  }
+}
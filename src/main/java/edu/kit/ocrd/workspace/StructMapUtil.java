@@ -0,0 +1,472 @@
+/*
+ * Copyright 2019 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace;
+
+import edu.kit.ocrd.workspace.exception.WorkspaceException;
+import edu.kit.ocrd.workspace.index.MetsIndex;
+import edu.kit.ocrd.workspace.validation.ValidationResult;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Utility validating the integrity of the structure of a METS document in a
+ * single streaming pass. All IDs are collected in one hash table, all
+ * references are resolved afterwards, so the costs are linear in the size of
+ * the document.
+ *
+ * Checks:
+ * - IDs have to be unique.
+ * - ORDER of the pages (mets:div[@TYPE='page'] of the physical structMap) has
+ * to be unique and contiguous.
+ * - FILEID (mets:fptr, mets:area) has to reference a mets:file.
+ * - DMDID has to reference a mets:dmdSec.
+ * - ADMID has to reference a mets:amdSec or one of its sections.
+ * - xlink:from of mets:smLink has to reference a div of the logical structMap,
+ * xlink:to a div of the physical structMap.
+ * - If mets:structLink exists each page should be linked. (warning)
+ */
+public class StructMapUtil {
+
+  /**
+   * Error messages: ID not unique.
+   */
+  public static final String DUPLICATE_ID = "ID is not unique: ";
+  /**
+   * Error messages: Page without ORDER.
+   */
+  public static final String MISSING_ORDER = "Page without valid ORDER: ";
+  /**
+   * Error messages: ORDER not unique.
+   */
+  public static final String DUPLICATE_ORDER = "ORDER of page is not unique: ";
+  /**
+   * Error messages: ORDER not contiguous.
+   */
+  public static final String ORDER_NOT_CONTIGUOUS = "ORDER of pages is not contiguous, missing: ";
+  /**
+   * Error messages: FILEID not resolved.
+   */
+  public static final String UNRESOLVED_FILEID = "FILEID doesn't reference a file: ";
+  /**
+   * Error messages: DMDID not resolved.
+   */
+  public static final String UNRESOLVED_DMDID = "DMDID doesn't reference a dmdSec: ";
+  /**
+   * Error messages: ADMID not resolved.
+   */
+  public static final String UNRESOLVED_ADMID = "ADMID doesn't reference an administrative metadata section: ";
+  /**
+   * Error messages: xlink:from not resolved.
+   */
+  public static final String UNRESOLVED_LINK_FROM = "xlink:from of smLink doesn't reference a logical div: ";
+  /**
+   * Error messages: xlink:to not resolved.
+   */
+  public static final String UNRESOLVED_LINK_TO = "xlink:to of smLink doesn't reference a physical div: ";
+  /**
+   * Warning: Page not linked by structLink.
+   */
+  public static final String PAGE_NOT_LINKED = "Page not linked by structLink: ";
+  /**
+   * Namespace of XLink.
+   */
+  public static final String XLINK_NAMESPACE = "http://www.w3.org/1999/xlink";
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(StructMapUtil.class);
+  /**
+   * Kind of element with ID: mets:file
+   */
+  private static final byte FILE = 1;
+  /**
+   * Kind of element with ID: mets:dmdSec
+   */
+  private static final byte DMD_SEC = 2;
+  /**
+   * Kind of element with ID: mets:amdSec and its sections.
+   */
+  private static final byte AMD_SEC = 3;
+  /**
+   * Kind of element with ID: div of physical structMap.
+   */
+  private static final byte PHYSICAL_DIV = 4;
+  /**
+   * Kind of element with ID: div of logical structMap.
+   */
+  private static final byte LOGICAL_DIV = 5;
+  /**
+   * Kind of element with ID: Any other element.
+   */
+  private static final byte OTHER = 6;
+  /**
+   * Maximum range of ORDER values per page checked with a bitset. (Larger
+   * ranges are checked by sorting.)
+   */
+  private static final int MAX_RANGE_PER_PAGE = 4;
+
+  /**
+   * All IDs and references collected while streaming through METS.
+   */
+  private static class Structure {
+
+    /**
+     * Kind of element by ID.
+     */
+    private final Map<String, Byte> ids = new HashMap<>();
+    /**
+     * FILEIDs in document order.
+     */
+    private final List<String> fileRefs = new ArrayList<>();
+    /**
+     * DMDIDs in document order.
+     */
+    private final List<String> dmdRefs = new ArrayList<>();
+    /**
+     * ADMIDs in document order.
+     */
+    private final List<String> admRefs = new ArrayList<>();
+    /**
+     * xlink:from of all smLinks in document order.
+     */
+    private final List<String> linkFrom = new ArrayList<>();
+    /**
+     * xlink:to of all smLinks in document order.
+     */
+    private final List<String> linkTo = new ArrayList<>();
+    /**
+     * IDs of pages in document order.
+     */
+    private final List<String> pageIds = new ArrayList<>();
+    /**
+     * ORDER of pages in document order. (NO_ORDER if missing or invalid)
+     */
+    private int[] pageOrders = new int[1024];
+    /**
+     * Does a mets:structLink exist?
+     */
+    private boolean structLink;
+
+    /**
+     * Add page.
+     *
+     * @param id ID of page.
+     * @param order ORDER of page.
+     */
+    void addPage(final String id, final int order) {
+      if (pageIds.size() == pageOrders.length) {
+        pageOrders = Arrays.copyOf(pageOrders, pageOrders.length * 2);
+      }
+      pageOrders[pageIds.size()] = order;
+      pageIds.add(id);
+    }
+  }
+
+  /**
+   * Validate structure of METS file. All findings are reported to the given
+   * result.
+   *
+   * @param metsFile METS file (may belong to any file system).
+   * @param result Result collecting all findings.
+   */
+  public static void validateStructure(final Path metsFile, final ValidationResult result) {
+    try (InputStream inputStream = Files.newInputStream(metsFile)) {
+      validateStructure(inputStream, result);
+    } catch (IOException ex) {
+      String message = MetsUtil.ERROR_READING_FILE + metsFile;
+      LOGGER.error(message, ex);
+      throw new WorkspaceException(message, ex);
+    }
+  }
+
+  /**
+   * Validate structure of METS document. All findings are reported to the
+   * given result.
+   *
+   * @param inputStream Stream containing METS document.
+   * @param result Result collecting all findings.
+   */
+  public static void validateStructure(final InputStream inputStream, final ValidationResult result) {
+    Structure structure = new Structure();
+    try {
+      XMLStreamReader reader = XmlUtil.createXMLStreamReader(inputStream);
+      try {
+        parse(reader, structure, result);
+      } finally {
+        reader.close();
+      }
+    } catch (XMLStreamException ex) {
+      String message = MetsUtil.ERROR_READING_FILE + ex.getMessage();
+      LOGGER.error(message, ex);
+      throw new WorkspaceException(message, ex);
+    }
+    validateOrder(structure, result);
+    resolve(structure.ids, structure.fileRefs, FILE, UNRESOLVED_FILEID, result);
+    resolve(structure.ids, structure.dmdRefs, DMD_SEC, UNRESOLVED_DMDID, result);
+    resolve(structure.ids, structure.admRefs, AMD_SEC, UNRESOLVED_ADMID, result);
+    resolve(structure.ids, structure.linkFrom, LOGICAL_DIV, UNRESOLVED_LINK_FROM, result);
+    resolve(structure.ids, structure.linkTo, PHYSICAL_DIV, UNRESOLVED_LINK_TO, result);
+    if (structure.structLink) {
+      Set<String> linkedPages = new HashSet<>(structure.linkTo);
+      for (String pageId : structure.pageIds) {
+        if (!linkedPages.contains(pageId)) {
+          result.addWarning(PAGE_NOT_LINKED + pageId);
+        }
+      }
+    }
+  }
+
+  /**
+   * Stream through METS document and collect all IDs and references.
+   *
+   * @param reader Parser positioned before root element.
+   * @param structure Structure collecting IDs and references.
+   * @param result Result collecting duplicate IDs.
+   * @throws XMLStreamException Error parsing document.
+   */
+  private static void parse(final XMLStreamReader reader, final Structure structure, final ValidationResult result) throws XMLStreamException {
+    // Kind of divs inside the current structMap (0 outside of structMap).
+    byte divKind = 0;
+    int structMapDepth = -1;
+    int depth = 0;
+    while (reader.hasNext()) {
+      int event = reader.next();
+      if (event == XMLStreamConstants.END_ELEMENT) {
+        if (--depth == structMapDepth) {
+          divKind = 0;
+          structMapDepth = -1;
+        }
+        continue;
+      }
+      if (event != XMLStreamConstants.START_ELEMENT) {
+        continue;
+      }
+      depth++;
+      if (!MetsIndex.METS_NAMESPACE.equals(reader.getNamespaceURI())) {
+        continue;
+      }
+      String name = reader.getLocalName();
+      String id = reader.getAttributeValue(null, "ID");
+      byte kind = OTHER;
+      switch (name) {
+        case "file":
+          kind = FILE;
+          break;
+        case "dmdSec":
+          kind = DMD_SEC;
+          break;
+        case "amdSec":
+        case "techMD":
+        case "rightsMD":
+        case "sourceMD":
+        case "digiprovMD":
+          kind = AMD_SEC;
+          break;
+        case "structMap":
+          structMapDepth = depth - 1;
+          String type = reader.getAttributeValue(null, "TYPE");
+          divKind = "PHYSICAL".equals(type) ? PHYSICAL_DIV : "LOGICAL".equals(type) ? LOGICAL_DIV : OTHER;
+          break;
+        case "div":
+          if (divKind != 0) {
+            kind = divKind;
+          }
+          if (divKind == PHYSICAL_DIV && "page".equals(reader.getAttributeValue(null, "TYPE"))) {
+            structure.addPage(id, parseOrder(reader.getAttributeValue(null, "ORDER")));
+          }
+          break;
+        case "fptr":
+        case "area":
+          addReference(structure.fileRefs, reader.getAttributeValue(null, "FILEID"));
+          break;
+        case "structLink":
+          structure.structLink = true;
+          break;
+        case "smLink":
+          structure.linkFrom.add(reader.getAttributeValue(XLINK_NAMESPACE, "from"));
+          structure.linkTo.add(reader.getAttributeValue(XLINK_NAMESPACE, "to"));
+          break;
+        default:
+          break;
+      }
+      if (id != null && structure.ids.putIfAbsent(id, kind) != null) {
+        result.addError(DUPLICATE_ID + id);
+      }
+      addReferences(structure.dmdRefs, reader.getAttributeValue(null, "DMDID"));
+      addReferences(structure.admRefs, reader.getAttributeValue(null, "ADMID"));
+    }
+  }
+
+  /**
+   * Parse ORDER of page.
+   *
+   * @param order Value of ORDER (may be null).
+   * @return ORDER or NO_ORDER if missing or invalid.
+   */
+  private static int parseOrder(final String order) {
+    if (order != null) {
+      try {
+        return Integer.parseInt(order.trim());
+      } catch (NumberFormatException nfe) {
+        LOGGER.trace("Invalid ORDER: {}", order);
+      }
+    }
+    return MetsIndex.NO_ORDER;
+  }
+
+  /**
+   * Add single reference.
+   *
+   * @param references All references.
+   * @param reference Reference (may be null).
+   */
+  private static void addReference(final List<String> references, final String reference) {
+    if (reference != null) {
+      references.add(reference.trim());
+    }
+  }
+
+  /**
+   * Add list of references separated by whitespace (IDREFS).
+   *
+   * @param references All references.
+   * @param list List of references (may be null).
+   */
+  private static void addReferences(final List<String> references, final String list) {
+    if (list == null) {
+      return;
+    }
+    int length = list.length();
+    int start = -1;
+    for (int index = 0; index <= length; index++) {
+      boolean whitespace = index == length || Character.isWhitespace(list.charAt(index));
+      if (!whitespace && start < 0) {
+        start = index;
+      } else if (whitespace && start >= 0) {
+        references.add(list.substring(start, index));
+        start = -1;
+      }
+    }
+  }
+
+  /**
+   * Resolve all references of one kind.
+   *
+   * @param ids Kind of element by ID.
+   * @param references References.
+   * @param kind Expected kind of referenced element.
+   * @param message Message for unresolved references.
+   * @param result Result collecting all errors.
+   */
+  private static void resolve(final Map<String, Byte> ids, final List<String> references, final byte kind, final String message, final ValidationResult result) {
+    for (String reference : references) {
+      Byte referencedKind = reference != null ? ids.get(reference) : null;
+      if (referencedKind == null || referencedKind != kind) {
+        result.addError(message + reference);
+      }
+    }
+  }
+
+  /**
+   * Validate that the ORDER of all pages is unique and contiguous. If the
+   * range of ORDER values is small compared to the number of pages a bitset
+   * is used, otherwise the values are sorted.
+   *
+   * @param structure Structure of METS.
+   * @param result Result collecting all errors.
+   */
+  private static void validateOrder(final Structure structure, final ValidationResult result) {
+    int noOfPages = structure.pageIds.size();
+    int[] orders = structure.pageOrders;
+    int min = Integer.MAX_VALUE;
+    int max = Integer.MIN_VALUE;
+    int noOfOrders = 0;
+    for (int page = 0; page < noOfPages; page++) {
+      if (orders[page] == MetsIndex.NO_ORDER) {
+        result.addError(MISSING_ORDER + structure.pageIds.get(page));
+      } else {
+        min = Math.min(min, orders[page]);
+        max = Math.max(max, orders[page]);
+        noOfOrders++;
+      }
+    }
+    if (noOfOrders == 0) {
+      return;
+    }
+    long range = (long) max - min + 1;
+    int noOfDistinctOrders = 0;
+    int firstMissing = MetsIndex.NO_ORDER;
+    if (range <= (long) MAX_RANGE_PER_PAGE * noOfOrders) {
+      BitSet used = new BitSet((int) range);
+      for (int page = 0; page < noOfPages; page++) {
+        int order = orders[page];
+        if (order == MetsIndex.NO_ORDER) {
+          continue;
+        }
+        if (used.get(order - min)) {
+          result.addError(DUPLICATE_ORDER + order + " (" + structure.pageIds.get(page) + ")");
+        } else {
+          used.set(order - min);
+          noOfDistinctOrders++;
+        }
+      }
+      int missing = used.nextClearBit(0);
+      if (missing < range) {
+        firstMissing = min + missing;
+      }
+    } else {
+      // Sort ORDER and index of page as one primitive value.
+      long[] sorted = new long[noOfOrders];
+      int index = 0;
+      for (int page = 0; page < noOfPages; page++) {
+        if (orders[page] != MetsIndex.NO_ORDER) {
+          sorted[index++] = ((long) orders[page] << 32) | page;
+        }
+      }
+      Arrays.sort(sorted);
+      for (index = 0; index < sorted.length; index++) {
+        int order = (int) (sorted[index] >> 32);
+        int previous = index > 0 ? (int) (sorted[index - 1] >> 32) : order;
+        if (index > 0 && order == previous) {
+          result.addError(DUPLICATE_ORDER + order + " (" + structure.pageIds.get((int) sorted[index]) + ")");
+        } else {
+          noOfDistinctOrders++;
+          if (firstMissing == MetsIndex.NO_ORDER && order > previous + 1) {
+            firstMissing = previous + 1;
+          }
+        }
+      }
+    }
+    if (noOfDistinctOrders < range) {
+      result.addError(ORDER_NOT_CONTIGUOUS + firstMissing + " (" + (range - noOfDistinctOrders) + " value(s) missing between " + min + " and " + max + ")");
+    }
+  }
+}
@@ -0,0 +1,533 @@
+/*
+ * Copyright 2019 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace;
+
+import edu.kit.ocrd.workspace.exception.WorkspaceException;
+import edu.kit.ocrd.workspace.validation.ValidationCheck;
+import edu.kit.ocrd.workspace.validation.ValidationProfile;
+import edu.kit.ocrd.workspace.validation.ValidationResult;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Coordinator distributing the validation of many workspaces (or of page
+ * ranges of one large workspace) to workers running in other processes, e.g.
+ * on other nodes sharing a directory. See ValidationWorker.
+ *
+ * All state is stored as files inside a shared job directory:
+ * - 00000001.lease: Lease describing one unit of work (properties).
+ * - 00000001.0.claim: Claim of a worker for the lease (attempt 0). The
+ * modification time of the claim is refreshed by the worker (heartbeat).
+ * - 00000001.report: Findings of the lease (properties).
+ *
+ * A claim is created atomically, so only one worker may hold an attempt. If
+ * the heartbeat of a claim is older than the lease timeout, the worker is
+ * assumed to be dead and the next attempt may be claimed by any worker. After
+ * MAX_ATTEMPTS expired claims the lease is reported as failed. The clocks of
+ * all nodes have to be synchronized.
+ */
+public class ValidationCoordinator {
+
+  /**
+   * Suffix of lease files.
+   */
+  public static final String LEASE_SUFFIX = ".lease";
+  /**
+   * Suffix of claim files.
+   */
+  public static final String CLAIM_SUFFIX = ".claim";
+  /**
+   * Suffix of report files.
+   */
+  public static final String REPORT_SUFFIX = ".report";
+  /**
+   * Default timeout of a lease without heartbeat. (ms)
+   */
+  public static final long DEFAULT_LEASE_TIMEOUT = 60000;
+  /**
+   * Maximum number of attempts for each lease.
+   */
+  public static final int MAX_ATTEMPTS = 3;
+  /**
+   * Error accessing job directory.
+   */
+  public static final String ERROR_ACCESSING_JOB = "Error accessing job directory: ";
+  /**
+   * Error: Lease failed (all attempts expired).
+   */
+  public static final String LEASE_FAILED = "Validation of lease failed: ";
+  /**
+   * Error: Lease not finished yet.
+   */
+  public static final String LEASE_NOT_FINISHED = "Validation of lease not finished: ";
+  /**
+   * Lease property: METS file.
+   */
+  static final String METS = "mets";
+  /**
+   * Lease property: Selected checks.
+   */
+  static final String PROFILE = "profile";
+  /**
+   * Lease property: Prefix of declared rules of profile.
+   */
+  static final String RULE_PREFIX = "rule.";
+  /**
+   * Lease property: Backend building the index of METS.
+   */
+  static final String BACKEND = "backend";
+  /**
+   * Lease property: Timeout without heartbeat. (ms)
+   */
+  static final String LEASE_TIMEOUT = "leaseTimeout";
+  /**
+   * Lease property: First page in ORDER (inclusive).
+   */
+  static final String FROM_PAGE = "fromPage";
+  /**
+   * Lease property: Last page in ORDER (exclusive).
+   */
+  static final String TO_PAGE = "toPage";
+  /**
+   * Lease property: Also validate whole workspace.
+   */
+  static final String WORKSPACE_CHECKS = "workspaceChecks";
+  /**
+   * Report property: Prefix of errors.
+   */
+  static final String ERROR = "error.";
+  /**
+   * Report property: Prefix of warnings.
+   */
+  static final String WARNING = "warning.";
+  /**
+   * Report property: Worker.
+   */
+  static final String WORKER = "worker";
+  /**
+   * Interval for polling the job directory. (ms)
+   */
+  private static final long POLL_INTERVAL = 500;
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(ValidationCoordinator.class);
+
+  /**
+   * State of a lease inside job directory.
+   */
+  static class LeaseState {
+
+    /**
+     * Latest attempt claimed by a worker. (-1 if not claimed yet)
+     */
+    private int attempt = -1;
+    /**
+     * Last heartbeat of latest attempt. (ms)
+     */
+    private long heartbeat;
+    /**
+     * Report exists.
+     */
+    private boolean reported;
+
+    /**
+     * Is latest claim expired?
+     *
+     * @param leaseTimeout Timeout without heartbeat. (ms)
+     * @return true if lease isn't claimed or the claim is expired.
+     */
+    boolean isExpired(final long leaseTimeout) {
+      return attempt < 0 || System.currentTimeMillis() - heartbeat > leaseTimeout;
+    }
+
+    /**
+     * Are all attempts expired?
+     *
+     * @param leaseTimeout Timeout without heartbeat. (ms)
+     * @return true if no more attempts are allowed.
+     */
+    boolean isFailed(final long leaseTimeout) {
+      return !reported && attempt >= MAX_ATTEMPTS - 1 && isExpired(leaseTimeout);
+    }
+
+    /**
+     * @return the attempt
+     */
+    int getAttempt() {
+      return attempt;
+    }
+
+    /**
+     * @return the reported
+     */
+    boolean isReported() {
+      return reported;
+    }
+  }
+  /**
+   * Shared job directory.
+   */
+  private final Path jobDirectory;
+  /**
+   * Timeout of new leases without heartbeat. (ms)
+   */
+  private long leaseTimeout = DEFAULT_LEASE_TIMEOUT;
+
+  /**
+   * Constructor.
+   *
+   * @param jobDirectory Shared job directory. (Created if missing)
+   */
+  public ValidationCoordinator(final Path jobDirectory) {
+    this.jobDirectory = jobDirectory;
+    try {
+      Files.createDirectories(jobDirectory);
+    } catch (IOException ex) {
+      LOGGER.error(ERROR_ACCESSING_JOB + jobDirectory, ex);
+      throw new WorkspaceException(ERROR_ACCESSING_JOB + jobDirectory, ex);
+    }
+  }
+
+  /**
+   * @return the jobDirectory
+   */
+  public Path getJobDirectory() {
+    return jobDirectory;
+  }
+
+  /**
+   * Set timeout of new leases. A worker refreshes its claim three times per
+   * timeout.
+   *
+   * @param leaseTimeout Timeout without heartbeat. (ms)
+   */
+  public void setLeaseTimeout(final long leaseTimeout) {
+    if (leaseTimeout <= 0) {
+      throw new IllegalArgumentException("Lease timeout has to be positive!");
+    }
+    this.leaseTimeout = leaseTimeout;
+  }
+
+  /**
+   * Submit one lease per workspace.
+   *
+   * @param metsFiles METS files of all workspaces.
+   * @param profile Selected checks.
+   * @return IDs of the leases.
+   */
+  public List<String> submit(final List<Path> metsFiles, final ValidationProfile profile) {
+    List<String> leaseIds = new ArrayList<>();
+    int nextId = getNextId();
+    for (Path metsFile : metsFiles) {
+      Properties lease = createLease(metsFile, profile);
+      leaseIds.add(writeLease(nextId++, lease));
+    }
+    return leaseIds;
+  }
+
+  /**
+   * Submit a single workspace split into page ranges. The first lease also
+   * validates the whole workspace (schema, file groups, orphaned files...).
+   *
+   * @param metsFile METS file of workspace.
+   * @param profile Selected checks.
+   * @param pagesPerLease Maximum number of pages per lease.
+   * @return IDs of the leases.
+   */
+  public List<String> submit(final Path metsFile, final ValidationProfile profile, final int pagesPerLease) {
+    if (pagesPerLease <= 0) {
+      throw new IllegalArgumentException("Number of pages per lease has to be positive!");
+    }
+    int noOfPages = XmlUtil.getMetsIndex(metsFile).getNumberOfPages();
+    List<String> leaseIds = new ArrayList<>();
+    int nextId = getNextId();
+    int fromPage = 0;
+    do {
+      int toPage = Math.min(noOfPages, fromPage + pagesPerLease);
+      Properties lease = createLease(metsFile, profile);
+      lease.setProperty(FROM_PAGE, Integer.toString(fromPage));
+      lease.setProperty(TO_PAGE, Integer.toString(toPage));
+      lease.setProperty(WORKSPACE_CHECKS, Boolean.toString(fromPage == 0));
+      leaseIds.add(writeLease(nextId++, lease));
+      fromPage = toPage;
+    } while (fromPage < noOfPages);
+    return leaseIds;
+  }
+
+  /**
+   * Are all leases either reported or failed?
+   *
+   * @return true if no worker has to do anything.
+   */
+  public boolean isFinished() {
+    return isFinished(jobDirectory);
+  }
+
+  /**
+   * Are all leases inside job directory either reported or failed?
+   *
+   * @param jobDirectory Job directory.
+   * @return true if no worker has to do anything.
+   */
+  static boolean isFinished(final Path jobDirectory) {
+    for (Map.Entry<String, LeaseState> state : scan(jobDirectory).entrySet()) {
+      Properties lease = readProperties(jobDirectory.resolve(state.getKey() + LEASE_SUFFIX));
+      if (!state.getValue().isReported() && !state.getValue().isFailed(getLeaseTimeout(lease))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Wait until all leases are finished and merge the reports.
+   *
+   * @param timeout Maximum time to wait. (ms)
+   * @return Findings by METS file.
+   * @see #merge()
+   */
+  public Map<Path, ValidationResult> await(final long timeout) {
+    long endTime = System.currentTimeMillis() + timeout;
+    while (!isFinished() && System.currentTimeMillis() < endTime) {
+      try {
+        Thread.sleep(POLL_INTERVAL);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+    return merge();
+  }
+
+  /**
+   * Merge the reports of all leases. The findings of page ranges of the same
+   * workspace are merged in ORDER of the pages. Leases without report are
+   * reported as errors.
+   *
+   * @return Findings by METS file (in order of submission).
+   */
+  public Map<Path, ValidationResult> merge() {
+    Map<Path, ValidationResult> results = new LinkedHashMap<>();
+    for (Map.Entry<String, LeaseState> state : scan(jobDirectory).entrySet()) {
+      String leaseId = state.getKey();
+      Properties lease = readProperties(jobDirectory.resolve(leaseId + LEASE_SUFFIX));
+      Path metsFile = Paths.get(lease.getProperty(METS));
+      ValidationResult result = results.get(metsFile);
+      if (result == null) {
+        result = new ValidationResult();
+        results.put(metsFile, result);
+      }
+      if (state.getValue().isReported()) {
+        result.merge(readReport(jobDirectory.resolve(leaseId + REPORT_SUFFIX)));
+      } else if (state.getValue().isFailed(getLeaseTimeout(lease))) {
+        result.addError(LEASE_FAILED + leaseId + " (" + metsFile + ")");
+      } else {
+        result.addError(LEASE_NOT_FINISHED + leaseId + " (" + metsFile + ")");
+      }
+    }
+    return results;
+  }
+
+  /**
+   * Create lease for a workspace.
+   *
+   * @param metsFile METS file of workspace.
+   * @param profile Selected checks.
+   * @return Lease.
+   */
+  private Properties createLease(final Path metsFile, final ValidationProfile profile) {
+    StringBuilder checks = new StringBuilder();
+    for (ValidationCheck check : profile.getChecks()) {
+      if (checks.length() > 0) {
+        checks.append(',');
+      }
+      checks.append(check);
+    }
+    Properties lease = new Properties();
+    lease.setProperty(METS, metsFile.toAbsolutePath().normalize().toString());
+    lease.setProperty(PROFILE, checks.toString());
+    lease.setProperty(BACKEND, XmlUtil.getDocumentBackend().toString());
+    Properties rules = profile.getRules().toProperties();
+    for (String key : rules.stringPropertyNames()) {
+      lease.setProperty(RULE_PREFIX + key, rules.getProperty(key));
+    }
+    lease.setProperty(LEASE_TIMEOUT, Long.toString(leaseTimeout));
+    return lease;
+  }
+
+  /**
+   * Get next free ID of a lease.
+   *
+   * @return ID.
+   */
+  private int getNextId() {
+    int nextId = 1;
+    for (String leaseId : scan(jobDirectory).keySet()) {
+      nextId = Math.max(nextId, Integer.parseInt(leaseId) + 1);
+    }
+    return nextId;
+  }
+
+  /**
+   * Write lease to job directory.
+   *
+   * @param id ID of lease.
+   * @param lease Lease.
+   * @return ID of lease.
+   */
+  private String writeLease(final int id, final Properties lease) {
+    String leaseId = String.format("%08d", id);
+    writeProperties(jobDirectory.resolve(leaseId + LEASE_SUFFIX), lease);
+    LOGGER.debug("Submitted lease {}: {}", leaseId, lease);
+    return leaseId;
+  }
+
+  /**
+   * Get timeout of lease.
+   *
+   * @param lease Lease.
+   * @return Timeout without heartbeat. (ms)
+   */
+  static long getLeaseTimeout(final Properties lease) {
+    return Long.parseLong(lease.getProperty(LEASE_TIMEOUT, Long.toString(DEFAULT_LEASE_TIMEOUT)));
+  }
+
+  /**
+   * Get states of all leases inside job directory.
+   *
+   * @param jobDirectory Job directory.
+   * @return States by ID of lease (sorted by ID).
+   */
+  static Map<String, LeaseState> scan(final Path jobDirectory) {
+    Map<String, LeaseState> states = new TreeMap<>();
+    List<Path> claims = new ArrayList<>();
+    List<Path> reports = new ArrayList<>();
+    try (DirectoryStream<Path> entries = Files.newDirectoryStream(jobDirectory)) {
+      for (Path entry : entries) {
+        String name = entry.getFileName().toString();
+        if (name.endsWith(LEASE_SUFFIX)) {
+          states.put(name.substring(0, name.length() - LEASE_SUFFIX.length()), new LeaseState());
+        } else if (name.endsWith(CLAIM_SUFFIX)) {
+          claims.add(entry);
+        } else if (name.endsWith(REPORT_SUFFIX)) {
+          reports.add(entry);
+        }
+      }
+      for (Path claim : claims) {
+        String name = claim.getFileName().toString();
+        // <id>.<attempt>.claim
+        int dot = name.indexOf('.');
+        LeaseState state = states.get(name.substring(0, dot));
+        int attempt = Integer.parseInt(name.substring(dot + 1, name.length() - CLAIM_SUFFIX.length()));
+        if (state != null && attempt > state.attempt) {
+          state.attempt = attempt;
+          state.heartbeat = Files.getLastModifiedTime(claim).toMillis();
+        }
+      }
+    } catch (IOException ex) {
+      LOGGER.error(ERROR_ACCESSING_JOB + jobDirectory, ex);
+      throw new WorkspaceException(ERROR_ACCESSING_JOB + jobDirectory, ex);
+    }
+    for (Path report : reports) {
+      String name = report.getFileName().toString();
+      LeaseState state = states.get(name.substring(0, name.length() - REPORT_SUFFIX.length()));
+      if (state != null) {
+        state.reported = true;
+      }
+    }
+    return states;
+  }
+
+  /**
+   * Read report of a lease.
+   *
+   * @param reportFile Report file.
+   * @return Findings.
+   */
+  static ValidationResult readReport(final Path reportFile) {
+    Properties report = readProperties(reportFile);
+    ValidationResult result = new ValidationResult();
+    for (int index = 0; report.containsKey(ERROR + index); index++) {
+      result.addError(report.getProperty(ERROR + index));
+    }
+    for (int index = 0; report.containsKey(WARNING + index); index++) {
+      result.addWarning(report.getProperty(WARNING + index));
+    }
+    return result;
+  }
+
+  /**
+   * Read properties file.
+   *
+   * @param file Properties file.
+   * @return Properties.
+   */
+  static Properties readProperties(final Path file) {
+    Properties properties = new Properties();
+    try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      properties.load(reader);
+    } catch (IOException ex) {
+      LOGGER.error(ERROR_ACCESSING_JOB + file, ex);
+      throw new WorkspaceException(ERROR_ACCESSING_JOB + file, ex);
+    }
+    return properties;
+  }
+
+  /**
+   * Write properties file. The file is written to a temporary file first and
+   * renamed afterwards, so readers never see an incomplete file.
+   *
+   * @param file Properties file.
+   * @param properties Properties.
+   */
+  static void writeProperties(final Path file, final Properties properties) {
+    Path tempFile = null;
+    try {
+      tempFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+      try (Writer writer = Files.newBufferedWriter(tempFile, StandardCharsets.UTF_8)) {
+        properties.store(writer, null);
+      }
+      Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException ex) {
+      LOGGER.error(ERROR_ACCESSING_JOB + file, ex);
+      throw new WorkspaceException(ERROR_ACCESSING_JOB + file, ex);
+    } finally {
+      if (tempFile != null) {
+        try {
+          Files.deleteIfExists(tempFile);
+        } catch (IOException ex) {
+          LOGGER.warn("Error deleting temporary file '{}'", tempFile);
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,288 @@
+/*
+ * Copyright 2019 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace;
+
+import edu.kit.ocrd.workspace.exception.WorkspaceException;
+import edu.kit.ocrd.workspace.index.DocumentBackend;
+import edu.kit.ocrd.workspace.validation.RuleProfile;
+import edu.kit.ocrd.workspace.validation.ValidationCheck;
+import edu.kit.ocrd.workspace.validation.ValidationProfile;
+import edu.kit.ocrd.workspace.validation.ValidationResult;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Worker validating the leases submitted by a ValidationCoordinator. Many
+ * workers (threads, processes or nodes) may share one job directory. Each
+ * lease is claimed by creating its claim file atomically. While validating,
+ * the worker refreshes the modification time of the claim (heartbeat). Leases
+ * of crashed workers are taken over after the lease timeout.
+ *
+ * Usage: ValidationWorker jobDirectory [workerId]
+ */
+public class ValidationWorker {
+
+  /**
+   * Error: Unexpected error validating lease.
+   */
+  public static final String ERROR_VALIDATING_LEASE = "Error validating lease: ";
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(ValidationWorker.class);
+  /**
+   * Interval for polling the job directory. (ms)
+   */
+  private static final long POLL_INTERVAL = 500;
+  /**
+   * Executor refreshing the claims of all workers.
+   */
+  private static final ScheduledExecutorService HEARTBEAT = Executors.newSingleThreadScheduledExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "validation-heartbeat");
+    thread.setDaemon(true);
+    return thread;
+  });
+  /**
+   * Shared job directory.
+   */
+  private final Path jobDirectory;
+  /**
+   * ID of worker.
+   */
+  private final String workerId;
+
+  /**
+   * Constructor.
+   *
+   * @param jobDirectory Shared job directory.
+   * @param workerId ID of worker. (Only used for logging and reports)
+   */
+  public ValidationWorker(final Path jobDirectory, final String workerId) {
+    this.jobDirectory = jobDirectory;
+    this.workerId = workerId;
+  }
+
+  /**
+   * Validate leases until all leases are finished. If leases are held by
+   * other workers, the worker waits for their reports and takes over the
+   * leases whose claims expire.
+   *
+   * @return Number of leases validated by this worker.
+   */
+  public int run() {
+    int noOfLeases = 0;
+    while (true) {
+      if (processNext()) {
+        noOfLeases++;
+      } else if (ValidationCoordinator.isFinished(jobDirectory)) {
+        break;
+      } else {
+        try {
+          Thread.sleep(POLL_INTERVAL);
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+          break;
+        }
+      }
+    }
+    LOGGER.info("Worker '{}' validated {} lease(s).", workerId, noOfLeases);
+    return noOfLeases;
+  }
+
+  /**
+   * Claim and validate the next lease which is neither reported nor claimed
+   * by a living worker.
+   *
+   * @return true if a lease was validated, false if there is no claimable
+   * lease.
+   */
+  public boolean processNext() {
+    for (Map.Entry<String, ValidationCoordinator.LeaseState> state : ValidationCoordinator.scan(jobDirectory).entrySet()) {
+      ValidationCoordinator.LeaseState leaseState = state.getValue();
+      if (leaseState.isReported() || leaseState.getAttempt() >= ValidationCoordinator.MAX_ATTEMPTS - 1) {
+        continue;
+      }
+      String leaseId = state.getKey();
+      Properties lease = ValidationCoordinator.readProperties(jobDirectory.resolve(leaseId + ValidationCoordinator.LEASE_SUFFIX));
+      long leaseTimeout = ValidationCoordinator.getLeaseTimeout(lease);
+      if (!leaseState.isExpired(leaseTimeout)) {
+        continue;
+      }
+      Path claim = jobDirectory.resolve(leaseId + "." + (leaseState.getAttempt() + 1) + ValidationCoordinator.CLAIM_SUFFIX);
+      if (claim(claim)) {
+        process(leaseId, lease, claim, leaseTimeout);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Create claim file. Fails if another worker created it before.
+   *
+   * @param claim Claim file.
+   * @return true if claim was created by this worker.
+   */
+  private boolean claim(final Path claim) {
+    try {
+      Files.write(claim, workerId.getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+      LOGGER.debug("Worker '{}' claimed '{}'", workerId, claim.getFileName());
+      return true;
+    } catch (FileAlreadyExistsException ex) {
+      LOGGER.trace("Claim '{}' already exists.", claim.getFileName());
+      return false;
+    } catch (IOException ex) {
+      LOGGER.error(ValidationCoordinator.ERROR_ACCESSING_JOB + claim, ex);
+      throw new WorkspaceException(ValidationCoordinator.ERROR_ACCESSING_JOB + claim, ex);
+    }
+  }
+
+  /**
+   * Validate lease and write report while refreshing the claim.
+   *
+   * @param leaseId ID of lease.
+   * @param lease Lease.
+   * @param claim Claim file.
+   * @param leaseTimeout Timeout without heartbeat. (ms)
+   */
+  private void process(final String leaseId, final Properties lease, final Path claim, final long leaseTimeout) {
+    long interval = Math.max(1, leaseTimeout / 3);
+    ScheduledFuture<?> heartbeat = HEARTBEAT.scheduleAtFixedRate(() -> refresh(claim), interval, interval, TimeUnit.MILLISECONDS);
+    ValidationResult result;
+    try {
+      result = validate(lease);
+    } finally {
+      heartbeat.cancel(false);
+    }
+    Properties report = new Properties();
+    report.setProperty(ValidationCoordinator.WORKER, workerId);
+    for (int index = 0; index < result.getErrors().size(); index++) {
+      report.setProperty(ValidationCoordinator.ERROR + index, result.getErrors().get(index));
+    }
+    for (int index = 0; index < result.getWarnings().size(); index++) {
+      report.setProperty(ValidationCoordinator.WARNING + index, result.getWarnings().get(index));
+    }
+    // A slow worker and the worker taking over write the same report.
+    ValidationCoordinator.writeProperties(jobDirectory.resolve(leaseId + ValidationCoordinator.REPORT_SUFFIX), report);
+    LOGGER.debug("Worker '{}' reported '{}' (valid: {})", workerId, leaseId, result.isValid());
+  }
+
+  /**
+   * Refresh heartbeat of claim.
+   *
+   * @param claim Claim file.
+   */
+  private static void refresh(final Path claim) {
+    try {
+      Files.setLastModifiedTime(claim, FileTime.fromMillis(System.currentTimeMillis()));
+    } catch (NoSuchFileException ex) {
+      LOGGER.warn("Claim '{}' was removed.", claim);
+    } catch (IOException ex) {
+      LOGGER.error("Error refreshing claim '" + claim + "'", ex);
+    }
+  }
+
+  /**
+   * Validate workspace (or page range of workspace) described by lease.
+   *
+   * @param lease Lease.
+   * @return Findings.
+   */
+  static ValidationResult validate(final Properties lease) {
+    ValidationResult result = new ValidationResult();
+    try {
+      Path metsFile = Paths.get(lease.getProperty(ValidationCoordinator.METS));
+      Properties rules = new Properties();
+      for (String key : lease.stringPropertyNames()) {
+        if (key.startsWith(ValidationCoordinator.RULE_PREFIX)) {
+          rules.setProperty(key.substring(ValidationCoordinator.RULE_PREFIX.length()), lease.getProperty(key));
+        }
+      }
+      ValidationProfile profile = ValidationProfile.parse(lease.getProperty(ValidationCoordinator.PROFILE)).withRules(RuleProfile.compile(rules));
+      // Backend is used for this lease only, global settings stay untouched.
+      DocumentBackend backend = DocumentBackend.get(lease.getProperty(ValidationCoordinator.BACKEND, XmlUtil.getDocumentBackend().toString()));
+      if (backend == null) {
+        backend = XmlUtil.getDocumentBackend();
+      }
+      if (!Files.exists(metsFile)) {
+        result.addError(WorkspaceUtil.NO_METS_FILE + " --> " + metsFile);
+      } else if (!lease.containsKey(ValidationCoordinator.FROM_PAGE)) {
+        result.merge(MetsUtil.validate(metsFile, profile, null, PageShardUtil.getDefaultPool(), backend));
+      } else {
+        int fromPage = Integer.parseInt(lease.getProperty(ValidationCoordinator.FROM_PAGE));
+        int toPage = Integer.parseInt(lease.getProperty(ValidationCoordinator.TO_PAGE));
+        boolean workspaceChecks = Boolean.parseBoolean(lease.getProperty(ValidationCoordinator.WORKSPACE_CHECKS));
+        if (workspaceChecks) {
+          result.merge(MetsUtil.validate(metsFile, profile.without(PageShardUtil.PAGE_CHECKS), null, null, backend));
+        }
+        if (containsPageChecks(profile)) {
+          PageShardUtil.validatePages(backend.buildMetsIndex(metsFile), metsFile.getParent(), profile, null, PageShardUtil.getDefaultPool(),
+                  fromPage, toPage, workspaceChecks, result);
+        }
+      }
+    } catch (WorkspaceException wse) {
+      result.addError(wse.getMessage());
+    } catch (RuntimeException ex) {
+      // E.g. METS changed after submitting (invalid page range) or malformed
+      // lease. Reported as finding of lease, the worker keeps running.
+      LOGGER.error("Error validating lease " + lease, ex);
+      result.addError(ERROR_VALIDATING_LEASE + ex);
+    }
+    return result;
+  }
+
+  /**
+   * Does profile contain any check executed per page?
+   *
+   * @param profile Selected checks.
+   * @return true if at least one check is executed per page.
+   */
+  private static boolean containsPageChecks(final ValidationProfile profile) {
+    return profile.containsAny(PageShardUtil.PAGE_CHECKS.getChecks().toArray(new ValidationCheck[0]));
+  }
+
+  /**
+   * Start worker.
+   *
+   * Usage: ValidationWorker jobDirectory [workerId]
+   *
+   * @param args Command line arguments.
+   */
+  public static void main(String[] args) {
+    if (args.length < 1) {
+      System.err.println("Usage: ValidationWorker jobDirectory [workerId]");
+      System.exit(1);
+    }
+    String workerId = args.length > 1 ? args[1] : ManagementFactory.getRuntimeMXBean().getName();
+    new ValidationWorker(Paths.get(args[0]), workerId).run();
+  }
+}
@@ -0,0 +1,548 @@
+/*
+ * Copyright 2019 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace;
+
+import edu.kit.ocrd.workspace.entity.MetsFile;
+import edu.kit.ocrd.workspace.index.MetsIndex;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Read-only model of a workspace for querying the files referenced by METS.
+ * Indexes are built on first query and shared by all following queries.
+ * Instances are thread safe.
+ *
+ * All files are ranked by ORDER of their (first) page, files of the same
+ * page in document order. Files not linked by any page come last. For each
+ * file group, page and mimetype the ranks of its files are stored in a sorted
+ * array. Queries intersect these arrays, so results are always in page
+ * order. ID patterns with a literal prefix use a second index sorted by ID.
+ */
+public class Workspace {
+
+  /**
+   * Maximum number of cached ID patterns.
+   */
+  private static final int MAX_CACHED_PATTERNS = 1024;
+  /**
+   * Empty result.
+   */
+  private static final int[] NONE = new int[0];
+  /**
+   * METS file.
+   */
+  private final Path metsFile;
+  /**
+   * Index of METS.
+   */
+  private final MetsIndex metsIndex;
+  /**
+   * Indexes for queries (built on first use).
+   */
+  private volatile Indexes indexes;
+  /**
+   * Compiled ID patterns.
+   */
+  private final Map<String, Pattern> patterns = new ConcurrentHashMap<>();
+
+  /**
+   * Constructor.
+   *
+   * @param metsFile METS file.
+   * @param metsIndex Index of METS file.
+   */
+  public Workspace(final Path metsFile, final MetsIndex metsIndex) {
+    this.metsFile = metsFile;
+    this.metsIndex = metsIndex;
+  }
+
+  /**
+   * Load workspace. METS is indexed with the backend selected in XmlUtil.
+   *
+   * @param metsFile METS file.
+   * @return Workspace.
+   */
+  public static Workspace load(final Path metsFile) {
+    return new Workspace(metsFile, XmlUtil.getMetsIndex(metsFile));
+  }
+
+  /**
+   * @return the metsFile
+   */
+  public Path getMetsFile() {
+    return metsFile;
+  }
+
+  /**
+   * @return the metsIndex
+   */
+  public MetsIndex getMetsIndex() {
+    return metsIndex;
+  }
+
+  /**
+   * Find files. All criteria are optional (null matches all files).
+   *
+   * @param fileGrp USE of file group.
+   * @param pageId ID of page.
+   * @param mimetype Mimetype of file.
+   * @param idGlob Pattern for ID of file ('*' matches any sequence of
+   * characters, '?' a single character).
+   * @return Files in order of pages.
+   */
+  public List<MetsFile> findFiles(final String fileGrp, final String pageId, final String mimetype, final String idGlob) {
+    Indexes index = getIndexes();
+    int[] ranks = null;
+    if (fileGrp != null) {
+      ranks = intersect(ranks, index.ranksByFileGrp.get(fileGrp));
+    }
+    if (pageId != null) {
+      ranks = intersect(ranks, index.ranksByPage.get(pageId));
+    }
+    if (mimetype != null) {
+      ranks = intersect(ranks, index.ranksByMimetype.get(mimetype));
+    }
+    Pattern pattern = null;
+    if (idGlob != null) {
+      int wildcard = indexOfWildcard(idGlob);
+      if (wildcard < 0) {
+        int file = metsIndex.getFile(idGlob);
+        ranks = intersect(ranks, file == MetsIndex.NOT_FOUND ? NONE : new int[]{index.rankOfFile[file]});
+      } else {
+        if (wildcard > 0) {
+          ranks = intersect(ranks, index.getRanksWithPrefix(idGlob.substring(0, wildcard)));
+        }
+        pattern = getPattern(idGlob);
+      }
+    }
+    List<MetsFile> files = new ArrayList<>();
+    if (ranks == null) {
+      ranks = index.allRanks;
+    }
+    Matcher matcher = pattern != null ? pattern.matcher("") : null;
+    for (int rank : ranks) {
+      int file = index.fileOfRank[rank];
+      if (matcher == null || matcher.reset(metsIndex.getFileIdView(file)).matches()) {
+        files.add(createMetsFile(file));
+      }
+    }
+    return files;
+  }
+
+  /**
+   * Find files of file group belonging to page.
+   *
+   * @param fileGrp USE of file group.
+   * @param pageId ID of page.
+   * @return Files in order of pages.
+   */
+  public List<MetsFile> findFiles(final String fileGrp, final String pageId) {
+    return findFiles(fileGrp, pageId, null, null);
+  }
+
+  /**
+   * Get IDs of all pages in ORDER.
+   *
+   * @return IDs of pages.
+   */
+  public List<String> getPageIds() {
+    return Collections.unmodifiableList(Arrays.asList(getIndexes().pageIds));
+  }
+
+  /**
+   * Create entity for file.
+   *
+   * @param file Index of file.
+   * @return File.
+   */
+  private MetsFile createMetsFile(final int file) {
+    int page = metsIndex.getPageOfFile(file);
+    return new MetsFile(metsIndex.getFileId(file), metsIndex.getFileGrpUse(metsIndex.getFileGrpOfFile(file)),
+            metsIndex.getPageIdOfFile(file), page != MetsIndex.NOT_FOUND ? metsIndex.getPageOrder(page) : MetsIndex.NO_ORDER,
+            metsIndex.getFileMimetype(file), metsIndex.getFileUrl(file));
+  }
+
+  /**
+   * Get indexes. (Built on first call)
+   *
+   * @return Indexes.
+   */
+  private Indexes getIndexes() {
+    Indexes result = indexes;
+    if (result == null) {
+      synchronized (this) {
+        result = indexes;
+        if (result == null) {
+          result = new Indexes(metsIndex);
+          indexes = result;
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Get compiled pattern for glob.
+   *
+   * @param glob Glob ('*' and '?' as wildcards).
+   * @return Pattern.
+   */
+  private Pattern getPattern(final String glob) {
+    Pattern pattern = patterns.get(glob);
+    if (pattern == null) {
+      StringBuilder regex = new StringBuilder();
+      int start = 0;
+      for (int index = 0; index < glob.length(); index++) {
+        char character = glob.charAt(index);
+        if (character == '*' || character == '?') {
+          if (index > start) {
+            regex.append(Pattern.quote(glob.substring(start, index)));
+          }
+          regex.append(character == '*' ? ".*" : ".");
+          start = index + 1;
+        }
+      }
+      if (start < glob.length()) {
+        regex.append(Pattern.quote(glob.substring(start)));
+      }
+      pattern = Pattern.compile(regex.toString(), Pattern.DOTALL);
+      if (patterns.size() >= MAX_CACHED_PATTERNS) {
+        patterns.clear();
+      }
+      patterns.put(glob, pattern);
+    }
+    return pattern;
+  }
+
+  /**
+   * Get position of first wildcard.
+   *
+   * @param glob Glob.
+   * @return Position or -1.
+   */
+  private static int indexOfWildcard(final String glob) {
+    for (int index = 0; index < glob.length(); index++) {
+      if (glob.charAt(index) == '*' || glob.charAt(index) == '?') {
+        return index;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Intersect two sorted arrays.
+   *
+   * @param first First array (null for all).
+   * @param second Second array (null for none).
+   * @return Sorted intersection.
+   */
+  private static int[] intersect(final int[] first, final int[] second) {
+    if (second == null) {
+      return NONE;
+    }
+    if (first == null) {
+      return second;
+    }
+    int[] result = new int[Math.min(first.length, second.length)];
+    int size = 0;
+    int firstIndex = 0;
+    int secondIndex = 0;
+    while (firstIndex < first.length && secondIndex < second.length) {
+      if (first[firstIndex] < second[secondIndex]) {
+        firstIndex++;
+      } else if (first[firstIndex] > second[secondIndex]) {
+        secondIndex++;
+      } else {
+        result[size++] = first[firstIndex];
+        firstIndex++;
+        secondIndex++;
+      }
+    }
+    return Arrays.copyOf(result, size);
+  }
+
+  /**
+   * Sort pages by ORDER. Pages without ORDER come last, pages with the same
+   * ORDER in document order.
+   *
+   * @param metsIndex Index of METS.
+   * @return Indices of all pages in order.
+   */
+  static int[] sortPagesByOrder(final MetsIndex metsIndex) {
+    Integer[] pages = new Integer[metsIndex.getNumberOfPages()];
+    for (int page = 0; page < pages.length; page++) {
+      pages[page] = page;
+    }
+    Arrays.sort(pages, (first, second) -> compareOrder(metsIndex, first, second));
+    int[] sortedPages = new int[pages.length];
+    for (int index = 0; index < pages.length; index++) {
+      sortedPages[index] = pages[index];
+    }
+    return sortedPages;
+  }
+
+  /**
+   * Compare pages by ORDER. Pages without ORDER come last, pages with the
+   * same ORDER in document order.
+   *
+   * @param metsIndex Index of METS.
+   * @param first Index of first page.
+   * @param second Index of second page.
+   * @return Result of comparison.
+   */
+  static int compareOrder(final MetsIndex metsIndex, final int first, final int second) {
+    int firstOrder = metsIndex.getPageOrder(first);
+    int secondOrder = metsIndex.getPageOrder(second);
+    if (firstOrder != secondOrder) {
+      if (firstOrder == MetsIndex.NO_ORDER || secondOrder == MetsIndex.NO_ORDER) {
+        return firstOrder == MetsIndex.NO_ORDER ? 1 : -1;
+      }
+      return Integer.compare(firstOrder, secondOrder);
+    }
+    return Integer.compare(first, second);
+  }
+
+  /**
+   * Indexes of workspace.
+   */
+  private static class Indexes {
+
+    /**
+     * IDs of pages in ORDER.
+     */
+    private final String[] pageIds;
+    /**
+     * Rank of each file.
+     */
+    private final int[] rankOfFile;
+    /**
+     * File of each rank.
+     */
+    private final int[] fileOfRank;
+    /**
+     * All ranks.
+     */
+    private final int[] allRanks;
+    /**
+     * Ranks of files by USE of file group.
+     */
+    private final Map<String, int[]> ranksByFileGrp;
+    /**
+     * Ranks of files by ID of page.
+     */
+    private final Map<String, int[]> ranksByPage;
+    /**
+     * Ranks of files by mimetype.
+     */
+    private final Map<String, int[]> ranksByMimetype;
+    /**
+     * IDs of files sorted.
+     */
+    private final String[] sortedIds;
+    /**
+     * Ranks of files sorted by ID.
+     */
+    private final int[] ranksSortedById;
+
+    /**
+     * Constructor.
+     *
+     * @param metsIndex Index of METS.
+     */
+    Indexes(final MetsIndex metsIndex) {
+      int noOfPages = metsIndex.getNumberOfPages();
+      int noOfFiles = metsIndex.getNumberOfFiles();
+      int[] pages = sortPagesByOrder(metsIndex);
+      int[] pageRank = new int[noOfPages];
+      pageIds = new String[noOfPages];
+      for (int index = 0; index < noOfPages; index++) {
+        pageRank[pages[index]] = index;
+        pageIds[index] = metsIndex.getPageId(pages[index]);
+      }
+      // Counting sort of files by rank of page (stable, keeps document order).
+      int[] start = new int[noOfPages + 2];
+      for (int file = 0; file < noOfFiles; file++) {
+        start[rankOfPage(metsIndex, pageRank, file) + 1]++;
+      }
+      for (int index = 0; index <= noOfPages; index++) {
+        start[index + 1] += start[index];
+      }
+      rankOfFile = new int[noOfFiles];
+      fileOfRank = new int[noOfFiles];
+      allRanks = new int[noOfFiles];
+      for (int file = 0; file < noOfFiles; file++) {
+        int rank = start[rankOfPage(metsIndex, pageRank, file)]++;
+        rankOfFile[file] = rank;
+        fileOfRank[rank] = file;
+        allRanks[rank] = rank;
+      }
+      Map<String, List<Integer>> byFileGrp = new HashMap<>();
+      Map<String, List<Integer>> byPage = new HashMap<>();
+      Map<String, List<Integer>> byMimetype = new HashMap<>();
+      for (int rank = 0; rank < noOfFiles; rank++) {
+        int file = fileOfRank[rank];
+        add(byFileGrp, metsIndex.getFileGrpUse(metsIndex.getFileGrpOfFile(file)), rank);
+        if (metsIndex.getPageOfFile(file) == MetsIndex.NOT_FOUND) {
+          // Old style: page given by GROUPID.
+          add(byPage, metsIndex.getPageIdOfFile(file), rank);
+        }
+        add(byMimetype, metsIndex.getFileMimetype(file), rank);
+      }
+      // A file may be linked by several pages.
+      for (int page = 0; page < noOfPages; page++) {
+        for (int file : metsIndex.getFilesOfPage(page)) {
+          if (file != MetsIndex.NOT_FOUND) {
+            add(byPage, metsIndex.getPageId(page), rankOfFile[file]);
+          }
+        }
+      }
+      ranksByFileGrp = toArrays(byFileGrp);
+      ranksByPage = toArrays(byPage);
+      for (Map.Entry<String, int[]> entry : ranksByPage.entrySet()) {
+        entry.setValue(sortDistinct(entry.getValue()));
+      }
+      ranksByMimetype = toArrays(byMimetype);
+      Integer[] byId = new Integer[noOfFiles];
+      String[] ids = new String[noOfFiles];
+      for (int rank = 0; rank < noOfFiles; rank++) {
+        byId[rank] = rank;
+        ids[rank] = metsIndex.getFileId(fileOfRank[rank]);
+        if (ids[rank] == null) {
+          ids[rank] = "";
+        }
+      }
+      Arrays.sort(byId, (first, second) -> ids[first].compareTo(ids[second]));
+      sortedIds = new String[noOfFiles];
+      ranksSortedById = new int[noOfFiles];
+      for (int index = 0; index < noOfFiles; index++) {
+        ranksSortedById[index] = byId[index];
+        sortedIds[index] = ids[byId[index]];
+      }
+    }
+
+    /**
+     * Get ranks of all files with IDs starting with prefix.
+     *
+     * @param prefix Prefix of IDs.
+     * @return Sorted ranks.
+     */
+    int[] getRanksWithPrefix(final String prefix) {
+      int from = lowerBound(prefix);
+      int to = from;
+      while (to < sortedIds.length && sortedIds[to].startsWith(prefix)) {
+        to++;
+      }
+      int[] ranks = Arrays.copyOfRange(ranksSortedById, from, to);
+      Arrays.sort(ranks);
+      return ranks;
+    }
+
+    /**
+     * Get position of first ID not less than value.
+     *
+     * @param value Value.
+     * @return Position in sortedIds.
+     */
+    private int lowerBound(final String value) {
+      int low = 0;
+      int high = sortedIds.length;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (sortedIds[middle].compareTo(value) < 0) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      return low;
+    }
+
+    /**
+     * Get rank of page of file.
+     *
+     * @param metsIndex Index of METS.
+     * @param pageRank Rank of pages.
+     * @param file Index of file.
+     * @return Rank of page (number of pages if file has no page).
+     */
+    private static int rankOfPage(final MetsIndex metsIndex, final int[] pageRank, final int file) {
+      int page = metsIndex.getPageOfFile(file);
+      return page != MetsIndex.NOT_FOUND ? pageRank[page] : pageRank.length;
+    }
+
+    /**
+     * Add rank to list of key.
+     *
+     * @param map Lists by key.
+     * @param key Key (null is ignored).
+     * @param rank Rank.
+     */
+    private static void add(final Map<String, List<Integer>> map, final String key, final int rank) {
+      if (key != null) {
+        List<Integer> ranks = map.get(key);
+        if (ranks == null) {
+          ranks = new ArrayList<>();
+          map.put(key, ranks);
+        }
+        ranks.add(rank);
+      }
+    }
+
+    /**
+     * Sort ranks and remove duplicates.
+     *
+     * @param ranks Ranks.
+     * @return Sorted distinct ranks.
+     */
+    private static int[] sortDistinct(final int[] ranks) {
+      Arrays.sort(ranks);
+      int length = 0;
+      for (int index = 0; index < ranks.length; index++) {
+        if (index == 0 || ranks[index] != ranks[index - 1]) {
+          ranks[length++] = ranks[index];
+        }
+      }
+      return length == ranks.length ? ranks : Arrays.copyOf(ranks, length);
+    }
+
+    /**
+     * Convert lists to arrays.
+     *
+     * @param map Lists by key.
+     * @return Arrays by key.
+     */
+    private static Map<String, int[]> toArrays(final Map<String, List<Integer>> map) {
+      Map<String, int[]> result = new HashMap<>(map.size() * 4 / 3 + 1);
+      for (Map.Entry<String, List<Integer>> entry : map.entrySet()) {
+        List<Integer> ranks = entry.getValue();
+        int[] array = new int[ranks.size()];
+        for (int index = 0; index < array.length; index++) {
+          array[index] = ranks.get(index);
+        }
+        result.put(entry.getKey(), array);
+      }
+      return result;
+    }
+  }
+}
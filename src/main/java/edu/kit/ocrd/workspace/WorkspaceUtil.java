@@ -16,8 +16,17 @@
 package edu.kit.ocrd.workspace;
 
 import edu.kit.ocrd.workspace.exception.WorkspaceException;
+import edu.kit.ocrd.workspace.validation.RemoteFileChecker;
+import edu.kit.ocrd.workspace.validation.ValidationCheck;
+import edu.kit.ocrd.workspace.validation.ValidationProfile;
+import edu.kit.ocrd.workspace.validation.ValidationResult;
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
 import javax.xml.XMLConstants;
 import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.Schema;
@@ -60,6 +69,10 @@ public class WorkspaceUtil {
    * Error message for missing mets file. 
    */
   public static final String NO_METS_FILE = "METS file doesn't exist! ";
+  /**
+   * Error message for missing or unreadable OCRD-ZIP file.
+   */
+  public static final String ERROR_READING_OCRD_ZIP = "Error reading OCRD-ZIP file: ";
 
   /**
    * Logger.
@@ -74,12 +87,115 @@ public class WorkspaceUtil {
    * @return valid or Exception if not.
    */
   public static boolean validateWorkspace(final File metsFile) {
+    return validateWorkspace(metsFile, ValidationProfile.STANDARD);
+  }
+
+  /**
+   * Validate workspace due to definition found at https://ocr-d.github.io/mets
+   * using only the checks selected by the given profile.
+   *
+   * @param metsFile Mets file
+   * @param profile Selected checks.
+   * @return valid or Exception if not.
+   */
+  public static boolean validateWorkspace(final File metsFile, final ValidationProfile profile) {
     boolean valid = false;
     if (metsFile.exists()) {
-    valid = MetsUtil.validateCompleteMets(metsFile);
+    valid = MetsUtil.validateCompleteMets(metsFile, profile);
     } else {
       throw new WorkspaceException(NO_METS_FILE + " --> " + metsFile.getName());
     }
     return valid;
   }
+
+  /**
+   * Validate workspace using only the checks selected by the given profile.
+   * The path may belong to any file system (e.g. entry of a zip file). All
+   * files referenced by METS are resolved on the same file system.
+   *
+   * @param metsFile Mets file
+   * @param profile Selected checks.
+   * @return valid or Exception if not.
+   */
+  public static boolean validateWorkspace(final Path metsFile, final ValidationProfile profile) {
+    return validateWorkspace(metsFile, profile, null);
+  }
+
+  /**
+   * Validate workspace using only the checks selected by the given profile.
+   * If a remote file checker is given, the remote files (http/https)
+   * referenced by METS are checked for existence and mimetype, too.
+   *
+   * @param metsFile Mets file
+   * @param profile Selected checks.
+   * @param remoteFileChecker Checker for remote files (may be null).
+   * @return valid or Exception if not.
+   */
+  public static boolean validateWorkspace(final Path metsFile, final ValidationProfile profile, final RemoteFileChecker remoteFileChecker) {
+    boolean valid = false;
+    if (Files.exists(metsFile)) {
+      valid = MetsUtil.validate(metsFile, profile, remoteFileChecker).assertValid();
+    } else {
+      throw new WorkspaceException(NO_METS_FILE + " --> " + metsFile.getFileName());
+    }
+    return valid;
+  }
+
+  /**
+   * Validate workspace packed as OCRD-ZIP (BagIt) without extracting it. See
+   * documentation at: https://ocr-d.github.io/ocrd_zip
+   *
+   * @param ocrdZip OCRD-ZIP file.
+   * @param profile Selected checks.
+   * @return valid or Exception if not.
+   * @see #validateBag(java.nio.file.Path, edu.kit.ocrd.workspace.validation.ValidationProfile)
+   */
+  public static boolean validateOcrdZip(final Path ocrdZip, final ValidationProfile profile) {
+    if (!Files.isRegularFile(ocrdZip)) {
+      throw new WorkspaceException(ERROR_READING_OCRD_ZIP + ocrdZip);
+    }
+    try (FileSystem zipFileSystem = FileSystems.newFileSystem(ocrdZip, (ClassLoader) null)) {
+      return validateBag(zipFileSystem.getPath("/"), profile);
+    } catch (IOException ex) {
+      LOGGER.error(ERROR_READING_OCRD_ZIP + ocrdZip, ex);
+      throw new WorkspaceException(ERROR_READING_OCRD_ZIP + ocrdZip, ex);
+    }
+  }
+
+  /**
+   * Validate workspace stored as BagIt bag. The bag may belong to any file
+   * system (e.g. root of a zip file system). If selected by the profile the
+   * checksums of the payload manifests are verified in parallel to the
+   * validation of METS.
+   *
+   * @param bagRoot Root directory of bag.
+   * @param profile Selected checks.
+   * @return valid or Exception if not.
+   */
+  public static boolean validateBag(final Path bagRoot, final ValidationProfile profile) {
+    if (!BagItUtil.isBag(bagRoot)) {
+      throw new WorkspaceException(BagItUtil.NO_BAG + bagRoot);
+    }
+    CompletableFuture<ValidationResult> manifests;
+    if (profile.contains(ValidationCheck.BAG_CHECKSUM)) {
+      // Hashing runs on the bounded I/O executor, so the checks of METS don't
+      // wait behind the payload files.
+      manifests = BagItUtil.validateManifests(bagRoot, FileScanUtil.getIoExecutor());
+    } else {
+      manifests = CompletableFuture.completedFuture(new ValidationResult());
+    }
+    ValidationResult result = new ValidationResult();
+    try {
+      Path metsFile = BagItUtil.getMetsFile(bagRoot);
+      if (Files.exists(metsFile)) {
+        result.merge(MetsUtil.validate(metsFile, profile));
+      } else {
+        result.addError(NO_METS_FILE + " --> " + bagRoot.relativize(metsFile));
+      }
+    } finally {
+      // Wait for checksums before file system of bag may be closed.
+      result.merge(manifests.join());
+    }
+    return result.assertValid();
+  }
 }
@@ -16,14 +16,24 @@
 package edu.kit.ocrd.workspace;
 
 import edu.kit.ocrd.workspace.exception.WorkspaceException;
+import edu.kit.ocrd.workspace.index.DocumentBackend;
+import edu.kit.ocrd.workspace.index.MetsIndex;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 import javax.xml.XMLConstants;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
 import javax.xml.transform.stream.StreamSource;
 import javax.xml.validation.Schema;
 import javax.xml.validation.SchemaFactory;
@@ -79,6 +89,20 @@ public class XmlUtil {
    * List of all registered xsd files.
    */
   private static final String[] xsdResources = {"xsd/mets.xsd", "xsd/page_2017.xsd", "xsd/page_2018.xsd", "xsd/page_2019.xsd"};
+  /**
+   * Factory for streaming parsers. (External entities are not resolved.)
+   */
+  private static final XMLInputFactory XML_INPUT_FACTORY = XMLInputFactory.newInstance();
+
+  /**
+   * Backend used for building the index of METS documents.
+   */
+  private static volatile DocumentBackend documentBackend = DocumentBackend.JDOM;
+
+  static {
+    XML_INPUT_FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE);
+    XML_INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+  }
 
   static {
     // Initialize Map
@@ -104,6 +128,16 @@ public class XmlUtil {
     }
   }
 
+  /**
+   * Get all namespaces for which a schema is registered. Calling this method
+   * also makes sure that all schemas are loaded.
+   *
+   * @return Set of registered namespaces.
+   */
+  public static Set<String> getRegisteredNamespaces() {
+    return Collections.unmodifiableSet(xsdMap.keySet());
+  }
+
   /**
    * Get target namespace of xsd file.
    *
@@ -132,6 +166,66 @@ public class XmlUtil {
     return document.getRootElement().getNamespace().getURI();
   }
 
+  /**
+   * Get namespace of xml file. Only the root element is read, so the
+   * document is not parsed completely.
+   *
+   * @param xmlFile xml file
+   * @return namespace.
+   */
+  public static String getNamespace(final File xmlFile) {
+    return getNamespace(xmlFile.toPath());
+  }
+
+  /**
+   * Get namespace of xml file. Only the root element is read, so the
+   * document is not parsed completely. The path may belong to any file system
+   * (e.g. entry of a zip file).
+   *
+   * @param xmlFile xml file
+   * @return namespace.
+   */
+  public static String getNamespace(final Path xmlFile) {
+    String namespace = null;
+    try (InputStream inputStream = Files.newInputStream(xmlFile)) {
+      XMLStreamReader reader = XML_INPUT_FACTORY.createXMLStreamReader(inputStream);
+      reader.nextTag();
+      namespace = reader.getNamespaceURI();
+      reader.close();
+    } catch (IOException | XMLStreamException ex) {
+      String message = ERROR_VALIDATING_XML;
+      LOGGER.error(message, ex);
+      throw new WorkspaceException(message, ex);
+    }
+    return namespace == null ? "" : namespace;
+  }
+
+  /**
+   * Create streaming parser for xml. (External entities are not resolved.)
+   *
+   * @param inputStream Stream containing xml.
+   * @return Parser.
+   * @throws XMLStreamException Error creating parser.
+   */
+  static XMLStreamReader createXMLStreamReader(final InputStream inputStream) throws XMLStreamException {
+    return XML_INPUT_FACTORY.createXMLStreamReader(inputStream);
+  }
+
+  /**
+   * Is namespace one of the supported PAGE namespaces?
+   *
+   * @param namespace Namespace URI.
+   * @return true if namespace belongs to PAGE.
+   */
+  public static boolean isPageNamespace(final String namespace) {
+    for (Namespace pageNamespace : pageNamespaces) {
+      if (pageNamespace.getURI().equals(namespace)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   /**
    * Get value of attribute of given element.
    *
@@ -154,17 +248,26 @@ public class XmlUtil {
    * @return true or exception
    */
   public static boolean validateXml(final File xmlFile) {
+    return validateXml(xmlFile.toPath());
+  }
+
+  /**
+   * Validate xml file against one of registered xsd files. The path may
+   * belong to any file system (e.g. entry of a zip file).
+   *
+   * @param xmlFile xml file.
+   * @return true or exception
+   */
+  public static boolean validateXml(final Path xmlFile) {
     boolean valid = false;
     Schema schema = null;
     String namespace = null;
-    Document document = getDocument(xmlFile);
-    namespace = getNamespace(document);
+    namespace = getNamespace(xmlFile);
     schema = xsdMap.get(namespace);
     if (schema != null) {
-      try {
-        SchemaFactory factory = SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+      try (InputStream inputStream = Files.newInputStream(xmlFile)) {
         Validator validator = schema.newValidator();
-        validator.validate(new StreamSource(xmlFile));
+        validator.validate(new StreamSource(inputStream, xmlFile.toUri().toString()));
         valid = true;
       } catch (IOException | SAXException ex) {
         String message = ERROR_VALIDATING_XML;
@@ -196,4 +299,58 @@ public class XmlUtil {
     }
     return document;
   }
+
+  /**
+   * Get instance of documnent for given file. The path may belong to any file
+   * system (e.g. entry of a zip file).
+   *
+   * @param xmlFile xml file.
+   * @return Document or exception
+   */
+  public static Document getDocument(final Path xmlFile) {
+    if (xmlFile.getFileSystem() == FileSystems.getDefault()) {
+      return getDocument(xmlFile.toFile());
+    }
+    Document document = null;
+    try (InputStream inputStream = Files.newInputStream(xmlFile)) {
+      document = JaxenUtil.getDocument(inputStream);
+    } catch (Exception ex) {
+      String message = ERROR_VALIDATING_XML;
+      LOGGER.error(message, ex);
+      throw new WorkspaceException(message, ex);
+    }
+    return document;
+  }
+
+  /**
+   * Get backend used for building the index of METS documents.
+   *
+   * @return Backend (JDOM by default).
+   */
+  public static DocumentBackend getDocumentBackend() {
+    return documentBackend;
+  }
+
+  /**
+   * Set backend used for building the index of METS documents.
+   *
+   * @param backend Backend.
+   */
+  public static void setDocumentBackend(final DocumentBackend backend) {
+    if (backend == null) {
+      throw new IllegalArgumentException("Backend must not be null!");
+    }
+    documentBackend = backend;
+  }
+
+  /**
+   * Get index of METS file using the selected backend. The path may belong to
+   * any file system (e.g. entry of a zip file).
+   *
+   * @param metsFile METS file.
+   * @return Index of METS document.
+   */
+  public static MetsIndex getMetsIndex(final Path metsFile) {
+    return documentBackend.buildMetsIndex(metsFile);
+  }
 }
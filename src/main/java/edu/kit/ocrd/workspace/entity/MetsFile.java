@@ -0,0 +1,114 @@
+/*
+ * Copyright 2019 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.entity;
+
+/**
+ * File of a workspace as referenced by METS.
+ */
+public class MetsFile {
+
+  /**
+   * ID of file.
+   */
+  private final String id;
+  /**
+   * USE of file group.
+   */
+  private final String fileGrp;
+  /**
+   * ID of page (may be null).
+   */
+  private final String pageId;
+  /**
+   * ORDER of page (Integer.MIN_VALUE if unknown).
+   */
+  private final int pageOrder;
+  /**
+   * Mimetype of file.
+   */
+  private final String mimetype;
+  /**
+   * URL of file (may be null).
+   */
+  private final String url;
+
+  /**
+   * Constructor.
+   *
+   * @param id ID of file.
+   * @param fileGrp USE of file group.
+   * @param pageId ID of page.
+   * @param pageOrder ORDER of page.
+   * @param mimetype Mimetype of file.
+   * @param url URL of file.
+   */
+  public MetsFile(final String id, final String fileGrp, final String pageId, final int pageOrder, final String mimetype, final String url) {
+    this.id = id;
+    this.fileGrp = fileGrp;
+    this.pageId = pageId;
+    this.pageOrder = pageOrder;
+    this.mimetype = mimetype;
+    this.url = url;
+  }
+
+  /**
+   * @return the id
+   */
+  public String getId() {
+    return id;
+  }
+
+  /**
+   * @return the fileGrp
+   */
+  public String getFileGrp() {
+    return fileGrp;
+  }
+
+  /**
+   * @return the pageId
+   */
+  public String getPageId() {
+    return pageId;
+  }
+
+  /**
+   * @return the pageOrder
+   */
+  public int getPageOrder() {
+    return pageOrder;
+  }
+
+  /**
+   * @return the mimetype
+   */
+  public String getMimetype() {
+    return mimetype;
+  }
+
+  /**
+   * @return the url
+   */
+  public String getUrl() {
+    return url;
+  }
+
+  @Override
+  public String toString() {
+    return "MetsFile{" + "id=" + id + ", fileGrp=" + fileGrp + ", pageId=" + pageId + ", pageOrder=" + pageOrder
+            + ", mimetype=" + mimetype + ", url=" + url + '}';
+  }
+}
@@ -0,0 +1,253 @@
+/*
+ * Copyright 2019 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.entity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Descriptive metadata of a METS document. All values are trimmed, empty
+ * values are ignored. Single valued fields hold the first value found.
+ */
+public class MetsMetadata {
+
+  /**
+   * Title of document.
+   */
+  private String title;
+  /**
+   * Subtitle of document.
+   */
+  private String subTitle;
+  /**
+   * Year of document.
+   */
+  private String year;
+  /**
+   * License of document.
+   */
+  private String license;
+  /**
+   * Authors of document.
+   */
+  private final List<String> authors = new ArrayList<>();
+  /**
+   * Number of images (files in file group OCR-D-IMG).
+   */
+  private int numberOfImages;
+  /**
+   * Publisher of document.
+   */
+  private String publisher;
+  /**
+   * Physical description of document.
+   */
+  private String physicalDescription;
+  /**
+   * Record identifier (PPN) of document.
+   */
+  private String ppn;
+  /**
+   * Languages of document.
+   */
+  private final List<String> languages = new ArrayList<>();
+  /**
+   * Classifications of document.
+   */
+  private final List<String> classifications = new ArrayList<>();
+  /**
+   * Genres of document.
+   */
+  private final List<String> genres = new ArrayList<>();
+
+  /**
+   * @return the title
+   */
+  public String getTitle() {
+    return title;
+  }
+
+  /**
+   * @param title the title to set
+   */
+  public void setTitle(String title) {
+    this.title = title;
+  }
+
+  /**
+   * @return the subTitle
+   */
+  public String getSubTitle() {
+    return subTitle;
+  }
+
+  /**
+   * @param subTitle the subTitle to set
+   */
+  public void setSubTitle(String subTitle) {
+    this.subTitle = subTitle;
+  }
+
+  /**
+   * @return the year
+   */
+  public String getYear() {
+    return year;
+  }
+
+  /**
+   * @param year the year to set
+   */
+  public void setYear(String year) {
+    this.year = year;
+  }
+
+  /**
+   * @return the license
+   */
+  public String getLicense() {
+    return license;
+  }
+
+  /**
+   * @param license the license to set
+   */
+  public void setLicense(String license) {
+    this.license = license;
+  }
+
+  /**
+   * @return the authors
+   */
+  public List<String> getAuthors() {
+    return Collections.unmodifiableList(authors);
+  }
+
+  /**
+   * @param author the author to add
+   */
+  public void addAuthor(String author) {
+    authors.add(author);
+  }
+
+  /**
+   * @return the numberOfImages
+   */
+  public int getNumberOfImages() {
+    return numberOfImages;
+  }
+
+  /**
+   * @param numberOfImages the numberOfImages to set
+   */
+  public void setNumberOfImages(int numberOfImages) {
+    this.numberOfImages = numberOfImages;
+  }
+
+  /**
+   * @return the publisher
+   */
+  public String getPublisher() {
+    return publisher;
+  }
+
+  /**
+   * @param publisher the publisher to set
+   */
+  public void setPublisher(String publisher) {
+    this.publisher = publisher;
+  }
+
+  /**
+   * @return the physicalDescription
+   */
+  public String getPhysicalDescription() {
+    return physicalDescription;
+  }
+
+  /**
+   * @param physicalDescription the physicalDescription to set
+   */
+  public void setPhysicalDescription(String physicalDescription) {
+    this.physicalDescription = physicalDescription;
+  }
+
+  /**
+   * @return the ppn
+   */
+  public String getPpn() {
+    return ppn;
+  }
+
+  /**
+   * @param ppn the ppn to set
+   */
+  public void setPpn(String ppn) {
+    this.ppn = ppn;
+  }
+
+  /**
+   * @return the languages
+   */
+  public List<String> getLanguages() {
+    return Collections.unmodifiableList(languages);
+  }
+
+  /**
+   * @param language the language to add
+   */
+  public void addLanguage(String language) {
+    languages.add(language);
+  }
+
+  /**
+   * @return the classifications
+   */
+  public List<String> getClassifications() {
+    return Collections.unmodifiableList(classifications);
+  }
+
+  /**
+   * @param classification the classification to add
+   */
+  public void addClassification(String classification) {
+    classifications.add(classification);
+  }
+
+  /**
+   * @return the genres
+   */
+  public List<String> getGenres() {
+    return Collections.unmodifiableList(genres);
+  }
+
+  /**
+   * @param genre the genre to add
+   */
+  public void addGenre(String genre) {
+    genres.add(genre);
+  }
+
+  @Override
+  public String toString() {
+    return "MetsMetadata{" + "title=" + title + ", subTitle=" + subTitle + ", year=" + year
+            + ", license=" + license + ", authors=" + authors + ", numberOfImages=" + numberOfImages
+            + ", publisher=" + publisher + ", physicalDescription=" + physicalDescription
+            + ", ppn=" + ppn + ", languages=" + languages + ", classifications=" + classifications
+            + ", genres=" + genres + '}';
+  }
+}
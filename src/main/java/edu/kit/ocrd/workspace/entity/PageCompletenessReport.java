@@ -0,0 +1,212 @@
+/*
+ * Copyright 2019 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.entity;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Matrix of file groups and pages telling which file group contains a file for
+ * which page. Each file group holds one bitset with one bit per page. Pages
+ * are sorted by ORDER.
+ */
+public class PageCompletenessReport {
+
+  /**
+   * USE of all file groups.
+   */
+  private final String[] fileGrps;
+  /**
+   * IDs of all pages sorted by ORDER.
+   */
+  private final String[] pageIds;
+  /**
+   * Pages with at least one file (one bitset per file group).
+   */
+  private final BitSet[] coveredPages;
+  /**
+   * Pages with more than one file (one bitset per file group).
+   */
+  private final BitSet[] duplicatePages;
+
+  /**
+   * Constructor. The bitsets are taken over without copying.
+   *
+   * @param fileGrps USE of all file groups.
+   * @param pageIds IDs of all pages sorted by ORDER.
+   * @param coveredPages Pages with at least one file per file group.
+   * @param duplicatePages Pages with more than one file per file group.
+   */
+  public PageCompletenessReport(final String[] fileGrps, final String[] pageIds, final BitSet[] coveredPages, final BitSet[] duplicatePages) {
+    this.fileGrps = fileGrps;
+    this.pageIds = pageIds;
+    this.coveredPages = coveredPages;
+    this.duplicatePages = duplicatePages;
+  }
+
+  /**
+   * Get number of file groups.
+   *
+   * @return Number of file groups.
+   */
+  public int getNumberOfFileGrps() {
+    return fileGrps.length;
+  }
+
+  /**
+   * Get USE of file group.
+   *
+   * @param fileGrp Index of file group.
+   * @return USE
+   */
+  public String getFileGrp(final int fileGrp) {
+    return fileGrps[fileGrp];
+  }
+
+  /**
+   * Get index of file group with given USE.
+   *
+   * @param use USE of file group.
+   * @return Index of file group or -1 if not found.
+   */
+  public int indexOfFileGrp(final String use) {
+    for (int fileGrp = 0; fileGrp < fileGrps.length; fileGrp++) {
+      if (fileGrps[fileGrp].equals(use)) {
+        return fileGrp;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Get number of pages.
+   *
+   * @return Number of pages.
+   */
+  public int getNumberOfPages() {
+    return pageIds.length;
+  }
+
+  /**
+   * Get ID of page.
+   *
+   * @param page Index of page (position in ORDER).
+   * @return ID
+   */
+  public String getPageId(final int page) {
+    return pageIds[page];
+  }
+
+  /**
+   * Does file group contain a file for page?
+   *
+   * @param fileGrp Index of file group.
+   * @param page Index of page (position in ORDER).
+   * @return true if file exists.
+   */
+  public boolean hasFile(final int fileGrp, final int page) {
+    return coveredPages[fileGrp].get(page);
+  }
+
+  /**
+   * Get pages covered by file group.
+   *
+   * @param fileGrp Index of file group.
+   * @return Copy of bitset with one bit per page.
+   */
+  public BitSet getCoveredPages(final int fileGrp) {
+    return (BitSet) coveredPages[fileGrp].clone();
+  }
+
+  /**
+   * Get number of pages covered by file group.
+   *
+   * @param fileGrp Index of file group.
+   * @return Number of pages.
+   */
+  public int getNumberOfCoveredPages(final int fileGrp) {
+    return coveredPages[fileGrp].cardinality();
+  }
+
+  /**
+   * Get coverage of file group.
+   *
+   * @param fileGrp Index of file group.
+   * @return Fraction of pages covered by file group (1.0 if there are no
+   * pages).
+   */
+  public double getCoverage(final int fileGrp) {
+    return pageIds.length == 0 ? 1.0 : (double) getNumberOfCoveredPages(fileGrp) / pageIds.length;
+  }
+
+  /**
+   * Get IDs of all pages without file in file group.
+   *
+   * @param fileGrp Index of file group.
+   * @return IDs of pages sorted by ORDER.
+   */
+  public List<String> getMissingPages(final int fileGrp) {
+    List<String> missingPages = new ArrayList<>();
+    BitSet covered = coveredPages[fileGrp];
+    for (int page = covered.nextClearBit(0); page < pageIds.length; page = covered.nextClearBit(page + 1)) {
+      missingPages.add(pageIds[page]);
+    }
+    return missingPages;
+  }
+
+  /**
+   * Get IDs of all pages with more than one file in file group.
+   *
+   * @param fileGrp Index of file group.
+   * @return IDs of pages sorted by ORDER.
+   */
+  public List<String> getDuplicatePages(final int fileGrp) {
+    List<String> pages = new ArrayList<>();
+    BitSet duplicates = duplicatePages[fileGrp];
+    for (int page = duplicates.nextSetBit(0); page >= 0; page = duplicates.nextSetBit(page + 1)) {
+      pages.add(pageIds[page]);
+    }
+    return pages;
+  }
+
+  /**
+   * Does every file group contain exactly one file for each page?
+   *
+   * @return true if complete.
+   */
+  public boolean isComplete() {
+    for (int fileGrp = 0; fileGrp < fileGrps.length; fileGrp++) {
+      if (getNumberOfCoveredPages(fileGrp) < pageIds.length || !duplicatePages[fileGrp].isEmpty()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder("PageCompletenessReport{numberOfPages=").append(pageIds.length);
+    for (int fileGrp = 0; fileGrp < fileGrps.length; fileGrp++) {
+      builder.append(", ").append(fileGrps[fileGrp]).append('=').append(getNumberOfCoveredPages(fileGrp))
+              .append('/').append(pageIds.length);
+      if (!duplicatePages[fileGrp].isEmpty()) {
+        builder.append(" (duplicates: ").append(duplicatePages[fileGrp].cardinality()).append(')');
+      }
+    }
+    return builder.append('}').toString();
+  }
+}
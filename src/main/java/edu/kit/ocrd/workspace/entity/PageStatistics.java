@@ -0,0 +1,249 @@
+/*
+ * Copyright 2019 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.entity;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Content statistics of one or more PAGE files. Statistics of several files
+ * may be summed up via merge.
+ */
+public class PageStatistics {
+
+  /**
+   * Path of PAGE file (null for summaries).
+   */
+  private final String path;
+  /**
+   * Number of PAGE files.
+   */
+  private int numberOfFiles;
+  /**
+   * Number of regions (all types).
+   */
+  private long numberOfRegions;
+  /**
+   * Number of text lines.
+   */
+  private long numberOfTextLines;
+  /**
+   * Number of words.
+   */
+  private long numberOfWords;
+  /**
+   * Number of glyphs.
+   */
+  private long numberOfGlyphs;
+  /**
+   * Number of TextEquiv elements.
+   */
+  private long numberOfTextEquivs;
+  /**
+   * Number of characters (code points) inside TextEquiv/Unicode.
+   */
+  private long numberOfCharacters;
+  /**
+   * Number of regions per region type (e.g. TextRegion, SeparatorRegion).
+   */
+  private final Map<String, Long> regionTypes = new TreeMap<>();
+  /**
+   * Number of text regions per @type (e.g. paragraph, heading).
+   */
+  private final Map<String, Long> textRegionTypes = new TreeMap<>();
+
+  /**
+   * Constructor for summary.
+   */
+  public PageStatistics() {
+    this(null);
+  }
+
+  /**
+   * Constructor for single PAGE file.
+   *
+   * @param path Path of PAGE file.
+   */
+  public PageStatistics(final String path) {
+    this.path = path;
+    this.numberOfFiles = path != null ? 1 : 0;
+  }
+
+  /**
+   * @return the path
+   */
+  public String getPath() {
+    return path;
+  }
+
+  /**
+   * @return the numberOfFiles
+   */
+  public int getNumberOfFiles() {
+    return numberOfFiles;
+  }
+
+  /**
+   * @return the numberOfRegions
+   */
+  public long getNumberOfRegions() {
+    return numberOfRegions;
+  }
+
+  /**
+   * @return the number of text regions
+   */
+  public long getNumberOfTextRegions() {
+    Long textRegions = regionTypes.get("TextRegion");
+    return textRegions != null ? textRegions : 0;
+  }
+
+  /**
+   * @return the numberOfTextLines
+   */
+  public long getNumberOfTextLines() {
+    return numberOfTextLines;
+  }
+
+  /**
+   * @return the numberOfWords
+   */
+  public long getNumberOfWords() {
+    return numberOfWords;
+  }
+
+  /**
+   * @return the numberOfGlyphs
+   */
+  public long getNumberOfGlyphs() {
+    return numberOfGlyphs;
+  }
+
+  /**
+   * @return the numberOfTextEquivs
+   */
+  public long getNumberOfTextEquivs() {
+    return numberOfTextEquivs;
+  }
+
+  /**
+   * @return the numberOfCharacters
+   */
+  public long getNumberOfCharacters() {
+    return numberOfCharacters;
+  }
+
+  /**
+   * Get average number of characters per TextEquiv.
+   *
+   * @return Characters per TextEquiv (0 if there is no TextEquiv).
+   */
+  public double getCharactersPerTextEquiv() {
+    return numberOfTextEquivs > 0 ? (double) numberOfCharacters / numberOfTextEquivs : 0;
+  }
+
+  /**
+   * @return the regionTypes
+   */
+  public Map<String, Long> getRegionTypes() {
+    return Collections.unmodifiableMap(regionTypes);
+  }
+
+  /**
+   * @return the textRegionTypes
+   */
+  public Map<String, Long> getTextRegionTypes() {
+    return Collections.unmodifiableMap(textRegionTypes);
+  }
+
+  /**
+   * Add region.
+   *
+   * @param regionType Type of region (local name of element).
+   * @param type Value of @type (may be null).
+   */
+  public void addRegion(final String regionType, final String type) {
+    numberOfRegions++;
+    regionTypes.merge(regionType, 1L, Long::sum);
+    if (type != null && "TextRegion".equals(regionType)) {
+      textRegionTypes.merge(type, 1L, Long::sum);
+    }
+  }
+
+  /**
+   * Add text line.
+   */
+  public void addTextLine() {
+    numberOfTextLines++;
+  }
+
+  /**
+   * Add word.
+   */
+  public void addWord() {
+    numberOfWords++;
+  }
+
+  /**
+   * Add glyph.
+   */
+  public void addGlyph() {
+    numberOfGlyphs++;
+  }
+
+  /**
+   * Add TextEquiv.
+   */
+  public void addTextEquiv() {
+    numberOfTextEquivs++;
+  }
+
+  /**
+   * Add characters of TextEquiv.
+   *
+   * @param characters Number of characters.
+   */
+  public void addCharacters(final long characters) {
+    numberOfCharacters += characters;
+  }
+
+  /**
+   * Add all values of other statistics.
+   *
+   * @param statistics Other statistics.
+   */
+  public void merge(final PageStatistics statistics) {
+    numberOfFiles += statistics.numberOfFiles;
+    numberOfRegions += statistics.numberOfRegions;
+    numberOfTextLines += statistics.numberOfTextLines;
+    numberOfWords += statistics.numberOfWords;
+    numberOfGlyphs += statistics.numberOfGlyphs;
+    numberOfTextEquivs += statistics.numberOfTextEquivs;
+    numberOfCharacters += statistics.numberOfCharacters;
+    statistics.regionTypes.forEach((key, value) -> regionTypes.merge(key, value, Long::sum));
+    statistics.textRegionTypes.forEach((key, value) -> textRegionTypes.merge(key, value, Long::sum));
+  }
+
+  @Override
+  public String toString() {
+    return "PageStatistics{" + "path=" + path + ", numberOfFiles=" + numberOfFiles + ", numberOfRegions=" + numberOfRegions
+            + ", numberOfTextLines=" + numberOfTextLines + ", numberOfWords=" + numberOfWords
+            + ", numberOfGlyphs=" + numberOfGlyphs + ", numberOfTextEquivs=" + numberOfTextEquivs
+            + ", numberOfCharacters=" + numberOfCharacters + ", regionTypes=" + regionTypes
+            + ", textRegionTypes=" + textRegionTypes + '}';
+  }
+}
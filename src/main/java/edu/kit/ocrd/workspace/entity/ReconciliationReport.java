@@ -0,0 +1,205 @@
+/*
+ * Copyright 2019 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.entity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Result of reconciling the files of a workspace directory with the files
+ * referenced by METS. All paths are relative to the workspace directory using
+ * '/' as separator.
+ */
+public class ReconciliationReport {
+
+  /**
+   * Single file of report.
+   */
+  public static class Entry {
+
+    /**
+     * Path of file (on disk or as referenced by METS if missing).
+     */
+    private final String path;
+    /**
+     * Path referenced by METS (differs from path only in case).
+     */
+    private final String referencedPath;
+    /**
+     * Size of file in bytes (-1 if file is missing).
+     */
+    private final long size;
+
+    /**
+     * Constructor.
+     *
+     * @param path Path of file.
+     * @param referencedPath Path referenced by METS.
+     * @param size Size of file in bytes.
+     */
+    public Entry(final String path, final String referencedPath, final long size) {
+      this.path = path;
+      this.referencedPath = referencedPath;
+      this.size = size;
+    }
+
+    /**
+     * @return the path
+     */
+    public String getPath() {
+      return path;
+    }
+
+    /**
+     * @return the referencedPath
+     */
+    public String getReferencedPath() {
+      return referencedPath;
+    }
+
+    /**
+     * @return the size
+     */
+    public long getSize() {
+      return size;
+    }
+
+    @Override
+    public String toString() {
+      return path + (referencedPath != null && !referencedPath.equals(path) ? " (METS: " + referencedPath + ")" : "") + (size >= 0 ? " [" + size + " bytes]" : "");
+    }
+  }
+  /**
+   * Files referenced by METS but missing on disk.
+   */
+  private final List<Entry> missingFiles = new ArrayList<>();
+  /**
+   * Files on disk not referenced by METS.
+   */
+  private final List<Entry> orphanedFiles = new ArrayList<>();
+  /**
+   * Files referenced by METS which exist only with different case.
+   */
+  private final List<Entry> caseMismatchedFiles = new ArrayList<>();
+  /**
+   * Number of files found on disk.
+   */
+  private long numberOfFiles;
+  /**
+   * Number of files referenced by METS and found on disk.
+   */
+  private long numberOfMatchedFiles;
+
+  /**
+   * @return the missingFiles
+   */
+  public List<Entry> getMissingFiles() {
+    return Collections.unmodifiableList(missingFiles);
+  }
+
+  /**
+   * @param entry the missing file to add
+   */
+  public void addMissingFile(Entry entry) {
+    missingFiles.add(entry);
+  }
+
+  /**
+   * @return the orphanedFiles
+   */
+  public List<Entry> getOrphanedFiles() {
+    return Collections.unmodifiableList(orphanedFiles);
+  }
+
+  /**
+   * @param entry the orphaned file to add
+   */
+  public void addOrphanedFile(Entry entry) {
+    orphanedFiles.add(entry);
+  }
+
+  /**
+   * @return the caseMismatchedFiles
+   */
+  public List<Entry> getCaseMismatchedFiles() {
+    return Collections.unmodifiableList(caseMismatchedFiles);
+  }
+
+  /**
+   * @param entry the case mismatched file to add
+   */
+  public void addCaseMismatchedFile(Entry entry) {
+    caseMismatchedFiles.add(entry);
+  }
+
+  /**
+   * @return the numberOfFiles
+   */
+  public long getNumberOfFiles() {
+    return numberOfFiles;
+  }
+
+  /**
+   * @param numberOfFiles the numberOfFiles to set
+   */
+  public void setNumberOfFiles(long numberOfFiles) {
+    this.numberOfFiles = numberOfFiles;
+  }
+
+  /**
+   * @return the numberOfMatchedFiles
+   */
+  public long getNumberOfMatchedFiles() {
+    return numberOfMatchedFiles;
+  }
+
+  /**
+   * @param numberOfMatchedFiles the numberOfMatchedFiles to set
+   */
+  public void setNumberOfMatchedFiles(long numberOfMatchedFiles) {
+    this.numberOfMatchedFiles = numberOfMatchedFiles;
+  }
+
+  /**
+   * Get size of all orphaned files.
+   *
+   * @return Size in bytes.
+   */
+  public long getSizeOfOrphanedFiles() {
+    long size = 0;
+    for (Entry entry : orphanedFiles) {
+      size += entry.getSize();
+    }
+    return size;
+  }
+
+  /**
+   * Are disk and METS consistent?
+   *
+   * @return true if no file is missing, orphaned or case mismatched.
+   */
+  public boolean isConsistent() {
+    return missingFiles.isEmpty() && orphanedFiles.isEmpty() && caseMismatchedFiles.isEmpty();
+  }
+
+  @Override
+  public String toString() {
+    return "ReconciliationReport{" + "numberOfFiles=" + numberOfFiles + ", numberOfMatchedFiles=" + numberOfMatchedFiles
+            + ", missingFiles=" + missingFiles + ", orphanedFiles=" + orphanedFiles
+            + ", caseMismatchedFiles=" + caseMismatchedFiles + '}';
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2019 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.entity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Content statistics of all PAGE files of a workspace.
+ */
+public class WorkspaceStatistics {
+
+  /**
+   * Statistics of each PAGE file in order of METS.
+   */
+  private final List<PageStatistics> pages = new ArrayList<>();
+  /**
+   * Summary of all PAGE files.
+   */
+  private final PageStatistics summary = new PageStatistics();
+
+  /**
+   * Add statistics of PAGE file.
+   *
+   * @param page Statistics of PAGE file.
+   */
+  public void addPage(final PageStatistics page) {
+    pages.add(page);
+    summary.merge(page);
+  }
+
+  /**
+   * @return the pages
+   */
+  public List<PageStatistics> getPages() {
+    return Collections.unmodifiableList(pages);
+  }
+
+  /**
+   * @return the summary
+   */
+  public PageStatistics getSummary() {
+    return summary;
+  }
+
+  @Override
+  public String toString() {
+    return "WorkspaceStatistics{" + "summary=" + summary + ", pages=" + pages + '}';
+  }
+}
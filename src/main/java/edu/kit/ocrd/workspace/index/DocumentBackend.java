@@ -0,0 +1,111 @@
+/*
+ * Copyright 2019 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.index;
+
+import edu.kit.ocrd.workspace.XmlUtil;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Backends building the index of a METS document.
+ *
+ * - JDOM: Parse complete document with JDOM. (default, compatible with all
+ * checks working on the document)
+ * - TOKEN_INDEX: Keep raw bytes and build a token index (XmlIndex). Uses a
+ * fraction of the memory of JDOM for large documents. Checks working on the
+ * JDOM document (identifier, metadata) still parse the document with JDOM.
+ * - SNAPSHOT: Load index from binary snapshot next to METS (see MetsSnapshot).
+ * If the snapshot is missing or outdated the index is built with TOKEN_INDEX
+ * and the snapshot is (re)written.
+ */
+public enum DocumentBackend {
+  /**
+   * Parse document with JDOM.
+   */
+  JDOM("jdom") {
+    @Override
+    public MetsIndex buildMetsIndex(final Path metsFile) {
+      return MetsIndex.build(XmlUtil.getDocument(metsFile));
+    }
+  },
+  /**
+   * Index document with XmlIndex.
+   */
+  TOKEN_INDEX("tokenIndex") {
+    @Override
+    public MetsIndex buildMetsIndex(final Path metsFile) {
+      return MetsIndex.build(XmlIndex.parse(metsFile));
+    }
+  },
+  /**
+   * Load index from snapshot.
+   */
+  SNAPSHOT("snapshot") {
+    @Override
+    public MetsIndex buildMetsIndex(final Path metsFile) {
+      return MetsSnapshot.getMetsIndex(metsFile, TOKEN_INDEX);
+    }
+  };
+
+  /**
+   * Name of the backend.
+   */
+  private final String name;
+  /**
+   * Map for fast lookup of backends by name.
+   */
+  private static final Map<String, DocumentBackend> lookup = new HashMap<>();
+
+  static {
+    for (DocumentBackend backend : DocumentBackend.values()) {
+      lookup.put(backend.toString().toLowerCase(), backend);
+      lookup.put(backend.name().toLowerCase(), backend);
+    }
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param name Name of the backend.
+   */
+  DocumentBackend(final String name) {
+    this.name = name;
+  }
+
+  /**
+   * Build index of METS file.
+   *
+   * @param metsFile METS file (may belong to any file system).
+   * @return Index of METS document.
+   */
+  public abstract MetsIndex buildMetsIndex(Path metsFile);
+
+  @Override
+  public String toString() {
+    return name;
+  }
+
+  /**
+   * Get backend by its name or the name of the constant (case insensitive).
+   *
+   * @param name Name of the backend.
+   * @return Backend or null if there is no backend with the given name.
+   */
+  public static DocumentBackend get(final String name) {
+    return lookup.get(name.toLowerCase());
+  }
+}
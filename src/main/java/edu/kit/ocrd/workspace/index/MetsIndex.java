@@ -0,0 +1,993 @@
+/*
+ * Copyright 2019 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.jdom.Document;
+import org.jdom.Element;
+import org.jdom.Namespace;
+
+/**
+ * Immutable index of the parts of a METS document needed for validating a
+ * workspace. The index is built in one pass over the document and holds all
+ * data in arrays addressed by the position of the file group, file or page
+ * inside the document (document order).
+ *
+ * Indexed:
+ * - File groups (mets:fileGrp/@USE)
+ * - Files (mets:file/@ID, @MIMETYPE, @GROUPID, @CHECKSUM, @CHECKSUMTYPE,
+ * mets:FLocat/@xlink:href)
+ * - Pages of physical map (mets:div[@TYPE='page']/@ID, @ORDER, @DMDID and
+ * mets:fptr/@FILEID)
+ * - Semantic labels of ground truth (gt:state/@prop) by ID of dmdSec.
+ *
+ * IDs and URLs are held in StringStores (front coded, no object per string),
+ * MIMETYPE, USE and CHECKSUMTYPE are interned per document and stored as
+ * codes. Getters create a new String for each call, views (e.g.
+ * getFileUrlView) give access without copying.
+ */
+public class MetsIndex {
+
+  /**
+   * Namespace of METS.
+   */
+  public static final String METS_NAMESPACE = "http://www.loc.gov/METS/";
+  /**
+   * Namespace of xlink.
+   */
+  public static final String XLINK_NAMESPACE = "http://www.w3.org/1999/xlink";
+  /**
+   * Namespace of OCR-D ground truth metadata.
+   */
+  public static final String GT_NAMESPACE = "http://www.ocr-d.de/GT/";
+  /**
+   * Value used for missing or invalid ORDER attributes.
+   */
+  public static final int NO_ORDER = Integer.MIN_VALUE;
+  /**
+   * Value used if there is no page/file.
+   */
+  public static final int NOT_FOUND = -1;
+  /**
+   * Namespace of xlink for JDOM.
+   */
+  private static final Namespace XLINK = Namespace.getNamespace("xlink", XLINK_NAMESPACE);
+  /**
+   * USE of all file groups.
+   */
+  private final String[] fileGrpUses;
+  /**
+   * Files of all file groups. (Files of group i: fileGrpFiles[fileGrpStart[i]]
+   * to fileGrpFiles[fileGrpStart[i + 1] - 1])
+   */
+  private final int[] fileGrpStart;
+  /**
+   * Files of all file groups.
+   */
+  private final int[] fileGrpFiles;
+  /**
+   * IDs of files. (with lookup)
+   */
+  private final StringStore fileIds;
+  /**
+   * Distinct mimetypes of files.
+   */
+  private final String[] mimetypes;
+  /**
+   * Mimetypes of files. (codes of mimetypes)
+   */
+  private final int[] fileMimetypes;
+  /**
+   * URLs of files.
+   */
+  private final StringStore fileUrls;
+  /**
+   * GROUPIDs of files. (Old style for grouping files by page)
+   */
+  private final StringStore fileGroupIds;
+  /**
+   * Checksums of files.
+   */
+  private final StringStore fileChecksums;
+  /**
+   * Distinct checksum types of files.
+   */
+  private final String[] checksumTypes;
+  /**
+   * Checksum types of files. (codes of checksumTypes)
+   */
+  private final int[] fileChecksumTypes;
+  /**
+   * File group of files.
+   */
+  private final int[] fileGrpOfFile;
+  /**
+   * (First) page of files.
+   */
+  private final int[] pageOfFile;
+  /**
+   * IDs of pages.
+   */
+  private final StringStore pageIds;
+  /**
+   * ORDER of pages.
+   */
+  private final int[] pageOrders;
+  /**
+   * DMDIDs of pages.
+   */
+  private final StringStore pageDmdIds;
+  /**
+   * Files of all pages. (Files of page i: pageFiles[pageStart[i]] to
+   * pageFiles[pageStart[i + 1] - 1])
+   */
+  private final int[] pageStart;
+  /**
+   * Files linked by pages. (NOT_FOUND if FILEID doesn't exist)
+   */
+  private final int[] pageFiles;
+  /**
+   * FILEIDs linked by pages.
+   */
+  private final StringStore pageFileIds;
+  /**
+   * Number of physical structure maps.
+   */
+  private final int noOfPhysicalMaps;
+  /**
+   * Number of physical sequences.
+   */
+  private final int noOfPhysicalSequences;
+  /**
+   * Semantic labels of ground truth by ID of dmdSec.
+   */
+  private final Map<String, String[]> groundTruthProperties;
+
+  /**
+   * Constructor. Use MetsIndex.build or MetsIndex.Builder.
+   *
+   * @param builder Builder holding all data.
+   */
+  private MetsIndex(final Builder builder) {
+    fileGrpUses = builder.fileGrpUses.toArray(new String[builder.fileGrpUses.size()]);
+    int noOfFiles = builder.fileIds.size();
+    fileIds = builder.fileIds.build(true);
+    mimetypes = builder.mimetypes.toArray();
+    fileMimetypes = Arrays.copyOf(builder.fileMimetypes, noOfFiles);
+    fileUrls = builder.fileUrls.build(false);
+    fileGroupIds = builder.fileGroupIds.build(false);
+    fileChecksums = builder.fileChecksums.build(false);
+    checksumTypes = builder.checksumTypes.toArray();
+    fileChecksumTypes = Arrays.copyOf(builder.fileChecksumTypes, noOfFiles);
+    fileGrpOfFile = Arrays.copyOf(builder.fileGrpOfFile, noOfFiles);
+    // Sort files by file group (counting sort keeps document order).
+    fileGrpStart = new int[fileGrpUses.length + 1];
+    for (int index = 0; index < noOfFiles; index++) {
+      fileGrpStart[fileGrpOfFile[index] + 1]++;
+    }
+    for (int index = 0; index < fileGrpUses.length; index++) {
+      fileGrpStart[index + 1] += fileGrpStart[index];
+    }
+    fileGrpFiles = new int[noOfFiles];
+    int[] position = Arrays.copyOf(fileGrpStart, fileGrpUses.length);
+    for (int index = 0; index < noOfFiles; index++) {
+      fileGrpFiles[position[fileGrpOfFile[index]]++] = index;
+    }
+    int noOfPages = builder.pageIds.size();
+    pageIds = builder.pageIds.build(true);
+    pageDmdIds = builder.pageDmdIds.build(false);
+    pageOrders = Arrays.copyOf(builder.pageOrders, noOfPages);
+    pageStart = Arrays.copyOf(builder.pageStart, noOfPages + 1);
+    pageStart[noOfPages] = builder.pageFileIds.size();
+    pageFileIds = builder.pageFileIds.build(false);
+    pageFiles = new int[pageFileIds.size()];
+    pageOfFile = new int[noOfFiles];
+    Arrays.fill(pageOfFile, NOT_FOUND);
+    for (int page = 0; page < noOfPages; page++) {
+      for (int index = pageStart[page]; index < pageStart[page + 1]; index++) {
+        // First occurrence of ID wins.
+        int file = fileIds.indexOf(pageFileIds.get(index));
+        pageFiles[index] = file;
+        if (file != NOT_FOUND && pageOfFile[file] == NOT_FOUND) {
+          pageOfFile[file] = page;
+        }
+      }
+    }
+    noOfPhysicalMaps = builder.noOfPhysicalMaps;
+    noOfPhysicalSequences = builder.noOfPhysicalSequences;
+    groundTruthProperties = new HashMap<>();
+    for (Map.Entry<String, List<String>> entry : builder.groundTruthProperties.entrySet()) {
+      groundTruthProperties.put(entry.getKey(), entry.getValue().toArray(new String[entry.getValue().size()]));
+    }
+  }
+
+  /**
+   * Build index from METS document.
+   *
+   * @param metsDocument METS document.
+   * @return Index of METS document.
+   */
+  public static MetsIndex build(final Document metsDocument) {
+    Builder builder = new Builder();
+    for (Object child : metsDocument.getRootElement().getChildren()) {
+      Element element = (Element) child;
+      if (isMets(element, "fileSec")) {
+        indexFileGroups(builder, element);
+      } else if (isMets(element, "structMap")) {
+        boolean physical = "PHYSICAL".equals(element.getAttributeValue("TYPE"));
+        if (physical) {
+          builder.addPhysicalMap();
+        }
+        indexDivs(builder, element, physical);
+      } else if (isMets(element, "dmdSec")) {
+        indexGroundTruth(builder, element);
+      }
+    }
+    return builder.build();
+  }
+
+  /**
+   * Build index from token index of METS document. Values are decoded
+   * directly from the buffer of the token index, no element objects are
+   * created.
+   *
+   * @param xml Token index of METS document.
+   * @return Index of METS document.
+   */
+  public static MetsIndex build(final XmlIndex xml) {
+    Builder builder = new Builder();
+    for (int element = xml.getFirstChild(xml.getRootElement()); element != XmlIndex.NONE; element = xml.getNextSibling(element)) {
+      if (xml.isElement(element, METS_NAMESPACE, "fileSec")) {
+        indexFileGroups(builder, xml, element);
+      } else if (xml.isElement(element, METS_NAMESPACE, "structMap")) {
+        boolean physical = "PHYSICAL".equals(xml.getAttributeValue(element, "TYPE"));
+        if (physical) {
+          builder.addPhysicalMap();
+        }
+        indexDivs(builder, xml, element, physical);
+      } else if (xml.isElement(element, METS_NAMESPACE, "dmdSec")) {
+        indexGroundTruth(builder, xml, element);
+      }
+    }
+    return builder.build();
+  }
+
+  /**
+   * Index all file groups (including nested ones) of element.
+   *
+   * @param builder Builder.
+   * @param xml Token index.
+   * @param parent fileSec or fileGrp element.
+   */
+  private static void indexFileGroups(final Builder builder, final XmlIndex xml, final int parent) {
+    for (int element = xml.getFirstChild(parent); element != XmlIndex.NONE; element = xml.getNextSibling(element)) {
+      if (xml.isElement(element, METS_NAMESPACE, "fileGrp")) {
+        builder.addFileGrp(xml.getAttributeValue(element, "USE"));
+        // Files of nested groups are registered after the group.
+        for (int file = xml.getFirstChild(element); file != XmlIndex.NONE; file = xml.getNextSibling(file)) {
+          if (xml.isElement(file, METS_NAMESPACE, "file")) {
+            String url = null;
+            for (int flocat = xml.getFirstChild(file); flocat != XmlIndex.NONE; flocat = xml.getNextSibling(flocat)) {
+              if (xml.isElement(flocat, METS_NAMESPACE, "FLocat")) {
+                url = xml.getAttributeValue(flocat, XLINK_NAMESPACE, "href");
+                break;
+              }
+            }
+            builder.addFile(xml.getAttributeValue(file, "ID"),
+                    xml.getAttributeValue(file, "MIMETYPE"),
+                    url,
+                    xml.getAttributeValue(file, "GROUPID"),
+                    xml.getAttributeValue(file, "CHECKSUM"),
+                    xml.getAttributeValue(file, "CHECKSUMTYPE"));
+          }
+        }
+        indexFileGroups(builder, xml, element);
+      }
+    }
+  }
+
+  /**
+   * Index all divs of a structure map.
+   *
+   * @param builder Builder.
+   * @param xml Token index.
+   * @param parent structMap or div element.
+   * @param physical Is element part of physical map?
+   */
+  private static void indexDivs(final Builder builder, final XmlIndex xml, final int parent, final boolean physical) {
+    for (int element = xml.getFirstChild(parent); element != XmlIndex.NONE; element = xml.getNextSibling(element)) {
+      if (xml.isElement(element, METS_NAMESPACE, "div")) {
+        String type = xml.getAttributeValue(element, "TYPE");
+        if ("physSequence".equals(type)) {
+          builder.addPhysicalSequence();
+        }
+        if (physical && "page".equals(type)) {
+          builder.addPage(xml.getAttributeValue(element, "ID"),
+                  xml.getAttributeValue(element, "ORDER"),
+                  xml.getAttributeValue(element, "DMDID"));
+          for (int fptr = xml.getFirstChild(element); fptr != XmlIndex.NONE; fptr = xml.getNextSibling(fptr)) {
+            String fileId = xml.getAttributeValue(fptr, "FILEID");
+            if (xml.isElement(fptr, METS_NAMESPACE, "fptr") && fileId != null) {
+              builder.addFilePointer(fileId);
+            }
+          }
+        }
+        indexDivs(builder, xml, element, physical);
+      }
+    }
+  }
+
+  /**
+   * Index semantic labels of ground truth.
+   * (mets:dmdSec/mets:mdWrap[@OTHERMDTYPE='GT']/mets:xmlData/gt:gt/gt:state/@prop)
+   *
+   * @param builder Builder.
+   * @param xml Token index.
+   * @param dmdSec dmdSec element.
+   */
+  private static void indexGroundTruth(final Builder builder, final XmlIndex xml, final int dmdSec) {
+    String dmdId = xml.getAttributeValue(dmdSec, "ID");
+    for (int mdWrap = xml.getFirstChild(dmdSec); mdWrap != XmlIndex.NONE; mdWrap = xml.getNextSibling(mdWrap)) {
+      if (xml.isElement(mdWrap, METS_NAMESPACE, "mdWrap") && "GT".equals(xml.getAttributeValue(mdWrap, "OTHERMDTYPE"))) {
+        for (int xmlData = xml.getFirstChild(mdWrap); xmlData != XmlIndex.NONE; xmlData = xml.getNextSibling(xmlData)) {
+          if (xml.isElement(xmlData, METS_NAMESPACE, "xmlData")) {
+            for (int gt = xml.getFirstChild(xmlData); gt != XmlIndex.NONE; gt = xml.getNextSibling(gt)) {
+              if (xml.isElement(gt, GT_NAMESPACE, "gt")) {
+                for (int state = xml.getFirstChild(gt); state != XmlIndex.NONE; state = xml.getNextSibling(state)) {
+                  String property = xml.getAttributeValue(state, "prop");
+                  if (xml.isElement(state, GT_NAMESPACE, "state") && property != null) {
+                    builder.addGroundTruthProperty(dmdId, property);
+                  }
+                }
+              }
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Index all file groups (including nested ones) of element.
+   *
+   * @param builder Builder.
+   * @param parent fileSec or fileGrp element.
+   */
+  private static void indexFileGroups(final Builder builder, final Element parent) {
+    for (Object child : parent.getChildren()) {
+      Element element = (Element) child;
+      if (isMets(element, "fileGrp")) {
+        builder.addFileGrp(element.getAttributeValue("USE"));
+        // Files of nested groups are registered after the group.
+        for (Object grandChild : element.getChildren()) {
+          Element fileElement = (Element) grandChild;
+          if (isMets(fileElement, "file")) {
+            String url = null;
+            for (Object flocat : fileElement.getChildren()) {
+              Element flocatElement = (Element) flocat;
+              if (isMets(flocatElement, "FLocat")) {
+                url = flocatElement.getAttributeValue("href", XLINK);
+                break;
+              }
+            }
+            builder.addFile(fileElement.getAttributeValue("ID"),
+                    fileElement.getAttributeValue("MIMETYPE"),
+                    url,
+                    fileElement.getAttributeValue("GROUPID"),
+                    fileElement.getAttributeValue("CHECKSUM"),
+                    fileElement.getAttributeValue("CHECKSUMTYPE"));
+          }
+        }
+        indexFileGroups(builder, element);
+      }
+    }
+  }
+
+  /**
+   * Index all divs of a structure map.
+   *
+   * @param builder Builder.
+   * @param parent structMap or div element.
+   * @param physical Is element part of physical map?
+   */
+  private static void indexDivs(final Builder builder, final Element parent, final boolean physical) {
+    for (Object child : parent.getChildren()) {
+      Element element = (Element) child;
+      if (isMets(element, "div")) {
+        String type = element.getAttributeValue("TYPE");
+        if ("physSequence".equals(type)) {
+          builder.addPhysicalSequence();
+        }
+        if (physical && "page".equals(type)) {
+          builder.addPage(element.getAttributeValue("ID"),
+                  element.getAttributeValue("ORDER"),
+                  element.getAttributeValue("DMDID"));
+          for (Object fptr : element.getChildren()) {
+            Element fptrElement = (Element) fptr;
+            if (isMets(fptrElement, "fptr") && fptrElement.getAttributeValue("FILEID") != null) {
+              builder.addFilePointer(fptrElement.getAttributeValue("FILEID"));
+            }
+          }
+        }
+        indexDivs(builder, element, physical);
+      }
+    }
+  }
+
+  /**
+   * Index semantic labels of ground truth.
+   * (mets:dmdSec/mets:mdWrap[@OTHERMDTYPE='GT']/mets:xmlData/gt:gt/gt:state/@prop)
+   *
+   * @param builder Builder.
+   * @param dmdSec dmdSec element.
+   */
+  private static void indexGroundTruth(final Builder builder, final Element dmdSec) {
+    String dmdId = dmdSec.getAttributeValue("ID");
+    for (Object mdWrap : dmdSec.getChildren()) {
+      Element mdWrapElement = (Element) mdWrap;
+      if (isMets(mdWrapElement, "mdWrap") && "GT".equals(mdWrapElement.getAttributeValue("OTHERMDTYPE"))) {
+        for (Object xmlData : mdWrapElement.getChildren()) {
+          Element xmlDataElement = (Element) xmlData;
+          if (isMets(xmlDataElement, "xmlData")) {
+            for (Object gt : xmlDataElement.getChildren()) {
+              Element gtElement = (Element) gt;
+              if (isElement(gtElement, GT_NAMESPACE, "gt")) {
+                for (Object state : gtElement.getChildren()) {
+                  Element stateElement = (Element) state;
+                  if (isElement(stateElement, GT_NAMESPACE, "state") && stateElement.getAttributeValue("prop") != null) {
+                    builder.addGroundTruthProperty(dmdId, stateElement.getAttributeValue("prop"));
+                  }
+                }
+              }
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Test for METS element with given name.
+   *
+   * @param element Element.
+   * @param name Local name.
+   * @return true if element matches.
+   */
+  private static boolean isMets(final Element element, final String name) {
+    return isElement(element, METS_NAMESPACE, name);
+  }
+
+  /**
+   * Test for element with given namespace and name.
+   *
+   * @param element Element.
+   * @param namespace Namespace URI.
+   * @param name Local name.
+   * @return true if element matches.
+   */
+  private static boolean isElement(final Element element, final String namespace, final String name) {
+    return name.equals(element.getName()) && namespace.equals(element.getNamespaceURI());
+  }
+
+  /**
+   * Get number of file groups.
+   *
+   * @return Number of file groups.
+   */
+  public int getNumberOfFileGrps() {
+    return fileGrpUses.length;
+  }
+
+  /**
+   * Get USE of file group.
+   *
+   * @param fileGrp Index of file group.
+   * @return USE
+   */
+  public String getFileGrpUse(final int fileGrp) {
+    return fileGrpUses[fileGrp];
+  }
+
+  /**
+   * Get index of file group with given USE.
+   *
+   * @param use USE of file group.
+   * @return Index of (first) file group or NOT_FOUND.
+   */
+  public int getFileGrp(final String use) {
+    for (int index = 0; index < fileGrpUses.length; index++) {
+      if (fileGrpUses[index] != null && fileGrpUses[index].equals(use)) {
+        return index;
+      }
+    }
+    return NOT_FOUND;
+  }
+
+  /**
+   * Get all files of file group in document order.
+   *
+   * @param fileGrp Index of file group.
+   * @return Indices of files.
+   */
+  public int[] getFilesOfFileGrp(final int fileGrp) {
+    return Arrays.copyOfRange(fileGrpFiles, fileGrpStart[fileGrp], fileGrpStart[fileGrp + 1]);
+  }
+
+  /**
+   * Get number of files.
+   *
+   * @return Number of files.
+   */
+  public int getNumberOfFiles() {
+    return fileIds.size();
+  }
+
+  /**
+   * Get index of file with given ID.
+   *
+   * @param id ID of file.
+   * @return Index of file or NOT_FOUND.
+   */
+  public int getFile(final String id) {
+    return fileIds.indexOf(id);
+  }
+
+  /**
+   * Get ID of file.
+   *
+   * @param file Index of file.
+   * @return ID
+   */
+  public String getFileId(final int file) {
+    return fileIds.getString(file);
+  }
+
+  /**
+   * Get ID of file without copying.
+   *
+   * @param file Index of file.
+   * @return View on ID
+   */
+  public CharSequence getFileIdView(final int file) {
+    return fileIds.get(file);
+  }
+
+  /**
+   * Get mimetype of file.
+   *
+   * @param file Index of file.
+   * @return Mimetype
+   */
+  public String getFileMimetype(final int file) {
+    return fileMimetypes[file] == StringDictionary.NULL ? null : mimetypes[fileMimetypes[file]];
+  }
+
+  /**
+   * Get URL of file. (mets:FLocat/@xlink:href)
+   *
+   * @param file Index of file.
+   * @return URL (may be null)
+   */
+  public String getFileUrl(final int file) {
+    return fileUrls.getString(file);
+  }
+
+  /**
+   * Get URL of file without copying.
+   *
+   * @param file Index of file.
+   * @return View on URL (may be null)
+   */
+  public CharSequence getFileUrlView(final int file) {
+    return fileUrls.get(file);
+  }
+
+  /**
+   * Get GROUPID of file.
+   *
+   * @param file Index of file.
+   * @return GROUPID (may be null)
+   */
+  public String getFileGroupId(final int file) {
+    return fileGroupIds.getString(file);
+  }
+
+  /**
+   * Get checksum of file.
+   *
+   * @param file Index of file.
+   * @return Checksum (may be null)
+   */
+  public String getFileChecksum(final int file) {
+    return fileChecksums.getString(file);
+  }
+
+  /**
+   * Get checksum type of file.
+   *
+   * @param file Index of file.
+   * @return Checksum type (may be null)
+   */
+  public String getFileChecksumType(final int file) {
+    return fileChecksumTypes[file] == StringDictionary.NULL ? null : checksumTypes[fileChecksumTypes[file]];
+  }
+
+  /**
+   * Get file group of file.
+   *
+   * @param file Index of file.
+   * @return Index of file group.
+   */
+  public int getFileGrpOfFile(final int file) {
+    return fileGrpOfFile[file];
+  }
+
+  /**
+   * Get (first) page linking the file.
+   *
+   * @param file Index of file.
+   * @return Index of page or NOT_FOUND.
+   */
+  public int getPageOfFile(final int file) {
+    return pageOfFile[file];
+  }
+
+  /**
+   * Get ID of the page the file belongs to. If file is not linked by any page
+   * the GROUPID is used. (old style)
+   *
+   * @param file Index of file.
+   * @return ID of page (may be null)
+   */
+  public String getPageIdOfFile(final int file) {
+    int page = pageOfFile[file];
+    return page != NOT_FOUND ? pageIds.getString(page) : fileGroupIds.getString(file);
+  }
+
+  /**
+   * Get number of pages.
+   *
+   * @return Number of pages.
+   */
+  public int getNumberOfPages() {
+    return pageIds.size();
+  }
+
+  /**
+   * Get ID of page.
+   *
+   * @param page Index of page.
+   * @return ID
+   */
+  public String getPageId(final int page) {
+    return pageIds.getString(page);
+  }
+
+  /**
+   * Get index of page with given ID.
+   *
+   * @param id ID of page.
+   * @return Index of page or NOT_FOUND.
+   */
+  public int getPage(final String id) {
+    return pageIds.indexOf(id);
+  }
+
+  /**
+   * Get ORDER of page.
+   *
+   * @param page Index of page.
+   * @return ORDER or NO_ORDER if missing or invalid.
+   */
+  public int getPageOrder(final int page) {
+    return pageOrders[page];
+  }
+
+  /**
+   * Get DMDID of page.
+   *
+   * @param page Index of page.
+   * @return DMDID (may be null)
+   */
+  public String getPageDmdId(final int page) {
+    return pageDmdIds.getString(page);
+  }
+
+  /**
+   * Get all files linked by page. (NOT_FOUND for FILEIDs not referencing a
+   * file)
+   *
+   * @param page Index of page.
+   * @return Indices of files.
+   */
+  public int[] getFilesOfPage(final int page) {
+    return Arrays.copyOfRange(pageFiles, pageStart[page], pageStart[page + 1]);
+  }
+
+  /**
+   * Get all FILEIDs linked by page.
+   *
+   * @param page Index of page.
+   * @return FILEIDs
+   */
+  public String[] getFileIdsOfPage(final int page) {
+    String[] fileIdsOfPage = new String[pageStart[page + 1] - pageStart[page]];
+    for (int index = 0; index < fileIdsOfPage.length; index++) {
+      fileIdsOfPage[index] = pageFileIds.getString(pageStart[page] + index);
+    }
+    return fileIdsOfPage;
+  }
+
+  /**
+   * Get number of physical structure maps.
+   *
+   * @return Number of mets:structMap[@TYPE='PHYSICAL']
+   */
+  public int getNumberOfPhysicalMaps() {
+    return noOfPhysicalMaps;
+  }
+
+  /**
+   * Get number of physical sequences.
+   *
+   * @return Number of mets:div[@TYPE='physSequence']
+   */
+  public int getNumberOfPhysicalSequences() {
+    return noOfPhysicalSequences;
+  }
+
+  /**
+   * Get IDs of all dmdSecs containing semantic labels of ground truth.
+   *
+   * @return IDs of dmdSecs (sorted).
+   */
+  public String[] getGroundTruthDmdIds() {
+    String[] dmdIds = groundTruthProperties.keySet().toArray(new String[groundTruthProperties.size()]);
+    Arrays.sort(dmdIds, Comparator.nullsFirst(Comparator.<String>naturalOrder()));
+    return dmdIds;
+  }
+
+  /**
+   * Get semantic labels of ground truth stored in dmdSec with given ID.
+   *
+   * @param dmdId ID of dmdSec.
+   * @return Labels (empty if there are no labels)
+   */
+  public String[] getGroundTruthProperties(final String dmdId) {
+    String[] properties = groundTruthProperties.get(dmdId);
+    return properties != null ? properties.clone() : new String[0];
+  }
+
+  /**
+   * Builder collecting all data in document order.
+   */
+  public static class Builder {
+
+    /**
+     * USE of file groups.
+     */
+    private final List<String> fileGrpUses = new ArrayList<>();
+    /**
+     * Distinct USE of file groups.
+     */
+    private final StringDictionary uses = new StringDictionary();
+    /**
+     * IDs of files.
+     */
+    private final StringStore.Builder fileIds = new StringStore.Builder();
+    /**
+     * Distinct mimetypes.
+     */
+    private final StringDictionary mimetypes = new StringDictionary();
+    /**
+     * Mimetypes of files.
+     */
+    private int[] fileMimetypes = new int[64];
+    /**
+     * URLs of files.
+     */
+    private final StringStore.Builder fileUrls = new StringStore.Builder();
+    /**
+     * GROUPIDs of files.
+     */
+    private final StringStore.Builder fileGroupIds = new StringStore.Builder();
+    /**
+     * Checksums of files.
+     */
+    private final StringStore.Builder fileChecksums = new StringStore.Builder();
+    /**
+     * Distinct checksum types.
+     */
+    private final StringDictionary checksumTypes = new StringDictionary();
+    /**
+     * Checksum types of files.
+     */
+    private int[] fileChecksumTypes = new int[64];
+    /**
+     * File group of files.
+     */
+    private int[] fileGrpOfFile = new int[64];
+    /**
+     * IDs of pages.
+     */
+    private final StringStore.Builder pageIds = new StringStore.Builder();
+    /**
+     * DMDIDs of pages.
+     */
+    private final StringStore.Builder pageDmdIds = new StringStore.Builder();
+    /**
+     * ORDER of pages.
+     */
+    private int[] pageOrders = new int[64];
+    /**
+     * Start of file pointers of pages.
+     */
+    private int[] pageStart = new int[65];
+    /**
+     * FILEIDs of all file pointers.
+     */
+    private final StringStore.Builder pageFileIds = new StringStore.Builder();
+    /**
+     * Number of physical structure maps.
+     */
+    private int noOfPhysicalMaps = 0;
+    /**
+     * Number of physical sequences.
+     */
+    private int noOfPhysicalSequences = 0;
+    /**
+     * Semantic labels of ground truth.
+     */
+    private final Map<String, List<String>> groundTruthProperties = new HashMap<>();
+
+    /**
+     * Add file group. All following files belong to this group.
+     *
+     * @param use USE of file group.
+     * @return Builder
+     */
+    public Builder addFileGrp(final String use) {
+      fileGrpUses.add(uses.intern(use));
+      return this;
+    }
+
+    /**
+     * Add file to last file group.
+     *
+     * @param id ID of file.
+     * @param mimetype Mimetype of file.
+     * @param url URL of file.
+     * @param groupId GROUPID of file.
+     * @param checksum Checksum of file.
+     * @param checksumType Checksum type of file.
+     * @return Builder
+     */
+    public Builder addFile(final String id, final String mimetype, final String url, final String groupId, final String checksum, final String checksumType) {
+      if (fileGrpUses.isEmpty()) {
+        throw new IllegalStateException("No file group defined!");
+      }
+      int index = fileIds.size();
+      fileIds.add(id);
+      fileUrls.add(url);
+      fileGroupIds.add(groupId);
+      fileChecksums.add(checksum);
+      if (index >= fileGrpOfFile.length) {
+        fileGrpOfFile = Arrays.copyOf(fileGrpOfFile, index * 2);
+        fileMimetypes = Arrays.copyOf(fileMimetypes, index * 2);
+        fileChecksumTypes = Arrays.copyOf(fileChecksumTypes, index * 2);
+      }
+      fileGrpOfFile[index] = fileGrpUses.size() - 1;
+      fileMimetypes[index] = mimetypes.getCode(mimetype);
+      fileChecksumTypes[index] = checksumTypes.getCode(checksumType);
+      return this;
+    }
+
+    /**
+     * Add page of physical map. All following file pointers belong to this
+     * page.
+     *
+     * @param id ID of page.
+     * @param order ORDER of page.
+     * @param dmdId DMDID of page.
+     * @return Builder
+     */
+    public Builder addPage(final String id, final String order, final String dmdId) {
+      int index = pageIds.size();
+      pageIds.add(id);
+      pageDmdIds.add(dmdId);
+      if (index + 1 >= pageOrders.length) {
+        pageOrders = Arrays.copyOf(pageOrders, index * 2);
+        pageStart = Arrays.copyOf(pageStart, index * 2 + 1);
+      }
+      int pageOrder = NO_ORDER;
+      if (order != null) {
+        try {
+          pageOrder = Integer.parseInt(order.trim());
+        } catch (NumberFormatException nfe) {
+          // Invalid order
+        }
+      }
+      pageOrders[index] = pageOrder;
+      pageStart[index] = pageFileIds.size();
+      return this;
+    }
+
+    /**
+     * Add file pointer to last page.
+     *
+     * @param fileId FILEID of file pointer.
+     * @return Builder
+     */
+    public Builder addFilePointer(final String fileId) {
+      if (pageIds.size() == 0) {
+        throw new IllegalStateException("No page defined!");
+      }
+      pageFileIds.add(fileId);
+      return this;
+    }
+
+    /**
+     * Add physical structure map.
+     *
+     * @return Builder
+     */
+    public Builder addPhysicalMap() {
+      noOfPhysicalMaps++;
+      return this;
+    }
+
+    /**
+     * Add physical sequence.
+     *
+     * @return Builder
+     */
+    public Builder addPhysicalSequence() {
+      noOfPhysicalSequences++;
+      return this;
+    }
+
+    /**
+     * Add semantic label of ground truth.
+     *
+     * @param dmdId ID of dmdSec.
+     * @param property Label.
+     * @return Builder
+     */
+    public Builder addGroundTruthProperty(final String dmdId, final String property) {
+      List<String> properties = groundTruthProperties.get(dmdId);
+      if (properties == null) {
+        properties = new ArrayList<>();
+        groundTruthProperties.put(dmdId, properties);
+      }
+      properties.add(property);
+      return this;
+    }
+
+    /**
+     * Build index.
+     *
+     * @return Immutable index.
+     */
+    public MetsIndex build() {
+      return new MetsIndex(this);
+    }
+  }
+}
@@ -0,0 +1,551 @@
+/*
+ * Copyright 2019 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.index;
+
+import edu.kit.ocrd.workspace.ChecksumUtil;
+import edu.kit.ocrd.workspace.exception.WorkspaceException;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Binary snapshot of a METS index stored next to the METS file
+ * (mets.xml.snapshot). Loading a snapshot maps the file into memory and
+ * avoids parsing the XML again as long as the METS file is unchanged.
+ *
+ * Format (big endian):
+ * - header: magic, version, size, modification time and SHA-256 of METS
+ * - string table (each distinct ID, USE, mimetype, URL... stored once)
+ * - file groups: string ids of USE, number of files per group
+ * - files: string ids of ID, MIMETYPE, URL, GROUPID, CHECKSUM, CHECKSUMTYPE
+ * - pages: string ids of ID and DMDID, ORDER, string ids of FILEIDs per page
+ * - number of physical maps and sequences
+ * - semantic labels of ground truth: label table and one bitset per dmdSec
+ *
+ * A snapshot is valid if size and modification time of the METS file match.
+ * Optionally the SHA-256 of the METS file is verified, too. Labels of ground
+ * truth are restored in order of their first occurrence (duplicates of one
+ * dmdSec are removed).
+ */
+public class MetsSnapshot {
+
+  /**
+   * Suffix of snapshot file.
+   */
+  public static final String SNAPSHOT_SUFFIX = ".snapshot";
+  /**
+   * Error writing snapshot.
+   */
+  public static final String ERROR_WRITING_SNAPSHOT = "Error writing snapshot: ";
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(MetsSnapshot.class);
+  /**
+   * Magic number identifying snapshots ('OCRDMETS').
+   */
+  private static final long MAGIC = 0x4F4352444D455453L;
+  /**
+   * Version of format.
+   */
+  private static final int VERSION = 1;
+  /**
+   * Algorithm of hash of METS file.
+   */
+  private static final String HASH_ALGORITHM = "SHA-256";
+  /**
+   * String id of null values.
+   */
+  private static final int NULL = -1;
+
+  /**
+   * Get snapshot file of METS file.
+   *
+   * @param metsFile METS file.
+   * @return Snapshot file (may not exist).
+   */
+  public static Path getSnapshotFile(final Path metsFile) {
+    return metsFile.resolveSibling(metsFile.getFileName().toString() + SNAPSHOT_SUFFIX);
+  }
+
+  /**
+   * Get index of METS file. A valid snapshot is loaded, otherwise the index
+   * is built with the given backend and a new snapshot is written. Failing to
+   * write the snapshot (e.g. read only file system) is ignored.
+   *
+   * @param metsFile METS file.
+   * @param backend Backend building the index if there is no valid snapshot.
+   * @return Index of METS document.
+   */
+  public static MetsIndex getMetsIndex(final Path metsFile, final DocumentBackend backend) {
+    MetsIndex metsIndex = load(metsFile, false);
+    if (metsIndex == null) {
+      // State is read before building the index, so a METS rewritten in
+      // between never pairs its new state with the old index.
+      MetsState state = null;
+      try {
+        state = MetsState.read(metsFile);
+      } catch (IOException | UnsupportedOperationException ex) {
+        LOGGER.debug("Can't read state of '" + metsFile + "'", ex);
+      }
+      metsIndex = backend.buildMetsIndex(metsFile);
+      if (state != null) {
+        try {
+          write(metsIndex, metsFile, state);
+        } catch (WorkspaceException wse) {
+          LOGGER.warn(wse.getMessage());
+        }
+      }
+    }
+    return metsIndex;
+  }
+
+  /**
+   * Write snapshot of index. The snapshot is written to a temporary file
+   * first and renamed afterwards, so readers never see incomplete snapshots.
+   *
+   * @param metsIndex Index of METS document.
+   * @param metsFile METS file the index was built from.
+   */
+  public static void write(final MetsIndex metsIndex, final Path metsFile) {
+    MetsState state;
+    try {
+      state = MetsState.read(metsFile);
+    } catch (IOException | UnsupportedOperationException ex) {
+      throw new WorkspaceException(ERROR_WRITING_SNAPSHOT + getSnapshotFile(metsFile), ex);
+    }
+    write(metsIndex, metsFile, state);
+  }
+
+  /**
+   * Write snapshot of index for the given state of METS. If METS changed
+   * after the state was read, the snapshot is discarded.
+   *
+   * @param metsIndex Index of METS document.
+   * @param metsFile METS file the index was built from.
+   * @param state State of METS read before building the index.
+   */
+  private static void write(final MetsIndex metsIndex, final Path metsFile, final MetsState state) {
+    Path snapshotFile = getSnapshotFile(metsFile);
+    Path tempFile = null;
+    try {
+      // Unique name, so concurrent writers never share the temporary file.
+      tempFile = Files.createTempFile(snapshotFile.toAbsolutePath().getParent(), snapshotFile.getFileName() + ".", ".tmp");
+      try {
+        // Temporary files are only accessible by owner.
+        Files.setPosixFilePermissions(tempFile, Files.getPosixFilePermissions(metsFile));
+      } catch (UnsupportedOperationException uoe) {
+        LOGGER.trace("No POSIX permissions for '{}'", tempFile);
+      }
+      try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+        output.writeLong(MAGIC);
+        output.writeInt(VERSION);
+        output.writeLong(state.size);
+        output.writeLong(state.modified);
+        writeString(output, state.hash);
+        writeIndex(output, metsIndex);
+      }
+      if (!state.equals(MetsState.read(metsFile))) {
+        Files.deleteIfExists(tempFile);
+        LOGGER.debug("Discard snapshot '{}' (METS modified while indexing)", snapshotFile);
+        return;
+      }
+      try {
+        Files.move(tempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException amnse) {
+        Files.move(tempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING);
+      }
+      LOGGER.debug("Wrote snapshot '{}'", snapshotFile);
+    } catch (IOException | UnsupportedOperationException ex) {
+      try {
+        if (tempFile != null) {
+          Files.deleteIfExists(tempFile);
+        }
+      } catch (IOException | UnsupportedOperationException ignored) {
+        // nothing to clean up
+      }
+      throw new WorkspaceException(ERROR_WRITING_SNAPSHOT + snapshotFile, ex);
+    }
+  }
+
+  /**
+   * Load snapshot of METS file.
+   *
+   * @param metsFile METS file.
+   * @param verifyHash Verify hash of METS file in addition to size and
+   * modification time.
+   * @return Index or null if there is no valid snapshot.
+   */
+  public static MetsIndex load(final Path metsFile, final boolean verifyHash) {
+    Path snapshotFile = getSnapshotFile(metsFile);
+    try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+      ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.getLong() != MAGIC || buffer.getInt() != VERSION) {
+        LOGGER.debug("Ignore snapshot '{}' (unknown format)", snapshotFile);
+        return null;
+      }
+      BasicFileAttributes attributes = Files.readAttributes(metsFile, BasicFileAttributes.class);
+      long size = buffer.getLong();
+      long modified = buffer.getLong();
+      String hash = readString(buffer);
+      if (size != attributes.size() || modified != attributes.lastModifiedTime().toMillis()) {
+        LOGGER.debug("Ignore snapshot '{}' (METS modified)", snapshotFile);
+        return null;
+      }
+      if (verifyHash && !hash.equals(ChecksumUtil.getChecksum(metsFile, HASH_ALGORITHM))) {
+        LOGGER.debug("Ignore snapshot '{}' (hash differs)", snapshotFile);
+        return null;
+      }
+      MetsIndex metsIndex = readIndex(buffer);
+      LOGGER.debug("Loaded snapshot '{}'", snapshotFile);
+      return metsIndex;
+    } catch (NoSuchFileException nsfe) {
+      return null;
+    } catch (IOException | UnsupportedOperationException | BufferUnderflowException | IllegalArgumentException | IllegalStateException | IndexOutOfBoundsException ex) {
+      LOGGER.debug("Ignore snapshot '" + snapshotFile + "'", ex);
+      return null;
+    }
+  }
+
+  /**
+   * Write index.
+   *
+   * @param output Output.
+   * @param metsIndex Index.
+   * @throws IOException Error writing.
+   */
+  private static void writeIndex(final DataOutputStream output, final MetsIndex metsIndex) throws IOException {
+    StringTable strings = new StringTable();
+    int noOfFiles = metsIndex.getNumberOfFiles();
+    int noOfFileGrps = metsIndex.getNumberOfFileGrps();
+    int noOfPages = metsIndex.getNumberOfPages();
+    // Collect all strings first, so the table can be written in front.
+    int[] fileGrps = new int[noOfFileGrps];
+    int[] filesPerGrp = new int[noOfFileGrps];
+    int[] files = new int[noOfFiles * 6];
+    int position = 0;
+    for (int grp = 0; grp < noOfFileGrps; grp++) {
+      fileGrps[grp] = strings.getId(metsIndex.getFileGrpUse(grp));
+      int[] filesOfGrp = metsIndex.getFilesOfFileGrp(grp);
+      filesPerGrp[grp] = filesOfGrp.length;
+      for (int file : filesOfGrp) {
+        files[position++] = strings.getId(metsIndex.getFileId(file));
+        files[position++] = strings.getId(metsIndex.getFileMimetype(file));
+        files[position++] = strings.getId(metsIndex.getFileUrl(file));
+        files[position++] = strings.getId(metsIndex.getFileGroupId(file));
+        files[position++] = strings.getId(metsIndex.getFileChecksum(file));
+        files[position++] = strings.getId(metsIndex.getFileChecksumType(file));
+      }
+    }
+    int[] pages = new int[noOfPages * 3];
+    List<int[]> filePointers = new ArrayList<>();
+    for (int page = 0; page < noOfPages; page++) {
+      pages[page * 3] = strings.getId(metsIndex.getPageId(page));
+      pages[page * 3 + 1] = strings.getId(metsIndex.getPageDmdId(page));
+      pages[page * 3 + 2] = metsIndex.getPageOrder(page);
+      String[] fileIds = metsIndex.getFileIdsOfPage(page);
+      int[] fileIdIds = new int[fileIds.length];
+      for (int index = 0; index < fileIds.length; index++) {
+        fileIdIds[index] = strings.getId(fileIds[index]);
+      }
+      filePointers.add(fileIdIds);
+    }
+    // Semantic labels as bitsets over the table of all labels.
+    String[] dmdIds = metsIndex.getGroundTruthDmdIds();
+    StringTable labels = new StringTable();
+    List<long[]> bitsets = new ArrayList<>();
+    for (String dmdId : dmdIds) {
+      strings.getId(dmdId);
+      long[] bitset = new long[0];
+      for (String label : metsIndex.getGroundTruthProperties(dmdId)) {
+        int bit = labels.getId(label);
+        if (bit >> 6 >= bitset.length) {
+          bitset = Arrays.copyOf(bitset, (bit >> 6) + 1);
+        }
+        bitset[bit >> 6] |= 1L << bit;
+      }
+      bitsets.add(bitset);
+    }
+    strings.write(output);
+    labels.write(output);
+    output.writeInt(noOfFileGrps);
+    for (int grp = 0; grp < noOfFileGrps; grp++) {
+      output.writeInt(fileGrps[grp]);
+      output.writeInt(filesPerGrp[grp]);
+    }
+    output.writeInt(noOfFiles);
+    for (int value : files) {
+      output.writeInt(value);
+    }
+    output.writeInt(noOfPages);
+    for (int page = 0; page < noOfPages; page++) {
+      output.writeInt(pages[page * 3]);
+      output.writeInt(pages[page * 3 + 1]);
+      output.writeInt(pages[page * 3 + 2]);
+      int[] fileIdIds = filePointers.get(page);
+      output.writeInt(fileIdIds.length);
+      for (int fileIdId : fileIdIds) {
+        output.writeInt(fileIdId);
+      }
+    }
+    output.writeInt(metsIndex.getNumberOfPhysicalMaps());
+    output.writeInt(metsIndex.getNumberOfPhysicalSequences());
+    output.writeInt(dmdIds.length);
+    for (int index = 0; index < dmdIds.length; index++) {
+      output.writeInt(strings.getId(dmdIds[index]));
+      long[] bitset = bitsets.get(index);
+      output.writeInt(bitset.length);
+      for (long word : bitset) {
+        output.writeLong(word);
+      }
+    }
+  }
+
+  /**
+   * Read index.
+   *
+   * @param buffer Buffer positioned after header.
+   * @return Index.
+   */
+  private static MetsIndex readIndex(final ByteBuffer buffer) {
+    String[] strings = readStringTable(buffer);
+    String[] labels = readStringTable(buffer);
+    MetsIndex.Builder builder = new MetsIndex.Builder();
+    int noOfFileGrps = buffer.getInt();
+    int[] filesPerGrp = new int[noOfFileGrps];
+    String[] fileGrps = new String[noOfFileGrps];
+    for (int grp = 0; grp < noOfFileGrps; grp++) {
+      fileGrps[grp] = get(strings, buffer.getInt());
+      filesPerGrp[grp] = buffer.getInt();
+    }
+    int noOfFiles = buffer.getInt();
+    int[] files = new int[noOfFiles * 6];
+    buffer.asIntBuffer().get(files);
+    buffer.position(buffer.position() + files.length * 4);
+    int position = 0;
+    for (int grp = 0; grp < noOfFileGrps; grp++) {
+      builder.addFileGrp(fileGrps[grp]);
+      for (int file = 0; file < filesPerGrp[grp]; file++) {
+        builder.addFile(get(strings, files[position]), get(strings, files[position + 1]), get(strings, files[position + 2]),
+                get(strings, files[position + 3]), get(strings, files[position + 4]), get(strings, files[position + 5]));
+        position += 6;
+      }
+    }
+    int noOfPages = buffer.getInt();
+    for (int page = 0; page < noOfPages; page++) {
+      String id = get(strings, buffer.getInt());
+      String dmdId = get(strings, buffer.getInt());
+      int order = buffer.getInt();
+      builder.addPage(id, order == MetsIndex.NO_ORDER ? null : Integer.toString(order), dmdId);
+      int noOfFilePointers = buffer.getInt();
+      for (int index = 0; index < noOfFilePointers; index++) {
+        builder.addFilePointer(get(strings, buffer.getInt()));
+      }
+    }
+    for (int map = buffer.getInt(); map > 0; map--) {
+      builder.addPhysicalMap();
+    }
+    for (int sequence = buffer.getInt(); sequence > 0; sequence--) {
+      builder.addPhysicalSequence();
+    }
+    int noOfDmdIds = buffer.getInt();
+    for (int index = 0; index < noOfDmdIds; index++) {
+      String dmdId = get(strings, buffer.getInt());
+      int words = buffer.getInt();
+      for (int word = 0; word < words; word++) {
+        long bits = buffer.getLong();
+        for (; bits != 0; bits &= bits - 1) {
+          builder.addGroundTruthProperty(dmdId, labels[word * 64 + Long.numberOfTrailingZeros(bits)]);
+        }
+      }
+    }
+    return builder.build();
+  }
+
+  /**
+   * Get string of table.
+   *
+   * @param strings String table.
+   * @param id Id of string.
+   * @return String (null for NULL).
+   */
+  private static String get(final String[] strings, final int id) {
+    return id == NULL ? null : strings[id];
+  }
+
+  /**
+   * Read string table.
+   *
+   * @param buffer Buffer.
+   * @return All strings.
+   */
+  private static String[] readStringTable(final ByteBuffer buffer) {
+    String[] strings = new String[buffer.getInt()];
+    for (int index = 0; index < strings.length; index++) {
+      strings[index] = readString(buffer);
+    }
+    return strings;
+  }
+
+  /**
+   * Read UTF-8 string.
+   *
+   * @param buffer Buffer.
+   * @return String.
+   */
+  private static String readString(final ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Write UTF-8 string.
+   *
+   * @param output Output.
+   * @param string String.
+   * @throws IOException Error writing.
+   */
+  private static void writeString(final DataOutputStream output, final String string) throws IOException {
+    byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+    output.writeInt(bytes.length);
+    output.write(bytes);
+  }
+
+  /**
+   * State of METS file stored in header of snapshot.
+   */
+  private static final class MetsState {
+
+    /**
+     * Size of METS file.
+     */
+    private final long size;
+    /**
+     * Modification time of METS file (milliseconds).
+     */
+    private final long modified;
+    /**
+     * Hash of METS file.
+     */
+    private final String hash;
+
+    /**
+     * Constructor.
+     *
+     * @param size Size of METS file.
+     * @param modified Modification time of METS file.
+     * @param hash Hash of METS file.
+     */
+    private MetsState(final long size, final long modified, final String hash) {
+      this.size = size;
+      this.modified = modified;
+      this.hash = hash;
+    }
+
+    /**
+     * Read current state of METS file.
+     *
+     * @param metsFile METS file.
+     * @return State of METS file.
+     * @throws IOException Error reading METS file.
+     */
+    static MetsState read(final Path metsFile) throws IOException {
+      BasicFileAttributes attributes = Files.readAttributes(metsFile, BasicFileAttributes.class);
+      String hash = ChecksumUtil.getChecksum(metsFile, HASH_ALGORITHM);
+      return new MetsState(attributes.size(), attributes.lastModifiedTime().toMillis(), hash);
+    }
+
+    @Override
+    public boolean equals(final Object other) {
+      if (!(other instanceof MetsState)) {
+        return false;
+      }
+      MetsState state = (MetsState) other;
+      return size == state.size && modified == state.modified && hash.equals(state.hash);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash.hashCode();
+    }
+  }
+
+  /**
+   * Table of distinct strings.
+   */
+  private static class StringTable {
+
+    /**
+     * Strings in order of first occurrence.
+     */
+    private final List<String> strings = new ArrayList<>();
+    /**
+     * Ids of strings.
+     */
+    private final Map<String, Integer> ids = new HashMap<>();
+
+    /**
+     * Get id of string (add if unknown).
+     *
+     * @param string String (may be null).
+     * @return Id.
+     */
+    int getId(final String string) {
+      if (string == null) {
+        return NULL;
+      }
+      Integer id = ids.get(string);
+      if (id == null) {
+        id = strings.size();
+        strings.add(string);
+        ids.put(string, id);
+      }
+      return id;
+    }
+
+    /**
+     * Write table.
+     *
+     * @param output Output.
+     * @throws IOException Error writing.
+     */
+    void write(final DataOutputStream output) throws IOException {
+      output.writeInt(strings.size());
+      for (String string : strings) {
+        writeString(output, string);
+      }
+    }
+  }
+}
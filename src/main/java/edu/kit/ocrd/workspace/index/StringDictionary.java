@@ -0,0 +1,98 @@
+/*
+ * Copyright 2019 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.index;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dictionary of the few distinct values of an attribute (e.g. MIMETYPE,
+ * USE). Each distinct value is stored once and referenced by its code.
+ */
+public class StringDictionary {
+
+  /**
+   * Code of null.
+   */
+  public static final int NULL = -1;
+  /**
+   * Distinct values in order of first occurrence.
+   */
+  private final List<String> values = new ArrayList<>();
+  /**
+   * Codes of values.
+   */
+  private final Map<String, Integer> codes = new HashMap<>();
+
+  /**
+   * Get code of value. Unknown values are added.
+   *
+   * @param value Value (may be null).
+   * @return Code.
+   */
+  public int getCode(final String value) {
+    if (value == null) {
+      return NULL;
+    }
+    Integer code = codes.get(value);
+    if (code == null) {
+      code = values.size();
+      values.add(value);
+      codes.put(value, code);
+    }
+    return code;
+  }
+
+  /**
+   * Get interned instance of value.
+   *
+   * @param value Value (may be null).
+   * @return Instance stored in dictionary.
+   */
+  public String intern(final String value) {
+    return get(getCode(value));
+  }
+
+  /**
+   * Get value of code.
+   *
+   * @param code Code.
+   * @return Value (null for NULL).
+   */
+  public String get(final int code) {
+    return code == NULL ? null : values.get(code);
+  }
+
+  /**
+   * Get number of distinct values.
+   *
+   * @return Number of values.
+   */
+  public int size() {
+    return values.size();
+  }
+
+  /**
+   * Get all values. Position of each value is its code.
+   *
+   * @return Distinct values.
+   */
+  public String[] toArray() {
+    return values.toArray(new String[values.size()]);
+  }
+}
@@ -0,0 +1,425 @@
+/*
+ * Copyright 2019 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.index;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Immutable store for many strings sharing long prefixes (IDs, URLs of
+ * files). Strings are stored in one array instead of one object per string.
+ * Strings are grouped into buckets of BUCKET_SIZE strings. The first string of
+ * a bucket is stored completely, all other strings store only the length of
+ * the prefix shared with the first string and the remaining suffix
+ * (front coding).
+ *
+ * If all characters are Latin-1 the characters are stored as bytes.
+ * Strings are accessed by their position as CharSequence views without
+ * copying the characters. Optionally a hash table allows finding the position
+ * of a string.
+ */
+public class StringStore {
+
+  /**
+   * Number of strings per bucket.
+   */
+  public static final int BUCKET_SIZE = 16;
+  /**
+   * Value returned if string is not found.
+   */
+  public static final int NOT_FOUND = -1;
+  /**
+   * Maximum length of shared prefix.
+   */
+  private static final int MAX_PREFIX = Character.MAX_VALUE;
+  /**
+   * Characters (Latin-1 only) or null.
+   */
+  private final byte[] bytes;
+  /**
+   * Characters (if not Latin-1) or null.
+   */
+  private final char[] chars;
+  /**
+   * Start of suffix of each string (size + 1 entries).
+   */
+  private final int[] offsets;
+  /**
+   * Length of prefix shared with first string of bucket.
+   */
+  private final char[] prefixLengths;
+  /**
+   * Positions of null values.
+   */
+  private final BitSet nulls;
+  /**
+   * Hash table containing position + 1 of strings (null if disabled).
+   */
+  private final int[] table;
+
+  /**
+   * Constructor. Use StringStore.Builder.
+   *
+   * @param builder Builder holding all strings.
+   * @param lookup Create hash table for indexOf.
+   */
+  private StringStore(final Builder builder, final boolean lookup) {
+    int size = builder.size;
+    offsets = Arrays.copyOf(builder.offsets, size + 1);
+    offsets[size] = builder.length;
+    prefixLengths = Arrays.copyOf(builder.prefixLengths, size);
+    nulls = (BitSet) builder.nulls.clone();
+    if (builder.latin1) {
+      bytes = new byte[builder.length];
+      for (int index = 0; index < bytes.length; index++) {
+        bytes[index] = (byte) builder.chars[index];
+      }
+      chars = null;
+    } else {
+      bytes = null;
+      chars = Arrays.copyOf(builder.chars, builder.length);
+    }
+    table = lookup ? createTable() : null;
+  }
+
+  /**
+   * Create hash table. If a string occurs more than once the first
+   * occurrence wins.
+   *
+   * @return Hash table.
+   */
+  private int[] createTable() {
+    int capacity = Integer.highestOneBit(Math.max(size(), 1) * 2 - 1) << 1;
+    int[] hashTable = new int[capacity];
+    for (int index = 0; index < size(); index++) {
+      if (!nulls.get(index)) {
+        int slot = hashCode(index) & (capacity - 1);
+        boolean duplicate = false;
+        while (hashTable[slot] != 0 && !duplicate) {
+          duplicate = contentEquals(hashTable[slot] - 1, index);
+          slot = (slot + 1) & (capacity - 1);
+        }
+        if (!duplicate) {
+          hashTable[slot] = index + 1;
+        }
+      }
+    }
+    return hashTable;
+  }
+
+  /**
+   * Get number of strings.
+   *
+   * @return Number of strings (including null values).
+   */
+  public int size() {
+    return prefixLengths.length;
+  }
+
+  /**
+   * Get string as view on the stored characters.
+   *
+   * @param index Position of string.
+   * @return View (or null).
+   */
+  public CharSequence get(final int index) {
+    return nulls.get(index) ? null : new View(index);
+  }
+
+  /**
+   * Get string.
+   *
+   * @param index Position of string.
+   * @return String (or null).
+   */
+  public String getString(final int index) {
+    if (nulls.get(index)) {
+      return null;
+    }
+    char[] value = new char[length(index)];
+    for (int position = 0; position < value.length; position++) {
+      value[position] = charAt(index, position);
+    }
+    return new String(value);
+  }
+
+  /**
+   * Get length of string.
+   *
+   * @param index Position of string.
+   * @return Length (0 for null).
+   */
+  public int length(final int index) {
+    return prefixLengths[index] + offsets[index + 1] - offsets[index];
+  }
+
+  /**
+   * Get character of string.
+   *
+   * @param index Position of string.
+   * @param position Position of character inside string.
+   * @return Character.
+   */
+  public char charAt(final int index, final int position) {
+    int prefixLength = prefixLengths[index];
+    int offset = position < prefixLength ? offsets[index - index % BUCKET_SIZE] + position : offsets[index] + position - prefixLength;
+    return bytes != null ? (char) (bytes[offset] & 0xff) : chars[offset];
+  }
+
+  /**
+   * Test string for equality.
+   *
+   * @param index Position of string.
+   * @param value Value (may be null).
+   * @return true if string equals value.
+   */
+  public boolean equals(final int index, final CharSequence value) {
+    if (value == null || nulls.get(index)) {
+      return value == null && nulls.get(index);
+    }
+    int length = length(index);
+    if (length != value.length()) {
+      return false;
+    }
+    for (int position = 0; position < length; position++) {
+      if (charAt(index, position) != value.charAt(position)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Get hash code of string. (Same as String.hashCode())
+   *
+   * @param index Position of string.
+   * @return Hash code (0 for null).
+   */
+  public int hashCode(final int index) {
+    int hash = 0;
+    int length = length(index);
+    for (int position = 0; position < length; position++) {
+      hash = 31 * hash + charAt(index, position);
+    }
+    return hash;
+  }
+
+  /**
+   * Get position of (first occurrence of) string. Store has to be built with
+   * lookup enabled.
+   *
+   * @param value Value.
+   * @return Position of string or NOT_FOUND.
+   */
+  public int indexOf(final CharSequence value) {
+    if (table == null) {
+      throw new IllegalStateException("Store built without lookup!");
+    }
+    if (value == null) {
+      return NOT_FOUND;
+    }
+    int hash = 0;
+    for (int position = 0; position < value.length(); position++) {
+      hash = 31 * hash + value.charAt(position);
+    }
+    int slot = hash & (table.length - 1);
+    while (table[slot] != 0) {
+      if (equals(table[slot] - 1, value)) {
+        return table[slot] - 1;
+      }
+      slot = (slot + 1) & (table.length - 1);
+    }
+    return NOT_FOUND;
+  }
+
+  /**
+   * Get (estimated) memory used by the arrays of the store.
+   *
+   * @return Size in bytes.
+   */
+  public long getMemoryUsage() {
+    long size = bytes != null ? bytes.length : chars.length * 2L;
+    size += offsets.length * 4L + prefixLengths.length * 2L + nulls.size() / 8;
+    if (table != null) {
+      size += table.length * 4L;
+    }
+    return size;
+  }
+
+  /**
+   * Test two strings of store for equality.
+   *
+   * @param first Position of first string.
+   * @param second Position of second string.
+   * @return true if both strings are equal.
+   */
+  private boolean contentEquals(final int first, final int second) {
+    int length = length(first);
+    if (length != length(second)) {
+      return false;
+    }
+    for (int position = 0; position < length; position++) {
+      if (charAt(first, position) != charAt(second, position)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * View on a string of the store.
+   */
+  private final class View implements CharSequence {
+
+    /**
+     * Position of string.
+     */
+    private final int index;
+
+    /**
+     * Constructor.
+     *
+     * @param index Position of string.
+     */
+    View(final int index) {
+      this.index = index;
+    }
+
+    @Override
+    public int length() {
+      return StringStore.this.length(index);
+    }
+
+    @Override
+    public char charAt(final int position) {
+      if (position < 0 || position >= length()) {
+        throw new IndexOutOfBoundsException("Index: " + position);
+      }
+      return StringStore.this.charAt(index, position);
+    }
+
+    @Override
+    public CharSequence subSequence(final int start, final int end) {
+      return toString().subSequence(start, end);
+    }
+
+    @Override
+    public String toString() {
+      return getString(index);
+    }
+  }
+
+  /**
+   * Builder appending strings.
+   */
+  public static class Builder {
+
+    /**
+     * Characters of all strings.
+     */
+    private char[] chars = new char[1024];
+    /**
+     * Number of used characters.
+     */
+    private int length = 0;
+    /**
+     * Start of suffix of strings.
+     */
+    private int[] offsets = new int[64];
+    /**
+     * Length of prefix shared with first string of bucket.
+     */
+    private char[] prefixLengths = new char[64];
+    /**
+     * Positions of null values.
+     */
+    private final BitSet nulls = new BitSet();
+    /**
+     * Number of strings.
+     */
+    private int size = 0;
+    /**
+     * Are all characters Latin-1?
+     */
+    private boolean latin1 = true;
+
+    /**
+     * Get number of strings.
+     *
+     * @return Number of added strings.
+     */
+    public int size() {
+      return size;
+    }
+
+    /**
+     * Add string.
+     *
+     * @param value Value (may be null).
+     * @return Builder
+     */
+    public Builder add(final CharSequence value) {
+      if (size >= offsets.length) {
+        offsets = Arrays.copyOf(offsets, size * 2);
+        prefixLengths = Arrays.copyOf(prefixLengths, size * 2);
+      }
+      int prefixLength = 0;
+      if (value == null) {
+        nulls.set(size);
+      } else {
+        int head = size - size % BUCKET_SIZE;
+        if (head != size && !nulls.get(head)) {
+          int headStart = offsets[head];
+          int maxPrefix = Math.min(Math.min(offsets[head + 1] - headStart, value.length()), MAX_PREFIX);
+          while (prefixLength < maxPrefix && chars[headStart + prefixLength] == value.charAt(prefixLength)) {
+            prefixLength++;
+          }
+        }
+      }
+      offsets[size] = length;
+      prefixLengths[size] = (char) prefixLength;
+      size++;
+      if (value != null) {
+        int suffixLength = value.length() - prefixLength;
+        if (length + suffixLength > chars.length) {
+          chars = Arrays.copyOf(chars, Math.max(chars.length * 2, length + suffixLength));
+        }
+        for (int position = prefixLength; position < value.length(); position++) {
+          char character = value.charAt(position);
+          latin1 &= character < 256;
+          chars[length++] = character;
+        }
+      }
+      // Offset of next string marks end of this string.
+      if (size >= offsets.length) {
+        offsets = Arrays.copyOf(offsets, size * 2);
+        prefixLengths = Arrays.copyOf(prefixLengths, size * 2);
+      }
+      offsets[size] = length;
+      return this;
+    }
+
+    /**
+     * Build store.
+     *
+     * @param lookup Create hash table for indexOf.
+     * @return Immutable store.
+     */
+    public StringStore build(final boolean lookup) {
+      return new StringStore(this, lookup);
+    }
+  }
+}
@@ -0,0 +1,973 @@
+/*
+ * Copyright 2019 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.index;
+
+import edu.kit.ocrd.workspace.exception.WorkspaceException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Non-extracting index of a XML document. The raw bytes of the document are
+ * kept in one buffer and the structure is stored in primitive arrays holding
+ * offsets into that buffer (similar to VTD-XML). No objects are created for
+ * elements or attributes, strings are only decoded on request.
+ *
+ * Supported: UTF-8 (or ASCII) documents with namespaces, comments, processing
+ * instructions, CDATA sections and a DOCTYPE declaration (which is skipped,
+ * entities aren't expanded). Text content isn't indexed.
+ */
+public class XmlIndex {
+
+  /**
+   * Error message for malformed documents.
+   */
+  public static final String MALFORMED_XML = "Malformed XML at byte ";
+  /**
+   * Error message for unsupported encodings.
+   */
+  public static final String UNSUPPORTED_ENCODING = "Unsupported encoding (only UTF-8 is supported): ";
+  /**
+   * Error message for unreadable documents.
+   */
+  public static final String ERROR_READING_XML = "Error reading XML: ";
+  /**
+   * Value used if there is no element/attribute.
+   */
+  public static final int NONE = -1;
+  /**
+   * Namespace of attributes declaring namespaces.
+   */
+  public static final String XMLNS_NAMESPACE = "http://www.w3.org/2000/xmlns/";
+  /**
+   * Namespace bound to prefix 'xml'.
+   */
+  public static final String XML_NAMESPACE = "http://www.w3.org/XML/1998/namespace";
+  /**
+   * Id of empty namespace.
+   */
+  private static final int NO_NAMESPACE = 0;
+  /**
+   * Raw bytes of document.
+   */
+  private final byte[] xml;
+  /**
+   * Local names of elements. (offset &lt;&lt; 32 | length)
+   */
+  private final long[] elementNames;
+  /**
+   * Namespace ids of elements.
+   */
+  private final int[] elementNamespaces;
+  /**
+   * First child element of elements.
+   */
+  private final int[] firstChild;
+  /**
+   * Next sibling element of elements.
+   */
+  private final int[] nextSibling;
+  /**
+   * Attributes of elements. (Attributes of element i: firstAttribute[i] to
+   * firstAttribute[i + 1] - 1)
+   */
+  private final int[] firstAttribute;
+  /**
+   * Local names of attributes. (offset &lt;&lt; 32 | length)
+   */
+  private final long[] attributeNames;
+  /**
+   * Raw values of attributes. (offset &lt;&lt; 32 | length)
+   */
+  private final long[] attributeValues;
+  /**
+   * Namespace ids of attributes.
+   */
+  private final int[] attributeNamespaces;
+  /**
+   * Namespace URIs by id.
+   */
+  private final String[] namespaces;
+  /**
+   * Namespace ids by URI.
+   */
+  private final Map<String, Integer> namespaceIds;
+
+  /**
+   * Constructor. Use XmlIndex.parse.
+   *
+   * @param parser Parser holding all data.
+   */
+  private XmlIndex(final Parser parser) {
+    xml = parser.xml;
+    int noOfElements = parser.noOfElements;
+    elementNames = Arrays.copyOf(parser.elementNames, noOfElements);
+    elementNamespaces = Arrays.copyOf(parser.elementNamespaces, noOfElements);
+    firstChild = Arrays.copyOf(parser.firstChild, noOfElements);
+    nextSibling = Arrays.copyOf(parser.nextSibling, noOfElements);
+    firstAttribute = Arrays.copyOf(parser.firstAttribute, noOfElements + 1);
+    firstAttribute[noOfElements] = parser.noOfAttributes;
+    attributeNames = Arrays.copyOf(parser.attributeNames, parser.noOfAttributes);
+    attributeValues = Arrays.copyOf(parser.attributeValues, parser.noOfAttributes);
+    attributeNamespaces = Arrays.copyOf(parser.attributeNamespaces, parser.noOfAttributes);
+    namespaces = parser.namespaces.toArray(new String[parser.namespaces.size()]);
+    namespaceIds = parser.namespaceIds;
+  }
+
+  /**
+   * Parse XML file.
+   *
+   * @param xmlFile XML file (may belong to any file system).
+   * @return Index of document.
+   */
+  public static XmlIndex parse(final Path xmlFile) {
+    byte[] content;
+    try {
+      content = Files.readAllBytes(xmlFile);
+    } catch (IOException ex) {
+      throw new WorkspaceException(ERROR_READING_XML + xmlFile, ex);
+    }
+    return parse(content);
+  }
+
+  /**
+   * Parse XML document. The array is used as buffer of the index and must not
+   * be modified afterwards.
+   *
+   * @param xml Raw bytes of document.
+   * @return Index of document.
+   */
+  public static XmlIndex parse(final byte[] xml) {
+    Parser parser = new Parser(xml);
+    parser.parse();
+    return new XmlIndex(parser);
+  }
+
+  /**
+   * Get size of document.
+   *
+   * @return Size in bytes.
+   */
+  public int getSize() {
+    return xml.length;
+  }
+
+  /**
+   * Get number of elements.
+   *
+   * @return Number of elements.
+   */
+  public int getNumberOfElements() {
+    return elementNames.length;
+  }
+
+  /**
+   * Get root element.
+   *
+   * @return Root element.
+   */
+  public int getRootElement() {
+    return 0;
+  }
+
+  /**
+   * Get first child element.
+   *
+   * @param element Element.
+   * @return First child or NONE.
+   */
+  public int getFirstChild(final int element) {
+    return firstChild[element];
+  }
+
+  /**
+   * Get next sibling element.
+   *
+   * @param element Element.
+   * @return Next sibling or NONE.
+   */
+  public int getNextSibling(final int element) {
+    return nextSibling[element];
+  }
+
+  /**
+   * Get local name of element.
+   *
+   * @param element Element.
+   * @return Local name.
+   */
+  public String getLocalName(final int element) {
+    return toString(elementNames[element]);
+  }
+
+  /**
+   * Get namespace URI of element.
+   *
+   * @param element Element.
+   * @return Namespace URI (empty if element has no namespace).
+   */
+  public String getNamespaceUri(final int element) {
+    return namespaces[elementNamespaces[element]];
+  }
+
+  /**
+   * Test for element with given namespace and local name. Names are compared
+   * directly on the buffer.
+   *
+   * @param element Element.
+   * @param namespace Namespace URI.
+   * @param localName Local name (ASCII).
+   * @return true if element matches.
+   */
+  public boolean isElement(final int element, final String namespace, final String localName) {
+    Integer namespaceId = namespaceIds.get(namespace);
+    return namespaceId != null && elementNamespaces[element] == namespaceId && equals(elementNames[element], localName);
+  }
+
+  /**
+   * Get value of attribute without namespace.
+   *
+   * @param element Element.
+   * @param localName Name of attribute (ASCII).
+   * @return Value or null if attribute is not set.
+   */
+  public String getAttributeValue(final int element, final String localName) {
+    return getAttributeValue(element, "", localName);
+  }
+
+  /**
+   * Get value of attribute.
+   *
+   * @param element Element.
+   * @param namespace Namespace URI of attribute (empty for none).
+   * @param localName Local name of attribute (ASCII).
+   * @return Value or null if attribute is not set.
+   */
+  public String getAttributeValue(final int element, final String namespace, final String localName) {
+    Integer namespaceId = namespaceIds.get(namespace);
+    if (namespaceId != null) {
+      for (int attribute = firstAttribute[element]; attribute < firstAttribute[element + 1]; attribute++) {
+        if (attributeNamespaces[attribute] == namespaceId && equals(attributeNames[attribute], localName)) {
+          return decode(xml, attributeValues[attribute]);
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Compare name inside buffer with string.
+   *
+   * @param name Name (offset &lt;&lt; 32 | length).
+   * @param string ASCII string.
+   * @return true if equal.
+   */
+  private boolean equals(final long name, final String string) {
+    int offset = (int) (name >>> 32);
+    int length = (int) name;
+    if (length != string.length()) {
+      return false;
+    }
+    for (int index = 0; index < length; index++) {
+      if (xml[offset + index] != string.charAt(index)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Create string from buffer.
+   *
+   * @param token Token (offset &lt;&lt; 32 | length).
+   * @return String.
+   */
+  private String toString(final long token) {
+    return new String(xml, (int) (token >>> 32), (int) token, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Decode attribute value (entities and normalization of whitespace). Line
+   * breaks ('\r\n', '\r') are normalized to '\n' before whitespace is mapped
+   * to space.
+   *
+   * @param xml Raw bytes of document.
+   * @param token Raw value (offset &lt;&lt; 32 | length).
+   * @return Value.
+   */
+  private static String decode(final byte[] xml, final long token) {
+    int offset = (int) (token >>> 32);
+    int end = offset + (int) token;
+    int index = offset;
+    while (index < end && xml[index] != '&' && xml[index] != '\t' && xml[index] != '\n' && xml[index] != '\r') {
+      index++;
+    }
+    if (index == end) {
+      return new String(xml, offset, end - offset, StandardCharsets.UTF_8);
+    }
+    StringBuilder value = new StringBuilder(end - offset);
+    int start = offset;
+    for (index = offset; index < end; index++) {
+      byte b = xml[index];
+      if (b == '\r' && index + 1 < end && xml[index + 1] == '\n') {
+        // Line break '\r\n' is normalized to one '\n' (one space).
+        value.append(new String(xml, start, index - start, StandardCharsets.UTF_8));
+        start = index + 1;
+      } else if (b == '\t' || b == '\n' || b == '\r') {
+        value.append(new String(xml, start, index - start, StandardCharsets.UTF_8)).append(' ');
+        start = index + 1;
+      } else if (b == '&') {
+        value.append(new String(xml, start, index - start, StandardCharsets.UTF_8));
+        int semicolon = index + 1;
+        while (semicolon < end && xml[semicolon] != ';') {
+          semicolon++;
+        }
+        if (semicolon == end) {
+          throw new WorkspaceException(MALFORMED_XML + index);
+        }
+        value.append(decodeEntity(xml, index + 1, semicolon));
+        index = semicolon;
+        start = index + 1;
+      }
+    }
+    value.append(new String(xml, start, end - start, StandardCharsets.UTF_8));
+    return value.toString();
+  }
+
+  /**
+   * Decode predefined or character entity.
+   *
+   * @param xml Raw bytes of document.
+   * @param start Start of entity name (after '&amp;').
+   * @param end End of entity name (position of ';').
+   * @return Decoded characters.
+   */
+  private static String decodeEntity(final byte[] xml, final int start, final int end) {
+    String entity = new String(xml, start, end - start, StandardCharsets.US_ASCII);
+    switch (entity) {
+      case "lt":
+        return "<";
+      case "gt":
+        return ">";
+      case "amp":
+        return "&";
+      case "quot":
+        return "\"";
+      case "apos":
+        return "'";
+      default:
+        try {
+          if (entity.startsWith("#x")) {
+            return new String(Character.toChars(Integer.parseInt(entity.substring(2), 16)));
+          } else if (entity.startsWith("#")) {
+            return new String(Character.toChars(Integer.parseInt(entity.substring(1))));
+          }
+        } catch (IllegalArgumentException iae) {
+          // handled below
+        }
+        throw new WorkspaceException(MALFORMED_XML + (start - 1) + " (unknown entity '" + entity + "')");
+    }
+  }
+
+  /**
+   * Single pass parser building the arrays of the index.
+   */
+  private static class Parser {
+
+    /**
+     * Initial capacity of arrays.
+     */
+    private static final int INITIAL_CAPACITY = 256;
+    /**
+     * Raw bytes of document.
+     */
+    private final byte[] xml;
+    /**
+     * Current position.
+     */
+    private int pos;
+    /**
+     * Number of elements.
+     */
+    private int noOfElements;
+    /**
+     * Local names of elements.
+     */
+    private long[] elementNames = new long[INITIAL_CAPACITY];
+    /**
+     * Namespace ids of elements.
+     */
+    private int[] elementNamespaces = new int[INITIAL_CAPACITY];
+    /**
+     * First child element of elements.
+     */
+    private int[] firstChild = new int[INITIAL_CAPACITY];
+    /**
+     * Next sibling element of elements.
+     */
+    private int[] nextSibling = new int[INITIAL_CAPACITY];
+    /**
+     * First attribute of elements.
+     */
+    private int[] firstAttribute = new int[INITIAL_CAPACITY + 1];
+    /**
+     * Number of attributes.
+     */
+    private int noOfAttributes;
+    /**
+     * Qualified names of attributes (resolved after all attributes of an
+     * element are read).
+     */
+    private long[] attributeNames = new long[INITIAL_CAPACITY];
+    /**
+     * Raw values of attributes.
+     */
+    private long[] attributeValues = new long[INITIAL_CAPACITY];
+    /**
+     * Namespace ids of attributes.
+     */
+    private int[] attributeNamespaces = new int[INITIAL_CAPACITY];
+    /**
+     * Namespace URIs by id.
+     */
+    private final List<String> namespaces = new ArrayList<>();
+    /**
+     * Namespace ids by URI.
+     */
+    private final Map<String, Integer> namespaceIds = new HashMap<>();
+    /**
+     * Open elements.
+     */
+    private int[] openElements = new int[64];
+    /**
+     * Qualified names of open elements (for matching end tags).
+     */
+    private long[] openNames = new long[64];
+    /**
+     * Last child of open elements.
+     */
+    private int[] lastChild = new int[64];
+    /**
+     * Number of namespace declarations in scope before each open element.
+     */
+    private int[] scopeStart = new int[64];
+    /**
+     * Depth (number of open elements).
+     */
+    private int depth;
+    /**
+     * Prefixes of namespace declarations in scope (length 0 for default).
+     */
+    private long[] declaredPrefixes = new long[16];
+    /**
+     * Namespace ids of namespace declarations in scope.
+     */
+    private int[] declaredNamespaces = new int[16];
+    /**
+     * Number of namespace declarations in scope.
+     */
+    private int noOfDeclarations;
+
+    /**
+     * Constructor.
+     *
+     * @param xml Raw bytes of document.
+     */
+    Parser(final byte[] xml) {
+      this.xml = xml;
+      getNamespaceId("");
+      getNamespaceId(XMLNS_NAMESPACE);
+      getNamespaceId(XML_NAMESPACE);
+    }
+
+    /**
+     * Parse document.
+     */
+    void parse() {
+      if (xml.length >= 2 && ((xml[0] == (byte) 0xFE && xml[1] == (byte) 0xFF) || (xml[0] == (byte) 0xFF && xml[1] == (byte) 0xFE))) {
+        throw new WorkspaceException(UNSUPPORTED_ENCODING + "UTF-16");
+      }
+      if (xml.length >= 3 && xml[0] == (byte) 0xEF && xml[1] == (byte) 0xBB && xml[2] == (byte) 0xBF) {
+        pos = 3;
+      }
+      boolean rootClosed = false;
+      while (pos < xml.length) {
+        byte b = xml[pos];
+        if (b != '<') {
+          if (depth == 0 && !isWhitespace(b)) {
+            throw malformed();
+          }
+          pos++;
+          while (pos < xml.length && xml[pos] != '<') {
+            pos++;
+          }
+        } else if (startsWith("<?")) {
+          int end = indexOf("?>", pos + 2);
+          if (pos == 0 || (pos == 3 && xml[0] == (byte) 0xEF)) {
+            checkEncoding(pos, end);
+          }
+          pos = end + 2;
+        } else if (startsWith("<!--")) {
+          pos = indexOf("-->", pos + 4) + 3;
+        } else if (startsWith("<![CDATA[")) {
+          if (depth == 0) {
+            throw malformed();
+          }
+          pos = indexOf("]]>", pos + 9) + 3;
+        } else if (startsWith("<!DOCTYPE")) {
+          if (noOfElements > 0) {
+            throw malformed();
+          }
+          skipDoctype();
+        } else if (startsWith("</")) {
+          parseEndTag();
+          rootClosed = depth == 0;
+        } else {
+          if (rootClosed || (depth == 0 && noOfElements > 0)) {
+            throw malformed();
+          }
+          parseStartTag();
+          rootClosed = depth == 0;
+        }
+      }
+      if (noOfElements == 0 || depth > 0) {
+        throw malformed();
+      }
+    }
+
+    /**
+     * Parse start tag including attributes.
+     */
+    private void parseStartTag() {
+      pos++;
+      int nameStart = pos;
+      int colon = skipName();
+      long qualifiedName = token(nameStart, pos - nameStart);
+      int element = addElement();
+      firstAttribute[element] = noOfAttributes;
+      int declarations = noOfDeclarations;
+      boolean empty = false;
+      while (true) {
+        skipWhitespace();
+        if (pos >= xml.length) {
+          throw malformed();
+        }
+        if (xml[pos] == '>') {
+          pos++;
+          break;
+        }
+        if (xml[pos] == '/') {
+          if (pos + 1 >= xml.length || xml[pos + 1] != '>') {
+            throw malformed();
+          }
+          pos += 2;
+          empty = true;
+          break;
+        }
+        parseAttribute();
+      }
+      // Resolve namespaces after all declarations of the element are known.
+      elementNamespaces[element] = resolve(qualifiedName, colon, true);
+      elementNames[element] = colon < 0 ? qualifiedName : token(colon + 1, nameStart + (int) qualifiedName - colon - 1);
+      for (int attribute = firstAttribute[element]; attribute < noOfAttributes; attribute++) {
+        long name = attributeNames[attribute];
+        int offset = (int) (name >>> 32);
+        int length = (int) name;
+        int attributeColon = indexOfColon(offset, length);
+        if (attributeColon < 0) {
+          attributeNamespaces[attribute] = length == 5 && startsWith("xmlns", offset) ? 1 : NO_NAMESPACE;
+        } else {
+          attributeNamespaces[attribute] = resolve(name, attributeColon, false);
+          attributeNames[attribute] = token(attributeColon + 1, offset + length - attributeColon - 1);
+        }
+      }
+      if (empty) {
+        noOfDeclarations = declarations;
+      } else {
+        push(element, qualifiedName, declarations);
+      }
+    }
+
+    /**
+     * Parse attribute and register namespace declarations.
+     */
+    private void parseAttribute() {
+      int nameStart = pos;
+      skipName();
+      int nameLength = pos - nameStart;
+      skipWhitespace();
+      if (pos >= xml.length || xml[pos] != '=') {
+        throw malformed();
+      }
+      pos++;
+      skipWhitespace();
+      if (pos >= xml.length || (xml[pos] != '"' && xml[pos] != '\'')) {
+        throw malformed();
+      }
+      byte quote = xml[pos++];
+      int valueStart = pos;
+      while (pos < xml.length && xml[pos] != quote) {
+        if (xml[pos] == '<') {
+          throw malformed();
+        }
+        pos++;
+      }
+      if (pos >= xml.length) {
+        throw malformed();
+      }
+      int valueLength = pos - valueStart;
+      pos++;
+      if (noOfAttributes == attributeNames.length) {
+        attributeNames = Arrays.copyOf(attributeNames, noOfAttributes * 2);
+        attributeValues = Arrays.copyOf(attributeValues, noOfAttributes * 2);
+        attributeNamespaces = Arrays.copyOf(attributeNamespaces, noOfAttributes * 2);
+      }
+      attributeNames[noOfAttributes] = token(nameStart, nameLength);
+      attributeValues[noOfAttributes] = token(valueStart, valueLength);
+      noOfAttributes++;
+      if (nameLength >= 5 && startsWith("xmlns", nameStart) && (nameLength == 5 || xml[nameStart + 5] == ':')) {
+        long prefix = nameLength == 5 ? token(nameStart, 0) : token(nameStart + 6, nameLength - 6);
+        String uri = decode(xml, token(valueStart, valueLength));
+        if (noOfDeclarations == declaredPrefixes.length) {
+          declaredPrefixes = Arrays.copyOf(declaredPrefixes, noOfDeclarations * 2);
+          declaredNamespaces = Arrays.copyOf(declaredNamespaces, noOfDeclarations * 2);
+        }
+        declaredPrefixes[noOfDeclarations] = prefix;
+        declaredNamespaces[noOfDeclarations] = getNamespaceId(uri);
+        noOfDeclarations++;
+      }
+    }
+
+    /**
+     * Parse end tag and close current element.
+     */
+    private void parseEndTag() {
+      pos += 2;
+      int nameStart = pos;
+      skipName();
+      int nameLength = pos - nameStart;
+      skipWhitespace();
+      if (depth == 0 || pos >= xml.length || xml[pos] != '>') {
+        throw malformed();
+      }
+      long openName = openNames[depth - 1];
+      int openStart = (int) (openName >>> 32);
+      if ((int) openName != nameLength) {
+        throw malformed();
+      }
+      for (int index = 0; index < nameLength; index++) {
+        if (xml[openStart + index] != xml[nameStart + index]) {
+          throw malformed();
+        }
+      }
+      pos++;
+      depth--;
+      noOfDeclarations = scopeStart[depth];
+    }
+
+    /**
+     * Add element and link it to its parent.
+     *
+     * @return Index of element.
+     */
+    private int addElement() {
+      int element = noOfElements++;
+      if (element == elementNames.length) {
+        int capacity = element * 2;
+        elementNames = Arrays.copyOf(elementNames, capacity);
+        elementNamespaces = Arrays.copyOf(elementNamespaces, capacity);
+        firstChild = Arrays.copyOf(firstChild, capacity);
+        nextSibling = Arrays.copyOf(nextSibling, capacity);
+        firstAttribute = Arrays.copyOf(firstAttribute, capacity + 1);
+      }
+      firstChild[element] = NONE;
+      nextSibling[element] = NONE;
+      if (depth > 0) {
+        int parent = openElements[depth - 1];
+        int previous = lastChild[depth - 1];
+        if (previous == NONE) {
+          firstChild[parent] = element;
+        } else {
+          nextSibling[previous] = element;
+        }
+        lastChild[depth - 1] = element;
+      }
+      return element;
+    }
+
+    /**
+     * Open element.
+     *
+     * @param element Element.
+     * @param qualifiedName Qualified name of element.
+     * @param declarations Number of namespace declarations before element.
+     */
+    private void push(final int element, final long qualifiedName, final int declarations) {
+      if (depth == openElements.length) {
+        openElements = Arrays.copyOf(openElements, depth * 2);
+        openNames = Arrays.copyOf(openNames, depth * 2);
+        lastChild = Arrays.copyOf(lastChild, depth * 2);
+        scopeStart = Arrays.copyOf(scopeStart, depth * 2);
+      }
+      openElements[depth] = element;
+      openNames[depth] = qualifiedName;
+      lastChild[depth] = NONE;
+      scopeStart[depth] = declarations;
+      depth++;
+    }
+
+    /**
+     * Resolve namespace of qualified name.
+     *
+     * @param name Qualified name.
+     * @param colon Position of colon (negative if name has no prefix).
+     * @param element Is name the name of an element? (Default namespace only
+     * applies to elements)
+     * @return Namespace id.
+     */
+    private int resolve(final long name, final int colon, final boolean element) {
+      int offset = (int) (name >>> 32);
+      int prefixLength = colon < 0 ? 0 : colon - offset;
+      if (colon < 0 && !element) {
+        return NO_NAMESPACE;
+      }
+      if (prefixLength == 3 && startsWith("xml", offset)) {
+        return 2;
+      }
+      if (prefixLength == 5 && startsWith("xmlns", offset)) {
+        return 1;
+      }
+      for (int declaration = noOfDeclarations - 1; declaration >= 0; declaration--) {
+        long prefix = declaredPrefixes[declaration];
+        if ((int) prefix == prefixLength) {
+          int prefixOffset = (int) (prefix >>> 32);
+          boolean match = true;
+          for (int index = 0; index < prefixLength && match; index++) {
+            match = xml[prefixOffset + index] == xml[offset + index];
+          }
+          if (match) {
+            return declaredNamespaces[declaration];
+          }
+        }
+      }
+      if (prefixLength > 0) {
+        // Undeclared prefix
+        throw new WorkspaceException(MALFORMED_XML + offset + " (undeclared prefix)");
+      }
+      return NO_NAMESPACE;
+    }
+
+    /**
+     * Get id of namespace (register if unknown).
+     *
+     * @param uri Namespace URI.
+     * @return Id.
+     */
+    private int getNamespaceId(final String uri) {
+      Integer id = namespaceIds.get(uri);
+      if (id == null) {
+        id = namespaces.size();
+        namespaces.add(uri);
+        namespaceIds.put(uri, id);
+      }
+      return id;
+    }
+
+    /**
+     * Check encoding of XML declaration.
+     *
+     * @param start Start of declaration.
+     * @param end End of declaration.
+     */
+    private void checkEncoding(final int start, final int end) {
+      String declaration = new String(xml, start, end - start, StandardCharsets.US_ASCII);
+      int index = declaration.indexOf("encoding");
+      if (declaration.startsWith("<?xml") && index > 0) {
+        int quote = index + 8;
+        while (quote < declaration.length() && declaration.charAt(quote) != '"' && declaration.charAt(quote) != '\'') {
+          quote++;
+        }
+        int endQuote = quote + 1 < declaration.length() ? declaration.indexOf(declaration.charAt(quote), quote + 1) : -1;
+        if (endQuote < 0) {
+          throw malformed();
+        }
+        String encoding = declaration.substring(quote + 1, endQuote);
+        if (!"UTF-8".equalsIgnoreCase(encoding) && !"UTF8".equalsIgnoreCase(encoding) && !"US-ASCII".equalsIgnoreCase(encoding) && !"ASCII".equalsIgnoreCase(encoding)) {
+          throw new WorkspaceException(UNSUPPORTED_ENCODING + encoding);
+        }
+      }
+    }
+
+    /**
+     * Skip DOCTYPE declaration (including internal subset).
+     */
+    private void skipDoctype() {
+      int brackets = 0;
+      byte quote = 0;
+      pos += 9;
+      while (pos < xml.length) {
+        byte b = xml[pos++];
+        if (quote != 0) {
+          if (b == quote) {
+            quote = 0;
+          }
+        } else if (b == '"' || b == '\'') {
+          quote = b;
+        } else if (b == '[') {
+          brackets++;
+        } else if (b == ']') {
+          brackets--;
+        } else if (b == '>' && brackets == 0) {
+          return;
+        }
+      }
+      throw malformed();
+    }
+
+    /**
+     * Skip name.
+     *
+     * @return Position of (first) colon or -1.
+     */
+    private int skipName() {
+      int start = pos;
+      int colon = -1;
+      while (pos < xml.length) {
+        byte b = xml[pos];
+        if (isWhitespace(b) || b == '>' || b == '/' || b == '=') {
+          break;
+        }
+        if (b == '<' || b == '"' || b == '\'') {
+          throw malformed();
+        }
+        if (b == ':' && colon < 0) {
+          colon = pos;
+        }
+        pos++;
+      }
+      if (pos == start || pos >= xml.length) {
+        throw malformed();
+      }
+      return colon;
+    }
+
+    /**
+     * Skip whitespace.
+     */
+    private void skipWhitespace() {
+      while (pos < xml.length && isWhitespace(xml[pos])) {
+        pos++;
+      }
+    }
+
+    /**
+     * Find first colon inside name.
+     *
+     * @param offset Start of name.
+     * @param length Length of name.
+     * @return Position of colon or -1.
+     */
+    private int indexOfColon(final int offset, final int length) {
+      for (int index = offset; index < offset + length; index++) {
+        if (xml[index] == ':') {
+          return index;
+        }
+      }
+      return -1;
+    }
+
+    /**
+     * Find ASCII string.
+     *
+     * @param string String.
+     * @param from Start position.
+     * @return Position of string.
+     */
+    private int indexOf(final String string, final int from) {
+      for (int index = from; index <= xml.length - string.length(); index++) {
+        if (startsWith(string, index)) {
+          return index;
+        }
+      }
+      throw malformed();
+    }
+
+    /**
+     * Test if buffer contains ASCII string at current position.
+     *
+     * @param string String.
+     * @return true if string is found.
+     */
+    private boolean startsWith(final String string) {
+      return startsWith(string, pos);
+    }
+
+    /**
+     * Test if buffer contains ASCII string at given position.
+     *
+     * @param string String.
+     * @param offset Position.
+     * @return true if string is found.
+     */
+    private boolean startsWith(final String string, final int offset) {
+      if (offset + string.length() > xml.length) {
+        return false;
+      }
+      for (int index = 0; index < string.length(); index++) {
+        if (xml[offset + index] != string.charAt(index)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Create exception for malformed document at current position.
+     *
+     * @return Exception.
+     */
+    private WorkspaceException malformed() {
+      return new WorkspaceException(MALFORMED_XML + pos);
+    }
+
+    /**
+     * Create token.
+     *
+     * @param offset Offset inside buffer.
+     * @param length Length.
+     * @return Token (offset &lt;&lt; 32 | length).
+     */
+    private static long token(final int offset, final int length) {
+      return ((long) offset << 32) | (length & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Test for XML whitespace.
+     *
+     * @param b Byte.
+     * @return true for space, tab, carriage return or line feed.
+     */
+    private static boolean isWhitespace(final byte b) {
+      return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+  }
+}
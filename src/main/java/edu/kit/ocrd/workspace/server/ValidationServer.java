@@ -0,0 +1,532 @@
+/*
+ * Copyright 2019 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.server;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import edu.kit.ocrd.workspace.MetsUtil;
+import edu.kit.ocrd.workspace.PageUtil;
+import edu.kit.ocrd.workspace.WorkspaceUtil;
+import edu.kit.ocrd.workspace.XmlUtil;
+import edu.kit.ocrd.workspace.exception.WorkspaceException;
+import edu.kit.ocrd.workspace.validation.RemoteFileChecker;
+import edu.kit.ocrd.workspace.validation.ValidationProfile;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Long running validation server providing a small HTTP/JSON API. Keeping the
+ * JVM alive avoids the startup costs (loading XSD files, initializing Tika)
+ * for every validation.
+ *
+ * Endpoints (GET or POST):
+ * - /validate/workspace Validate complete workspace (METS + files).
+ * - /validate/mets Validate METS file against mets.xsd.
+ * - /validate/page Validate PAGE file against page.xsd.
+ * - /status Show statistics of server.
+ *
+ * The file to validate is given either as query parameter 'path' or as JSON
+ * body (e.g. {"path": "/data/workspace/mets.xml"}). The file has to be
+ * accessible by the server. For workspaces the checks may be selected via
+ * parameter 'profile' (see ValidationProfile.parse).
+ *
+ * Validations are executed by a fixed number of workers. Requests exceeding
+ * the workers are queued. If the queue is full the server answers with 503
+ * (Service Unavailable).
+ */
+public class ValidationServer {
+
+  /**
+   * Context of all validation endpoints.
+   */
+  public static final String VALIDATE_CONTEXT = "/validate/";
+  /**
+   * Context of status endpoint.
+   */
+  public static final String STATUS_CONTEXT = "/status";
+  /**
+   * Endpoint for validating workspaces.
+   */
+  public static final String WORKSPACE = "workspace";
+  /**
+   * Endpoint for validating METS files.
+   */
+  public static final String METS = "mets";
+  /**
+   * Endpoint for validating PAGE files.
+   */
+  public static final String PAGE = "page";
+  /**
+   * Name of the parameter holding the path of the file.
+   */
+  public static final String PATH_PARAMETER = "path";
+  /**
+   * Name of the parameter holding the validation profile. (Only used for
+   * validating workspaces, e.g. 'quick' or 'full,-imageUrl')
+   */
+  public static final String PROFILE_PARAMETER = "profile";
+  /**
+   * Suffix of workspaces packed as OCRD-ZIP.
+   */
+  public static final String OCRD_ZIP_SUFFIX = ".zip";
+  /**
+   * Parameter enabling checks of remote files (http/https).
+   */
+  public static final String REMOTE_PARAMETER = "remote";
+  /**
+   * Default port of server.
+   */
+  public static final int DEFAULT_PORT = 8080;
+  /**
+   * Error messages: Missing path.
+   */
+  public static final String MISSING_PATH = "Missing parameter 'path'!";
+  /**
+   * Error messages: Unknown endpoint.
+   */
+  public static final String UNKNOWN_ENDPOINT = "Unknown endpoint: ";
+  /**
+   * Error messages: Too many requests.
+   */
+  public static final String SERVER_BUSY = "Too many requests, please try again later!";
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(ValidationServer.class);
+  /**
+   * HTTP server.
+   */
+  private final HttpServer server;
+  /**
+   * Executor running the validations.
+   */
+  private final ThreadPoolExecutor workers;
+  /**
+   * Checker for remote files shared by all requests (cache).
+   */
+  private final RemoteFileChecker remoteFileChecker = new RemoteFileChecker();
+  /**
+   * Number of finished requests.
+   */
+  private final AtomicLong finishedRequests = new AtomicLong();
+  /**
+   * Number of rejected requests.
+   */
+  private final AtomicLong rejectedRequests = new AtomicLong();
+
+  /**
+   * Create a new server. Server has to be started via start().
+   *
+   * @param address Address the server should listen to. (Port 0 for any free
+   * port)
+   * @param maxConcurrentRequests Maximum number of concurrent validations.
+   * @param queueCapacity Maximum number of waiting requests.
+   * @throws IOException Error binding address.
+   */
+  public ValidationServer(final InetSocketAddress address, final int maxConcurrentRequests, final int queueCapacity) throws IOException {
+    if (maxConcurrentRequests < 1 || queueCapacity < 0) {
+      throw new IllegalArgumentException("Invalid number of workers (" + maxConcurrentRequests + ") or queue capacity (" + queueCapacity + ")!");
+    }
+    workers = new ThreadPoolExecutor(maxConcurrentRequests, maxConcurrentRequests,
+            0L, TimeUnit.MILLISECONDS,
+            queueCapacity > 0 ? new ArrayBlockingQueue<Runnable>(queueCapacity) : new SynchronousQueue<Runnable>());
+    server = HttpServer.create(address, 0);
+    server.createContext(VALIDATE_CONTEXT, new ValidationHandler());
+    server.createContext(STATUS_CONTEXT, new StatusHandler());
+    // Handlers only dispatch to the workers, so the default
+    // (single threaded) executor of the HTTP server is sufficient.
+    server.setExecutor(null);
+  }
+
+  /**
+   * Start server. All schemas and the mimetype detection are initialized
+   * before the first request is accepted.
+   */
+  public void start() {
+    long startTime = System.currentTimeMillis();
+    // Loading classes initializes all schemas and Tika.
+    XmlUtil.getRegisteredNamespaces();
+    MetsUtil.getNamespaces();
+    server.start();
+    LOGGER.info("Validation server started at port {} in {} ms.", getPort(), System.currentTimeMillis() - startTime);
+  }
+
+  /**
+   * Stop server. Running validations will be finished.
+   *
+   * @param delay Maximum time in seconds to wait for running requests.
+   */
+  public void stop(final int delay) {
+    server.stop(delay);
+    workers.shutdown();
+    remoteFileChecker.shutdown();
+    try {
+      workers.awaitTermination(delay, TimeUnit.SECONDS);
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+    }
+    LOGGER.info("Validation server stopped.");
+  }
+
+  /**
+   * Get port the server is listening to.
+   *
+   * @return port
+   */
+  public int getPort() {
+    return server.getAddress().getPort();
+  }
+
+  /**
+   * Handler dispatching validation requests to the workers.
+   */
+  private class ValidationHandler implements HttpHandler {
+
+    @Override
+    public void handle(final HttpExchange exchange) throws IOException {
+      final long receivedTime = System.currentTimeMillis();
+      try {
+        workers.execute(new Runnable() {
+          @Override
+          public void run() {
+            validate(exchange, receivedTime);
+          }
+        });
+      } catch (RejectedExecutionException ree) {
+        rejectedRequests.incrementAndGet();
+        LOGGER.warn("Request rejected: {}", exchange.getRequestURI());
+        sendResponse(exchange, 503, "{\"error\":" + toJson(SERVER_BUSY) + "}");
+      }
+    }
+  }
+
+  /**
+   * Handler returning statistics of the server.
+   */
+  private class StatusHandler implements HttpHandler {
+
+    @Override
+    public void handle(final HttpExchange exchange) throws IOException {
+      StringBuilder json = new StringBuilder("{");
+      json.append("\"activeRequests\":").append(workers.getActiveCount());
+      json.append(",\"queuedRequests\":").append(workers.getQueue().size());
+      json.append(",\"finishedRequests\":").append(finishedRequests.get());
+      json.append(",\"rejectedRequests\":").append(rejectedRequests.get());
+      json.append(",\"maxConcurrentRequests\":").append(workers.getMaximumPoolSize());
+      json.append("}");
+      sendResponse(exchange, 200, json.toString());
+    }
+  }
+
+  /**
+   * Validate the file given by request. (Executed by worker)
+   *
+   * @param exchange Request/response.
+   * @param receivedTime Time the request was received.
+   */
+  private void validate(final HttpExchange exchange, final long receivedTime) {
+    long startTime = System.currentTimeMillis();
+    String endpoint = exchange.getRequestURI().getPath().substring(VALIDATE_CONTEXT.length());
+    int status = 200;
+    String path = null;
+    Boolean valid = null;
+    String message = null;
+    Error fatalError = null;
+    try {
+      String query = exchange.getRequestURI().getRawQuery();
+      String body = readBody(exchange);
+      path = getParameter(query, body, PATH_PARAMETER);
+      String profile = getParameter(query, body, PROFILE_PARAMETER);
+      boolean remote = Boolean.parseBoolean(getParameter(query, body, REMOTE_PARAMETER));
+      if (path == null) {
+        status = 400;
+        message = MISSING_PATH;
+      } else {
+        File file = new File(path);
+        switch (endpoint) {
+          case WORKSPACE:
+            ValidationProfile validationProfile = ValidationProfile.STANDARD;
+            if (profile != null) {
+              try {
+                validationProfile = ValidationProfile.parse(profile);
+              } catch (WorkspaceException wse) {
+                status = 400;
+                message = wse.getMessage();
+                break;
+              }
+            }
+            if (file.getName().toLowerCase().endsWith(OCRD_ZIP_SUFFIX)) {
+              valid = WorkspaceUtil.validateOcrdZip(file.toPath(), validationProfile);
+            } else {
+              valid = WorkspaceUtil.validateWorkspace(file.toPath(), validationProfile, remote ? remoteFileChecker : null);
+            }
+            break;
+          case METS:
+            valid = MetsUtil.validateMets(file);
+            break;
+          case PAGE:
+            valid = PageUtil.validatePage(file);
+            break;
+          default:
+            status = 404;
+            message = UNKNOWN_ENDPOINT + endpoint;
+        }
+      }
+    } catch (WorkspaceException wse) {
+      valid = Boolean.FALSE;
+      message = wse.getMessage();
+    } catch (IOException | RuntimeException ex) {
+      LOGGER.error("Error while validating '" + path + "'", ex);
+      status = 500;
+      message = ex.getMessage();
+    } catch (Error error) {
+      // Answer request before passing on the error, otherwise the client hangs.
+      LOGGER.error("Fatal error while validating '" + path + "'", error);
+      status = 500;
+      message = error.toString();
+      fatalError = error;
+    }
+    long endTime = System.currentTimeMillis();
+    StringBuilder json = new StringBuilder("{");
+    json.append("\"endpoint\":").append(toJson(endpoint));
+    json.append(",\"path\":").append(toJson(path));
+    json.append(",\"valid\":").append(valid);
+    json.append(",\"message\":").append(toJson(message));
+    json.append(",\"queueMillis\":").append(startTime - receivedTime);
+    json.append(",\"durationMillis\":").append(endTime - startTime);
+    json.append("}");
+    finishedRequests.incrementAndGet();
+    LOGGER.info("Validated '{}' ({}): valid = {}, queued {} ms, validated {} ms", path, endpoint, valid, startTime - receivedTime, endTime - startTime);
+    sendResponse(exchange, status, json.toString());
+    if (fatalError != null) {
+      throw fatalError;
+    }
+  }
+
+  /**
+   * Get parameter from query or JSON body. Query parameters take precedence.
+   *
+   * @param query Raw query of request (may be null).
+   * @param body Body of request.
+   * @param key Name of parameter.
+   * @return Value or null if not available.
+   */
+  private static String getParameter(final String query, final String body, final String key) {
+    String value = null;
+    if (query != null) {
+      for (String parameter : query.split("&")) {
+        if (parameter.startsWith(key + "=")) {
+          value = decode(parameter.substring(key.length() + 1));
+        }
+      }
+    }
+    if (value == null) {
+      value = getJsonValue(body, key);
+    }
+    if (value != null && value.trim().isEmpty()) {
+      value = null;
+    }
+    return value;
+  }
+
+  /**
+   * Read complete body of request.
+   *
+   * @param exchange Request.
+   * @return Body as string.
+   * @throws IOException Error reading request.
+   */
+  private static String readBody(final HttpExchange exchange) throws IOException {
+    ByteArrayOutputStream body = new ByteArrayOutputStream();
+    try (InputStream inputStream = exchange.getRequestBody()) {
+      byte[] buffer = new byte[4096];
+      for (int read; (read = inputStream.read(buffer)) > 0;) {
+        body.write(buffer, 0, read);
+      }
+    }
+    return new String(body.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Decode URL encoded string.
+   *
+   * @param value URL encoded string.
+   * @return Decoded string.
+   */
+  private static String decode(final String value) {
+    try {
+      return URLDecoder.decode(value, StandardCharsets.UTF_8.name());
+    } catch (UnsupportedEncodingException ex) {
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  /**
+   * Get value of a string field of a flat JSON object.
+   *
+   * @param json JSON object.
+   * @param key Name of the field.
+   * @return Value or null if not available.
+   */
+  static String getJsonValue(final String json, final String key) {
+    String value = null;
+    int index = json.indexOf("\"" + key + "\"");
+    if (index >= 0) {
+      index = json.indexOf(':', index + key.length() + 2);
+      if (index >= 0) {
+        index++;
+        while (index < json.length() && Character.isWhitespace(json.charAt(index))) {
+          index++;
+        }
+        if (index < json.length() && json.charAt(index) == '"') {
+          StringBuilder builder = new StringBuilder();
+          for (index++; index < json.length() && json.charAt(index) != '"'; index++) {
+            char character = json.charAt(index);
+            if (character == '\\' && index + 1 < json.length()) {
+              character = json.charAt(++index);
+              switch (character) {
+                case 'n':
+                  character = '\n';
+                  break;
+                case 't':
+                  character = '\t';
+                  break;
+                case 'r':
+                  character = '\r';
+                  break;
+                case 'u':
+                  character = (char) Integer.parseInt(json.substring(index + 1, index + 5), 16);
+                  index += 4;
+                  break;
+                default:
+                // '"', '\\' and '/' are taken as is.
+              }
+            }
+            builder.append(character);
+          }
+          value = builder.toString();
+        }
+      }
+    }
+    return value;
+  }
+
+  /**
+   * Transform string to JSON string.
+   *
+   * @param value String (may be null)
+   * @return Quoted and escaped string or null.
+   */
+  static String toJson(final String value) {
+    if (value == null) {
+      return "null";
+    }
+    StringBuilder builder = new StringBuilder("\"");
+    for (char character : value.toCharArray()) {
+      switch (character) {
+        case '"':
+          builder.append("\\\"");
+          break;
+        case '\\':
+          builder.append("\\\\");
+          break;
+        case '\n':
+          builder.append("\\n");
+          break;
+        case '\r':
+          builder.append("\\r");
+          break;
+        case '\t':
+          builder.append("\\t");
+          break;
+        default:
+          if (character < 0x20) {
+            builder.append(String.format("\\u%04x", (int) character));
+          } else {
+            builder.append(character);
+          }
+      }
+    }
+    return builder.append('"').toString();
+  }
+
+  /**
+   * Send JSON response and close exchange.
+   *
+   * @param exchange Request/response.
+   * @param status HTTP status.
+   * @param json Body of response.
+   */
+  private static void sendResponse(final HttpExchange exchange, final int status, final String json) {
+    byte[] body = json.getBytes(StandardCharsets.UTF_8);
+    try {
+      exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+      exchange.sendResponseHeaders(status, body.length);
+      try (OutputStream outputStream = exchange.getResponseBody()) {
+        outputStream.write(body);
+      }
+    } catch (IOException ex) {
+      LOGGER.error("Error sending response!", ex);
+    } finally {
+      exchange.close();
+    }
+  }
+
+  /**
+   * Start validation server.
+   *
+   * Usage: ValidationServer [port [maxConcurrentRequests [queueCapacity
+   * [host]]]]
+   *
+   * The server binds to the loopback interface only. As the endpoints have no
+   * authentication and accept any path, binding to another interface (e.g.
+   * '0.0.0.0') has to be requested explicitly via argument 'host'.
+   *
+   * @param args Command line arguments.
+   * @throws IOException Error starting server.
+   */
+  public static void main(String[] args) throws IOException {
+    int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+    int maxConcurrentRequests = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+    int queueCapacity = args.length > 2 ? Integer.parseInt(args[2]) : 10 * maxConcurrentRequests;
+    InetAddress host = args.length > 3 ? InetAddress.getByName(args[3]) : InetAddress.getLoopbackAddress();
+    final ValidationServer validationServer = new ValidationServer(new InetSocketAddress(host, port), maxConcurrentRequests, queueCapacity);
+    validationServer.start();
+    Runtime.getRuntime().addShutdownHook(new Thread() {
+      @Override
+      public void run() {
+        validationServer.stop(5);
+      }
+    });
+  }
+}
@@ -0,0 +1,232 @@
+/*
+ * Copyright 2019 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.validation;
+
+import edu.kit.ocrd.workspace.exception.WorkspaceException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Scheduler executing checks with declared dependencies. A check is started
+ * as soon as all of its dependencies were executed without errors. Checks
+ * independent of each other run in parallel. If a check fails all checks
+ * depending on it are skipped.
+ *
+ * Dependencies have to be added before the checks depending on them. So the
+ * checks always build a directed acyclic graph. The findings of all checks are
+ * merged in the order the checks were added, independent of the order of
+ * execution.
+ */
+public class CheckScheduler {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(CheckScheduler.class);
+  /**
+   * Executor shared by all schedulers.
+   */
+  private static final ExecutorService DEFAULT_EXECUTOR = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), new ThreadFactory() {
+    /**
+     * Number of created threads.
+     */
+    private final AtomicInteger noOfThreads = new AtomicInteger();
+
+    @Override
+    public Thread newThread(final Runnable runnable) {
+      Thread thread = new Thread(runnable, "check-scheduler-" + noOfThreads.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  });
+
+  /**
+   * A single check.
+   */
+  public interface Check {
+
+    /**
+     * Execute check. Errors may be reported via result or by throwing a
+     * WorkspaceException.
+     *
+     * @param result Result collecting all findings of this check.
+     * @throws Exception Any error.
+     */
+    void execute(ValidationResult result) throws Exception;
+  }
+
+  /**
+   * Check with its dependencies.
+   */
+  private static class Node {
+
+    /**
+     * Name of check.
+     */
+    private final String name;
+    /**
+     * Check.
+     */
+    private final Check check;
+    /**
+     * Dependencies of check.
+     */
+    private final List<Node> dependencies;
+
+    /**
+     * Constructor.
+     *
+     * @param name Name of check.
+     * @param check Check.
+     * @param dependencies Dependencies of check.
+     */
+    Node(final String name, final Check check, final List<Node> dependencies) {
+      this.name = name;
+      this.check = check;
+      this.dependencies = dependencies;
+    }
+  }
+  /**
+   * All checks in order of adding.
+   */
+  private final List<Node> nodes = new ArrayList<>();
+  /**
+   * All checks by name.
+   */
+  private final Map<String, Node> nodesByName = new HashMap<>();
+
+  /**
+   * Get executor shared by all schedulers. (One thread per processor)
+   *
+   * @return Executor
+   */
+  public static ExecutorService getDefaultExecutor() {
+    return DEFAULT_EXECUTOR;
+  }
+
+  /**
+   * Add check.
+   *
+   * @param name Unique name of check.
+   * @param check Check.
+   * @param dependencies Names of (already added) checks which have to succeed
+   * before this check is started.
+   * @return Scheduler
+   */
+  public CheckScheduler add(final String name, final Check check, final String... dependencies) {
+    if (nodesByName.containsKey(name)) {
+      throw new IllegalArgumentException("Check '" + name + "' already defined!");
+    }
+    List<Node> dependencyNodes = new ArrayList<>();
+    for (String dependency : dependencies) {
+      Node node = nodesByName.get(dependency);
+      if (node == null) {
+        throw new IllegalArgumentException("Unknown dependency '" + dependency + "' for check '" + name + "'!");
+      }
+      dependencyNodes.add(node);
+    }
+    Node node = new Node(name, check, dependencyNodes);
+    nodes.add(node);
+    nodesByName.put(name, node);
+    return this;
+  }
+
+  /**
+   * Is check with given name already added?
+   *
+   * @param name Name of check.
+   * @return true if check exists.
+   */
+  public boolean contains(final String name) {
+    return nodesByName.containsKey(name);
+  }
+
+  /**
+   * Execute all checks using the default executor.
+   *
+   * @return Merged findings of all checks.
+   */
+  public ValidationResult run() {
+    return run(DEFAULT_EXECUTOR);
+  }
+
+  /**
+   * Execute all checks using the given executor.
+   *
+   * @param executor Executor running the checks.
+   * @return Merged findings of all checks.
+   */
+  public ValidationResult run(final Executor executor) {
+    // null marks a skipped check.
+    Map<Node, CompletableFuture<ValidationResult>> futures = new HashMap<>();
+    for (final Node node : nodes) {
+      final List<CompletableFuture<ValidationResult>> dependencies = new ArrayList<>();
+      for (Node dependency : node.dependencies) {
+        dependencies.add(futures.get(dependency));
+      }
+      CompletableFuture<Void> allDependencies = CompletableFuture.allOf(dependencies.toArray(new CompletableFuture<?>[dependencies.size()]));
+      futures.put(node, allDependencies.thenApplyAsync(ignored -> {
+        for (CompletableFuture<ValidationResult> dependency : dependencies) {
+          ValidationResult dependencyResult = dependency.join();
+          if (dependencyResult == null || !dependencyResult.isValid()) {
+            LOGGER.debug("Skip check '{}' due to failed dependency.", node.name);
+            return null;
+          }
+        }
+        return execute(node);
+      }, executor));
+    }
+    ValidationResult result = new ValidationResult();
+    for (Node node : nodes) {
+      ValidationResult nodeResult = futures.get(node).join();
+      if (nodeResult != null) {
+        result.merge(nodeResult);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Execute single check.
+   *
+   * @param node Check.
+   * @return Findings of check.
+   */
+  private static ValidationResult execute(final Node node) {
+    ValidationResult result = new ValidationResult();
+    long startTime = System.currentTimeMillis();
+    try {
+      node.check.execute(result);
+    } catch (WorkspaceException wse) {
+      result.addError(wse.getMessage());
+    } catch (Exception ex) {
+      LOGGER.error("Error executing check '" + node.name + "'", ex);
+      result.addError(ex.getMessage() != null ? ex.getMessage() : ex.getClass().getName());
+    }
+    LOGGER.debug("Check '{}' finished in {} ms (valid: {})", node.name, System.currentTimeMillis() - startTime, result.isValid());
+    return result;
+  }
+}
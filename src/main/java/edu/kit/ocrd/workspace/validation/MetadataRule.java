@@ -0,0 +1,34 @@
+/*
+ * Copyright 2019 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.validation;
+
+import edu.kit.ocrd.workspace.entity.MetsMetadata;
+
+/**
+ * Rule validating descriptive metadata of a METS document. All rules work on
+ * the metadata extracted in a single pass over the document, so adding rules
+ * doesn't add traversals.
+ */
+public interface MetadataRule {
+
+  /**
+   * Validate metadata. Findings are reported via result.
+   *
+   * @param metadata Metadata extracted from METS.
+   * @param result Result collecting all findings.
+   */
+  void validate(MetsMetadata metadata, ValidationResult result);
+}
@@ -0,0 +1,388 @@
+/*
+ * Copyright 2019 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.validation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Checker for remote files (http/https) referenced by METS. Files are checked
+ * via HEAD request. If the server doesn't support HEAD a GET request for the
+ * first byte is sent instead.
+ *
+ * - Connections are reused via keep alive of the JDK.
+ * - The number of concurrent requests per host is limited.
+ * - Requests failing due to I/O errors, status 5xx or 429 are retried.
+ * - Responses are cached (LRU), so each URL is requested only once.
+ *
+ * Instances are thread safe and should be shared.
+ */
+public class RemoteFileChecker {
+
+  /**
+   * Default maximum number of concurrent requests per host.
+   */
+  public static final int DEFAULT_MAX_REQUESTS_PER_HOST = 4;
+  /**
+   * Default timeout (connect and read) in milliseconds.
+   */
+  public static final int DEFAULT_TIMEOUT = 10000;
+  /**
+   * Default number of retries.
+   */
+  public static final int DEFAULT_RETRIES = 2;
+  /**
+   * Default delay before first retry in milliseconds. (Doubled for each
+   * further retry)
+   */
+  public static final int DEFAULT_RETRY_DELAY = 500;
+  /**
+   * Default maximum number of cached responses.
+   */
+  public static final int DEFAULT_CACHE_SIZE = 10000;
+  /**
+   * Status of response if no response was received.
+   */
+  public static final int NO_RESPONSE = -1;
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(RemoteFileChecker.class);
+  /**
+   * Maximum number of concurrent requests per host.
+   */
+  private final int maxRequestsPerHost;
+  /**
+   * Timeout in milliseconds.
+   */
+  private final int timeout;
+  /**
+   * Number of retries.
+   */
+  private final int retries;
+  /**
+   * Delay before first retry in milliseconds.
+   */
+  private final int retryDelay;
+  /**
+   * Executors (one per host) limiting the concurrent requests.
+   */
+  private final Map<String, ExecutorService> hostExecutors = new ConcurrentHashMap<>();
+  /**
+   * Cached responses (access order).
+   */
+  private final Map<String, CompletableFuture<Response>> cache;
+
+  /**
+   * Response of a remote check.
+   */
+  public static class Response {
+
+    /**
+     * HTTP status (NO_RESPONSE if no response was received).
+     */
+    private final int status;
+    /**
+     * Content type (without parameters) or null.
+     */
+    private final String contentType;
+    /**
+     * Error message if no response was received.
+     */
+    private final String errorMessage;
+
+    /**
+     * Constructor.
+     *
+     * @param status HTTP status.
+     * @param contentType Content type (without parameters) or null.
+     * @param errorMessage Error message if no response was received.
+     */
+    public Response(final int status, final String contentType, final String errorMessage) {
+      this.status = status;
+      this.contentType = contentType;
+      this.errorMessage = errorMessage;
+    }
+
+    /**
+     * @return the status
+     */
+    public int getStatus() {
+      return status;
+    }
+
+    /**
+     * @return the contentType
+     */
+    public String getContentType() {
+      return contentType;
+    }
+
+    /**
+     * @return the errorMessage
+     */
+    public String getErrorMessage() {
+      return errorMessage;
+    }
+
+    /**
+     * Is remote file available?
+     *
+     * @return true if status is 2xx.
+     */
+    public boolean isAvailable() {
+      return status >= 200 && status < 300;
+    }
+
+    @Override
+    public String toString() {
+      return status == NO_RESPONSE ? errorMessage : "HTTP " + status;
+    }
+  }
+
+  /**
+   * Constructor using default values.
+   */
+  public RemoteFileChecker() {
+    this(DEFAULT_MAX_REQUESTS_PER_HOST, DEFAULT_TIMEOUT, DEFAULT_RETRIES, DEFAULT_RETRY_DELAY, DEFAULT_CACHE_SIZE);
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param maxRequestsPerHost Maximum number of concurrent requests per host.
+   * @param timeout Timeout (connect and read) in milliseconds.
+   * @param retries Number of retries.
+   * @param retryDelay Delay before first retry in milliseconds.
+   * @param cacheSize Maximum number of cached responses.
+   */
+  public RemoteFileChecker(final int maxRequestsPerHost, final int timeout, final int retries, final int retryDelay, final int cacheSize) {
+    if (maxRequestsPerHost < 1 || timeout < 0 || retries < 0 || retryDelay < 0 || cacheSize < 0) {
+      throw new IllegalArgumentException("Invalid settings for remote file checker!");
+    }
+    this.maxRequestsPerHost = maxRequestsPerHost;
+    this.timeout = timeout;
+    this.retries = retries;
+    this.retryDelay = retryDelay;
+    cache = new LinkedHashMap<String, CompletableFuture<Response>>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(final Map.Entry<String, CompletableFuture<Response>> eldest) {
+        return size() > cacheSize;
+      }
+    };
+  }
+
+  /**
+   * Is URL a remote URL (http or https)?
+   *
+   * @param url URL
+   * @return true if URL should be checked remotely.
+   */
+  public static boolean isRemote(final String url) {
+    String lowerCaseUrl = url.toLowerCase(Locale.ROOT);
+    return lowerCaseUrl.startsWith("http://") || lowerCaseUrl.startsWith("https://");
+  }
+
+  /**
+   * Check remote file asynchronously. Each URL is requested only once as long
+   * as the response is cached.
+   *
+   * @param url URL of remote file.
+   * @return Future holding the response.
+   */
+  public CompletableFuture<Response> check(final String url) {
+    CompletableFuture<Response> response;
+    synchronized (cache) {
+      response = cache.get(url);
+      if (response == null) {
+        response = new CompletableFuture<>();
+        cache.put(url, response);
+        request(url, response);
+      }
+    }
+    return response;
+  }
+
+  /**
+   * Remove all cached responses.
+   */
+  public void clearCache() {
+    synchronized (cache) {
+      cache.clear();
+    }
+  }
+
+  /**
+   * Stop all threads of checker. Running requests will be finished.
+   */
+  public void shutdown() {
+    for (ExecutorService executor : hostExecutors.values()) {
+      executor.shutdown();
+    }
+  }
+
+  /**
+   * Start request on executor of host.
+   *
+   * @param url URL of remote file.
+   * @param response Future for response.
+   */
+  private void request(final String url, final CompletableFuture<Response> response) {
+    final URL remoteUrl;
+    try {
+      remoteUrl = new URL(url);
+    } catch (IOException ex) {
+      response.complete(new Response(NO_RESPONSE, null, ex.getMessage()));
+      return;
+    }
+    String host = remoteUrl.getProtocol() + "://" + remoteUrl.getHost() + ":" + remoteUrl.getPort();
+    try {
+      hostExecutors.computeIfAbsent(host, this::createExecutor).execute(() -> {
+        Response result = requestWithRetries(remoteUrl);
+        if (isTemporaryFailure(result.getStatus())) {
+          // Don't cache temporary failures.
+          synchronized (cache) {
+            cache.remove(url, response);
+          }
+        }
+        response.complete(result);
+      });
+    } catch (RuntimeException ex) {
+      // Called while holding lock of cache.
+      cache.remove(url, response);
+      response.complete(new Response(NO_RESPONSE, null, ex.getMessage()));
+    }
+  }
+
+  /**
+   * Request remote file. Retry if request failed temporarily.
+   *
+   * @param url URL of remote file.
+   * @return Response.
+   */
+  private Response requestWithRetries(final URL url) {
+    Response response = null;
+    long delay = retryDelay;
+    for (int attempt = 0; attempt <= retries; attempt++) {
+      if (attempt > 0) {
+        LOGGER.debug("Retry request for '{}' ({})", url, response);
+        try {
+          Thread.sleep(delay);
+        } catch (InterruptedException ex) {
+          Thread.currentThread().interrupt();
+          break;
+        }
+        delay *= 2;
+      }
+      try {
+        response = request(url, "HEAD");
+        if (response.getStatus() == HttpURLConnection.HTTP_BAD_METHOD || response.getStatus() == HttpURLConnection.HTTP_NOT_IMPLEMENTED) {
+          response = request(url, "GET");
+        }
+      } catch (IOException ex) {
+        LOGGER.debug("Error requesting '" + url + "'", ex);
+        response = new Response(NO_RESPONSE, null, ex.getClass().getSimpleName() + ": " + ex.getMessage());
+      }
+      if (!isTemporaryFailure(response.getStatus())) {
+        break;
+      }
+    }
+    LOGGER.trace("Response for '{}': {}", url, response);
+    return response;
+  }
+
+  /**
+   * Send single request.
+   *
+   * @param url URL of remote file.
+   * @param method HEAD or GET (only first byte)
+   * @return Response.
+   * @throws IOException Error sending request.
+   */
+  private Response request(final URL url, final String method) throws IOException {
+    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    connection.setRequestMethod(method);
+    connection.setConnectTimeout(timeout);
+    connection.setReadTimeout(timeout);
+    connection.setInstanceFollowRedirects(true);
+    if ("GET".equals(method)) {
+      connection.setRequestProperty("Range", "bytes=0-0");
+    }
+    int status = connection.getResponseCode();
+    String contentType = connection.getContentType();
+    if (contentType != null) {
+      int separator = contentType.indexOf(';');
+      contentType = (separator < 0 ? contentType : contentType.substring(0, separator)).trim().toLowerCase(Locale.ROOT);
+    }
+    if (status == HttpURLConnection.HTTP_OK && "GET".equals(method)) {
+      // Range is ignored by server, don't read the complete file.
+      connection.disconnect();
+    } else {
+      // Read (small) body, so the connection may be reused.
+      try (InputStream body = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+        if (body != null) {
+          byte[] buffer = new byte[1024];
+          while (body.read(buffer) >= 0) {
+            // skip
+          }
+        }
+      }
+    }
+    return new Response(status, contentType, null);
+  }
+
+  /**
+   * Is status a temporary failure?
+   *
+   * @param status HTTP status.
+   * @return true if request should be retried.
+   */
+  private static boolean isTemporaryFailure(final int status) {
+    return status == NO_RESPONSE || status == 429 || status >= 500;
+  }
+
+  /**
+   * Create executor for one host.
+   *
+   * @param host Protocol, host and port.
+   * @return Executor with maxRequestsPerHost threads.
+   */
+  private ExecutorService createExecutor(final String host) {
+    final AtomicInteger noOfThreads = new AtomicInteger();
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(maxRequestsPerHost, maxRequestsPerHost,
+            60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), runnable -> {
+              Thread thread = new Thread(runnable, "remote-check-" + host + "-" + noOfThreads.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2019 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.validation;
+
+import edu.kit.ocrd.workspace.entity.MetsMetadata;
+import java.util.List;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Rule checking that a (multi valued) metadata field contains at least one
+ * value. A missing value is reported as error if the field is mandatory,
+ * otherwise as warning.
+ */
+public class RequiredFieldRule implements MetadataRule {
+
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(RequiredFieldRule.class);
+  /**
+   * Accessor for the values of the field.
+   */
+  private final Function<MetsMetadata, List<String>> field;
+  /**
+   * Message reported if field is missing.
+   */
+  private final String message;
+  /**
+   * Report missing field as error?
+   */
+  private final boolean mandatory;
+
+  /**
+   * Constructor.
+   *
+   * @param field Accessor for the values of the field.
+   * @param message Message reported if field is missing.
+   * @param mandatory Report missing field as error (true) or warning (false).
+   */
+  public RequiredFieldRule(final Function<MetsMetadata, List<String>> field, final String message, final boolean mandatory) {
+    this.field = field;
+    this.message = message;
+    this.mandatory = mandatory;
+  }
+
+  @Override
+  public void validate(final MetsMetadata metadata, final ValidationResult result) {
+    for (String value : field.apply(metadata)) {
+      if (value.trim().length() > 1) {
+        return;
+      }
+    }
+    if (mandatory) {
+      result.addError(message);
+    } else {
+      LOGGER.warn(message);
+      result.addWarning(message);
+    }
+  }
+}
@@ -0,0 +1,330 @@
+/*
+ * Copyright 2019 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.validation;
+
+import edu.kit.ocrd.workspace.entity.GroundTruthProperties;
+import edu.kit.ocrd.workspace.entity.MetsMetadata;
+import edu.kit.ocrd.workspace.exception.WorkspaceException;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Immutable set of institution specific rules declared in a properties file.
+ * The rules are compiled once while loading, so they are evaluated inside the
+ * existing passes (metadata extraction and loops over the METS index) without
+ * any additional traversal of the document.
+ *
+ * Supported keys (values are comma separated lists):
+ * <pre>
+ * # MODS fields reported as error if missing
+ * mods.mandatory=title, language
+ * # MODS fields reported as warning if missing
+ * mods.recommended=classification, genre
+ * # Allowed mimetypes of file group with USE 'OCR-D-IMG'
+ * mimetype.OCR-D-IMG=image/tiff, image/png
+ * # Ground truth labels accepted in addition to the predefined ones
+ * features.additional=layout/regions/marginalia
+ * </pre>
+ * MODS fields: title, subTitle, year, license, author, publisher,
+ * physicalDescription, ppn, language, classification, genre
+ */
+public final class RuleProfile {
+
+  /**
+   * Error messages: Invalid rule.
+   */
+  public static final String INVALID_RULE = "Invalid rule: ";
+  /**
+   * Error messages: Error reading rule profile.
+   */
+  public static final String ERROR_READING_RULES = "Error reading rule profile: ";
+  /**
+   * Key: MODS fields reported as error if missing.
+   */
+  public static final String MANDATORY_FIELDS = "mods.mandatory";
+  /**
+   * Key: MODS fields reported as warning if missing.
+   */
+  public static final String RECOMMENDED_FIELDS = "mods.recommended";
+  /**
+   * Key prefix: Allowed mimetypes of file group.
+   */
+  public static final String MIMETYPE_PREFIX = "mimetype.";
+  /**
+   * Key: Additional ground truth labels.
+   */
+  public static final String ADDITIONAL_FEATURES = "features.additional";
+  /**
+   * Suffix of message reported for missing field.
+   */
+  private static final String MISSING_FIELD_SUFFIX = " field missing inside METS!";
+  /**
+   * Logger.
+   */
+  private static final Logger LOGGER = LoggerFactory.getLogger(RuleProfile.class);
+  /**
+   * Accessors of all supported MODS fields by name.
+   */
+  private static final Map<String, Function<MetsMetadata, List<String>>> FIELDS;
+
+  static {
+    Map<String, Function<MetsMetadata, List<String>>> fields = new LinkedHashMap<>();
+    fields.put("title", metadata -> toList(metadata.getTitle()));
+    fields.put("subTitle", metadata -> toList(metadata.getSubTitle()));
+    fields.put("year", metadata -> toList(metadata.getYear()));
+    fields.put("license", metadata -> toList(metadata.getLicense()));
+    fields.put("author", MetsMetadata::getAuthors);
+    fields.put("publisher", metadata -> toList(metadata.getPublisher()));
+    fields.put("physicalDescription", metadata -> toList(metadata.getPhysicalDescription()));
+    fields.put("ppn", metadata -> toList(metadata.getPpn()));
+    fields.put("language", MetsMetadata::getLanguages);
+    fields.put("classification", MetsMetadata::getClassifications);
+    fields.put("genre", MetsMetadata::getGenres);
+    FIELDS = Collections.unmodifiableMap(fields);
+  }
+  /**
+   * Default rules: Language, classification and genre should be defined.
+   */
+  public static final RuleProfile DEFAULT = compile(defaultProperties());
+  /**
+   * Declared rules.
+   */
+  private final Properties properties;
+  /**
+   * Compiled rules for descriptive metadata.
+   */
+  private final List<MetadataRule> metadataRules;
+  /**
+   * Compiled rules for descriptive metadata by field.
+   */
+  private final Map<String, MetadataRule> fieldRules;
+  /**
+   * Allowed mimetypes by USE of file group.
+   */
+  private final Map<String, Set<String>> allowedMimetypes;
+  /**
+   * Additional ground truth labels.
+   */
+  private final Set<String> additionalFeatures;
+
+  /**
+   * Constructor.
+   *
+   * @param properties Declared rules.
+   * @param metadataRules Compiled rules for descriptive metadata.
+   * @param fieldRules Compiled rules for descriptive metadata by field.
+   * @param allowedMimetypes Allowed mimetypes by USE of file group.
+   * @param additionalFeatures Additional ground truth labels.
+   */
+  private RuleProfile(final Properties properties, final List<MetadataRule> metadataRules, final Map<String, MetadataRule> fieldRules, final Map<String, Set<String>> allowedMimetypes, final Set<String> additionalFeatures) {
+    this.properties = properties;
+    this.metadataRules = Collections.unmodifiableList(metadataRules);
+    this.fieldRules = fieldRules;
+    this.allowedMimetypes = allowedMimetypes;
+    this.additionalFeatures = additionalFeatures;
+  }
+
+  /**
+   * Load rule profile from properties file (UTF-8).
+   *
+   * @param ruleFile Properties file.
+   * @return Compiled rules.
+   */
+  public static RuleProfile load(final Path ruleFile) {
+    Properties properties = new Properties();
+    try (Reader reader = Files.newBufferedReader(ruleFile, StandardCharsets.UTF_8)) {
+      properties.load(reader);
+    } catch (IOException ex) {
+      LOGGER.error(ERROR_READING_RULES + ruleFile, ex);
+      throw new WorkspaceException(ERROR_READING_RULES + ruleFile, ex);
+    }
+    return compile(properties);
+  }
+
+  /**
+   * Compile declared rules.
+   *
+   * @param properties Declared rules.
+   * @return Compiled rules.
+   */
+  public static RuleProfile compile(final Properties properties) {
+    Properties copy = new Properties();
+    List<MetadataRule> metadataRules = new ArrayList<>();
+    Map<String, MetadataRule> fieldRules = new HashMap<>();
+    Map<String, Set<String>> allowedMimetypes = new HashMap<>();
+    Set<String> additionalFeatures = new HashSet<>();
+    for (String key : properties.stringPropertyNames()) {
+      String value = properties.getProperty(key);
+      copy.setProperty(key, value);
+      if (key.startsWith(MIMETYPE_PREFIX) && key.length() > MIMETYPE_PREFIX.length()) {
+        allowedMimetypes.put(key.substring(MIMETYPE_PREFIX.length()), new HashSet<>(split(value)));
+      } else if (key.equals(ADDITIONAL_FEATURES)) {
+        additionalFeatures.addAll(split(value));
+      } else if (!key.equals(MANDATORY_FIELDS) && !key.equals(RECOMMENDED_FIELDS)) {
+        throw new WorkspaceException(INVALID_RULE + key);
+      }
+    }
+    // Mandatory fields first, both in declared order.
+    addFieldRules(copy.getProperty(MANDATORY_FIELDS), true, metadataRules, fieldRules);
+    addFieldRules(copy.getProperty(RECOMMENDED_FIELDS), false, metadataRules, fieldRules);
+    LOGGER.debug("Compiled {} metadata rule(s), mimetypes of {} file group(s) and {} additional label(s).", metadataRules.size(), allowedMimetypes.size(), additionalFeatures.size());
+    return new RuleProfile(copy, metadataRules, fieldRules, allowedMimetypes, additionalFeatures);
+  }
+
+  /**
+   * Get compiled rules for descriptive metadata.
+   *
+   * @return Unmodifiable list of rules.
+   */
+  public List<MetadataRule> getMetadataRules() {
+    return metadataRules;
+  }
+
+  /**
+   * Get compiled rule for one field of descriptive metadata.
+   *
+   * @param field Name of field (e.g. 'language').
+   * @return Rule or null if field is neither mandatory nor recommended.
+   */
+  public MetadataRule getFieldRule(final String field) {
+    return fieldRules.get(field);
+  }
+
+  /**
+   * Is mimetype allowed in file group?
+   *
+   * @param use USE of file group.
+   * @param mimetype Mimetype of file.
+   * @return true if there are no restrictions for the file group or the
+   * mimetype is listed.
+   */
+  public boolean isMimetypeAllowed(final String use, final String mimetype) {
+    Set<String> mimetypes = allowedMimetypes.get(use);
+    return mimetypes == null || mimetypes.contains(mimetype);
+  }
+
+  /**
+   * Is ground truth label valid?
+   *
+   * @param feature Label.
+   * @return true if label is predefined or declared as additional label.
+   */
+  public boolean isFeatureAllowed(final String feature) {
+    return GroundTruthProperties.get(feature) != null || additionalFeatures.contains(feature);
+  }
+
+  /**
+   * Get declared rules.
+   *
+   * @return Copy of declared rules.
+   */
+  public Properties toProperties() {
+    Properties copy = new Properties();
+    copy.putAll(properties);
+    return copy;
+  }
+
+  /**
+   * Properties of default rules.
+   *
+   * @return Properties.
+   */
+  private static Properties defaultProperties() {
+    Properties properties = new Properties();
+    properties.setProperty(RECOMMENDED_FIELDS, "language, classification, genre");
+    return properties;
+  }
+
+  /**
+   * Add rules for all listed fields.
+   *
+   * @param fieldList Comma separated list of fields (may be null).
+   * @param mandatory Report missing field as error.
+   * @param rules Compiled rules.
+   * @param rulesByField Compiled rules by field (first rule of a field wins).
+   */
+  private static void addFieldRules(final String fieldList, final boolean mandatory, final List<MetadataRule> rules, final Map<String, MetadataRule> rulesByField) {
+    if (fieldList == null) {
+      return;
+    }
+    for (String field : split(fieldList)) {
+      Function<MetsMetadata, List<String>> accessor = FIELDS.get(field);
+      if (accessor == null) {
+        throw new WorkspaceException(INVALID_RULE + field);
+      }
+      String message = Character.toUpperCase(field.charAt(0)) + field.substring(1) + MISSING_FIELD_SUFFIX;
+      MetadataRule rule = new RequiredFieldRule(accessor, message, mandatory);
+      rules.add(rule);
+      rulesByField.putIfAbsent(field, rule);
+    }
+  }
+
+  /**
+   * Split comma separated list. Empty entries are ignored.
+   *
+   * @param list Comma separated list.
+   * @return Trimmed entries.
+   */
+  private static List<String> split(final String list) {
+    List<String> entries = new ArrayList<>();
+    for (String entry : list.split(",")) {
+      if (!entry.trim().isEmpty()) {
+        entries.add(entry.trim());
+      }
+    }
+    return entries;
+  }
+
+  /**
+   * Wrap single valued field.
+   *
+   * @param value Value (may be null).
+   * @return List with value or empty list.
+   */
+  private static List<String> toList(final String value) {
+    return value == null ? Collections.<String>emptyList() : Collections.singletonList(value);
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    return obj instanceof RuleProfile && properties.equals(((RuleProfile) obj).properties);
+  }
+
+  @Override
+  public int hashCode() {
+    return properties.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return "RuleProfile" + properties;
+  }
+}
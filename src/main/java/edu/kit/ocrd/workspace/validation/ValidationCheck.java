@@ -0,0 +1,155 @@
+/*
+ * Copyright 2019 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.validation;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Enumeration of all checks which may be selected for validating a workspace.
+ */
+public enum ValidationCheck {
+  /**
+   * Validate METS against mets.xsd.
+   */
+  SCHEMA("schema", false, false),
+  /**
+   * At least one unique identifier has to be present.
+   */
+  IDENTIFIER("identifier", true, false),
+  /**
+   * Exactly one physical map has to be present.
+   */
+  PHYSICAL_MAP("physicalMap", true, false),
+  /**
+   * IDs have to be unique, ORDER of pages unique and contiguous and all
+   * references (FILEID, DMDID, ADMID, smLink) have to be resolvable.
+   */
+  STRUCT_MAP("structMap", false, false),
+  /**
+   * Semantic labels of ground truth have to be valid.
+   */
+  FEATURES("features", true, false),
+  /**
+   * USE of file groups and IDs of files should match the naming conventions.
+   * (warnings only)
+   */
+  NAMING("naming", true, false),
+  /**
+   * All referenced (local) files have to exist.
+   */
+  FILE_EXISTENCE("fileExistence", true, true),
+  /**
+   * Mimetype of all referenced (local) files has to match.
+   */
+  MIME_TYPE("mimeType", true, true),
+  /**
+   * Checksum of all referenced (local) files has to match CHECKSUM (if
+   * defined).
+   */
+  CHECKSUM("checksum", true, true),
+  /**
+   * All PAGE files have to be valid against page.xsd.
+   */
+  PAGE_SCHEMA("pageSchema", true, true),
+  /**
+   * Image referenced by PAGE files has to be referenced by METS.
+   */
+  IMAGE_URL("imageUrl", true, true),
+  /**
+   * Coords of all PAGE files have to be valid polygons inside the image.
+   */
+  COORDS("coords", true, true),
+  /**
+   * Check descriptive metadata (language, genre, classification...).
+   */
+  METADATA("metadata", true, false),
+  /**
+   * Checksums listed in the payload manifests of a BagIt bag (OCRD-ZIP) have
+   * to match. (Ignored for plain workspaces)
+   */
+  BAG_CHECKSUM("bagChecksum", false, false);
+
+  /**
+   * Name of the check.
+   */
+  private final String name;
+  /**
+   * Check needs parsed METS document.
+   */
+  private final boolean documentNeeded;
+  /**
+   * Check needs access to files referenced by METS.
+   */
+  private final boolean fileAccessNeeded;
+  /**
+   * Map for fast lookup of checks by name.
+   */
+  private static final Map<String, ValidationCheck> lookup = new HashMap<>();
+
+  static {
+    for (ValidationCheck check : ValidationCheck.values()) {
+      lookup.put(check.toString().toLowerCase(), check);
+      lookup.put(check.name().toLowerCase(), check);
+    }
+  }
+
+  /**
+   * Constructor.
+   *
+   * @param name Name of the check.
+   * @param documentNeeded Check needs parsed METS document.
+   * @param fileAccessNeeded Check needs access to referenced files.
+   */
+  ValidationCheck(final String name, final boolean documentNeeded, final boolean fileAccessNeeded) {
+    this.name = name;
+    this.documentNeeded = documentNeeded;
+    this.fileAccessNeeded = fileAccessNeeded;
+  }
+
+  /**
+   * Does the check need the parsed METS document?
+   *
+   * @return true if METS document has to be parsed.
+   */
+  public boolean isDocumentNeeded() {
+    return documentNeeded;
+  }
+
+  /**
+   * Does the check need access to the files referenced by METS?
+   *
+   * @return true if files have to be accessed.
+   */
+  public boolean isFileAccessNeeded() {
+    return fileAccessNeeded;
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+
+  /**
+   * Get check by its name or the name of the constant (case insensitive).
+   *
+   * @param name Name of the check.
+   * @return Check or null if there is no check with the given name.
+   */
+  public static ValidationCheck get(final String name) {
+    return lookup.get(name.toLowerCase());
+  }
+}
@@ -0,0 +1,285 @@
+/*
+ * Copyright 2019 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.validation;
+
+import edu.kit.ocrd.workspace.exception.WorkspaceException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Immutable selection of checks used for validating a workspace. Only the
+ * parsing and I/O needed by the selected checks is done.
+ *
+ * Predefined profiles:
+ * - QUICK: Structural checks on METS document only (no schema, no file access)
+ * - STANDARD: Checks done by MetsUtil.validateCompleteMets so far.
+ * - FULL: All checks.
+ *
+ * Profiles may be combined, e.g.
+ * ValidationProfile.QUICK.with(ValidationCheck.SCHEMA) or
+ * ValidationProfile.parse("full,-imageUrl").
+ *
+ * Institution specific rules (mandatory MODS fields, allowed mimetypes, ...)
+ * are attached via withRules. Otherwise RuleProfile.DEFAULT is used.
+ */
+public final class ValidationProfile {
+
+  /**
+   * Error messages: Unknown check or profile.
+   */
+  public static final String UNKNOWN_CHECK = "Unknown check or profile: ";
+  /**
+   * Structural checks only.
+   */
+  public static final ValidationProfile QUICK = of(ValidationCheck.IDENTIFIER,
+          ValidationCheck.PHYSICAL_MAP,
+          ValidationCheck.FEATURES);
+  /**
+   * Default checks.
+   */
+  public static final ValidationProfile STANDARD = QUICK.with(ValidationCheck.SCHEMA,
+          ValidationCheck.FILE_EXISTENCE,
+          ValidationCheck.MIME_TYPE);
+  /**
+   * All available checks.
+   */
+  public static final ValidationProfile FULL = of(ValidationCheck.values());
+  /**
+   * Selected checks.
+   */
+  private final Set<ValidationCheck> checks;
+  /**
+   * Rules used by the selected checks.
+   */
+  private final RuleProfile rules;
+
+  /**
+   * Constructor.
+   *
+   * @param checks Selected checks.
+   * @param rules Rules used by the selected checks.
+   */
+  private ValidationProfile(final EnumSet<ValidationCheck> checks, final RuleProfile rules) {
+    this.checks = Collections.unmodifiableSet(checks);
+    this.rules = rules;
+  }
+
+  /**
+   * Create profile containing the given checks.
+   *
+   * @param checks Selected checks.
+   * @return Profile
+   */
+  public static ValidationProfile of(final ValidationCheck... checks) {
+    EnumSet<ValidationCheck> set = EnumSet.noneOf(ValidationCheck.class);
+    set.addAll(Arrays.asList(checks));
+    return new ValidationProfile(set, RuleProfile.DEFAULT);
+  }
+
+  /**
+   * Create profile from a comma separated list of profiles and/or checks.
+   * Entries starting with '-' are removed from the profile. Names are case
+   * insensitive. E.g.: 'quick,schema' or 'full,-imageUrl'
+   *
+   * @param profile List of profiles and checks.
+   * @return Profile
+   */
+  public static ValidationProfile parse(final String profile) {
+    ValidationProfile result = of();
+    for (String entry : profile.split(",")) {
+      entry = entry.trim();
+      if (entry.isEmpty()) {
+        continue;
+      }
+      boolean remove = entry.startsWith("-");
+      if (remove) {
+        entry = entry.substring(1).trim();
+      }
+      ValidationProfile selected;
+      if (entry.equalsIgnoreCase("quick")) {
+        selected = QUICK;
+      } else if (entry.equalsIgnoreCase("standard")) {
+        selected = STANDARD;
+      } else if (entry.equalsIgnoreCase("full")) {
+        selected = FULL;
+      } else {
+        ValidationCheck check = ValidationCheck.get(entry);
+        if (check == null) {
+          throw new WorkspaceException(UNKNOWN_CHECK + entry);
+        }
+        selected = of(check);
+      }
+      result = remove ? result.without(selected) : result.union(selected);
+    }
+    return result;
+  }
+
+  /**
+   * Create a new profile containing also the given checks.
+   *
+   * @param additionalChecks Additional checks.
+   * @return New profile.
+   */
+  public ValidationProfile with(final ValidationCheck... additionalChecks) {
+    return union(of(additionalChecks));
+  }
+
+  /**
+   * Create a new profile without the given checks.
+   *
+   * @param removedChecks Checks which should be removed.
+   * @return New profile.
+   */
+  public ValidationProfile without(final ValidationCheck... removedChecks) {
+    return without(of(removedChecks));
+  }
+
+  /**
+   * Create a new profile containing the checks of both profiles.
+   *
+   * @param profile Other profile.
+   * @return New profile.
+   */
+  public ValidationProfile union(final ValidationProfile profile) {
+    EnumSet<ValidationCheck> set = copyOfChecks();
+    set.addAll(profile.checks);
+    return new ValidationProfile(set, rules);
+  }
+
+  /**
+   * Create a new profile without the checks of the given profile.
+   *
+   * @param profile Other profile.
+   * @return New profile.
+   */
+  public ValidationProfile without(final ValidationProfile profile) {
+    EnumSet<ValidationCheck> set = copyOfChecks();
+    set.removeAll(profile.checks);
+    return new ValidationProfile(set, rules);
+  }
+
+  /**
+   * Create a new profile with the same checks using the given rules.
+   *
+   * @param ruleProfile Rules used by the selected checks.
+   * @return New profile.
+   */
+  public ValidationProfile withRules(final RuleProfile ruleProfile) {
+    if (ruleProfile == null) {
+      throw new IllegalArgumentException("Rule profile must not be null!");
+    }
+    return new ValidationProfile(copyOfChecks(), ruleProfile);
+  }
+
+  /**
+   * Is check selected?
+   *
+   * @param check Check.
+   * @return true if check is part of profile.
+   */
+  public boolean contains(final ValidationCheck check) {
+    return checks.contains(check);
+  }
+
+  /**
+   * Is at least one of the checks selected?
+   *
+   * @param anyOfChecks Checks.
+   * @return true if at least one of the checks is part of profile.
+   */
+  public boolean containsAny(final ValidationCheck... anyOfChecks) {
+    for (ValidationCheck check : anyOfChecks) {
+      if (checks.contains(check)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Does any selected check need the parsed METS document?
+   *
+   * @return true if METS document has to be parsed.
+   */
+  public boolean isDocumentNeeded() {
+    for (ValidationCheck check : checks) {
+      if (check.isDocumentNeeded()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Does any selected check need access to the files referenced by METS?
+   *
+   * @return true if files have to be accessed.
+   */
+  public boolean isFileAccessNeeded() {
+    for (ValidationCheck check : checks) {
+      if (check.isFileAccessNeeded()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Get all selected checks.
+   *
+   * @return Unmodifiable set of checks.
+   */
+  public Set<ValidationCheck> getChecks() {
+    return checks;
+  }
+
+  /**
+   * Get rules used by the selected checks.
+   *
+   * @return Rules
+   */
+  public RuleProfile getRules() {
+    return rules;
+  }
+
+  /**
+   * Copy selected checks.
+   *
+   * @return Modifiable copy.
+   */
+  private EnumSet<ValidationCheck> copyOfChecks() {
+    EnumSet<ValidationCheck> set = EnumSet.noneOf(ValidationCheck.class);
+    set.addAll(checks);
+    return set;
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    return obj instanceof ValidationProfile && checks.equals(((ValidationProfile) obj).checks) && rules.equals(((ValidationProfile) obj).rules);
+  }
+
+  @Override
+  public int hashCode() {
+    return checks.hashCode() * 31 + rules.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return checks.toString();
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright 2019 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.validation;
+
+import edu.kit.ocrd.workspace.exception.WorkspaceException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Findings (errors and warnings) of a validation in the order they were
+ * reported. Not thread safe, each check reports into its own instance and the
+ * instances are merged afterwards.
+ */
+public class ValidationResult {
+
+  /**
+   * Errors found.
+   */
+  private final List<String> errors = new ArrayList<>();
+  /**
+   * Warnings found.
+   */
+  private final List<String> warnings = new ArrayList<>();
+
+  /**
+   * Add error.
+   *
+   * @param message Error message.
+   */
+  public void addError(final String message) {
+    errors.add(message);
+  }
+
+  /**
+   * Add warning.
+   *
+   * @param message Warning message.
+   */
+  public void addWarning(final String message) {
+    warnings.add(message);
+  }
+
+  /**
+   * Append all findings of other result.
+   *
+   * @param result Other result.
+   */
+  public void merge(final ValidationResult result) {
+    errors.addAll(result.errors);
+    warnings.addAll(result.warnings);
+  }
+
+  /**
+   * Is result free of errors?
+   *
+   * @return true if no error was found.
+   */
+  public boolean isValid() {
+    return errors.isEmpty();
+  }
+
+  /**
+   * Get all errors.
+   *
+   * @return Unmodifiable list of errors.
+   */
+  public List<String> getErrors() {
+    return Collections.unmodifiableList(errors);
+  }
+
+  /**
+   * Get all warnings.
+   *
+   * @return Unmodifiable list of warnings.
+   */
+  public List<String> getWarnings() {
+    return Collections.unmodifiableList(warnings);
+  }
+
+  /**
+   * Throw exception containing all errors if result is not valid.
+   *
+   * @return true or Exception if not valid.
+   */
+  public boolean assertValid() {
+    if (!isValid()) {
+      StringBuilder message = new StringBuilder();
+      String newLine = System.getProperties().getProperty("line.separator");
+      for (String error : errors) {
+        if (message.length() > 0 && message.charAt(message.length() - 1) != '\n') {
+          message.append(newLine);
+        }
+        message.append(error);
+      }
+      throw new WorkspaceException(message.toString());
+    }
+    return true;
+  }
+
+  @Override
+  public String toString() {
+    return "ValidationResult{errors=" + errors + ", warnings=" + warnings + "}";
+  }
+}
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2019 Karlsruhe Institute of Technology.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.kit.ocrd.workspace.validation;
+
+import edu.kit.ocrd.workspace.exception.WorkspaceException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable selection of the pages and file groups of a workspace which
+ * should be validated. Pages may be selected by ID or by ranges of IDs (in
+ * ORDER of the pages), file groups may be included and/or excluded by USE.
+ * Without any selection the whole workspace is validated.
+ *
+ * E.g.
+ * ValidationScope.parsePageIds("PHYS_0100..PHYS_0200,PHYS_0300") or
+ * ValidationScope.ALL.includeFileGrps("OCR-D-IMG", "OCR-D-GT-SEG-PAGE")
+ */
+public final class ValidationScope {
+
+  /**
+   * Error messages: Invalid page range.
+   */
+  public static final String INVALID_PAGE_RANGE = "Invalid page range: ";
+  /**
+   * Separator of first and last page of a range.
+   */
+  public static final String RANGE_SEPARATOR = "..";
+  /**
+   * Whole workspace.
+   */
+  public static final ValidationScope ALL = new ValidationScope(Collections.<String>emptySet(), Collections.<String[]>emptyList(), null, Collections.<String>emptySet());
+  /**
+   * Selected IDs of pages.
+   */
+  private final Set<String> pageIds;
+  /**
+   * Selected ranges of pages. (ID of first and last page, both inclusive)
+   */
+  private final List<String[]> pageRanges;
+  /**
+   * USE of included file groups. (null for all file groups)
+   */
+  private final Set<String> includedFileGrps;
+  /**
+   * USE of excluded file groups.
+   */
+  private final Set<String> excludedFileGrps;
+
+  /**
+   * Constructor.
+   *
+   * @param pageIds Selected IDs of pages.
+   * @param pageRanges Selected ranges of pages.
+   * @param includedFileGrps USE of included file groups (null for all).
+   * @param excludedFileGrps USE of excluded file groups.
+   */
+  private ValidationScope(final Set<String> pageIds, final List<String[]> pageRanges, final Set<String> includedFileGrps, final Set<String> excludedFileGrps) {
+    this.pageIds = Collections.unmodifiableSet(pageIds);
+    this.pageRanges = Collections.unmodifiableList(pageRanges);
+    this.includedFileGrps = includedFileGrps != null ? Collections.unmodifiableSet(includedFileGrps) : null;
+    this.excludedFileGrps = Collections.unmodifiableSet(excludedFileGrps);
+  }
+
+  /**
+   * Create scope from a comma separated list of page IDs and/or ranges of
+   * page IDs. E.g.: 'PHYS_0001..PHYS_0010,PHYS_0042'
+   *
+   * @param pageIds List of page IDs and ranges.
+   * @return Scope
+   */
+  public static ValidationScope parsePageIds(final String pageIds) {
+    ValidationScope result = ALL;
+    for (String entry : pageIds.split(",")) {
+      entry = entry.trim();
+      if (entry.isEmpty()) {
+        continue;
+      }
+      int separator = entry.indexOf(RANGE_SEPARATOR);
+      if (separator < 0) {
+        result = result.withPages(entry);
+      } else {
+        String firstPageId = entry.substring(0, separator).trim();
+        String lastPageId = entry.substring(separator + RANGE_SEPARATOR.length()).trim();
+        if (firstPageId.isEmpty() || lastPageId.isEmpty() || lastPageId.contains(RANGE_SEPARATOR)) {
+          throw new WorkspaceException(INVALID_PAGE_RANGE + entry);
+        }
+        result = result.withPageRange(firstPageId, lastPageId);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Create a new scope containing also the given pages.
+   *
+   * @param additionalPageIds IDs of pages.
+   * @return New scope.
+   */
+  public ValidationScope withPages(final String... additionalPageIds) {
+    Set<String> set = new LinkedHashSet<>(pageIds);
+    set.addAll(Arrays.asList(additionalPageIds));
+    return new ValidationScope(set, pageRanges, includedFileGrps, excludedFileGrps);
+  }
+
+  /**
+   * Create a new scope containing also the given range of pages.
+   *
+   * @param firstPageId ID of first page (inclusive).
+   * @param lastPageId ID of last page (inclusive).
+   * @return New scope.
+   */
+  public ValidationScope withPageRange(final String firstPageId, final String lastPageId) {
+    List<String[]> list = new ArrayList<>(pageRanges);
+    list.add(new String[]{firstPageId, lastPageId});
+    return new ValidationScope(pageIds, list, includedFileGrps, excludedFileGrps);
+  }
+
+  /**
+   * Create a new scope containing only files of the given file groups (and
+   * the file groups included before).
+   *
+   * @param uses USE of file groups.
+   * @return New scope.
+   */
+  public ValidationScope includeFileGrps(final String... uses) {
+    Set<String> set = includedFileGrps != null ? new LinkedHashSet<>(includedFileGrps) : new LinkedHashSet<String>();
+    set.addAll(Arrays.asList(uses));
+    return new ValidationScope(pageIds, pageRanges, set, excludedFileGrps);
+  }
+
+  /**
+   * Create a new scope without the files of the given file groups.
+   *
+   * @param uses USE of file groups.
+   * @return New scope.
+   */
+  public ValidationScope excludeFileGrps(final String... uses) {
+    Set<String> set = new LinkedHashSet<>(excludedFileGrps);
+    set.addAll(Arrays.asList(uses));
+    return new ValidationScope(pageIds, pageRanges, includedFileGrps, set);
+  }
+
+  /**
+   * Are all pages selected?
+   *
+   * @return true if neither pages nor ranges of pages are selected.
+   */
+  public boolean isAllPages() {
+    return pageIds.isEmpty() && pageRanges.isEmpty();
+  }
+
+  /**
+   * Are all file groups selected?
+   *
+   * @return true if file groups are neither included nor excluded.
+   */
+  public boolean isAllFileGrps() {
+    return includedFileGrps == null && excludedFileGrps.isEmpty();
+  }
+
+  /**
+   * Is file group selected?
+   *
+   * @param use USE of file group.
+   * @return true if files of file group should be validated.
+   */
+  public boolean containsFileGrp(final String use) {
+    return (includedFileGrps == null || includedFileGrps.contains(use)) && !excludedFileGrps.contains(use);
+  }
+
+  /**
+   * Get selected IDs of pages.
+   *
+   * @return Unmodifiable set of page IDs.
+   */
+  public Set<String> getPageIds() {
+    return pageIds;
+  }
+
+  /**
+   * Get selected ranges of pages.
+   *
+   * @return Ranges (ID of first and last page).
+   */
+  public List<String[]> getPageRanges() {
+    List<String[]> copy = new ArrayList<>();
+    for (String[] range : pageRanges) {
+      copy.add(range.clone());
+    }
+    return Collections.unmodifiableList(copy);
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder pages = new StringBuilder();
+    for (String[] range : pageRanges) {
+      pages.append(pages.length() > 0 ? "," : "").append(range[0]).append(RANGE_SEPARATOR).append(range[1]);
+    }
+    for (String pageId : pageIds) {
+      pages.append(pages.length() > 0 ? "," : "").append(pageId);
+    }
+    return "ValidationScope{" + "pages=" + pages + ", includedFileGrps=" + includedFileGrps + ", excludedFileGrps=" + excludedFileGrps + '}';
+  }
+}
@@ -0,0 +1,116 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.kit.ocrd.workspace;
+
+import edu.kit.ocrd.workspace.validation.CheckScheduler;
+import edu.kit.ocrd.workspace.validation.ValidationResult;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author hartmann-v
+ */
+public class BagItUtilTest {
+
+  private Path zipFile;
+
+  public BagItUtilTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    zipFile = Files.createTempFile("bag", ".zip");
+    Files.delete(zipFile);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    Files.deleteIfExists(zipFile);
+  }
+
+  private FileSystem createZipFileSystem() throws Exception {
+    return FileSystems.newFileSystem(URI.create("jar:" + zipFile.toUri()), Collections.singletonMap("create", "true"));
+  }
+
+  private static void write(Path file, String content) throws Exception {
+    if (file.getParent() != null) {
+      Files.createDirectories(file.getParent());
+    }
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Test of isBag and getMetsFile methods, of class BagItUtil.
+   */
+  @Test
+  public void testGetMetsFile() throws Exception {
+    System.out.println("testGetMetsFile");
+    try (FileSystem zipFileSystem = createZipFileSystem()) {
+      Path root = zipFileSystem.getPath("/");
+      assertFalse(BagItUtil.isBag(root));
+      write(root.resolve("bagit.txt"), "BagIt-Version: 1.0\nTag-File-Character-Encoding: UTF-8\n");
+      assertTrue(BagItUtil.isBag(root));
+      assertEquals(zipFileSystem.getPath("/data/mets.xml"), BagItUtil.getMetsFile(root));
+      write(root.resolve("bag-info.txt"), "Bagging-Date: 2019-10-18\nOcrd-Mets: workspace/my_mets.xml\n");
+      assertEquals(zipFileSystem.getPath("/data/workspace/my_mets.xml"), BagItUtil.getMetsFile(root));
+    }
+  }
+
+  /**
+   * Test of validateManifests method, of class BagItUtil.
+   */
+  @Test
+  public void testValidateManifests() throws Exception {
+    System.out.println("testValidateManifests");
+    try (FileSystem zipFileSystem = createZipFileSystem()) {
+      Path root = zipFileSystem.getPath("/");
+      write(root.resolve("bagit.txt"), "BagIt-Version: 1.0\nTag-File-Character-Encoding: UTF-8\n");
+      ValidationResult result = BagItUtil.validateManifests(root, CheckScheduler.getDefaultExecutor()).join();
+      assertFalse(result.isValid());
+      assertTrue(result.getErrors().get(0).startsWith(BagItUtil.NO_MANIFEST));
+
+      write(root.resolve("data/mets.xml"), "abc");
+      write(root.resolve("data/OCR-D-IMG/image 1.txt"), "");
+      write(root.resolve("manifest-md5.txt"), "900150983cd24fb0d6963f7d28e17f72  data/mets.xml\n"
+              + "d41d8cd98f00b204e9800998ecf8427e  data/OCR-D-IMG/image 1.txt\n");
+      write(root.resolve("manifest-sha256.txt"), "BA7816BF8F01CFEA414140DE5DAE2223B00361A396177A9CB410FF61F20015AD data/mets.xml\n");
+      result = BagItUtil.validateManifests(root, CheckScheduler.getDefaultExecutor()).join();
+      assertTrue(result.getErrors().toString(), result.isValid());
+
+      write(root.resolve("manifest-sha1.txt"), "a9993e364706816aba3e25717850c26c9cd0d89d data/missing.xml\n"
+              + "0000000000000000000000000000000000000000 data/mets.xml\n"
+              + "a9993e364706816aba3e25717850c26c9cd0d89d ../outside.xml\n");
+      write(root.resolve("manifest-crc32.txt"), "00000000 data/mets.xml\n");
+      result = BagItUtil.validateManifests(root, CheckScheduler.getDefaultExecutor()).join();
+      assertFalse(result.isValid());
+      assertEquals(4, result.getErrors().size());
+      assertTrue(result.getErrors().contains(BagItUtil.FILE_NOT_IN_BAG + "data/missing.xml"));
+      assertTrue(result.getErrors().contains(BagItUtil.CHECKSUM_MISMATCH + "data/mets.xml"));
+      assertTrue(result.getErrors().contains(BagItUtil.INVALID_MANIFEST_ENTRY + "a9993e364706816aba3e25717850c26c9cd0d89d ../outside.xml"));
+      assertTrue(result.getErrors().contains(ChecksumUtil.UNSUPPORTED_ALGORITHM + "crc32 (manifest-crc32.txt)"));
+    }
+  }
+}
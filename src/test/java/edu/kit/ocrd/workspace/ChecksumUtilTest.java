@@ -0,0 +1,76 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.kit.ocrd.workspace;
+
+import edu.kit.ocrd.workspace.exception.WorkspaceException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author hartmann-v
+ */
+public class ChecksumUtilTest {
+
+  public ChecksumUtilTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() {
+  }
+
+  @After
+  public void tearDown() {
+  }
+
+  /**
+   * Test of getChecksum method, of class ChecksumUtil.
+   */
+  @Test
+  public void testGetChecksum() throws Exception {
+    System.out.println("testGetChecksum");
+    Path file = Files.createTempFile("checksum", ".txt");
+    try {
+      Files.write(file, "abc".getBytes(StandardCharsets.UTF_8));
+      assertEquals("900150983cd24fb0d6963f7d28e17f72", ChecksumUtil.getChecksum(file, "MD5"));
+      assertEquals("a9993e364706816aba3e25717850c26c9cd0d89d", ChecksumUtil.getChecksum(file, "SHA-1"));
+      assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", ChecksumUtil.getChecksum(file, "sha256"));
+      assertEquals(128, ChecksumUtil.getChecksum(file, "SHA-512").length());
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  /**
+   * Test of getMessageDigest method, of class ChecksumUtil.
+   */
+  @Test
+  public void testGetMessageDigestUnsupported() {
+    System.out.println("testGetMessageDigestUnsupported");
+    assertNull(ChecksumUtil.getAlgorithmName("crc32"));
+    try {
+      ChecksumUtil.getMessageDigest("crc32");
+      assertTrue(Boolean.FALSE);
+    } catch (WorkspaceException wse) {
+      assertTrue(wse.getMessage().startsWith(ChecksumUtil.UNSUPPORTED_ALGORITHM));
+    }
+  }
+}
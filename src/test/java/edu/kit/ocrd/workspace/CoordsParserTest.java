@@ -0,0 +1,117 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.kit.ocrd.workspace;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author hartmann-v
+ */
+public class CoordsParserTest {
+
+  public CoordsParserTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() {
+  }
+
+  @After
+  public void tearDown() {
+  }
+
+  /**
+   * Test of parse method, of class CoordsParser.
+   */
+  @Test
+  public void testParse() {
+    System.out.println("testParse");
+    CoordsParser parser = new CoordsParser();
+    assertEquals(4, parser.parse("1968,3224 1968,12 44,12 44,3224"));
+    assertEquals(4, parser.getNumberOfPoints());
+    assertEquals(1968, parser.getX(0));
+    assertEquals(3224, parser.getY(0));
+    assertEquals(44, parser.getX(3));
+    assertEquals(12, parser.getY(2));
+    assertEquals(2, parser.parse("  0,0\t10,20\n "));
+    assertEquals(0, parser.parse(""));
+    assertEquals(0, parser.parse("   "));
+  }
+
+  /**
+   * Test of parse method with many points, of class CoordsParser.
+   */
+  @Test
+  public void testParseManyPoints() {
+    System.out.println("testParseManyPoints");
+    StringBuilder points = new StringBuilder();
+    for (int point = 0; point < 1000; point++) {
+      points.append(point).append(',').append(point * 2).append(' ');
+    }
+    CoordsParser parser = new CoordsParser();
+    assertEquals(1000, parser.parse(points));
+    assertEquals(999, parser.getX(999));
+    assertEquals(1998, parser.getY(999));
+  }
+
+  /**
+   * Test of parse method with invalid points, of class CoordsParser.
+   */
+  @Test
+  public void testParseInvalid() {
+    System.out.println("testParseInvalid");
+    CoordsParser parser = new CoordsParser();
+    String[] invalidPoints = {"1,2 3", "1,2 3,", "1,2 ,3", "1;2 3,4", "1,2,3 4,5", "-1,2 3,4", "1.5,2 3,4", "1,2 3,4a", "99999999999,1 2,3"};
+    for (String points : invalidPoints) {
+      assertEquals(points, CoordsParser.INVALID, parser.parse(points));
+      assertEquals(0, parser.getNumberOfPoints());
+    }
+  }
+
+  /**
+   * Test of isInside method, of class CoordsParser.
+   */
+  @Test
+  public void testIsInside() {
+    System.out.println("testIsInside");
+    CoordsParser parser = new CoordsParser();
+    parser.parse("0,0 100,0 100,50 0,50");
+    assertTrue(parser.isInside(100, 50));
+    assertFalse(parser.isInside(99, 50));
+    assertFalse(parser.isInside(100, 49));
+  }
+
+  /**
+   * Test of getDoubleArea method, of class CoordsParser.
+   */
+  @Test
+  public void testGetDoubleArea() {
+    System.out.println("testGetDoubleArea");
+    CoordsParser parser = new CoordsParser();
+    parser.parse("0,0 100,0 100,50 0,50");
+    assertEquals(10000, parser.getDoubleArea());
+    parser.parse("0,50 100,50 100,0 0,0");
+    assertEquals(10000, parser.getDoubleArea());
+    parser.parse("0,0 10,10 20,20");
+    assertEquals(0, parser.getDoubleArea());
+    parser.parse("5,5 5,5 5,5");
+    assertEquals(0, parser.getDoubleArea());
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.kit.ocrd.workspace;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author hartmann-v
+ */
+public class FileScanUtilTest {
+
+  public FileScanUtilTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() {
+  }
+
+  @After
+  public void tearDown() {
+  }
+
+  /**
+   * Test of scan method, of class FileScanUtil.
+   */
+  @Test
+  public void testScan() throws Exception {
+    System.out.println("testScan");
+    Path file = Files.createTempFile("scan", ".bin");
+    try {
+      // Larger than buffer to test multiple reads.
+      byte[] content = new byte[FileScanUtil.BUFFER_SIZE * 2 + 17];
+      new Random(42).nextBytes(content);
+      Files.write(file, content);
+      String expected = ChecksumUtil.getChecksum(file, "SHA-256");
+      FileScanUtil.FileScan scan = FileScanUtil.scan(file, null, "SHA-256");
+      assertEquals(expected, scan.getChecksum());
+      assertNull(scan.getMimetype());
+      scan = FileScanUtil.scanAsync(file, null, "MD5").join();
+      assertEquals(ChecksumUtil.getChecksum(file, "MD5"), scan.getChecksum());
+      scan = FileScanUtil.scan(file, null, null);
+      assertNull(scan.getChecksum());
+    } finally {
+      Files.delete(file);
+    }
+  }
+
+  /**
+   * Test of scanAsync method with missing file, of class FileScanUtil.
+   */
+  @Test
+  public void testScanAsyncMissingFile() throws Exception {
+    System.out.println("testScanAsyncMissingFile");
+    Path file = Files.createTempFile("scan", ".bin");
+    Files.delete(file);
+    try {
+      FileScanUtil.scanAsync(file, null, "MD5").join();
+      assertTrue(Boolean.FALSE);
+    } catch (java.util.concurrent.CompletionException ce) {
+      assertTrue(ce.getCause() instanceof java.io.IOException);
+    }
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.kit.ocrd.workspace;
+
+import edu.kit.ocrd.workspace.entity.MetsMetadata;
+import edu.kit.ocrd.workspace.validation.RuleProfile;
+import edu.kit.ocrd.workspace.validation.ValidationResult;
+import java.io.File;
+import java.util.Arrays;
+import org.fzk.tools.xml.JaxenUtil;
+import org.jdom.Document;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author hartmann-v
+ */
+public class MetadataUtilTest {
+
+  public MetadataUtilTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() {
+  }
+
+  @After
+  public void tearDown() {
+  }
+
+  /**
+   * Test of extractMetadata method, of class MetadataUtil.
+   */
+  @Test
+  public void testExtractMetadata() throws Exception {
+    System.out.println("testExtractMetadata");
+    Document metsDocument = JaxenUtil.getDocument(new File("src/test/resources/workspace/valid_mets.xml"));
+    MetsMetadata metadata = MetadataUtil.extractMetadata(metsDocument);
+    assertEquals("Grundriss der Psychologie", metadata.getTitle());
+    assertNull(metadata.getSubTitle());
+    assertEquals("1896", metadata.getYear());
+    assertEquals("Engelmann", metadata.getPublisher());
+    assertEquals("XVI, 392 S.", metadata.getPhysicalDescription());
+    assertEquals(Arrays.asList("Wilhelm Wundt"), metadata.getAuthors());
+    assertEquals(Arrays.asList("deu"), metadata.getLanguages());
+    assertEquals(Arrays.asList("Fachtext", "Medizin"), metadata.getClassifications());
+    assertEquals(Arrays.asList("Gedichte"), metadata.getGenres());
+    assertEquals(4, metadata.getNumberOfImages());
+    assertTrue(metadata.getLicense().startsWith("Koordinierte"));
+  }
+
+  /**
+   * Test of validateMetadata method, of class MetadataUtil.
+   */
+  @Test
+  public void testValidateMetadata() throws Exception {
+    System.out.println("testValidateMetadata");
+    Document metsDocument = JaxenUtil.getDocument(new File("src/test/resources/workspace/valid_mets.xml"));
+    ValidationResult result = MetadataUtil.validateMetadata(metsDocument, RuleProfile.DEFAULT.getMetadataRules());
+    assertTrue(result.isValid());
+    assertTrue(result.getWarnings().isEmpty());
+    metsDocument = JaxenUtil.getDocument(new File("src/test/resources/workspace/without_genre_mets.xml"));
+    result = MetadataUtil.validateMetadata(metsDocument, RuleProfile.DEFAULT.getMetadataRules());
+    assertTrue(result.isValid());
+    assertEquals(1, result.getWarnings().size());
+    assertEquals(MetsUtil.MISSING_GENRE, result.getWarnings().get(0));
+  }
+}
@@ -0,0 +1,171 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.kit.ocrd.workspace;
+
+import edu.kit.ocrd.workspace.exception.WorkspaceException;
+import edu.kit.ocrd.workspace.index.MetsIndex;
+import edu.kit.ocrd.workspace.index.XmlIndex;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author hartmann-v
+ */
+public class MetsUpdateCoordinatorTest {
+
+  /**
+   * Temporary directory.
+   */
+  private Path directory;
+  /**
+   * METS file.
+   */
+  private Path metsFile;
+
+  public MetsUpdateCoordinatorTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    directory = Files.createTempDirectory("coordinator");
+    metsFile = directory.resolve("mets.xml");
+    Files.copy(new File("src/test/resources/workspace/valid_mets.xml").toPath(), metsFile);
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    try (Stream<Path> paths = Files.walk(directory)) {
+      paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+    }
+  }
+
+  /**
+   * Test of addFile method with batching, of class MetsUpdateCoordinator.
+   */
+  @Test
+  public void testAddFileBatched() throws Exception {
+    System.out.println("testAddFileBatched");
+    final List<Runnable> tasks = new ArrayList<>();
+    MetsUpdateCoordinator coordinator = new MetsUpdateCoordinator(metsFile, tasks::add);
+    List<CompletableFuture<Void>> futures = new ArrayList<>();
+    for (int index = 1; index <= 20; index++) {
+      futures.add(coordinator.addFile("OCR-D-OCR", String.format("OCR-D-OCR_%04d", index), "application/vnd.prima.page+xml",
+              String.format("OCR-D-OCR/OCR-D-OCR_%04d.xml", index), "phys_000" + (index % 4 + 1)));
+    }
+    // Only one write task is scheduled.
+    assertEquals(1, tasks.size());
+    assertFalse(futures.get(0).isDone());
+    tasks.get(0).run();
+    for (CompletableFuture<Void> future : futures) {
+      assertTrue(future.isDone());
+      future.join();
+    }
+    assertEquals(1, coordinator.getNumberOfWrites());
+    assertTrue(Files.exists(MetsUpdateCoordinator.getLockFile(metsFile)));
+    MetsIndex index = MetsIndex.build(XmlIndex.parse(metsFile));
+    assertEquals(36, index.getNumberOfFiles());
+    assertEquals("phys_0002", index.getPageIdOfFile(index.getFile("OCR-D-OCR_0001")));
+    // New task after queue was drained.
+    coordinator.addFile("OCR-D-OCR", "OCR-D-OCR_0021", "application/vnd.prima.page+xml", "OCR-D-OCR/OCR-D-OCR_0021.xml", null);
+    assertEquals(2, tasks.size());
+  }
+
+  /**
+   * Test of addFile method with invalid files, of class MetsUpdateCoordinator.
+   */
+  @Test
+  public void testAddFileInvalid() throws Exception {
+    System.out.println("testAddFileInvalid");
+    final List<Runnable> tasks = new ArrayList<>();
+    MetsUpdateCoordinator coordinator = new MetsUpdateCoordinator(metsFile, tasks::add);
+    CompletableFuture<Void> valid = coordinator.addFile("OCR-D-OCR", "OCR-D-OCR_0001", "text/plain", "a.txt", "phys_0001");
+    CompletableFuture<Void> unknownPage = coordinator.addFile("OCR-D-OCR", "OCR-D-OCR_0002", "text/plain", "b.txt", "phys_0009");
+    CompletableFuture<Void> duplicate = coordinator.addFile("OCR-D-OCR", "OCR-D-OCR_0001", "text/plain", "c.txt", null);
+    CompletableFuture<Void> existing = coordinator.addFile("OCR-D-OCR", "OCR-D-IMG_0001", "text/plain", "d.txt", null);
+    try {
+      coordinator.addFile("OCR-D-OCR", "OCR-D-OCR_0003", null, "e.txt", null);
+      assertTrue(Boolean.FALSE);
+    } catch (IllegalArgumentException iae) {
+      assertTrue(iae.getMessage().contains("MIMETYPE"));
+    }
+    tasks.get(0).run();
+    valid.join();
+    assertFailed(unknownPage, MetsWriter.UNKNOWN_PAGE);
+    assertFailed(duplicate, MetsWriter.DUPLICATE_ID);
+    assertFailed(existing, MetsWriter.DUPLICATE_ID);
+    MetsIndex index = MetsIndex.build(XmlIndex.parse(metsFile));
+    assertEquals(17, index.getNumberOfFiles());
+    assertEquals("a.txt", index.getFileUrl(index.getFile("OCR-D-OCR_0001")));
+  }
+
+  /**
+   * Test of addFile method with many threads, of class MetsUpdateCoordinator.
+   */
+  @Test
+  public void testAddFileConcurrent() throws Exception {
+    System.out.println("testAddFileConcurrent");
+    final MetsUpdateCoordinator coordinator = MetsUpdateCoordinator.getInstance(metsFile);
+    assertSame(coordinator, MetsUpdateCoordinator.getInstance(directory.resolve("./mets.xml")));
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    final List<CompletableFuture<Void>> futures = new ArrayList<>();
+    for (int thread = 0; thread < 8; thread++) {
+      final int offset = thread * 25;
+      futures.add(CompletableFuture.runAsync(() -> {
+        for (int index = offset; index < offset + 25; index++) {
+          coordinator.addFile("OCR-D-OCR", "OCR-D-OCR_" + index, "text/plain", "OCR-D-OCR/" + index + ".txt", "phys_0001").join();
+        }
+      }, executor));
+    }
+    CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).join();
+    executor.shutdown();
+    assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+    MetsIndex index = MetsIndex.build(XmlIndex.parse(metsFile));
+    assertEquals(216, index.getNumberOfFiles());
+    assertEquals(204, index.getFilesOfPage(0).length);
+    assertTrue(coordinator.getNumberOfWrites() <= 200);
+  }
+
+  /**
+   * Assert that future failed with WorkspaceException.
+   *
+   * @param future Future.
+   * @param message Start of message.
+   */
+  private static void assertFailed(final CompletableFuture<Void> future, final String message) {
+    try {
+      future.join();
+      assertTrue(Boolean.FALSE);
+    } catch (CompletionException ce) {
+      assertTrue(ce.getCause() instanceof WorkspaceException);
+      assertTrue(ce.getCause().getMessage().startsWith(message));
+    }
+  }
+}
@@ -5,8 +5,16 @@
  */
 package edu.kit.ocrd.workspace;
 
+import com.sun.net.httpserver.HttpServer;
 import edu.kit.ocrd.workspace.exception.WorkspaceException;
+import edu.kit.ocrd.workspace.index.MetsIndex;
+import edu.kit.ocrd.workspace.validation.RemoteFileChecker;
+import edu.kit.ocrd.workspace.validation.ValidationCheck;
+import edu.kit.ocrd.workspace.validation.ValidationProfile;
+import edu.kit.ocrd.workspace.validation.ValidationResult;
 import java.io.File;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.nio.file.Path;
 import org.fzk.tools.xml.JaxenUtil;
 import org.jdom.Document;
@@ -272,6 +280,21 @@ public class MetsUtilTest {
     assertEquals(expResult, result);
   }
 
+  /**
+   * Test of validLanguageMetadataFromMets method with METS without genre, of
+   * class MetsUtil.
+   */
+  @Test
+  public void testLanguageMetadataWithoutGenreFromMets() throws Exception {
+    System.out.println("testLanguageMetadataWithoutGenreFromMets");
+    File metsFile = new File("src/test/resources/workspace/without_genre_mets.xml");
+    Document metsDocument = JaxenUtil.getDocument(metsFile);
+    assertTrue(MetsUtil.validateLanguageMetadataFromMets(metsDocument));
+    // Only language is checked.
+    assertTrue(MetsUtil.validateMetadataField(metsDocument, "language").getWarnings().isEmpty());
+    assertEquals(1, MetsUtil.validateMetadataField(metsDocument, "genre").getWarnings().size());
+  }
+
   /**
    * Test of validateClassificationMetadataFromMets method, of class MetsUtil.
    */
@@ -489,4 +512,142 @@ public class MetsUtilTest {
     assertEquals(expResult, result);
   }
 
+
+  /**
+   * Test of validateCompleteMets method with quick profile, of class MetsUtil.
+   */
+  @Test
+  public void testValidateCompleteMetsQuickProfile() throws Exception {
+    System.out.println("testValidateCompleteMetsQuickProfile");
+    // Missing files are not detected without file access.
+    File metsFile = new File("src/test/resources/workspace/missing_file_mets.xml");
+    boolean result = MetsUtil.validateCompleteMets(metsFile, ValidationProfile.QUICK);
+    assertTrue(result);
+    try {
+      MetsUtil.validateCompleteMets(metsFile, ValidationProfile.STANDARD);
+      assertTrue(Boolean.FALSE);
+    } catch (WorkspaceException wse) {
+      assertTrue(wse.getMessage().startsWith(MetsUtil.FILE_NOT_EXISTS));
+    }
+  }
+
+  /**
+   * Test of validateCompleteMets method with full profile, of class MetsUtil.
+   */
+  @Test
+  public void testValidateCompleteMetsFullProfile() throws Exception {
+    System.out.println("testValidateCompleteMetsFullProfile");
+    File metsFile = new File("src/test/resources/workspace/valid_mets.xml");
+    boolean result = MetsUtil.validateCompleteMets(metsFile, ValidationProfile.FULL);
+    assertTrue(result);
+  }
+
+  /**
+   * Test of validateMetsFiles method without mimetype check, of class MetsUtil.
+   */
+  @Test
+  public void testValidateMetsFilesWithoutMimetype() throws Exception {
+    System.out.println("testValidateMetsFilesWithoutMimetype");
+    File metsFile = new File("src/test/resources/workspace/wrong_mimetype_mets.xml");
+    Document metsDocument = JaxenUtil.getDocument(metsFile);
+    Path pathToMets = metsFile.toPath().getParent();
+    try {
+      MetsUtil.validateMetsFiles(metsDocument, pathToMets, ValidationProfile.of(ValidationCheck.FILE_EXISTENCE));
+      assertTrue(Boolean.FALSE);
+    } catch (WorkspaceException wse) {
+      // Mimetypes inside file group are still compared.
+      assertTrue(wse.getMessage().startsWith(MetsUtil.DIFFERENT_MIMETYPES));
+      assertFalse(wse.getMessage().contains(MetsUtil.WRONG_MIMETYPE));
+    }
+  }
+
+  /**
+   * Test of validateMetsFiles method with remote files, of class MetsUtil.
+   */
+  @Test
+  public void testValidateMetsFilesRemote() throws Exception {
+    System.out.println("testValidateMetsFilesRemote");
+    HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/images/", exchange -> {
+      int status = exchange.getRequestURI().getPath().endsWith("missing.jpg") ? 404 : 200;
+      exchange.getResponseHeaders().add("Content-Type", exchange.getRequestURI().getPath().endsWith(".png") ? "image/png" : "image/jpeg");
+      exchange.sendResponseHeaders(status, -1);
+      exchange.close();
+    });
+    server.start();
+    RemoteFileChecker remoteFileChecker = new RemoteFileChecker(2, 1000, 0, 10, 100);
+    try {
+      String baseUrl = "http://localhost:" + server.getAddress().getPort() + "/images/";
+      MetsIndex metsIndex = new MetsIndex.Builder()
+              .addFileGrp("OCR-D-IMG")
+              .addFile("OCR-D-IMG_0001", "image/jpeg", baseUrl + "0001.jpg", null, null, null)
+              .addFile("OCR-D-IMG_0002", "image/jpeg", baseUrl + "missing.jpg", null, null, null)
+              .addFile("OCR-D-IMG_0003", "image/jpeg", baseUrl + "0003.png", null, null, null)
+              .build();
+      Path pathToMets = new File("src/test/resources/workspace").toPath();
+      // Without checker remote files are ignored.
+      ValidationResult result = new ValidationResult();
+      MetsUtil.validateMetsFiles(metsIndex, pathToMets, ValidationProfile.STANDARD, result);
+      assertTrue(result.isValid());
+      result = new ValidationResult();
+      MetsUtil.validateMetsFiles(metsIndex, pathToMets, ValidationProfile.STANDARD, remoteFileChecker, result);
+      assertEquals(2, result.getErrors().size());
+      assertTrue(result.getErrors().get(0).startsWith(MetsUtil.REMOTE_FILE_NOT_AVAILABLE + baseUrl + "missing.jpg"));
+      assertEquals(MetsUtil.WRONG_MIMETYPE + "OCR-D-IMG_0003", result.getErrors().get(1));
+      result = new ValidationResult();
+      MetsUtil.validateMetsFiles(metsIndex, pathToMets, ValidationProfile.of(ValidationCheck.FILE_EXISTENCE), remoteFileChecker, result);
+      assertEquals(1, result.getErrors().size());
+    } finally {
+      remoteFileChecker.shutdown();
+      server.stop(0);
+    }
+  }
+
+  /**
+   * Test of validateMetsFiles method with checksums, of class MetsUtil.
+   */
+  @Test
+  public void testValidateMetsFilesChecksum() throws Exception {
+    System.out.println("testValidateMetsFilesChecksum");
+    Path pathToMets = new File("src/test/resources/workspace").toPath();
+    String checksum1 = ChecksumUtil.getChecksum(pathToMets.resolve("OCR-D-IMG/OCR-D-IMG_0001.jpg"), "SHA-256");
+    String checksum2 = ChecksumUtil.getChecksum(pathToMets.resolve("OCR-D-IMG/OCR-D-IMG_0002.jpg"), "MD5");
+    MetsIndex metsIndex = new MetsIndex.Builder()
+            .addFileGrp("OCR-D-IMG")
+            .addFile("OCR-D-IMG_0001", "image/jpeg", "OCR-D-IMG/OCR-D-IMG_0001.jpg", null, checksum1.toUpperCase(), "SHA-256")
+            .addFile("OCR-D-IMG_0002", "image/jpeg", "OCR-D-IMG/OCR-D-IMG_0002.jpg", null, checksum2, "MD5")
+            .addFile("OCR-D-IMG_0003", "image/jpeg", "OCR-D-IMG/OCR-D-IMG_0003.jpg", null, checksum2, "SHA-1")
+            .addFile("OCR-D-IMG_0004", "image/jpeg", "OCR-D-IMG/OCR-D-IMG_0004.jpg", null, checksum2, null)
+            .build();
+    ValidationResult result = new ValidationResult();
+    MetsUtil.validateMetsFiles(metsIndex, pathToMets, ValidationProfile.of(ValidationCheck.FILE_EXISTENCE), result);
+    assertTrue(result.isValid());
+    MetsUtil.validateMetsFiles(metsIndex, pathToMets, ValidationProfile.of(ValidationCheck.CHECKSUM), result);
+    assertEquals(2, result.getErrors().size());
+    assertEquals(MetsUtil.WRONG_CHECKSUM + "OCR-D-IMG_0003", result.getErrors().get(0));
+    assertEquals(MetsUtil.MISSING_CHECKSUM_TYPE + "OCR-D-IMG_0004", result.getErrors().get(1));
+  }
+
+  /**
+   * Test of validateMetsFiles method reporting orphaned files, of class MetsUtil.
+   */
+  @Test
+  public void testValidateMetsFilesOrphanedFiles() throws Exception {
+    System.out.println("testValidateMetsFilesOrphanedFiles");
+    Path pathToMets = new File("src/test/resources/workspace").toPath();
+    MetsIndex.Builder builder = new MetsIndex.Builder().addFileGrp("OCR-D-GT-SEG-PAGE");
+    for (int page = 1; page <= 4; page++) {
+      builder.addFile("OCR-D-GT-SEG-PAGE_000" + page, "application/vnd.prima.page+xml", "OCR-D-GT-SEG-PAGE/OCR-D-GT-SEG-PAGE_000" + page + ".xml", null, null, null);
+    }
+    builder.addFile("OCR-D-GT-SEG-PAGE_0005", "application/vnd.prima.page+xml", "OCR-D-GT-SEG-PAGE/OCR-D-GT-SEG-PAGE_0005.xml", null, null, null);
+    builder.addFile("OCR-D-GT-SEG-PAGE_0006", "application/vnd.prima.page+xml", "OCR-D-GT-SEG-MISSING/OCR-D-GT-SEG-PAGE_0006.xml", null, null, null);
+    ValidationResult result = new ValidationResult();
+    MetsUtil.validateMetsFiles(builder.build(), pathToMets, ValidationProfile.of(ValidationCheck.FILE_EXISTENCE), result);
+    assertEquals(2, result.getErrors().size());
+    assertEquals(MetsUtil.FILE_NOT_EXISTS + "OCR-D-GT-SEG-PAGE/OCR-D-GT-SEG-PAGE_0005.xml", result.getErrors().get(0));
+    assertEquals(MetsUtil.FILE_NOT_EXISTS + "OCR-D-GT-SEG-MISSING/OCR-D-GT-SEG-PAGE_0006.xml", result.getErrors().get(1));
+    assertEquals(3, result.getWarnings().size());
+    assertTrue(result.getWarnings().get(0).startsWith(MetsUtil.ORPHANED_FILE + "OCR-D-GT-SEG-PAGE"));
+    assertTrue(result.getWarnings().get(0).endsWith("OCR-D-GT-SEG-PAGE_0001_absoluteUrl.xml"));
+  }
 }
@@ -0,0 +1,180 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.kit.ocrd.workspace;
+
+import edu.kit.ocrd.workspace.exception.WorkspaceException;
+import edu.kit.ocrd.workspace.index.MetsIndex;
+import edu.kit.ocrd.workspace.index.XmlIndex;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author hartmann-v
+ */
+public class MetsWriterTest {
+
+  /**
+   * Temporary directory.
+   */
+  private Path directory;
+
+  public MetsWriterTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    directory = Files.createTempDirectory("metswriter");
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    try (Stream<Path> paths = Files.walk(directory)) {
+      paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+    }
+  }
+
+  /**
+   * Copy valid METS to temporary directory.
+   *
+   * @return METS file.
+   * @throws Exception Error copying file.
+   */
+  private Path copyMets() throws Exception {
+    Path metsFile = directory.resolve("mets.xml");
+    Files.copy(new File("src/test/resources/workspace/valid_mets.xml").toPath(), metsFile);
+    return metsFile;
+  }
+
+  /**
+   * Test of write method, of class MetsWriter.
+   */
+  @Test
+  public void testWrite() throws Exception {
+    System.out.println("testWrite");
+    Path metsFile = copyMets();
+    new MetsWriter()
+            .addFile("OCR-D-GT-SEG-PAGE", "OCR-D-GT-SEG-PAGE_0005", "application/vnd.prima.page+xml", "OCR-D-GT-SEG-PAGE/OCR-D-GT-SEG-PAGE_0005.xml", "phys_0002")
+            .addFile("OCR-D-OCR", "OCR-D-OCR_0001", "application/vnd.prima.page+xml", "OCR-D-OCR/OCR-D-OCR_0001.xml", "phys_0001")
+            .addFile("OCR-D-OCR", "OCR-D-OCR_0003", "application/vnd.prima.page+xml", "OCR-D-OCR/OCR-D-OCR_0003.xml", "phys_0003")
+            .addFileGrp("OCR-D-EMPTY")
+            .addFile("OCR-D-UNLINKED", "OCR-D-UNLINKED_0001", "text/plain", "OCR-D-UNLINKED/a.txt", null)
+            .write(metsFile);
+    assertNoTempFile();
+    MetsIndex index = MetsIndex.build(XmlIndex.parse(metsFile));
+    assertEquals(7, index.getNumberOfFileGrps());
+    assertEquals("OCR-D-OCR", index.getFileGrpUse(4));
+    assertEquals("OCR-D-EMPTY", index.getFileGrpUse(5));
+    assertEquals("OCR-D-UNLINKED", index.getFileGrpUse(6));
+    assertEquals(20, index.getNumberOfFiles());
+    int file = index.getFile("OCR-D-GT-SEG-PAGE_0005");
+    assertEquals(2, index.getFileGrpOfFile(file));
+    assertEquals("OCR-D-GT-SEG-PAGE/OCR-D-GT-SEG-PAGE_0005.xml", index.getFileUrl(file));
+    assertEquals("phys_0002", index.getPageIdOfFile(file));
+    assertEquals("phys_0001", index.getPageIdOfFile(index.getFile("OCR-D-OCR_0001")));
+    assertEquals("phys_0003", index.getPageIdOfFile(index.getFile("OCR-D-OCR_0003")));
+    assertEquals(MetsIndex.NOT_FOUND, index.getPageOfFile(index.getFile("OCR-D-UNLINKED_0001")));
+    assertArrayEquals(new String[]{"DEFAULT_0002", "OCR-D-IMG_0002", "OCR-D-GT-SEG-PAGE_0002", "OCR-D-GT-SEG-BLOCK_0002", "OCR-D-GT-SEG-PAGE_0005"}, index.getFileIdsOfPage(1));
+    assertEquals(4, index.getNumberOfPages());
+    assertEquals(1, index.getGroundTruthProperties("DMGT_0001").length);
+    String mets = new String(Files.readAllBytes(metsFile), StandardCharsets.UTF_8);
+    // Indentation of document is used.
+    assertTrue(mets.contains("\n            <mets:fptr FILEID=\"OCR-D-GT-SEG-PAGE_0005\"/>\n         </mets:div>"));
+    assertTrue(mets.contains("\n      <mets:fileGrp USE=\"OCR-D-EMPTY\"/>\n      <mets:fileGrp USE=\"OCR-D-UNLINKED\">"));
+    // Content is copied unchanged.
+    assertTrue(mets.contains("<mods:physicalLocation>Max-Planck-Institut f\u00fcr Wissenschaftsgeschichte</mods:physicalLocation>"));
+    assertTrue(mets.contains("<mets:FLocat LOCTYPE=\"URL\" xlink:href=\"OCR-D-IMG/OCR-D-IMG_0001.jpg\"/>"));
+  }
+
+  /**
+   * Test of write method with METS without file section, of class MetsWriter.
+   */
+  @Test
+  public void testWriteNewFileSec() throws Exception {
+    System.out.println("testWriteNewFileSec");
+    Path metsFile = directory.resolve("mets.xml");
+    Files.write(metsFile, ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n<m:mets xmlns:m=\"http://www.loc.gov/METS/\">"
+            + "<m:structMap TYPE=\"PHYSICAL\"><m:div TYPE=\"physSequence\"><m:div TYPE=\"page\" ID=\"P1\"/></m:div></m:structMap></m:mets>").getBytes(StandardCharsets.UTF_8));
+    Path target = directory.resolve("new_mets.xml");
+    new MetsWriter().addFile("OCR-D-IMG", "IMG_1", "image/tiff", "OCR-D-IMG/IMG_1.tif", "P1").write(metsFile, target);
+    MetsIndex index = MetsIndex.build(XmlIndex.parse(target));
+    assertEquals(1, index.getNumberOfFiles());
+    assertEquals("OCR-D-IMG/IMG_1.tif", index.getFileUrl(0));
+    assertEquals("P1", index.getPageIdOfFile(0));
+    String mets = new String(Files.readAllBytes(target), StandardCharsets.UTF_8);
+    assertTrue(mets.contains("<m:mets xmlns:m=\"http://www.loc.gov/METS/\"><m:fileSec><m:fileGrp USE=\"OCR-D-IMG\">"));
+    assertTrue(mets.contains("xmlns:xlink=\"http://www.w3.org/1999/xlink\""));
+  }
+
+  /**
+   * Test of write method with invalid additions, of class MetsWriter.
+   */
+  @Test
+  public void testWriteInvalid() throws Exception {
+    System.out.println("testWriteInvalid");
+    Path metsFile = copyMets();
+    byte[] original = Files.readAllBytes(metsFile);
+    try {
+      new MetsWriter().addFile("OCR-D-OCR", "OCR-D-OCR_0001", "text/plain", "a.txt", "phys_0009").write(metsFile);
+      assertTrue(Boolean.FALSE);
+    } catch (WorkspaceException wse) {
+      assertTrue(wse.getMessage().startsWith(MetsWriter.UNKNOWN_PAGE));
+    }
+    try {
+      new MetsWriter().addFile("OCR-D-OCR", "OCR-D-IMG_0002", "text/plain", "a.txt", null).write(metsFile);
+      assertTrue(Boolean.FALSE);
+    } catch (WorkspaceException wse) {
+      assertTrue(wse.getMessage().startsWith(MetsWriter.DUPLICATE_ID));
+    }
+    try {
+      new MetsWriter().addFile("OCR-D-OCR", "DMGT_0001", "text/plain", "a.txt", null).write(metsFile);
+      assertTrue(Boolean.FALSE);
+    } catch (WorkspaceException wse) {
+      assertEquals(MetsWriter.DUPLICATE_ID + "DMGT_0001", wse.getMessage());
+    }
+    assertArrayEquals(original, Files.readAllBytes(metsFile));
+    assertNoTempFile();
+    try {
+      new MetsWriter().addFileGrp("OCR-D-OCR").write(new File("src/test/resources/page/valid_page.xml").toPath(), directory.resolve("page.xml"));
+      assertTrue(Boolean.FALSE);
+    } catch (WorkspaceException wse) {
+      assertTrue(wse.getMessage().startsWith(MetsWriter.NO_METS));
+    }
+    try {
+      new MetsWriter().addFile("OCR-D-OCR", "ID", "text/plain", "a.txt", null).addFile("OCR-D-OCR", "ID", "text/plain", "b.txt", null);
+      assertTrue(Boolean.FALSE);
+    } catch (IllegalArgumentException iae) {
+      assertTrue(Boolean.TRUE);
+    }
+  }
+
+  /**
+   * Assert that no temporary file is left.
+   */
+  private void assertNoTempFile() throws Exception {
+    try (Stream<Path> paths = Files.list(directory)) {
+      assertFalse(paths.anyMatch(path -> path.getFileName().toString().endsWith(".tmp")));
+    }
+  }
+}
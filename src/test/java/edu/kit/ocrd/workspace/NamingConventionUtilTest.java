@@ -0,0 +1,116 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.kit.ocrd.workspace;
+
+import edu.kit.ocrd.workspace.index.MetsIndex;
+import edu.kit.ocrd.workspace.index.XmlIndex;
+import edu.kit.ocrd.workspace.validation.ValidationResult;
+import java.io.File;
+import java.util.Arrays;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author hartmann-v
+ */
+public class NamingConventionUtilTest {
+
+  public NamingConventionUtilTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() {
+  }
+
+  @After
+  public void tearDown() {
+  }
+
+  /**
+   * Test of isValidFileGrpUse method, of class NamingConventionUtil.
+   */
+  @Test
+  public void testIsValidFileGrpUse() {
+    System.out.println("testIsValidFileGrpUse");
+    for (String use : new String[]{"OCR-D-IMG", "OCR-D-SEG", "OCR-D-OCR", "OCR-D-COR", "OCR-D-GT-SEG", "OCR-D-IMG-BIN", "OCR-D-OCR-TESS-4", "OCR-D-GT-OCR-A-B"}) {
+      assertTrue(use, NamingConventionUtil.isValidFileGrpUse(use));
+    }
+    for (String use : new String[]{null, "", "OCR-D-", "OCR-D-GT-", "OCR-D-TXT", "OCR-D-IMG-", "OCR-D-IMG-BI", "OCR-D-IMG-bin", "OCR-D-IMGBIN", "OCR-D-IMG_BIN", "GT-OCR-D-SEG", "ocr-d-img", "OCR-D-GT-GT-SEG"}) {
+      assertFalse(use, NamingConventionUtil.isValidFileGrpUse(use));
+    }
+  }
+
+  /**
+   * Test of isValidFileId method, of class NamingConventionUtil.
+   */
+  @Test
+  public void testIsValidFileId() {
+    System.out.println("testIsValidFileId");
+    for (String id : new String[]{"OCR-D-IMG_0001", "OCR-D-SEG_9999", "OCR-D-OCR-TESS_0012", "OCR-D-COR-CIS-POST_0100", "OCR-D-GT-SEG_0001", "OCR-D-GT-SEG-PAGE_0001", "OCR-D-GT-SEG-BLOCK_0001"}) {
+      assertTrue(id, NamingConventionUtil.isValidFileId(id));
+    }
+    for (String id : new String[]{null, "", "_0001", "OCR-D-IMG", "OCR-D-IMG_001", "OCR-D-IMG_00001", "OCR-D-IMG_000A", "OCR-D-IMG-_0001", "OCR-D-IMG-AB_0001", "OCR-D-GT-_0001", "OCR-D-GT-GT-SEG_0001", "OCR-D-IMG_X_0001", "OCR-D-TXT_0001", "IMG_0001"}) {
+      assertFalse(id, NamingConventionUtil.isValidFileId(id));
+    }
+  }
+
+  /**
+   * Test of validateNames method, of class NamingConventionUtil.
+   */
+  @Test
+  public void testValidateNames() {
+    System.out.println("testValidateNames");
+    MetsIndex metsIndex = new MetsIndex.Builder()
+            .addFileGrp("OCR-D-IMG")
+            .addFile("OCR-D-IMG_0001", "image/tiff", "IMG/1.tif", null, null, null)
+            .addFile("IMG_2", "image/tiff", "IMG/2.tif", null, null, null)
+            .addFileGrp("OCR-D-GT-SEG-PAGE")
+            .addFile("OCR-D-SEG-PAGE_0001", "application/vnd.prima.page+xml", "SEG/1.xml", null, null, null)
+            .addFileGrp("MAX")
+            .addFile("OCR-D-IMG-MAX_0001", "image/jpeg", "MAX/1.jpg", null, null, null)
+            .build();
+    ValidationResult result = new ValidationResult();
+    NamingConventionUtil.validateNames(metsIndex, result);
+    assertTrue(result.isValid());
+    assertEquals(Arrays.asList(NamingConventionUtil.INVALID_FILE_GRP_NAME + "MAX",
+            NamingConventionUtil.INVALID_FILE_ID + "IMG_2"), result.getWarnings());
+  }
+
+  /**
+   * Test of validateNames method with ground truth files, of class
+   * NamingConventionUtil.
+   */
+  @Test
+  public void testValidateNamesGroundTruth() {
+    System.out.println("testValidateNamesGroundTruth");
+    MetsIndex metsIndex = MetsIndex.build(XmlIndex.parse(new File("src/test/resources/workspace/valid_mets.xml").toPath()));
+    ValidationResult result = new ValidationResult();
+    NamingConventionUtil.validateNames(metsIndex, result);
+    for (String warning : result.getWarnings()) {
+      assertFalse(warning, warning.contains("OCR-D-GT-"));
+    }
+    int numberOfGroundTruthFiles = 0;
+    for (int file = 0; file < metsIndex.getNumberOfFiles(); file++) {
+      if (metsIndex.getFileId(file).startsWith("OCR-D-GT-")) {
+        numberOfGroundTruthFiles++;
+      }
+    }
+    assertTrue(numberOfGroundTruthFiles > 0);
+  }
+}
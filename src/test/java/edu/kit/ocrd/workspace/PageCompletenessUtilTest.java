@@ -0,0 +1,130 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.kit.ocrd.workspace;
+
+import edu.kit.ocrd.workspace.entity.PageCompletenessReport;
+import edu.kit.ocrd.workspace.index.MetsIndex;
+import edu.kit.ocrd.workspace.index.XmlIndex;
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author hartmann-v
+ */
+public class PageCompletenessUtilTest {
+
+  public PageCompletenessUtilTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() {
+  }
+
+  @After
+  public void tearDown() {
+  }
+
+  /**
+   * Test of buildReport method, of class PageCompletenessUtil.
+   */
+  @Test
+  public void testBuildReport() {
+    System.out.println("testBuildReport");
+    MetsIndex metsIndex = new MetsIndex.Builder()
+            .addFileGrp("OCR-D-IMG")
+            .addFile("IMG_1", "image/tiff", "IMG/1.tif", null, null, null)
+            .addFile("IMG_2", "image/tiff", "IMG/2.tif", null, null, null)
+            .addFile("IMG_3", "image/tiff", "IMG/3.tif", null, null, null)
+            .addFileGrp("OCR-D-OCR")
+            .addFile("OCR_1", "application/vnd.prima.page+xml", "OCR/1.xml", null, null, null)
+            .addFile("OCR_1B", "application/vnd.prima.page+xml", "OCR/1b.xml", null, null, null)
+            .addFile("OCR_3", "application/vnd.prima.page+xml", "OCR/3.xml", "PHYS_3", null, null)
+            .addPage("PHYS_2", "2", null)
+            .addFilePointer("IMG_2")
+            .addFilePointer("IMG_2")
+            .addPage("PHYS_1", "1", null)
+            .addFilePointer("IMG_1")
+            .addFilePointer("OCR_1")
+            .addFilePointer("OCR_1B")
+            .addFilePointer("OCR_UNKNOWN")
+            .addPage("PHYS_3", "3", null)
+            .addFilePointer("IMG_3")
+            .build();
+    PageCompletenessReport report = PageCompletenessUtil.buildReport(metsIndex);
+    assertEquals(3, report.getNumberOfPages());
+    assertEquals("PHYS_1", report.getPageId(0));
+    assertEquals("PHYS_3", report.getPageId(2));
+    assertEquals(2, report.getNumberOfFileGrps());
+    int img = report.indexOfFileGrp("OCR-D-IMG");
+    int ocr = report.indexOfFileGrp("OCR-D-OCR");
+    assertEquals(-1, report.indexOfFileGrp("OCR-D-UNKNOWN"));
+    assertEquals(1.0, report.getCoverage(img), 0.0);
+    assertEquals(Collections.emptyList(), report.getMissingPages(img));
+    assertEquals(Collections.emptyList(), report.getDuplicatePages(img));
+    assertEquals(2, report.getNumberOfCoveredPages(ocr));
+    assertTrue(report.hasFile(ocr, 2));
+    assertFalse(report.hasFile(ocr, 1));
+    assertEquals(Arrays.asList("PHYS_2"), report.getMissingPages(ocr));
+    assertEquals(Arrays.asList("PHYS_1"), report.getDuplicatePages(ocr));
+    assertFalse(report.isComplete());
+  }
+
+  /**
+   * Test of buildReport method with complete workspace, of class
+   * PageCompletenessUtil.
+   */
+  @Test
+  public void testBuildReportComplete() {
+    System.out.println("testBuildReportComplete");
+    MetsIndex.Builder builder = new MetsIndex.Builder();
+    int noOfPages = 1000;
+    int noOfFileGrps = 30;
+    for (int fileGrp = 0; fileGrp < noOfFileGrps; fileGrp++) {
+      builder.addFileGrp("OCR-D-GRP-" + fileGrp);
+      for (int page = 0; page < noOfPages; page++) {
+        builder.addFile("FILE_" + fileGrp + "_" + page, "image/png", "GRP" + fileGrp + "/" + page + ".png", null, null, null);
+      }
+    }
+    for (int page = 0; page < noOfPages; page++) {
+      builder.addPage("PHYS_" + page, Integer.toString(page + 1), null);
+      for (int fileGrp = 0; fileGrp < noOfFileGrps; fileGrp++) {
+        builder.addFilePointer("FILE_" + fileGrp + "_" + page);
+      }
+    }
+    PageCompletenessReport report = PageCompletenessUtil.buildReport(builder.build());
+    assertTrue(report.toString(), report.isComplete());
+    assertEquals(noOfFileGrps, report.getNumberOfFileGrps());
+    assertEquals(noOfPages, report.getCoveredPages(noOfFileGrps - 1).cardinality());
+  }
+
+  /**
+   * Test of buildReport method with METS file, of class PageCompletenessUtil.
+   */
+  @Test
+  public void testBuildReportFile() {
+    System.out.println("testBuildReportFile");
+    MetsIndex metsIndex = MetsIndex.build(XmlIndex.parse(new File("src/test/resources/workspace/valid_mets.xml").toPath()));
+    PageCompletenessReport report = PageCompletenessUtil.buildReport(metsIndex);
+    assertEquals(metsIndex.getNumberOfPages(), report.getNumberOfPages());
+    assertEquals(metsIndex.getNumberOfFileGrps(), report.getNumberOfFileGrps());
+  }
+}
@@ -0,0 +1,214 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.kit.ocrd.workspace;
+
+import edu.kit.ocrd.workspace.index.MetsIndex;
+import edu.kit.ocrd.workspace.index.XmlIndex;
+import edu.kit.ocrd.workspace.validation.RuleProfile;
+import edu.kit.ocrd.workspace.validation.ValidationCheck;
+import edu.kit.ocrd.workspace.validation.ValidationProfile;
+import edu.kit.ocrd.workspace.validation.ValidationResult;
+import edu.kit.ocrd.workspace.validation.ValidationScope;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author hartmann-v
+ */
+public class PageShardUtilTest {
+
+  public PageShardUtilTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() {
+  }
+
+  @After
+  public void tearDown() {
+  }
+
+  /**
+   * Test of validatePages method, of class PageShardUtil.
+   */
+  @Test
+  public void testValidatePages() {
+    System.out.println("testValidatePages");
+    Path metsFile = new File("src/test/resources/workspace/valid_mets.xml").toPath().toAbsolutePath();
+    MetsIndex metsIndex = MetsIndex.build(XmlIndex.parse(metsFile));
+    ValidationProfile profile = ValidationProfile.of(ValidationCheck.FEATURES, ValidationCheck.FILE_EXISTENCE, ValidationCheck.MIME_TYPE, ValidationCheck.COORDS);
+    ValidationResult result = new ValidationResult();
+    PageShardUtil.validatePages(metsIndex, metsFile.getParent(), profile, null, PageShardUtil.getDefaultPool(), result);
+    ValidationResult expected = new ValidationResult();
+    MetsUtil.validateMetsFiles(metsIndex, metsFile.getParent(), profile, expected);
+    assertTrue(result.isValid());
+    assertEquals(expected.getErrors(), result.getErrors());
+    assertEquals(new HashSet<>(expected.getWarnings()), new HashSet<>(result.getWarnings()));
+  }
+
+  /**
+   * Test of validatePages method with findings, of class PageShardUtil.
+   */
+  @Test
+  public void testValidatePagesInOrder() {
+    System.out.println("testValidatePagesInOrder");
+    MetsIndex metsIndex = new MetsIndex.Builder()
+            .addFileGrp("OCR-D-IMG")
+            .addFile("IMG_A", "image/tiff", "IMG/a.tif", null, null, null)
+            .addFile("IMG_B", "image/tiff", "IMG/b.tif", null, null, null)
+            .addFile("IMG_C", "image/tiff", "IMG/c.tif", null, null, null)
+            .addFile("IMG_D", "image/png", "IMG/d.tif", "PHYS_OLD", null, null)
+            .addPage("PHYS_2", "2", "DMD_2")
+            .addFilePointer("IMG_B")
+            .addFilePointer("IMG_A")
+            .addPage("PHYS_1", "1", null)
+            .addFilePointer("IMG_C")
+            .addFilePointer("IMG_B")
+            .addFilePointer("IMG_UNKNOWN")
+            .addGroundTruthProperty("DMD_2", "unknown-label")
+            .build();
+    ValidationProfile profile = ValidationProfile.of(ValidationCheck.FEATURES, ValidationCheck.FILE_EXISTENCE);
+    ValidationResult result = new ValidationResult();
+    // Use several pools to make sure order doesn't depend on execution.
+    for (int parallelism : new int[]{1, 4}) {
+      ForkJoinPool pool = new ForkJoinPool(parallelism);
+      try {
+        result = new ValidationResult();
+        PageShardUtil.validatePages(metsIndex, new File("src/test/resources/workspace").toPath().toAbsolutePath(), profile, null, pool, result);
+      } finally {
+        pool.shutdown();
+      }
+      assertEquals(Arrays.asList(MetsUtil.DIFFERENT_MIMETYPES + "OCR-D-IMG",
+              MetsUtil.FILE_NOT_EXISTS + "IMG/c.tif",
+              MetsUtil.FILE_NOT_EXISTS + "IMG/b.tif",
+              MetsUtil.WRONG_SEMANTIC_LABEL + "unknown-label (PHYS_2)",
+              MetsUtil.FILE_NOT_EXISTS + "IMG/a.tif",
+              MetsUtil.FILE_NOT_EXISTS + "IMG/d.tif"), result.getErrors());
+    }
+    assertTrue(result.getWarnings().isEmpty());
+  }
+
+  /**
+   * Test of validatePages method with rule profile, of class PageShardUtil.
+   */
+  @Test
+  public void testValidatePagesWithRules() {
+    System.out.println("testValidatePagesWithRules");
+    MetsIndex metsIndex = new MetsIndex.Builder()
+            .addFileGrp("OCR-D-IMG")
+            .addFile("IMG_A", "image/tiff", null, null, null, null)
+            .addFile("IMG_B", "image/tiff", null, null, null, null)
+            .addFileGrp("OCR-D-IMG-BIN")
+            .addFile("BIN_A", "image/png", null, null, null, null)
+            .addPage("PHYS_1", "1", "DMD_1")
+            .addFilePointer("IMG_A")
+            .addFilePointer("BIN_A")
+            .addPage("PHYS_2", "2", null)
+            .addFilePointer("IMG_B")
+            .addGroundTruthProperty("DMD_1", "age/prehistoric")
+            .build();
+    Properties rules = new Properties();
+    rules.setProperty(RuleProfile.MIMETYPE_PREFIX + "OCR-D-IMG", "image/png, image/jp2");
+    ValidationProfile profile = ValidationProfile.of(ValidationCheck.FEATURES, ValidationCheck.MIME_TYPE).withRules(RuleProfile.compile(rules));
+    Path workspace = new File("src/test/resources/workspace").toPath().toAbsolutePath();
+    ValidationResult result = new ValidationResult();
+    PageShardUtil.validatePages(metsIndex, workspace, profile, null, PageShardUtil.getDefaultPool(), result);
+    assertEquals(Arrays.asList(MetsUtil.MIMETYPE_NOT_ALLOWED + "OCR-D-IMG (ID: IMG_A, image/tiff)",
+            MetsUtil.MIMETYPE_NOT_ALLOWED + "OCR-D-IMG (ID: IMG_B, image/tiff)",
+            MetsUtil.WRONG_SEMANTIC_LABEL + "age/prehistoric (PHYS_1)"), result.getErrors());
+    ValidationResult expected = new ValidationResult();
+    MetsUtil.validateMetsFiles(metsIndex, workspace, profile, expected);
+    assertEquals(result.getErrors().subList(0, 2), expected.getErrors());
+    rules.setProperty(RuleProfile.ADDITIONAL_FEATURES, "age/prehistoric");
+    rules.setProperty(RuleProfile.MIMETYPE_PREFIX + "OCR-D-IMG", "image/tiff");
+    result = new ValidationResult();
+    PageShardUtil.validatePages(metsIndex, workspace, profile.withRules(RuleProfile.compile(rules)), null, PageShardUtil.getDefaultPool(), result);
+    assertTrue(result.getErrors().toString(), result.isValid());
+  }
+
+  /**
+   * Test of validatePages method without file access, of class PageShardUtil.
+   */
+  @Test
+  public void testValidatePagesFeaturesOnly() {
+    System.out.println("testValidatePagesFeaturesOnly");
+    MetsIndex metsIndex = new MetsIndex.Builder()
+            .addFileGrp("OCR-D-IMG")
+            .addFile("IMG_A", "image/tiff", "IMG/a.tif", null, null, null)
+            .addPage("PHYS_1", "1", "DMD_1 DMD_2")
+            .addFilePointer("IMG_A")
+            .addGroundTruthProperty("DMD_2", "unknown-label")
+            .build();
+    ValidationResult result = new ValidationResult();
+    PageShardUtil.validatePages(metsIndex, new File("src/test/resources/workspace").toPath().toAbsolutePath(), ValidationProfile.of(ValidationCheck.FEATURES), null, PageShardUtil.getDefaultPool(), result);
+    assertEquals(Arrays.asList(MetsUtil.WRONG_SEMANTIC_LABEL + "unknown-label (PHYS_1)"), result.getErrors());
+  }
+
+  /**
+   * Test of validatePages method with selected pages and file groups, of class PageShardUtil.
+   */
+  @Test
+  public void testValidatePagesWithScope() {
+    System.out.println("testValidatePagesWithScope");
+    MetsIndex.Builder builder = new MetsIndex.Builder();
+    for (String use : new String[]{"OCR-D-IMG", "OCR-D-OCR"}) {
+      builder.addFileGrp(use);
+      for (int page = 1; page <= 4; page++) {
+        builder.addFile(use + "_" + page, "image/tiff", use + "/" + page + ".tif", null, null, null);
+      }
+      builder.addFile(use + "_NONE", "image/tiff", use + "/none.tif", null, null, null);
+    }
+    // Pages in reverse document order.
+    for (int page = 4; page >= 1; page--) {
+      builder.addPage("PHYS_" + page, Integer.toString(page), null)
+              .addFilePointer("OCR-D-IMG_" + page)
+              .addFilePointer("OCR-D-OCR_" + page);
+    }
+    MetsIndex metsIndex = builder.build();
+    Path pathToMets = new File("src/test/resources/workspace").toPath().toAbsolutePath();
+    ValidationProfile profile = ValidationProfile.of(ValidationCheck.FILE_EXISTENCE);
+    ValidationResult result = new ValidationResult();
+    PageShardUtil.validatePages(metsIndex, pathToMets, profile, null, PageShardUtil.getDefaultPool(),
+            ValidationScope.parsePageIds("PHYS_2..PHYS_3,PHYS_1").excludeFileGrps("OCR-D-IMG"), result);
+    assertEquals(Arrays.asList(MetsUtil.FILE_NOT_EXISTS + "OCR-D-OCR/1.tif",
+            MetsUtil.FILE_NOT_EXISTS + "OCR-D-OCR/2.tif",
+            MetsUtil.FILE_NOT_EXISTS + "OCR-D-OCR/3.tif"), result.getErrors());
+    // All pages incl. files without page.
+    result = new ValidationResult();
+    MetsUtil.validateMetsFiles(metsIndex, pathToMets, profile, ValidationScope.ALL.includeFileGrps("OCR-D-IMG"), null, result);
+    assertEquals(Arrays.asList(MetsUtil.FILE_NOT_EXISTS + "OCR-D-IMG/1.tif",
+            MetsUtil.FILE_NOT_EXISTS + "OCR-D-IMG/2.tif",
+            MetsUtil.FILE_NOT_EXISTS + "OCR-D-IMG/3.tif",
+            MetsUtil.FILE_NOT_EXISTS + "OCR-D-IMG/4.tif",
+            MetsUtil.FILE_NOT_EXISTS + "OCR-D-IMG/none.tif"), result.getErrors());
+    // Unknown pages and invalid ranges.
+    result = new ValidationResult();
+    PageShardUtil.validatePages(metsIndex, pathToMets, profile, null, PageShardUtil.getDefaultPool(),
+            ValidationScope.parsePageIds("PHYS_3..PHYS_2,PHYS_1..PHYS_9,PHYS_0"), result);
+    assertEquals(Arrays.asList(PageShardUtil.UNKNOWN_PAGE + "PHYS_0",
+            ValidationScope.INVALID_PAGE_RANGE + "PHYS_3..PHYS_2",
+            PageShardUtil.UNKNOWN_PAGE + "PHYS_9"), result.getErrors());
+  }
+}
@@ -0,0 +1,154 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.kit.ocrd.workspace;
+
+import edu.kit.ocrd.workspace.entity.PageStatistics;
+import edu.kit.ocrd.workspace.entity.WorkspaceStatistics;
+import edu.kit.ocrd.workspace.exception.WorkspaceException;
+import edu.kit.ocrd.workspace.index.MetsIndex;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author hartmann-v
+ */
+public class PageStatisticsUtilTest {
+
+  public PageStatisticsUtilTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() {
+  }
+
+  @After
+  public void tearDown() {
+  }
+
+  /**
+   * Test of getStatistics method, of class PageStatisticsUtil.
+   */
+  @Test
+  public void testGetStatistics() {
+    System.out.println("testGetStatistics");
+    Path pageFile = new File("src/test/resources/workspace/OCR-D-GT-SEG-PAGE/OCR-D-GT-SEG-PAGE_0001.xml").toPath();
+    PageStatistics statistics = PageStatisticsUtil.getStatistics(pageFile);
+    assertEquals(1, statistics.getNumberOfFiles());
+    assertEquals(4, statistics.getNumberOfRegions());
+    assertEquals(3, statistics.getNumberOfTextRegions());
+    assertEquals(Long.valueOf(1), statistics.getRegionTypes().get("SeparatorRegion"));
+    assertEquals(Long.valueOf(3), statistics.getTextRegionTypes().get("paragraph"));
+    assertEquals(3, statistics.getNumberOfTextEquivs());
+    assertEquals(0, statistics.getNumberOfCharacters());
+    assertEquals(0, statistics.getNumberOfTextLines());
+  }
+
+  /**
+   * Test of getStatistics method with text, of class PageStatisticsUtil.
+   */
+  @Test
+  public void testGetStatisticsWithText() throws Exception {
+    System.out.println("testGetStatisticsWithText");
+    String page = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<PcGts xmlns=\"http://schema.primaresearch.org/PAGE/gts/pagecontent/2017-07-15\"><Page imageWidth=\"10\" imageHeight=\"10\">"
+            + "<TextRegion id=\"r0\" type=\"heading\"><TextLine id=\"l0\">"
+            + "<Word id=\"w0\"><Glyph id=\"g0\"><TextEquiv><Unicode>\u00e4</Unicode></TextEquiv></Glyph>"
+            + "<Glyph id=\"g1\"><TextEquiv><Unicode>\ud835\udd04</Unicode></TextEquiv></Glyph>"
+            + "<TextEquiv><Unicode>\u00e4\ud835\udd04</Unicode><PlainText>ignored</PlainText></TextEquiv></Word>"
+            + "<TextEquiv><Unicode><![CDATA[a&b]]></Unicode></TextEquiv></TextLine></TextRegion>"
+            + "<ImageRegion id=\"r1\"/></Page></PcGts>";
+    Path pageFile = Files.createTempFile("page", ".xml");
+    try {
+      Files.write(pageFile, page.getBytes(StandardCharsets.UTF_8));
+      PageStatistics statistics = PageStatisticsUtil.getStatistics(pageFile);
+      assertEquals(2, statistics.getNumberOfRegions());
+      assertEquals(1, statistics.getNumberOfTextRegions());
+      assertEquals(Long.valueOf(1), statistics.getTextRegionTypes().get("heading"));
+      assertEquals(Long.valueOf(1), statistics.getRegionTypes().get("ImageRegion"));
+      assertEquals(1, statistics.getNumberOfTextLines());
+      assertEquals(1, statistics.getNumberOfWords());
+      assertEquals(2, statistics.getNumberOfGlyphs());
+      assertEquals(4, statistics.getNumberOfTextEquivs());
+      assertEquals(7, statistics.getNumberOfCharacters());
+      assertEquals(1.75, statistics.getCharactersPerTextEquiv(), 0.001);
+    } finally {
+      Files.delete(pageFile);
+    }
+  }
+
+  /**
+   * Test of getStatistics method with wrong namespace, of class PageStatisticsUtil.
+   */
+  @Test
+  public void testGetStatisticsWrongNamespace() {
+    System.out.println("testGetStatisticsWrongNamespace");
+    Path metsFile = new File("src/test/resources/workspace/valid_mets.xml").toPath();
+    try {
+      PageStatisticsUtil.getStatistics(metsFile);
+      assertTrue(Boolean.FALSE);
+    } catch (WorkspaceException wse) {
+      assertTrue(wse.getMessage().startsWith(PageStatisticsUtil.UNKNOWN_PAGE_NAMESPACE));
+    }
+    try {
+      PageStatisticsUtil.getStatistics(new File("src/test/resources/workspace/notExists.xml").toPath());
+      assertTrue(Boolean.FALSE);
+    } catch (WorkspaceException wse) {
+      assertTrue(wse.getMessage().startsWith(PageStatisticsUtil.ERROR_READING_PAGE));
+    }
+  }
+
+  /**
+   * Test of getWorkspaceStatistics method, of class PageStatisticsUtil.
+   */
+  @Test
+  public void testGetWorkspaceStatistics() {
+    System.out.println("testGetWorkspaceStatistics");
+    Path pathToMets = new File("src/test/resources/workspace").toPath();
+    MetsIndex.Builder builder = new MetsIndex.Builder().addFileGrp("OCR-D-IMG");
+    builder.addFile("OCR-D-IMG_0001", "image/jpeg", "OCR-D-IMG/OCR-D-IMG_0001.jpg", null, null, null);
+    builder.addFileGrp("OCR-D-GT-SEG-PAGE");
+    for (int page = 1; page <= 4; page++) {
+      builder.addFile("OCR-D-GT-SEG-PAGE_000" + page, MetsUtil.PAGE_MIMETYPE, "OCR-D-GT-SEG-PAGE/OCR-D-GT-SEG-PAGE_000" + page + ".xml", null, null, null);
+    }
+    builder.addFile("OCR-D-GT-SEG-PAGE_REMOTE", MetsUtil.PAGE_MIMETYPE, "http://example.org/page.xml", null, null, null);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      WorkspaceStatistics statistics = PageStatisticsUtil.getWorkspaceStatistics(builder.build(), pathToMets, executor);
+      assertEquals(4, statistics.getPages().size());
+      assertTrue(statistics.getPages().get(0).getPath().endsWith("OCR-D-GT-SEG-PAGE_0001.xml"));
+      assertTrue(statistics.getPages().get(3).getPath().endsWith("OCR-D-GT-SEG-PAGE_0004.xml"));
+      PageStatistics summary = statistics.getSummary();
+      assertNull(summary.getPath());
+      assertEquals(4, summary.getNumberOfFiles());
+      assertEquals(24, summary.getNumberOfTextRegions());
+      assertEquals(Long.valueOf(4), summary.getRegionTypes().get("SeparatorRegion"));
+      assertEquals(28, summary.getNumberOfRegions());
+      assertEquals(24, summary.getNumberOfTextEquivs());
+      assertEquals(Long.valueOf(17), summary.getTextRegionTypes().get("paragraph"));
+    } finally {
+      executor.shutdown();
+    }
+  }
+}
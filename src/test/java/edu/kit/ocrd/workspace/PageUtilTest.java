@@ -6,6 +6,7 @@
 package edu.kit.ocrd.workspace;
 
 import edu.kit.ocrd.workspace.exception.WorkspaceException;
+import edu.kit.ocrd.workspace.validation.ValidationResult;
 import java.io.File;
 import org.junit.After;
 import org.junit.AfterClass;
@@ -164,4 +165,40 @@ public class PageUtilTest {
       assertTrue(wse.getMessage().startsWith(XmlUtil.UNKNOWN_NAMESPACE));
     }
   }
+
+  /**
+   * Test of validateCoords method, of class PageUtil.
+   */
+  @Test
+  public void testValidateCoords() {
+    System.out.println("testValidateCoords");
+    ValidationResult result = new ValidationResult();
+    PageUtil.validateCoords(new File("src/test/resources/page/valid_page.xml").toPath(), result);
+    assertTrue(result.isValid());
+    result = new ValidationResult();
+    PageUtil.validateCoords(new File("src/test/resources/page/invalid_coords_page.xml").toPath(), result);
+    assertEquals(4, result.getErrors().size());
+    assertTrue(result.getErrors().get(0).startsWith(PageUtil.TOO_FEW_POINTS));
+    assertTrue(result.getErrors().get(0).endsWith("(r0_l0_w0)"));
+    assertTrue(result.getErrors().get(1).startsWith(PageUtil.DEGENERATE_COORDS));
+    assertTrue(result.getErrors().get(1).endsWith("(r0_l0_w0_g0)"));
+    assertTrue(result.getErrors().get(2).startsWith(PageUtil.INVALID_COORDS));
+    assertTrue(result.getErrors().get(2).endsWith("(r0_l0_w0_g1)"));
+    assertTrue(result.getErrors().get(3).startsWith(PageUtil.COORDS_OUTSIDE_IMAGE));
+    assertTrue(result.getErrors().get(3).endsWith("(r1)"));
+  }
+
+  /**
+   * Test of validateCoords method with missing file, of class PageUtil.
+   */
+  @Test
+  public void testValidateCoordsMissingFile() {
+    System.out.println("testValidateCoordsMissingFile");
+    try {
+      PageUtil.validateCoords(new File("src/test/resources/page/notExists.xml").toPath(), new ValidationResult());
+      assertFalse(Boolean.TRUE);
+    } catch (WorkspaceException wse) {
+      assertTrue(wse.getMessage().startsWith(MetsUtil.ERROR_READING_FILE));
+    }
+  }
 }
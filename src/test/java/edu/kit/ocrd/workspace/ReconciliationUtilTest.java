@@ -0,0 +1,168 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.kit.ocrd.workspace;
+
+import edu.kit.ocrd.workspace.entity.ReconciliationReport;
+import edu.kit.ocrd.workspace.index.MetsIndex;
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author hartmann-v
+ */
+public class ReconciliationUtilTest {
+
+  public ReconciliationUtilTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() {
+  }
+
+  @After
+  public void tearDown() {
+  }
+
+  /**
+   * Test of reconcile method, of class ReconciliationUtil.
+   */
+  @Test
+  public void testReconcile() throws Exception {
+    System.out.println("testReconcile");
+    Path workspace = Files.createTempDirectory("reconcile");
+    try {
+      Files.createDirectories(workspace.resolve("OCR-D-IMG/sub"));
+      Files.write(workspace.resolve("mets.xml"), new byte[1]);
+      Files.write(workspace.resolve("OCR-D-IMG/IMG_0001.jpg"), new byte[10]);
+      Files.write(workspace.resolve("OCR-D-IMG/img_0002.JPG"), new byte[20]);
+      Files.write(workspace.resolve("OCR-D-IMG/sub/orphan.tif"), new byte[30]);
+      Files.write(workspace.resolve("orphan.txt"), new byte[5]);
+      MetsIndex metsIndex = new MetsIndex.Builder()
+              .addFileGrp("OCR-D-IMG")
+              .addFile("IMG_0001", "image/jpeg", "OCR-D-IMG/IMG_0001.jpg", null, null, null)
+              .addFile("IMG_0001_COPY", "image/jpeg", "./OCR-D-IMG/IMG_0001.jpg", null, null, null)
+              .addFile("IMG_0002", "image/jpeg", "OCR-D-IMG/IMG_0002.jpg", null, null, null)
+              .addFile("IMG_0003", "image/jpeg", "OCR-D-IMG/IMG_0003.jpg", null, null, null)
+              .addFile("IMG_REMOTE", "image/jpeg", "http://example.org/IMG_0004.jpg", null, null, null)
+              .addFile("IMG_OUTSIDE", "image/jpeg", "../IMG_0005.jpg", null, null, null)
+              .build();
+      ReconciliationReport report = ReconciliationUtil.reconcile(metsIndex, workspace, Collections.singleton("mets.xml"));
+      assertFalse(report.isConsistent());
+      assertEquals(5, report.getNumberOfFiles());
+      assertEquals(1, report.getNumberOfMatchedFiles());
+      assertEquals(1, report.getMissingFiles().size());
+      assertEquals("OCR-D-IMG/IMG_0003.jpg", report.getMissingFiles().get(0).getPath());
+      assertEquals(-1, report.getMissingFiles().get(0).getSize());
+      assertEquals(1, report.getCaseMismatchedFiles().size());
+      assertEquals("OCR-D-IMG/img_0002.JPG", report.getCaseMismatchedFiles().get(0).getPath());
+      assertEquals("OCR-D-IMG/IMG_0002.jpg", report.getCaseMismatchedFiles().get(0).getReferencedPath());
+      assertEquals(20, report.getCaseMismatchedFiles().get(0).getSize());
+      assertEquals(2, report.getOrphanedFiles().size());
+      assertEquals("OCR-D-IMG/sub/orphan.tif", report.getOrphanedFiles().get(0).getPath());
+      assertEquals(30, report.getOrphanedFiles().get(0).getSize());
+      assertEquals("orphan.txt", report.getOrphanedFiles().get(1).getPath());
+      assertEquals(35, report.getSizeOfOrphanedFiles());
+    } finally {
+      try (Stream<Path> paths = Files.walk(workspace)) {
+        paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+      }
+    }
+  }
+
+  /**
+   * Test of reconcile method with several case variants of referenced files,
+   * of class ReconciliationUtil.
+   */
+  @Test
+  public void testReconcileCaseVariants() throws Exception {
+    System.out.println("testReconcileCaseVariants");
+    Path workspace = Files.createTempDirectory("reconcile");
+    try {
+      Files.createDirectories(workspace.resolve("IMG"));
+      Files.write(workspace.resolve("IMG/a.tif"), new byte[1]);
+      Files.write(workspace.resolve("IMG/A.tif"), new byte[2]);
+      Files.write(workspace.resolve("IMG/B.tif"), new byte[3]);
+      Files.write(workspace.resolve("IMG/B.TIF"), new byte[4]);
+      MetsIndex metsIndex = new MetsIndex.Builder()
+              .addFileGrp("OCR-D-IMG")
+              .addFile("IMG_A", "image/tiff", "IMG/a.tif", null, null, null)
+              .addFile("IMG_B", "image/tiff", "IMG/b.tif", null, null, null)
+              .build();
+      ReconciliationReport report = ReconciliationUtil.reconcile(metsIndex, workspace, Collections.<String>emptySet());
+      assertEquals(4, report.getNumberOfFiles());
+      assertEquals(1, report.getNumberOfMatchedFiles());
+      assertTrue(report.getMissingFiles().isEmpty());
+      // Exact match exists, so case variant is orphaned.
+      assertEquals(1, report.getCaseMismatchedFiles().size());
+      assertEquals("IMG/B.TIF", report.getCaseMismatchedFiles().get(0).getPath());
+      assertEquals("IMG/b.tif", report.getCaseMismatchedFiles().get(0).getReferencedPath());
+      assertEquals(2, report.getOrphanedFiles().size());
+      assertEquals("IMG/A.tif", report.getOrphanedFiles().get(0).getPath());
+      assertEquals(2, report.getOrphanedFiles().get(0).getSize());
+      assertEquals("IMG/B.tif", report.getOrphanedFiles().get(1).getPath());
+      assertEquals(3, report.getOrphanedFiles().get(1).getSize());
+    } finally {
+      try (Stream<Path> paths = Files.walk(workspace)) {
+        paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+      }
+    }
+  }
+
+  /**
+   * Test of reconcile method with consistent workspace, of class ReconciliationUtil.
+   */
+  @Test
+  public void testReconcileConsistent() throws Exception {
+    System.out.println("testReconcileConsistent");
+    Path workspace = new File("src/test/resources/workspace").toPath();
+    MetsIndex.Builder builder = new MetsIndex.Builder().addFileGrp("OCR-D-IMG");
+    for (int page = 1; page <= 4; page++) {
+      builder.addFile("OCR-D-IMG_000" + page, "image/jpeg", "OCR-D-IMG/OCR-D-IMG_000" + page + ".jpg", null, null, null);
+    }
+    ReconciliationReport report = ReconciliationUtil.reconcile(builder.build(), workspace.resolve("OCR-D-IMG"), Collections.<String>emptySet());
+    assertEquals(4, report.getMissingFiles().size());
+    report = ReconciliationUtil.reconcile(builder.build(), workspace, Collections.<String>emptySet());
+    assertTrue(report.getMissingFiles().isEmpty());
+    assertTrue(report.getCaseMismatchedFiles().isEmpty());
+    assertEquals(4, report.getNumberOfMatchedFiles());
+    assertFalse(report.getOrphanedFiles().isEmpty());
+  }
+
+  /**
+   * Test of getRelativePath method, of class ReconciliationUtil.
+   */
+  @Test
+  public void testGetRelativePath() {
+    System.out.println("testGetRelativePath");
+    Path workspace = new File("src/test/resources/workspace").toPath().toAbsolutePath();
+    assertEquals("a/b.xml", ReconciliationUtil.getRelativePath(workspace, "a/./c/../b.xml"));
+    assertEquals("a/b.xml", ReconciliationUtil.getRelativePath(workspace, workspace.resolve("a/b.xml").toString()));
+    assertEquals("a/b.xml", ReconciliationUtil.getRelativePath(workspace, "file://" + workspace.resolve("a/b.xml").toString()));
+    assertNull(ReconciliationUtil.getRelativePath(workspace, "https://example.org/a.xml"));
+    assertNull(ReconciliationUtil.getRelativePath(workspace, "../a.xml"));
+    assertNull(ReconciliationUtil.getRelativePath(workspace, "/tmp/a.xml"));
+    assertNull(ReconciliationUtil.getRelativePath(workspace, null));
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.kit.ocrd.workspace;
+
+import edu.kit.ocrd.workspace.validation.ValidationResult;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author hartmann-v
+ */
+public class StructMapUtilTest {
+
+  private static final String METS_START = "<mets:mets xmlns:mets=\"http://www.loc.gov/METS/\" xmlns:xlink=\"http://www.w3.org/1999/xlink\">"
+          + "<mets:dmdSec ID=\"DMD_1\"/><mets:amdSec ID=\"AMD_1\"><mets:techMD ID=\"TECH_1\"/></mets:amdSec>"
+          + "<mets:fileSec><mets:fileGrp USE=\"OCR-D-IMG\">"
+          + "<mets:file ID=\"IMG_1\"/><mets:file ID=\"IMG_2\"/><mets:file ID=\"IMG_3\" ADMID=\"TECH_1\"/>"
+          + "</mets:fileGrp></mets:fileSec>";
+
+  public StructMapUtilTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() {
+  }
+
+  @After
+  public void tearDown() {
+  }
+
+  private static ValidationResult validate(final String structMaps) {
+    ValidationResult result = new ValidationResult();
+    String mets = METS_START + structMaps + "</mets:mets>";
+    StructMapUtil.validateStructure(new ByteArrayInputStream(mets.getBytes(StandardCharsets.UTF_8)), result);
+    return result;
+  }
+
+  /**
+   * Test of validateStructure method, of class StructMapUtil.
+   */
+  @Test
+  public void testValidateStructure() {
+    System.out.println("testValidateStructure");
+    ValidationResult result = validate("<mets:structMap TYPE=\"PHYSICAL\"><mets:div ID=\"PHYS_0\" TYPE=\"physSequence\" DMDID=\"DMD_1\" ADMID=\"AMD_1 TECH_1\">"
+            + "<mets:div ID=\"PHYS_2\" TYPE=\"page\" ORDER=\"2\"><mets:fptr FILEID=\"IMG_2\"/></mets:div>"
+            + "<mets:div ID=\"PHYS_1\" TYPE=\"page\" ORDER=\"1\"><mets:fptr FILEID=\"IMG_1\"/></mets:div>"
+            + "<mets:div ID=\"PHYS_3\" TYPE=\"page\" ORDER=\"3\"><mets:fptr><mets:area FILEID=\"IMG_3\"/></mets:fptr></mets:div>"
+            + "</mets:div></mets:structMap>"
+            + "<mets:structMap TYPE=\"LOGICAL\"><mets:div ID=\"LOG_0\" DMDID=\"DMD_1\"/></mets:structMap>"
+            + "<mets:structLink><mets:smLink xlink:from=\"LOG_0\" xlink:to=\"PHYS_1\"/><mets:smLink xlink:from=\"LOG_0\" xlink:to=\"PHYS_2\"/>"
+            + "<mets:smLink xlink:from=\"LOG_0\" xlink:to=\"PHYS_3\"/></mets:structLink>");
+    assertTrue(result.getErrors().toString(), result.isValid());
+    assertTrue(result.getWarnings().isEmpty());
+  }
+
+  /**
+   * Test of validateStructure method with invalid ORDER, of class
+   * StructMapUtil.
+   */
+  @Test
+  public void testValidateStructureInvalidOrder() {
+    System.out.println("testValidateStructureInvalidOrder");
+    ValidationResult result = validate("<mets:structMap TYPE=\"PHYSICAL\"><mets:div TYPE=\"physSequence\">"
+            + "<mets:div ID=\"PHYS_1\" TYPE=\"page\" ORDER=\"1\"/>"
+            + "<mets:div ID=\"PHYS_2\" TYPE=\"page\" ORDER=\"4\"/>"
+            + "<mets:div ID=\"PHYS_3\" TYPE=\"page\" ORDER=\"1\"/>"
+            + "<mets:div ID=\"PHYS_4\" TYPE=\"page\" ORDER=\"x\"/>"
+            + "<mets:div ID=\"PHYS_5\" TYPE=\"page\"/>"
+            + "</mets:div></mets:structMap>");
+    assertEquals(Arrays.asList(StructMapUtil.MISSING_ORDER + "PHYS_4",
+            StructMapUtil.MISSING_ORDER + "PHYS_5",
+            StructMapUtil.DUPLICATE_ORDER + "1 (PHYS_3)",
+            StructMapUtil.ORDER_NOT_CONTIGUOUS + "2 (2 value(s) missing between 1 and 4)"), result.getErrors());
+  }
+
+  /**
+   * Test of validateStructure method with sparse ORDER, of class
+   * StructMapUtil.
+   */
+  @Test
+  public void testValidateStructureSparseOrder() {
+    System.out.println("testValidateStructureSparseOrder");
+    ValidationResult result = validate("<mets:structMap TYPE=\"PHYSICAL\"><mets:div TYPE=\"physSequence\">"
+            + "<mets:div ID=\"PHYS_1\" TYPE=\"page\" ORDER=\"1000\"/>"
+            + "<mets:div ID=\"PHYS_2\" TYPE=\"page\" ORDER=\"1\"/>"
+            + "<mets:div ID=\"PHYS_3\" TYPE=\"page\" ORDER=\"1000\"/>"
+            + "</mets:div></mets:structMap>");
+    assertEquals(Arrays.asList(StructMapUtil.DUPLICATE_ORDER + "1000 (PHYS_3)",
+            StructMapUtil.ORDER_NOT_CONTIGUOUS + "2 (998 value(s) missing between 1 and 1000)"), result.getErrors());
+  }
+
+  /**
+   * Test of validateStructure method with unresolved references, of class
+   * StructMapUtil.
+   */
+  @Test
+  public void testValidateStructureUnresolvedReferences() {
+    System.out.println("testValidateStructureUnresolvedReferences");
+    ValidationResult result = validate("<mets:structMap TYPE=\"PHYSICAL\"><mets:div ID=\"PHYS_0\" TYPE=\"physSequence\" ADMID=\"TECH_1 TECH_2\">"
+            + "<mets:div ID=\"PHYS_1\" TYPE=\"page\" ORDER=\"1\" DMDID=\"DMD_2\"><mets:fptr FILEID=\"IMG_1\"/><mets:fptr FILEID=\"IMG_4\"/></mets:div>"
+            + "<mets:div ID=\"PHYS_2\" TYPE=\"page\" ORDER=\"2\"><mets:fptr FILEID=\"DMD_1\"/></mets:div>"
+            + "<mets:div ID=\"IMG_1\" TYPE=\"page\" ORDER=\"3\"/>"
+            + "</mets:div></mets:structMap>"
+            + "<mets:structMap TYPE=\"LOGICAL\"><mets:div ID=\"LOG_0\"/></mets:structMap>"
+            + "<mets:structLink><mets:smLink xlink:from=\"LOG_0\" xlink:to=\"PHYS_1\"/><mets:smLink xlink:from=\"PHYS_2\" xlink:to=\"LOG_0\"/></mets:structLink>");
+    assertEquals(Arrays.asList(StructMapUtil.DUPLICATE_ID + "IMG_1",
+            StructMapUtil.UNRESOLVED_FILEID + "IMG_4",
+            StructMapUtil.UNRESOLVED_FILEID + "DMD_1",
+            StructMapUtil.UNRESOLVED_DMDID + "DMD_2",
+            StructMapUtil.UNRESOLVED_ADMID + "TECH_2",
+            StructMapUtil.UNRESOLVED_LINK_FROM + "PHYS_2",
+            StructMapUtil.UNRESOLVED_LINK_TO + "LOG_0"), result.getErrors());
+    assertEquals(Arrays.asList(StructMapUtil.PAGE_NOT_LINKED + "PHYS_2", StructMapUtil.PAGE_NOT_LINKED + "IMG_1"), result.getWarnings());
+  }
+
+  /**
+   * Test of validateStructure method with METS file, of class StructMapUtil.
+   */
+  @Test
+  public void testValidateStructureFile() {
+    System.out.println("testValidateStructureFile");
+    ValidationResult result = new ValidationResult();
+    StructMapUtil.validateStructure(new File("src/test/resources/workspace/valid_mets.xml").toPath(), result);
+    assertTrue(result.getErrors().toString(), result.isValid());
+  }
+}
@@ -0,0 +1,223 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.kit.ocrd.workspace;
+
+import edu.kit.ocrd.workspace.index.DocumentBackend;
+import edu.kit.ocrd.workspace.validation.ValidationCheck;
+import edu.kit.ocrd.workspace.validation.ValidationProfile;
+import edu.kit.ocrd.workspace.validation.ValidationResult;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author hartmann-v
+ */
+public class ValidationCoordinatorTest {
+
+  /**
+   * Checks used by all tests.
+   */
+  private static final ValidationProfile PROFILE = ValidationProfile.of(ValidationCheck.PHYSICAL_MAP,
+          ValidationCheck.FEATURES,
+          ValidationCheck.FILE_EXISTENCE,
+          ValidationCheck.MIME_TYPE);
+  /**
+   * Valid workspace.
+   */
+  private static final Path VALID_METS = new File("src/test/resources/workspace/valid_mets.xml").toPath().toAbsolutePath();
+  /**
+   * Invalid workspace.
+   */
+  private static final Path INVALID_METS = new File("src/test/resources/workspace/different_mimetype_inside_fileGrp_mets.xml").toPath().toAbsolutePath();
+  /**
+   * Job directory.
+   */
+  private Path jobDirectory;
+  /**
+   * Backend before test.
+   */
+  private DocumentBackend backend;
+
+  public ValidationCoordinatorTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() throws IOException {
+    jobDirectory = Files.createTempDirectory("job");
+    backend = XmlUtil.getDocumentBackend();
+    XmlUtil.setDocumentBackend(DocumentBackend.TOKEN_INDEX);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    XmlUtil.setDocumentBackend(backend);
+    try (Stream<Path> paths = Files.walk(jobDirectory)) {
+      paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+
+  /**
+   * Test of submit method for many workspaces, of class ValidationCoordinator.
+   */
+  @Test
+  public void testSubmitWorkspaces() {
+    System.out.println("testSubmitWorkspaces");
+    ValidationCoordinator coordinator = new ValidationCoordinator(jobDirectory);
+    List<String> leaseIds = coordinator.submit(Arrays.asList(INVALID_METS, VALID_METS), PROFILE);
+    assertEquals(Arrays.asList("00000001", "00000002"), leaseIds);
+    assertFalse(coordinator.isFinished());
+    ValidationWorker worker = new ValidationWorker(jobDirectory, "worker-1");
+    assertEquals(2, worker.run());
+    assertFalse(worker.processNext());
+    assertTrue(coordinator.isFinished());
+    Map<Path, ValidationResult> results = coordinator.merge();
+    assertEquals(Arrays.asList(INVALID_METS, VALID_METS), new ArrayList<>(results.keySet()));
+    for (Path metsFile : results.keySet()) {
+      ValidationResult expected = MetsUtil.validate(metsFile, PROFILE, null, PageShardUtil.getDefaultPool());
+      assertEquals(expected.getErrors(), results.get(metsFile).getErrors());
+      assertEquals(expected.getWarnings(), results.get(metsFile).getWarnings());
+    }
+    assertFalse(results.get(INVALID_METS).isValid());
+    assertTrue(results.get(VALID_METS).isValid());
+    // IDs of further leases continue.
+    assertEquals(Arrays.asList("00000003"), coordinator.submit(Arrays.asList(VALID_METS), PROFILE));
+  }
+
+  /**
+   * Test of submit method for page ranges, of class ValidationCoordinator.
+   */
+  @Test
+  public void testSubmitPageRanges() throws InterruptedException {
+    System.out.println("testSubmitPageRanges");
+    ValidationCoordinator coordinator = new ValidationCoordinator(jobDirectory);
+    assertEquals(2, coordinator.submit(INVALID_METS, PROFILE, 3).size());
+    List<Thread> threads = new ArrayList<>();
+    for (int index = 0; index < 3; index++) {
+      ValidationWorker worker = new ValidationWorker(jobDirectory, "worker-" + index);
+      Thread thread = new Thread(worker::run);
+      thread.start();
+      threads.add(thread);
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    Map<Path, ValidationResult> results = coordinator.await(1000);
+    assertEquals(1, results.size());
+    ValidationResult expected = MetsUtil.validate(INVALID_METS, PROFILE, null, PageShardUtil.getDefaultPool());
+    assertEquals(new HashSet<>(expected.getErrors()), new HashSet<>(results.get(INVALID_METS).getErrors()));
+    assertEquals(new HashSet<>(expected.getWarnings()), new HashSet<>(results.get(INVALID_METS).getWarnings()));
+    assertFalse(results.get(INVALID_METS).isValid());
+  }
+
+  /**
+   * Test of expired leases, of class ValidationCoordinator.
+   */
+  @Test
+  public void testExpiredLease() throws IOException {
+    System.out.println("testExpiredLease");
+    ValidationCoordinator coordinator = new ValidationCoordinator(jobDirectory);
+    coordinator.setLeaseTimeout(1000);
+    coordinator.submit(Arrays.asList(VALID_METS, VALID_METS), PROFILE);
+    FileTime expired = FileTime.fromMillis(System.currentTimeMillis() - 10000);
+    // First lease held by a crashed worker.
+    Path claim = Files.createFile(jobDirectory.resolve("00000001.0" + ValidationCoordinator.CLAIM_SUFFIX));
+    Files.setLastModifiedTime(claim, expired);
+    // Second lease held by crashed workers for all attempts.
+    for (int attempt = 0; attempt < ValidationCoordinator.MAX_ATTEMPTS; attempt++) {
+      claim = Files.createFile(jobDirectory.resolve("00000002." + attempt + ValidationCoordinator.CLAIM_SUFFIX));
+      Files.setLastModifiedTime(claim, expired);
+    }
+    Map<Path, ValidationResult> results = coordinator.merge();
+    assertEquals(Arrays.asList(ValidationCoordinator.LEASE_NOT_FINISHED + "00000001 (" + VALID_METS + ")",
+            ValidationCoordinator.LEASE_FAILED + "00000002 (" + VALID_METS + ")"), results.get(VALID_METS).getErrors());
+    ValidationWorker worker = new ValidationWorker(jobDirectory, "worker-1");
+    assertTrue(worker.processNext());
+    assertTrue(Files.exists(jobDirectory.resolve("00000001.1" + ValidationCoordinator.CLAIM_SUFFIX)));
+    assertFalse(worker.processNext());
+    assertTrue(coordinator.isFinished());
+    results = coordinator.merge();
+    assertEquals(Arrays.asList(ValidationCoordinator.LEASE_FAILED + "00000002 (" + VALID_METS + ")"), results.get(VALID_METS).getErrors());
+  }
+
+  /**
+   * Test of validate method with broken leases, of class ValidationWorker.
+   */
+  @Test
+  public void testValidateBrokenLease() {
+    System.out.println("testValidateBrokenLease");
+    XmlUtil.setDocumentBackend(DocumentBackend.JDOM);
+    Properties lease = new Properties();
+    lease.setProperty("mets", VALID_METS.toString());
+    lease.setProperty("profile", "features");
+    lease.setProperty("backend", DocumentBackend.TOKEN_INDEX.toString());
+    // Page range doesn't exist (e.g. METS changed after submitting).
+    lease.setProperty("fromPage", "100");
+    lease.setProperty("toPage", "200");
+    ValidationResult result = ValidationWorker.validate(lease);
+    assertEquals(1, result.getErrors().size());
+    assertTrue(result.getErrors().get(0).startsWith(ValidationWorker.ERROR_VALIDATING_LEASE));
+    // Backend of lease doesn't change global settings.
+    assertEquals(DocumentBackend.JDOM, XmlUtil.getDocumentBackend());
+    lease.setProperty("fromPage", "first");
+    result = ValidationWorker.validate(lease);
+    assertTrue(result.getErrors().get(0).startsWith(ValidationWorker.ERROR_VALIDATING_LEASE));
+  }
+
+  /**
+   * Test of running several worker processes, of class ValidationCoordinator.
+   */
+  @Test
+  public void testWorkerProcesses() throws IOException, InterruptedException {
+    System.out.println("testWorkerProcesses");
+    ValidationCoordinator coordinator = new ValidationCoordinator(jobDirectory);
+    coordinator.submit(VALID_METS, PROFILE, 1);
+    coordinator.submit(Arrays.asList(INVALID_METS), PROFILE);
+    String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+    List<Process> processes = new ArrayList<>();
+    for (int index = 0; index < 2; index++) {
+      ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+              ValidationWorker.class.getName(), jobDirectory.toString(), "process-" + index);
+      builder.redirectErrorStream(true);
+      builder.redirectOutput(jobDirectory.resolve("process-" + index + ".log").toFile());
+      processes.add(builder.start());
+    }
+    for (Process process : processes) {
+      assertTrue(process.waitFor(60, TimeUnit.SECONDS));
+      assertEquals(0, process.exitValue());
+    }
+    Map<Path, ValidationResult> results = coordinator.await(1000);
+    assertTrue(results.get(VALID_METS).isValid());
+    assertFalse(results.get(INVALID_METS).isValid());
+  }
+}
@@ -0,0 +1,160 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.kit.ocrd.workspace;
+
+import edu.kit.ocrd.workspace.entity.MetsFile;
+import edu.kit.ocrd.workspace.index.MetsIndex;
+import edu.kit.ocrd.workspace.index.XmlIndex;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author hartmann-v
+ */
+public class WorkspaceTest {
+
+  public WorkspaceTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() {
+  }
+
+  @After
+  public void tearDown() {
+  }
+
+  /**
+   * Get IDs of files.
+   *
+   * @param files Files.
+   * @return IDs.
+   */
+  private static String[] getIds(final List<MetsFile> files) {
+    String[] ids = new String[files.size()];
+    for (int index = 0; index < ids.length; index++) {
+      ids[index] = files.get(index).getId();
+    }
+    return ids;
+  }
+
+  /**
+   * Test of load method, of class Workspace.
+   */
+  @Test
+  public void testLoad() {
+    System.out.println("testLoad");
+    Workspace workspace = Workspace.load(new File("src/test/resources/workspace/valid_mets.xml").toPath());
+    assertEquals(16, workspace.findFiles(null, null, null, null).size());
+  }
+
+  /**
+   * Test of findFiles method, of class Workspace.
+   */
+  @Test
+  public void testFindFiles() {
+    System.out.println("testFindFiles");
+    Path metsFile = new File("src/test/resources/workspace/valid_mets.xml").toPath();
+    Workspace workspace = new Workspace(metsFile, MetsIndex.build(XmlIndex.parse(metsFile)));
+    List<MetsFile> files = workspace.findFiles("OCR-D-GT-SEG-PAGE", "phys_0002");
+    assertEquals(1, files.size());
+    MetsFile file = files.get(0);
+    assertEquals("OCR-D-GT-SEG-PAGE_0002", file.getId());
+    assertEquals("OCR-D-GT-SEG-PAGE", file.getFileGrp());
+    assertEquals("phys_0002", file.getPageId());
+    assertEquals(2, file.getPageOrder());
+    assertEquals("application/vnd.prima.page+xml", file.getMimetype());
+    assertEquals("OCR-D-GT-SEG-PAGE/OCR-D-GT-SEG-PAGE_0002.xml", file.getUrl());
+    assertArrayEquals(new String[]{"DEFAULT_0001", "OCR-D-IMG_0001", "DEFAULT_0002", "OCR-D-IMG_0002", "DEFAULT_0003", "OCR-D-IMG_0003", "DEFAULT_0004", "OCR-D-IMG_0004"},
+            getIds(workspace.findFiles(null, null, "image/jpeg", null)));
+    assertArrayEquals(new String[]{"OCR-D-GT-SEG-PAGE_0003", "OCR-D-GT-SEG-BLOCK_0003"},
+            getIds(workspace.findFiles(null, "phys_0003", "application/vnd.prima.page+xml", null)));
+    assertArrayEquals(new String[]{"OCR-D-GT-SEG-BLOCK_0001", "OCR-D-GT-SEG-BLOCK_0002", "OCR-D-GT-SEG-BLOCK_0003", "OCR-D-GT-SEG-BLOCK_0004"},
+            getIds(workspace.findFiles(null, null, null, "OCR-D-GT-*-BLOCK_*")));
+    assertArrayEquals(new String[]{"OCR-D-IMG_0004"}, getIds(workspace.findFiles(null, null, null, "OCR-D-IMG_0004")));
+    assertArrayEquals(new String[]{"OCR-D-IMG_0001"}, getIds(workspace.findFiles(null, "phys_0001", null, "*-?MG_*1")));
+    assertArrayEquals(new String[]{"OCR-D-GT-SEG-PAGE_0001"}, getIds(workspace.findFiles(null, "phys_0001", null, "*-????_*1")));
+    assertEquals(16, workspace.findFiles(null, null, null, "*").size());
+    assertTrue(workspace.findFiles("unknown", null, null, null).isEmpty());
+    assertTrue(workspace.findFiles(null, "unknown", null, null).isEmpty());
+    assertTrue(workspace.findFiles(null, null, "text/plain", null).isEmpty());
+    assertTrue(workspace.findFiles(null, null, null, "unknown*").isEmpty());
+    assertTrue(workspace.findFiles(null, null, null, "OCR-D-IMG_0004.").isEmpty());
+    assertEquals(Arrays.asList("phys_0001", "phys_0002", "phys_0003", "phys_0004"), workspace.getPageIds());
+  }
+
+  /**
+   * Test of findFiles method with pages not in document order, of class Workspace.
+   */
+  @Test
+  public void testFindFilesInPageOrder() {
+    System.out.println("testFindFilesInPageOrder");
+    MetsIndex metsIndex = new MetsIndex.Builder()
+            .addFileGrp("OCR-D-IMG")
+            .addFile("IMG_A", "image/tiff", "a.tif", null, null, null)
+            .addFile("IMG_B", "image/tiff", "b.tif", null, null, null)
+            .addFile("IMG_C", "image/tiff", "c.tif", null, null, null)
+            .addFile("IMG_D", "image/tiff", "d.tif", null, null, null)
+            .addFile("IMG_E", "image/tiff", "e.tif", "PHYS_OLD", null, null)
+            .addPage("PHYS_NONE", null, null)
+            .addFilePointer("IMG_D")
+            .addPage("PHYS_2", "2", null)
+            .addFilePointer("IMG_A")
+            .addPage("PHYS_1", "1", null)
+            .addFilePointer("IMG_C")
+            .addFilePointer("IMG_B")
+            .build();
+    Workspace workspace = new Workspace(null, metsIndex);
+    assertArrayEquals(new String[]{"IMG_B", "IMG_C", "IMG_A", "IMG_D", "IMG_E"}, getIds(workspace.findFiles("OCR-D-IMG", null, null, null)));
+    assertArrayEquals(new String[]{"IMG_B", "IMG_C", "IMG_A", "IMG_D", "IMG_E"}, getIds(workspace.findFiles(null, null, null, "IMG_?")));
+    assertArrayEquals(new String[]{"IMG_E"}, getIds(workspace.findFiles(null, "PHYS_OLD", null, null)));
+    assertEquals(MetsIndex.NO_ORDER, workspace.findFiles(null, "PHYS_OLD", null, null).get(0).getPageOrder());
+    assertEquals(Arrays.asList("PHYS_1", "PHYS_2", "PHYS_NONE"), workspace.getPageIds());
+  }
+
+  /**
+   * Test of findFiles method with file linked by several pages, of class
+   * Workspace.
+   */
+  @Test
+  public void testFindFilesSharedByPages() {
+    System.out.println("testFindFilesSharedByPages");
+    MetsIndex metsIndex = new MetsIndex.Builder()
+            .addFileGrp("OCR-D-IMG")
+            .addFile("IMG_A", "image/tiff", "a.tif", null, null, null)
+            .addFile("IMG_B", "image/tiff", "b.tif", null, null, null)
+            .addFile("IMG_SHARED", "image/tiff", "shared.tif", null, null, null)
+            .addPage("PHYS_1", "1", null)
+            .addFilePointer("IMG_A")
+            .addFilePointer("IMG_SHARED")
+            .addPage("PHYS_2", "2", null)
+            .addFilePointer("IMG_SHARED")
+            .addFilePointer("IMG_B")
+            .addFilePointer("IMG_SHARED")
+            .build();
+    Workspace workspace = new Workspace(null, metsIndex);
+    assertArrayEquals(new String[]{"IMG_A", "IMG_SHARED"}, getIds(workspace.findFiles(null, "PHYS_1", null, null)));
+    assertArrayEquals(new String[]{"IMG_SHARED", "IMG_B"}, getIds(workspace.findFiles(null, "PHYS_2", null, null)));
+    assertArrayEquals(new String[]{"IMG_SHARED"}, getIds(workspace.findFiles(null, "PHYS_2", null, "IMG_SHARED")));
+  }
+}
@@ -6,7 +6,17 @@
 package edu.kit.ocrd.workspace;
 
 import edu.kit.ocrd.workspace.exception.WorkspaceException;
+import edu.kit.ocrd.workspace.validation.ValidationProfile;
 import java.io.File;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -105,5 +115,73 @@ public class WorkspaceUtilTest {
       assertTrue(wse.getMessage().startsWith(XmlUtil.ERROR_VALIDATING_XML));
     }
   }
-  
+
+  /**
+   * Test of validateOcrdZip method, of class WorkspaceUtil.
+   */
+  @Test
+  public void testValidateOcrdZip() throws Exception {
+    System.out.println("testValidateOcrdZip");
+    Path ocrdZip = Files.createTempFile("workspace", ".ocrd.zip");
+    Files.delete(ocrdZip);
+    try {
+      StringBuilder manifest = new StringBuilder();
+      try (FileSystem zipFileSystem = FileSystems.newFileSystem(URI.create("jar:" + ocrdZip.toUri()), Collections.singletonMap("create", "true"))) {
+        Path root = zipFileSystem.getPath("/");
+        Files.write(root.resolve("bagit.txt"), "BagIt-Version: 1.0\nTag-File-Character-Encoding: UTF-8\n".getBytes(StandardCharsets.UTF_8));
+        Path workspace = Paths.get("src/test/resources/workspace");
+        Path data = root.resolve("data");
+        Files.createDirectories(data);
+        Files.copy(workspace.resolve("valid_mets.xml"), data.resolve("mets.xml"));
+        manifest.append(ChecksumUtil.getChecksum(data.resolve("mets.xml"), "sha256")).append(" data/mets.xml\n");
+        for (String fileGrp : new String[]{"OCR-D-IMG", "OCR-D-GT-SEG-PAGE", "OCR-D-GT-SEG-BLOCK"}) {
+          Files.createDirectories(data.resolve(fileGrp));
+          try (DirectoryStream<Path> files = Files.newDirectoryStream(workspace.resolve(fileGrp))) {
+            for (Path file : files) {
+              Path target = data.resolve(fileGrp).resolve(file.getFileName().toString());
+              Files.copy(file, target);
+              manifest.append(ChecksumUtil.getChecksum(target, "sha256")).append(" data/").append(fileGrp).append("/").append(file.getFileName()).append("\n");
+            }
+          }
+        }
+        Files.write(root.resolve("manifest-sha256.txt"), manifest.toString().getBytes(StandardCharsets.UTF_8));
+      }
+      assertTrue(WorkspaceUtil.validateOcrdZip(ocrdZip, ValidationProfile.FULL));
+
+      // Manipulate manifest
+      try (FileSystem zipFileSystem = FileSystems.newFileSystem(ocrdZip, (ClassLoader) null)) {
+        Files.write(zipFileSystem.getPath("/manifest-sha256.txt"), manifest.toString().replaceFirst("^[0-9a-f]", "x").getBytes(StandardCharsets.UTF_8));
+      }
+      assertTrue(WorkspaceUtil.validateOcrdZip(ocrdZip, ValidationProfile.STANDARD));
+      try {
+        WorkspaceUtil.validateOcrdZip(ocrdZip, ValidationProfile.FULL);
+        assertTrue(Boolean.FALSE);
+      } catch (WorkspaceException wse) {
+        assertTrue(wse.getMessage().startsWith(BagItUtil.CHECKSUM_MISMATCH));
+      }
+    } finally {
+      Files.deleteIfExists(ocrdZip);
+    }
+  }
+
+  /**
+   * Test of validateOcrdZip method, of class WorkspaceUtil.
+   */
+  @Test
+  public void testValidateOcrdZipNoBag() throws Exception {
+    System.out.println("testValidateOcrdZipNoBag");
+    Path ocrdZip = Files.createTempFile("workspace", ".ocrd.zip");
+    Files.delete(ocrdZip);
+    try {
+      try (FileSystem zipFileSystem = FileSystems.newFileSystem(URI.create("jar:" + ocrdZip.toUri()), Collections.singletonMap("create", "true"))) {
+        Files.write(zipFileSystem.getPath("/mets.xml"), new byte[0]);
+      }
+      WorkspaceUtil.validateOcrdZip(ocrdZip, ValidationProfile.STANDARD);
+      assertTrue(Boolean.FALSE);
+    } catch (WorkspaceException wse) {
+      assertTrue(wse.getMessage().startsWith(BagItUtil.NO_BAG));
+    } finally {
+      Files.deleteIfExists(ocrdZip);
+    }
+  }
 }
@@ -0,0 +1,108 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.kit.ocrd.workspace.index;
+
+import edu.kit.ocrd.workspace.XmlUtil;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.jdom.Document;
+
+/**
+ * Benchmark comparing the heap used by the JDOM document of a large METS file
+ * with the heap used by the index. Not executed by the tests.
+ *
+ * Usage: java -cp ... edu.kit.ocrd.workspace.index.MetsIndexMemoryBenchmark [noOfPages]
+ *
+ * @author hartmann-v
+ */
+public class MetsIndexMemoryBenchmark {
+
+  /**
+   * File groups of generated METS.
+   */
+  private static final String[] FILE_GRPS = {"OCR-D-IMG", "OCR-D-GT-SEG-PAGE", "OCR-D-OCR-TESS", "OCR-D-OCR-CALAMARI"};
+
+  /**
+   * Run benchmark.
+   *
+   * @param args Number of pages (default 100000).
+   * @throws IOException Error writing METS.
+   */
+  public static void main(final String[] args) throws IOException {
+    int noOfPages = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+    Path metsFile = Files.createTempFile("benchmark", ".xml");
+    try {
+      writeMets(metsFile, noOfPages);
+      System.out.println("METS: " + noOfPages * FILE_GRPS.length + " files, " + Files.size(metsFile) / 1024 + " kB");
+      long baseline = getUsedMemory();
+      Document document = XmlUtil.getDocument(metsFile);
+      long documentMemory = getUsedMemory() - baseline;
+      MetsIndex jdomIndex = MetsIndex.build(document);
+      long indexMemory = getUsedMemory() - baseline - documentMemory;
+      document = null;
+      long tokenBaseline = getUsedMemory();
+      XmlIndex xmlIndex = XmlIndex.parse(metsFile);
+      long xmlIndexMemory = getUsedMemory() - tokenBaseline;
+      System.out.println("JDOM document: " + documentMemory / 1024 + " kB");
+      System.out.println("Token index:   " + xmlIndexMemory / 1024 + " kB");
+      System.out.println("METS index:    " + indexMemory / 1024 + " kB");
+      System.out.println("(files: " + jdomIndex.getNumberOfFiles() + ", token index: " + xmlIndex.getSize() + " bytes)");
+    } finally {
+      Files.delete(metsFile);
+    }
+  }
+
+  /**
+   * Get used heap after garbage collection.
+   *
+   * @return Used heap in bytes.
+   */
+  private static long getUsedMemory() {
+    Runtime runtime = Runtime.getRuntime();
+    for (int index = 0; index < 3; index++) {
+      System.gc();
+    }
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  /**
+   * Write METS with the given number of pages. Each page has one file in each
+   * file group.
+   *
+   * @param metsFile METS file.
+   * @param noOfPages Number of pages.
+   * @throws IOException Error writing file.
+   */
+  private static void writeMets(final Path metsFile, final int noOfPages) throws IOException {
+    try (Writer writer = Files.newBufferedWriter(metsFile, StandardCharsets.UTF_8)) {
+      writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+              + "<mets:mets xmlns:mets=\"http://www.loc.gov/METS/\" xmlns:xlink=\"http://www.w3.org/1999/xlink\">\n"
+              + "<mets:fileSec>\n");
+      for (String fileGrp : FILE_GRPS) {
+        writer.write("<mets:fileGrp USE=\"" + fileGrp + "\">\n");
+        String mimetype = fileGrp.equals("OCR-D-IMG") ? "image/tiff" : "application/vnd.prima.page+xml";
+        for (int page = 1; page <= noOfPages; page++) {
+          String id = String.format("%s_%07d", fileGrp, page);
+          writer.write("<mets:file ID=\"" + id + "\" MIMETYPE=\"" + mimetype + "\"><mets:FLocat LOCTYPE=\"OTHER\" OTHERLOCTYPE=\"FILE\" xlink:href=\""
+                  + fileGrp + "/" + id + ".xml\"/></mets:file>\n");
+        }
+        writer.write("</mets:fileGrp>\n");
+      }
+      writer.write("</mets:fileSec>\n<mets:structMap TYPE=\"PHYSICAL\"><mets:div TYPE=\"physSequence\">\n");
+      for (int page = 1; page <= noOfPages; page++) {
+        writer.write(String.format("<mets:div TYPE=\"page\" ID=\"PHYS_%07d\" ORDER=\"%d\">", page, page));
+        for (String fileGrp : FILE_GRPS) {
+          writer.write(String.format("<mets:fptr FILEID=\"%s_%07d\"/>", fileGrp, page));
+        }
+        writer.write("</mets:div>\n");
+      }
+      writer.write("</mets:div></mets:structMap>\n</mets:mets>\n");
+    }
+  }
+}
@@ -0,0 +1,129 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.kit.ocrd.workspace.index;
+
+import java.io.File;
+import org.fzk.tools.xml.JaxenUtil;
+import org.jdom.Document;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author hartmann-v
+ */
+public class MetsIndexTest {
+
+  public MetsIndexTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() {
+  }
+
+  @After
+  public void tearDown() {
+  }
+
+  /**
+   * Test of build method, of class MetsIndex.
+   */
+  @Test
+  public void testBuild() throws Exception {
+    System.out.println("testBuild");
+    Document metsDocument = JaxenUtil.getDocument(new File("src/test/resources/workspace/valid_mets.xml"));
+    MetsIndex index = MetsIndex.build(metsDocument);
+    assertEquals(4, index.getNumberOfFileGrps());
+    assertEquals("OCR-D-IMG", index.getFileGrpUse(1));
+    assertEquals(1, index.getFileGrp("OCR-D-IMG"));
+    assertEquals(MetsIndex.NOT_FOUND, index.getFileGrp("OCR-D-UNKNOWN"));
+    assertEquals(16, index.getNumberOfFiles());
+    assertArrayEquals(new int[]{4, 5, 6, 7}, index.getFilesOfFileGrp(1));
+    int file = index.getFile("OCR-D-GT-SEG-PAGE_0002");
+    assertEquals(9, file);
+    assertEquals("application/vnd.prima.page+xml", index.getFileMimetype(file));
+    assertEquals("OCR-D-GT-SEG-PAGE/OCR-D-GT-SEG-PAGE_0002.xml", index.getFileUrl(file));
+    assertEquals(2, index.getFileGrpOfFile(file));
+    assertEquals(1, index.getPageOfFile(file));
+    assertEquals("phys_0002", index.getPageIdOfFile(file));
+    assertEquals(MetsIndex.NOT_FOUND, index.getFile("unknown"));
+    assertEquals(4, index.getNumberOfPages());
+    assertEquals("phys_0004", index.getPageId(3));
+    assertEquals(4, index.getPageOrder(3));
+    assertEquals("DMGT_0004", index.getPageDmdId(3));
+    assertArrayEquals(new int[]{3, 7, 11, 15}, index.getFilesOfPage(3));
+    assertEquals("OCR-D-IMG_0004", index.getFileIdsOfPage(3)[1]);
+    assertEquals(1, index.getNumberOfPhysicalMaps());
+    assertEquals(1, index.getNumberOfPhysicalSequences());
+    assertArrayEquals(new String[]{"granularity/physical/document-related/region"}, index.getGroundTruthProperties("DMGT_0001"));
+    assertEquals(0, index.getGroundTruthProperties("dmdSec_0001").length);
+  }
+
+  /**
+   * Test of builder, of class MetsIndex.
+   */
+  @Test
+  public void testBuilder() {
+    System.out.println("testBuilder");
+    MetsIndex.Builder builder = new MetsIndex.Builder();
+    builder.addFileGrp("A");
+    builder.addFileGrp("B");
+    builder.addFile("B_1", "image/png", "B/1.png", null, null, null);
+    for (int index = 0; index < 100; index++) {
+      builder.addPage("PHYS_" + index, Integer.toString(index + 1), null);
+      builder.addFilePointer("B_1");
+      builder.addFilePointer("MISSING");
+    }
+    builder.addPage("PHYS_X", "x", null);
+    MetsIndex index = builder.build();
+    assertEquals(0, index.getFilesOfFileGrp(0).length);
+    assertArrayEquals(new int[]{0}, index.getFilesOfFileGrp(1));
+    assertEquals(101, index.getNumberOfPages());
+    assertArrayEquals(new int[]{0, MetsIndex.NOT_FOUND}, index.getFilesOfPage(99));
+    assertEquals(100, index.getPageOrder(99));
+    assertEquals(MetsIndex.NO_ORDER, index.getPageOrder(100));
+    assertEquals(0, index.getFilesOfPage(100).length);
+    assertEquals(0, index.getPageOfFile(0));
+  }
+
+  /**
+   * Test of build method with token index, of class MetsIndex.
+   */
+  @Test
+  public void testBuildFromXmlIndex() throws Exception {
+    System.out.println("testBuildFromXmlIndex");
+    MetsIndex index = MetsIndex.build(XmlIndex.parse(new File("src/test/resources/workspace/valid_mets.xml").toPath()));
+    assertEquals(4, index.getNumberOfFileGrps());
+    assertEquals("OCR-D-IMG", index.getFileGrpUse(1));
+    assertEquals(16, index.getNumberOfFiles());
+    assertArrayEquals(new int[]{4, 5, 6, 7}, index.getFilesOfFileGrp(1));
+    int file = index.getFile("OCR-D-GT-SEG-PAGE_0002");
+    assertEquals(9, file);
+    assertEquals("application/vnd.prima.page+xml", index.getFileMimetype(file));
+    assertEquals("OCR-D-GT-SEG-PAGE/OCR-D-GT-SEG-PAGE_0002.xml", index.getFileUrl(file));
+    assertEquals("phys_0002", index.getPageIdOfFile(file));
+    assertEquals(4, index.getNumberOfPages());
+    assertEquals(4, index.getPageOrder(3));
+    assertEquals("DMGT_0004", index.getPageDmdId(3));
+    assertArrayEquals(new int[]{3, 7, 11, 15}, index.getFilesOfPage(3));
+    assertEquals(1, index.getNumberOfPhysicalMaps());
+    assertEquals(1, index.getNumberOfPhysicalSequences());
+    assertArrayEquals(new String[]{"granularity/physical/document-related/region"}, index.getGroundTruthProperties("DMGT_0001"));
+    assertEquals(0, index.getGroundTruthProperties("dmdSec_0001").length);
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.kit.ocrd.workspace.index;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author hartmann-v
+ */
+public class MetsSnapshotTest {
+
+  public MetsSnapshotTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() {
+  }
+
+  @After
+  public void tearDown() {
+  }
+
+  /**
+   * Test of write and load method, of class MetsSnapshot.
+   */
+  @Test
+  public void testWriteAndLoad() throws Exception {
+    System.out.println("testWriteAndLoad");
+    Path directory = Files.createTempDirectory("snapshot");
+    try {
+      Path metsFile = directory.resolve("mets.xml");
+      Files.copy(new File("src/test/resources/workspace/valid_mets.xml").toPath(), metsFile);
+      assertNull(MetsSnapshot.load(metsFile, true));
+      MetsIndex expected = MetsIndex.build(XmlIndex.parse(metsFile));
+      MetsSnapshot.write(expected, metsFile);
+      assertTrue(Files.exists(directory.resolve("mets.xml" + MetsSnapshot.SNAPSHOT_SUFFIX)));
+      try (Stream<Path> paths = Files.list(directory)) {
+        assertFalse(paths.anyMatch(path -> path.getFileName().toString().endsWith(".tmp")));
+      }
+      MetsIndex index = MetsSnapshot.load(metsFile, true);
+      assertNotNull(index);
+      assertEquals(expected.getNumberOfFileGrps(), index.getNumberOfFileGrps());
+      assertEquals("OCR-D-IMG", index.getFileGrpUse(1));
+      assertEquals(16, index.getNumberOfFiles());
+      assertArrayEquals(new int[]{4, 5, 6, 7}, index.getFilesOfFileGrp(1));
+      for (int file = 0; file < expected.getNumberOfFiles(); file++) {
+        assertEquals(expected.getFileId(file), index.getFileId(file));
+        assertEquals(expected.getFileMimetype(file), index.getFileMimetype(file));
+        assertEquals(expected.getFileUrl(file), index.getFileUrl(file));
+        assertEquals(expected.getPageIdOfFile(file), index.getPageIdOfFile(file));
+      }
+      assertEquals(4, index.getNumberOfPages());
+      assertEquals(4, index.getPageOrder(3));
+      assertEquals("DMGT_0004", index.getPageDmdId(3));
+      assertArrayEquals(new int[]{3, 7, 11, 15}, index.getFilesOfPage(3));
+      assertEquals(1, index.getNumberOfPhysicalMaps());
+      assertEquals(1, index.getNumberOfPhysicalSequences());
+      assertArrayEquals(expected.getGroundTruthDmdIds(), index.getGroundTruthDmdIds());
+      assertArrayEquals(new String[]{"granularity/physical/document-related/region"}, index.getGroundTruthProperties("DMGT_0001"));
+      // Outdated snapshot
+      Files.setLastModifiedTime(metsFile, FileTime.fromMillis(Files.getLastModifiedTime(metsFile).toMillis() + 2000));
+      assertNull(MetsSnapshot.load(metsFile, false));
+      // Snapshot is rewritten.
+      index = MetsSnapshot.getMetsIndex(metsFile, DocumentBackend.TOKEN_INDEX);
+      assertEquals(16, index.getNumberOfFiles());
+      assertNotNull(MetsSnapshot.load(metsFile, true));
+      assertEquals(16, DocumentBackend.SNAPSHOT.buildMetsIndex(metsFile).getNumberOfFiles());
+    } finally {
+      try (Stream<Path> paths = Files.walk(directory)) {
+        paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+      }
+    }
+  }
+
+  /**
+   * Test of load method with corrupt snapshot, of class MetsSnapshot.
+   */
+  @Test
+  public void testLoadCorruptSnapshot() throws Exception {
+    System.out.println("testLoadCorruptSnapshot");
+    Path directory = Files.createTempDirectory("snapshot");
+    try {
+      Path metsFile = directory.resolve("mets.xml");
+      Files.copy(new File("src/test/resources/workspace/valid_mets.xml").toPath(), metsFile);
+      MetsSnapshot.write(MetsIndex.build(XmlIndex.parse(metsFile)), metsFile);
+      Path snapshotFile = MetsSnapshot.getSnapshotFile(metsFile);
+      byte[] bytes = Files.readAllBytes(snapshotFile);
+      // Truncated snapshot
+      Files.write(snapshotFile, Arrays.copyOf(bytes, bytes.length / 2));
+      assertNull(MetsSnapshot.load(metsFile, false));
+      // Unknown format
+      Files.write(snapshotFile, "no snapshot".getBytes(StandardCharsets.UTF_8));
+      assertNull(MetsSnapshot.load(metsFile, false));
+      // METS modified without changing size and modification time
+      Files.write(snapshotFile, bytes);
+      FileTime lastModified = Files.getLastModifiedTime(metsFile);
+      byte[] mets = Files.readAllBytes(metsFile);
+      mets[mets.length - 2] = (byte) ' ';
+      Files.write(metsFile, mets);
+      Files.setLastModifiedTime(metsFile, lastModified);
+      assertNotNull(MetsSnapshot.load(metsFile, false));
+      assertNull(MetsSnapshot.load(metsFile, true));
+    } finally {
+      try (Stream<Path> paths = Files.walk(directory)) {
+        paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+      }
+    }
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.kit.ocrd.workspace.index;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author hartmann-v
+ */
+public class StringStoreTest {
+
+  public StringStoreTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() {
+  }
+
+  @After
+  public void tearDown() {
+  }
+
+  /**
+   * Test of get method, of class StringStore.
+   */
+  @Test
+  public void testGet() {
+    System.out.println("testGet");
+    String[] values = new String[40];
+    StringStore.Builder builder = new StringStore.Builder();
+    for (int index = 0; index < values.length; index++) {
+      values[index] = String.format("OCR-D-GT-SEG-PAGE/OCR-D-GT-SEG-PAGE_%04d.xml", index);
+    }
+    values[3] = null;
+    values[16] = null;
+    values[17] = "";
+    values[20] = "OCR-D";
+    values[21] = "\u00e4\u20ac";
+    for (String value : values) {
+      builder.add(value);
+    }
+    assertEquals(values.length, builder.size());
+    StringStore store = builder.build(true);
+    assertEquals(values.length, store.size());
+    for (int index = 0; index < values.length; index++) {
+      assertEquals(values[index], store.getString(index));
+      CharSequence view = store.get(index);
+      if (values[index] == null) {
+        assertNull(view);
+        assertTrue(store.equals(index, null));
+      } else {
+        assertEquals(values[index].length(), view.length());
+        assertEquals(values[index], view.toString());
+        assertTrue(store.equals(index, values[index]));
+        assertEquals(values[index].hashCode(), store.hashCode(index));
+        assertEquals(index, store.indexOf(values[index]));
+      }
+    }
+    assertEquals("PAGE", store.get(5).subSequence(13, 17));
+    assertEquals('x', store.get(5).charAt(store.get(5).length() - 3));
+    assertFalse(store.equals(5, values[6]));
+    assertEquals(StringStore.NOT_FOUND, store.indexOf("unknown"));
+    assertEquals(StringStore.NOT_FOUND, store.indexOf(null));
+    try {
+      store.get(5).charAt(100);
+      assertTrue(Boolean.FALSE);
+    } catch (IndexOutOfBoundsException ioobe) {
+      assertTrue(Boolean.TRUE);
+    }
+  }
+
+  /**
+   * Test of indexOf method with duplicates, of class StringStore.
+   */
+  @Test
+  public void testIndexOfDuplicates() {
+    System.out.println("testIndexOfDuplicates");
+    StringStore store = new StringStore.Builder().add("a").add("b").add("a").build(true);
+    assertEquals(0, store.indexOf("a"));
+    assertEquals(1, store.indexOf("b"));
+    try {
+      new StringStore.Builder().add("a").build(false).indexOf("a");
+      assertTrue(Boolean.FALSE);
+    } catch (IllegalStateException ise) {
+      assertTrue(Boolean.TRUE);
+    }
+  }
+
+  /**
+   * Test of getMemoryUsage method, of class StringStore.
+   */
+  @Test
+  public void testGetMemoryUsage() {
+    System.out.println("testGetMemoryUsage");
+    StringStore.Builder builder = new StringStore.Builder();
+    long characters = 0;
+    for (int index = 0; index < 10000; index++) {
+      String value = String.format("OCR-D-GT-SEG-PAGE/OCR-D-GT-SEG-PAGE_%06d.xml", index);
+      characters += value.length();
+      builder.add(value);
+    }
+    StringStore store = builder.build(false);
+    // Shared prefixes are stored only once per bucket (Latin-1: 1 byte per char).
+    assertTrue(store.getMemoryUsage() < characters / 2);
+  }
+}
@@ -0,0 +1,186 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.kit.ocrd.workspace.index;
+
+import edu.kit.ocrd.workspace.exception.WorkspaceException;
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import org.fzk.tools.xml.JaxenUtil;
+import org.jdom.Element;
+import org.jdom.Namespace;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author hartmann-v
+ */
+public class XmlIndexTest {
+
+  public XmlIndexTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() {
+  }
+
+  @After
+  public void tearDown() {
+  }
+
+  /**
+   * Parse string with XmlIndex.
+   *
+   * @param xml XML document.
+   * @return Index.
+   */
+  private static XmlIndex parse(final String xml) {
+    return XmlIndex.parse(xml.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Test of parse method, of class XmlIndex.
+   */
+  @Test
+  public void testParse() {
+    System.out.println("testParse");
+    XmlIndex index = parse("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n"
+            + "<!DOCTYPE root [<!ELEMENT root ANY>]>\n"
+            + "<!-- comment <b/> -->\n"
+            + "<a:root xmlns:a=\"urn:a\" xmlns=\"urn:default\" xmlns:x=\"urn:x\">"
+            + "<child id='1' x:href=\"a&amp;b &#x41;&#66;&lt;\"><![CDATA[<notAnElement/>]]></child>"
+            + "<?pi <c/>?><x:child id=\"2\"/>text<a:child  id = \"3\" >\n</a:child >"
+            + "</a:root>");
+    assertEquals(4, index.getNumberOfElements());
+    int root = index.getRootElement();
+    assertEquals("root", index.getLocalName(root));
+    assertEquals("urn:a", index.getNamespaceUri(root));
+    assertTrue(index.isElement(root, "urn:a", "root"));
+    assertFalse(index.isElement(root, "urn:default", "root"));
+    int child = index.getFirstChild(root);
+    assertTrue(index.isElement(child, "urn:default", "child"));
+    assertEquals("1", index.getAttributeValue(child, "id"));
+    assertEquals("a&b AB<", index.getAttributeValue(child, "urn:x", "href"));
+    assertNull(index.getAttributeValue(child, "href"));
+    assertEquals(XmlIndex.NONE, index.getFirstChild(child));
+    child = index.getNextSibling(child);
+    assertTrue(index.isElement(child, "urn:x", "child"));
+    assertEquals("2", index.getAttributeValue(child, "id"));
+    child = index.getNextSibling(child);
+    assertTrue(index.isElement(child, "urn:a", "child"));
+    assertEquals("3", index.getAttributeValue(child, "id"));
+    assertEquals(XmlIndex.NONE, index.getNextSibling(child));
+    assertFalse(index.isElement(child, "urn:unknown", "child"));
+  }
+
+  /**
+   * Test of parse method with many elements, of class XmlIndex.
+   */
+  @Test
+  public void testParseLarge() {
+    System.out.println("testParseLarge");
+    StringBuilder xml = new StringBuilder("<root>");
+    for (int index = 0; index < 1000; index++) {
+      xml.append("<e n=\"").append(index).append("\" tab=\"a\tb\"><f/></e>");
+    }
+    xml.append("</root>");
+    XmlIndex index = parse(xml.toString());
+    assertEquals(2001, index.getNumberOfElements());
+    int element = index.getFirstChild(index.getRootElement());
+    int count = 0;
+    for (; element != XmlIndex.NONE; element = index.getNextSibling(element)) {
+      assertEquals(Integer.toString(count++), index.getAttributeValue(element, "n"));
+      assertEquals("a b", index.getAttributeValue(element, "tab"));
+      assertTrue(index.isElement(index.getFirstChild(element), "", "f"));
+    }
+    assertEquals(1000, count);
+  }
+
+  /**
+   * Document with line breaks (CRLF and CR) in attributes.
+   */
+  private static final String LINE_BREAKS = "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\r\n<root>\r\n"
+          + "<e crlf=\"a\r\nb\" cr=\"a\rb\" lines=\"a\r\n\r\nb\" ref=\"a&#13;&#10;b\"/>\r\n</root>\r\n";
+  /**
+   * Attributes of element in LINE_BREAKS.
+   */
+  private static final String[] LINE_BREAK_ATTRIBUTES = {"crlf", "cr", "lines", "ref"};
+
+  /**
+   * Test of parse method with line breaks in attributes, of class XmlIndex.
+   */
+  @Test
+  public void testParseLineBreaks() {
+    System.out.println("testParseLineBreaks");
+    String[] expected = {"a b", "a b", "a  b", "a\r\nb"};
+    XmlIndex index = parse(LINE_BREAKS);
+    int element = index.getFirstChild(index.getRootElement());
+    for (int attribute = 0; attribute < LINE_BREAK_ATTRIBUTES.length; attribute++) {
+      assertEquals(expected[attribute], index.getAttributeValue(element, LINE_BREAK_ATTRIBUTES[attribute]));
+    }
+  }
+
+  /**
+   * Test of parse method with line breaks in attributes compared to JDOM, of
+   * class XmlIndex.
+   */
+  @Test
+  public void testParseLineBreaksLikeJdom() throws Exception {
+    System.out.println("testParseLineBreaksLikeJdom");
+    XmlIndex index = parse(LINE_BREAKS);
+    int element = index.getFirstChild(index.getRootElement());
+    Element jdomElement = JaxenUtil.getDocument(new ByteArrayInputStream(LINE_BREAKS.getBytes(StandardCharsets.UTF_8))).getRootElement().getChild("e", Namespace.NO_NAMESPACE);
+    for (String attribute : LINE_BREAK_ATTRIBUTES) {
+      assertEquals(jdomElement.getAttributeValue(attribute), index.getAttributeValue(element, attribute));
+    }
+  }
+
+  /**
+   * Test of parse method with malformed documents, of class XmlIndex.
+   */
+  @Test
+  public void testParseMalformed() {
+    System.out.println("testParseMalformed");
+    String[] documents = {"", "text", "<a>", "<a></b>", "<a/><b/>", "<a b=c/>", "<a b=\"c/>",
+      "<a><!-- </a>", "<p:a/>", "<a/>text", "<a b=\"&unknown;\"/>"};
+    for (String document : documents) {
+      try {
+        XmlIndex index = parse(document);
+        // Entities are decoded on request.
+        index.getAttributeValue(index.getRootElement(), "b");
+        assertTrue(document, Boolean.FALSE);
+      } catch (WorkspaceException wse) {
+        assertTrue(document, wse.getMessage().startsWith(XmlIndex.MALFORMED_XML));
+      }
+    }
+  }
+
+  /**
+   * Test of parse method with unsupported encoding, of class XmlIndex.
+   */
+  @Test
+  public void testParseUnsupportedEncoding() {
+    System.out.println("testParseUnsupportedEncoding");
+    try {
+      parse("<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?><a/>");
+      assertTrue(Boolean.FALSE);
+    } catch (WorkspaceException wse) {
+      assertTrue(wse.getMessage().startsWith(XmlIndex.UNSUPPORTED_ENCODING));
+    }
+  }
+}
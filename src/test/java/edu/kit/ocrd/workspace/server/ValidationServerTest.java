@@ -0,0 +1,192 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.kit.ocrd.workspace.server;
+
+import edu.kit.ocrd.workspace.XmlUtil;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author hartmann-v
+ */
+public class ValidationServerTest {
+
+  private ValidationServer server;
+
+  public ValidationServerTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() throws IOException {
+    server = new ValidationServer(new InetSocketAddress("localhost", 0), 2, 4);
+    server.start();
+  }
+
+  @After
+  public void tearDown() {
+    server.stop(0);
+  }
+
+  /**
+   * Send request to server.
+   *
+   * @param path path of request
+   * @param body body of request (null for GET)
+   * @return status code and body separated by a blank.
+   */
+  private String request(String path, String body) throws IOException {
+    URL url = new URL("http://localhost:" + server.getPort() + path);
+    HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+    if (body != null) {
+      connection.setRequestMethod("POST");
+      connection.setDoOutput(true);
+      try (OutputStream outputStream = connection.getOutputStream()) {
+        outputStream.write(body.getBytes(StandardCharsets.UTF_8));
+      }
+    }
+    int status = connection.getResponseCode();
+    InputStream inputStream = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+    ByteArrayOutputStream response = new ByteArrayOutputStream();
+    byte[] buffer = new byte[1024];
+    for (int read; (read = inputStream.read(buffer)) > 0;) {
+      response.write(buffer, 0, read);
+    }
+    inputStream.close();
+    return status + " " + new String(response.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Test of validate workspace via JSON body.
+   */
+  @Test
+  public void testValidateWorkspace() throws Exception {
+    System.out.println("testValidateWorkspace");
+    String path = new File("src/test/resources/workspace/valid_mets.xml").getAbsolutePath();
+    String result = request("/validate/workspace", "{\"path\": " + ValidationServer.toJson(path) + "}");
+    assertTrue(result.startsWith("200 "));
+    assertTrue(result.contains("\"valid\":true"));
+    assertTrue(result.contains("\"durationMillis\":"));
+  }
+
+  /**
+   * Test of validate workspace with profile.
+   */
+  @Test
+  public void testValidateWorkspaceWithProfile() throws Exception {
+    System.out.println("testValidateWorkspaceWithProfile");
+    String path = new File("src/test/resources/workspace/missing_file_mets.xml").getAbsolutePath();
+    String result = request("/validate/workspace", "{\"path\": " + ValidationServer.toJson(path) + ", \"profile\": \"quick\"}");
+    assertTrue(result.contains("\"valid\":true"));
+    result = request("/validate/workspace", "{\"path\": " + ValidationServer.toJson(path) + ", \"profile\": \"standard\"}");
+    assertTrue(result.contains("\"valid\":false"));
+    result = request("/validate/workspace", "{\"path\": " + ValidationServer.toJson(path) + ", \"profile\": \"unknown\"}");
+    assertTrue(result.startsWith("400 "));
+  }
+
+  /**
+   * Test of validate METS via query parameter.
+   */
+  @Test
+  public void testValidateMets() throws Exception {
+    System.out.println("testValidateMets");
+    String path = new File("src/test/resources/workspace/invalid_schema_mets.xml").getAbsolutePath();
+    String result = request("/validate/mets?path=" + URLEncoder.encode(path, "UTF-8"), null);
+    assertTrue(result.startsWith("200 "));
+    assertTrue(result.contains("\"valid\":false"));
+    assertTrue(result.contains(XmlUtil.ERROR_VALIDATING_XML));
+  }
+
+  /**
+   * Test of validate PAGE.
+   */
+  @Test
+  public void testValidatePage() throws Exception {
+    System.out.println("testValidatePage");
+    String path = new File("src/test/resources/page/valid_page.xml").getAbsolutePath();
+    String result = request("/validate/page?path=" + URLEncoder.encode(path, "UTF-8"), null);
+    assertTrue(result.startsWith("200 "));
+    assertTrue(result.contains("\"valid\":true"));
+  }
+
+  /**
+   * Test of missing workspace.
+   */
+  @Test
+  public void testValidateWorkspaceMetsNotExists() throws Exception {
+    System.out.println("testValidateWorkspaceMetsNotExists");
+    String path = new File("src/test/resources/workspace/notExists_mets.xml").getAbsolutePath();
+    String result = request("/validate/workspace", "{\"path\": " + ValidationServer.toJson(path) + "}");
+    assertTrue(result.startsWith("200 "));
+    assertTrue(result.contains("\"valid\":false"));
+  }
+
+  /**
+   * Test of missing path.
+   */
+  @Test
+  public void testMissingPath() throws Exception {
+    System.out.println("testMissingPath");
+    String result = request("/validate/mets", "{}");
+    assertTrue(result.startsWith("400 "));
+    assertTrue(result.contains(ValidationServer.MISSING_PATH));
+  }
+
+  /**
+   * Test of unknown endpoint.
+   */
+  @Test
+  public void testUnknownEndpoint() throws Exception {
+    System.out.println("testUnknownEndpoint");
+    String result = request("/validate/unknown?path=mets.xml", null);
+    assertTrue(result.startsWith("404 "));
+  }
+
+  /**
+   * Test of status.
+   */
+  @Test
+  public void testStatus() throws Exception {
+    System.out.println("testStatus");
+    String result = request("/status", null);
+    assertTrue(result.startsWith("200 "));
+    assertTrue(result.contains("\"maxConcurrentRequests\":2"));
+  }
+
+  /**
+   * Test of JSON helpers.
+   */
+  @Test
+  public void testJson() {
+    System.out.println("testJson");
+    String value = "C:\\path\\with \"quotes\"";
+    assertEquals(value, ValidationServer.getJsonValue("{\"path\" : " + ValidationServer.toJson(value) + "}", "path"));
+    assertNull(ValidationServer.getJsonValue("{\"other\":\"value\"}", "path"));
+    assertEquals("null", ValidationServer.toJson(null));
+  }
+}
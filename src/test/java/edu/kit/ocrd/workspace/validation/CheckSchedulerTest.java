@@ -0,0 +1,121 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.kit.ocrd.workspace.validation;
+
+import edu.kit.ocrd.workspace.exception.WorkspaceException;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author hartmann-v
+ */
+public class CheckSchedulerTest {
+
+  public CheckSchedulerTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() {
+  }
+
+  @After
+  public void tearDown() {
+  }
+
+  /**
+   * Test merging findings in order of adding checks.
+   */
+  @Test
+  public void testDeterministicOrder() {
+    System.out.println("testDeterministicOrder");
+    CheckScheduler scheduler = new CheckScheduler();
+    scheduler.add("root", result -> result.addWarning("root"));
+    scheduler.add("slow", result -> {
+      Thread.sleep(100);
+      result.addError("slow");
+    }, "root");
+    scheduler.add("fast", result -> result.addError("fast"), "root");
+    ValidationResult result = scheduler.run();
+    assertFalse(result.isValid());
+    assertEquals(Arrays.asList("slow", "fast"), result.getErrors());
+    assertEquals(Arrays.asList("root"), result.getWarnings());
+  }
+
+  /**
+   * Test skipping checks with failed dependencies.
+   */
+  @Test
+  public void testSkipDependentChecks() {
+    System.out.println("testSkipDependentChecks");
+    final AtomicBoolean executed = new AtomicBoolean(false);
+    CheckScheduler scheduler = new CheckScheduler();
+    scheduler.add("root", result -> {
+      throw new WorkspaceException("root failed");
+    });
+    scheduler.add("child", result -> executed.set(true), "root");
+    scheduler.add("grandChild", result -> executed.set(true), "child");
+    scheduler.add("independent", result -> result.addWarning("independent"));
+    ValidationResult result = scheduler.run();
+    assertFalse(executed.get());
+    assertEquals(Arrays.asList("root failed"), result.getErrors());
+    assertEquals(Arrays.asList("independent"), result.getWarnings());
+    try {
+      result.assertValid();
+      assertTrue(Boolean.FALSE);
+    } catch (WorkspaceException wse) {
+      assertTrue(wse.getMessage().startsWith("root failed"));
+    }
+  }
+
+  /**
+   * Test parallel execution of independent checks.
+   */
+  @Test
+  public void testParallelExecution() {
+    System.out.println("testParallelExecution");
+    if (Runtime.getRuntime().availableProcessors() < 2) {
+      return;
+    }
+    // Both checks wait for each other, so they have to run in parallel.
+    final CountDownLatch latch = new CountDownLatch(2);
+    CheckScheduler scheduler = new CheckScheduler();
+    for (String name : new String[]{"first", "second"}) {
+      scheduler.add(name, result -> {
+        latch.countDown();
+        if (!latch.await(10, TimeUnit.SECONDS)) {
+          result.addError("not parallel");
+        }
+      });
+    }
+    assertTrue(scheduler.run().isValid());
+  }
+
+  /**
+   * Test unknown dependency.
+   */
+  @Test(expected = IllegalArgumentException.class)
+  public void testUnknownDependency() {
+    System.out.println("testUnknownDependency");
+    new CheckScheduler().add("check", result -> result.addWarning("check"), "unknown");
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.kit.ocrd.workspace.validation;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author hartmann-v
+ */
+public class RemoteFileCheckerTest {
+
+  private HttpServer server;
+  private String baseUrl;
+  private final AtomicInteger noOfRequests = new AtomicInteger();
+  private final AtomicInteger activeRequests = new AtomicInteger();
+  private final AtomicInteger maxActiveRequests = new AtomicInteger();
+
+  public RemoteFileCheckerTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() throws Exception {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/image.png", exchange -> respond(exchange, 200, "image/png"));
+    server.createContext("/page.xml", exchange -> respond(exchange, 200, "application/xml; charset=UTF-8"));
+    server.createContext("/noHead.png", exchange -> {
+      if ("HEAD".equals(exchange.getRequestMethod())) {
+        respond(exchange, 405, null);
+      } else {
+        assertEquals("bytes=0-0", exchange.getRequestHeaders().getFirst("Range"));
+        respond(exchange, 206, "image/png");
+      }
+    });
+    final AtomicInteger flaky = new AtomicInteger();
+    server.createContext("/flaky.png", exchange -> respond(exchange, flaky.getAndIncrement() == 0 ? 503 : 200, "image/png"));
+    server.createContext("/slow/", exchange -> {
+      int active = activeRequests.incrementAndGet();
+      maxActiveRequests.accumulateAndGet(active, Math::max);
+      try {
+        Thread.sleep(50);
+      } catch (InterruptedException ex) {
+        Thread.currentThread().interrupt();
+      }
+      activeRequests.decrementAndGet();
+      respond(exchange, 200, "image/tiff");
+    });
+    server.setExecutor(Executors.newCachedThreadPool());
+    server.start();
+    baseUrl = "http://localhost:" + server.getAddress().getPort();
+  }
+
+  @After
+  public void tearDown() {
+    server.stop(0);
+  }
+
+  private void respond(HttpExchange exchange, int status, String contentType) throws IOException {
+    noOfRequests.incrementAndGet();
+    if (contentType != null) {
+      exchange.getResponseHeaders().add("Content-Type", contentType);
+    }
+    exchange.sendResponseHeaders(status, -1);
+    exchange.close();
+  }
+
+  /**
+   * Test of check method, of class RemoteFileChecker.
+   */
+  @Test
+  public void testCheck() {
+    System.out.println("testCheck");
+    RemoteFileChecker checker = new RemoteFileChecker(2, 1000, 2, 10, 100);
+    RemoteFileChecker.Response response = checker.check(baseUrl + "/image.png").join();
+    assertTrue(response.isAvailable());
+    assertEquals("image/png", response.getContentType());
+    response = checker.check(baseUrl + "/page.xml").join();
+    assertEquals("application/xml", response.getContentType());
+    response = checker.check(baseUrl + "/noHead.png").join();
+    assertEquals(206, response.getStatus());
+    assertTrue(response.isAvailable());
+    response = checker.check(baseUrl + "/missing.png").join();
+    assertEquals(404, response.getStatus());
+    assertFalse(response.isAvailable());
+    response = checker.check(baseUrl + "/flaky.png").join();
+    assertEquals(200, response.getStatus());
+    // Cached responses
+    int requests = noOfRequests.get();
+    assertTrue(checker.check(baseUrl + "/image.png").join().isAvailable());
+    assertEquals(404, checker.check(baseUrl + "/missing.png").join().getStatus());
+    assertEquals(requests, noOfRequests.get());
+    checker.clearCache();
+    assertTrue(checker.check(baseUrl + "/image.png").join().isAvailable());
+    assertEquals(requests + 1, noOfRequests.get());
+    checker.shutdown();
+  }
+
+  /**
+   * Test of check method, of class RemoteFileChecker.
+   */
+  @Test
+  public void testCheckNoServer() {
+    System.out.println("testCheckNoServer");
+    RemoteFileChecker checker = new RemoteFileChecker(1, 1000, 1, 10, 100);
+    server.stop(0);
+    RemoteFileChecker.Response response = checker.check(baseUrl + "/image.png").join();
+    assertEquals(RemoteFileChecker.NO_RESPONSE, response.getStatus());
+    assertFalse(response.isAvailable());
+    assertNotNull(response.getErrorMessage());
+    response = checker.check("http://[invalid/image.png").join();
+    assertEquals(RemoteFileChecker.NO_RESPONSE, response.getStatus());
+    checker.shutdown();
+  }
+
+  /**
+   * Test of per host limit, of class RemoteFileChecker.
+   */
+  @Test
+  public void testMaxRequestsPerHost() {
+    System.out.println("testMaxRequestsPerHost");
+    RemoteFileChecker checker = new RemoteFileChecker(2, 1000, 0, 10, 100);
+    List<CompletableFuture<RemoteFileChecker.Response>> responses = new ArrayList<>();
+    for (int index = 0; index < 8; index++) {
+      responses.add(checker.check(baseUrl + "/slow/image_" + index + ".tif"));
+    }
+    for (CompletableFuture<RemoteFileChecker.Response> response : responses) {
+      assertTrue(response.join().isAvailable());
+    }
+    assertTrue(maxActiveRequests.get() <= 2);
+    checker.shutdown();
+  }
+
+  /**
+   * Test of isRemote method, of class RemoteFileChecker.
+   */
+  @Test
+  public void testIsRemote() {
+    System.out.println("testIsRemote");
+    assertTrue(RemoteFileChecker.isRemote("http://example.org/image.png"));
+    assertTrue(RemoteFileChecker.isRemote("HTTPS://example.org/image.png"));
+    assertFalse(RemoteFileChecker.isRemote("OCR-D-IMG/OCR-D-IMG_0001.jpg"));
+    assertFalse(RemoteFileChecker.isRemote("file:///tmp/image.png"));
+  }
+}
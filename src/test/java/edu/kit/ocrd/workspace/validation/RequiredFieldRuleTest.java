@@ -0,0 +1,69 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.kit.ocrd.workspace.validation;
+
+import edu.kit.ocrd.workspace.entity.MetsMetadata;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author hartmann-v
+ */
+public class RequiredFieldRuleTest {
+
+  public RequiredFieldRuleTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() {
+  }
+
+  @After
+  public void tearDown() {
+  }
+
+  /**
+   * Test of validate method, of class RequiredFieldRule.
+   */
+  @Test
+  public void testValidate() {
+    System.out.println("testValidate");
+    MetsMetadata metadata = new MetsMetadata();
+    MetadataRule optional = new RequiredFieldRule(MetsMetadata::getGenres, "genre", false);
+    MetadataRule mandatory = new RequiredFieldRule(MetsMetadata::getGenres, "genre", true);
+    ValidationResult result = new ValidationResult();
+    optional.validate(metadata, result);
+    assertTrue(result.isValid());
+    assertEquals(1, result.getWarnings().size());
+    mandatory.validate(metadata, result);
+    assertFalse(result.isValid());
+    assertEquals("genre", result.getErrors().get(0));
+    // Single character is not a valid value.
+    metadata.addGenre("x");
+    result = new ValidationResult();
+    mandatory.validate(metadata, result);
+    assertFalse(result.isValid());
+    metadata.addGenre("Gedichte");
+    result = new ValidationResult();
+    mandatory.validate(metadata, result);
+    optional.validate(metadata, result);
+    assertTrue(result.isValid());
+    assertTrue(result.getWarnings().isEmpty());
+  }
+}
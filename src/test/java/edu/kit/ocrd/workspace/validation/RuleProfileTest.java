@@ -0,0 +1,134 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.kit.ocrd.workspace.validation;
+
+import edu.kit.ocrd.workspace.entity.MetsMetadata;
+import edu.kit.ocrd.workspace.exception.WorkspaceException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Properties;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author hartmann-v
+ */
+public class RuleProfileTest {
+
+  public RuleProfileTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() {
+  }
+
+  @After
+  public void tearDown() {
+  }
+
+  /**
+   * Test of DEFAULT rules, of class RuleProfile.
+   */
+  @Test
+  public void testDefault() {
+    System.out.println("testDefault");
+    ValidationResult result = new ValidationResult();
+    for (MetadataRule rule : RuleProfile.DEFAULT.getMetadataRules()) {
+      rule.validate(new MetsMetadata(), result);
+    }
+    assertTrue(result.isValid());
+    assertEquals(Arrays.asList("Language field missing inside METS!",
+            "Classification field missing inside METS!",
+            "Genre field missing inside METS!"), result.getWarnings());
+    assertTrue(RuleProfile.DEFAULT.isMimetypeAllowed("OCR-D-IMG", "text/plain"));
+    assertTrue(RuleProfile.DEFAULT.isFeatureAllowed("age/historical"));
+    assertFalse(RuleProfile.DEFAULT.isFeatureAllowed("age/unknown"));
+    assertSame(RuleProfile.DEFAULT, ValidationProfile.FULL.getRules());
+    // Rule of a single field.
+    result = new ValidationResult();
+    RuleProfile.DEFAULT.getFieldRule("genre").validate(new MetsMetadata(), result);
+    assertEquals(Arrays.asList("Genre field missing inside METS!"), result.getWarnings());
+    assertNull(RuleProfile.DEFAULT.getFieldRule("title"));
+  }
+
+  /**
+   * Test of load method, of class RuleProfile.
+   */
+  @Test
+  public void testLoad() throws IOException {
+    System.out.println("testLoad");
+    Path ruleFile = Files.createTempFile("rules", ".properties");
+    try {
+      Files.write(ruleFile, Arrays.asList("# Rules of library",
+              "mods.mandatory=title, language",
+              "mods.recommended=author",
+              "mimetype.OCR-D-IMG=image/tiff, image/png",
+              "features.additional=age/prehistoric"), StandardCharsets.UTF_8);
+      RuleProfile rules = RuleProfile.load(ruleFile);
+      MetsMetadata metadata = new MetsMetadata();
+      metadata.setTitle("Title");
+      ValidationResult result = new ValidationResult();
+      for (MetadataRule rule : rules.getMetadataRules()) {
+        rule.validate(metadata, result);
+      }
+      assertEquals(Arrays.asList("Language field missing inside METS!"), result.getErrors());
+      assertEquals(Arrays.asList("Author field missing inside METS!"), result.getWarnings());
+      assertTrue(rules.isMimetypeAllowed("OCR-D-IMG", "image/png"));
+      assertFalse(rules.isMimetypeAllowed("OCR-D-IMG", "image/jpeg"));
+      assertTrue(rules.isMimetypeAllowed("OCR-D-GT-SEG", "image/jpeg"));
+      assertTrue(rules.isFeatureAllowed("age/prehistoric"));
+      assertTrue(rules.isFeatureAllowed("age/historical"));
+      assertEquals(rules, RuleProfile.compile(rules.toProperties()));
+      assertFalse(rules.equals(RuleProfile.DEFAULT));
+      ValidationProfile profile = ValidationProfile.STANDARD.withRules(rules);
+      assertSame(rules, profile.getRules());
+      assertSame(rules, profile.with(ValidationCheck.METADATA).getRules());
+      assertFalse(ValidationProfile.STANDARD.equals(profile));
+    } finally {
+      Files.delete(ruleFile);
+    }
+  }
+
+  /**
+   * Test of compile method with invalid rules, of class RuleProfile.
+   */
+  @Test
+  public void testCompileInvalidRules() {
+    System.out.println("testCompileInvalidRules");
+    Properties properties = new Properties();
+    properties.setProperty(RuleProfile.MANDATORY_FIELDS, "title, unknownField");
+    try {
+      RuleProfile.compile(properties);
+      assertTrue(Boolean.FALSE);
+    } catch (WorkspaceException wse) {
+      assertTrue(wse.getMessage().startsWith(RuleProfile.INVALID_RULE));
+    }
+    properties.clear();
+    properties.setProperty("unknown.key", "value");
+    try {
+      RuleProfile.compile(properties);
+      assertTrue(Boolean.FALSE);
+    } catch (WorkspaceException wse) {
+      assertTrue(wse.getMessage().startsWith(RuleProfile.INVALID_RULE));
+    }
+  }
+}
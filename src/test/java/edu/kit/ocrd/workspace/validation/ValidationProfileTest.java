@@ -0,0 +1,96 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.kit.ocrd.workspace.validation;
+
+import edu.kit.ocrd.workspace.exception.WorkspaceException;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author hartmann-v
+ */
+public class ValidationProfileTest {
+
+  public ValidationProfileTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() {
+  }
+
+  @After
+  public void tearDown() {
+  }
+
+  /**
+   * Test of predefined profiles.
+   */
+  @Test
+  public void testPredefinedProfiles() {
+    System.out.println("testPredefinedProfiles");
+    assertTrue(ValidationProfile.QUICK.isDocumentNeeded());
+    assertFalse(ValidationProfile.QUICK.isFileAccessNeeded());
+    assertFalse(ValidationProfile.QUICK.contains(ValidationCheck.SCHEMA));
+    assertTrue(ValidationProfile.STANDARD.contains(ValidationCheck.SCHEMA));
+    assertTrue(ValidationProfile.STANDARD.isFileAccessNeeded());
+    assertFalse(ValidationProfile.STANDARD.contains(ValidationCheck.PAGE_SCHEMA));
+    assertEquals(ValidationCheck.values().length, ValidationProfile.FULL.getChecks().size());
+  }
+
+  /**
+   * Test of combining profiles.
+   */
+  @Test
+  public void testCombineProfiles() {
+    System.out.println("testCombineProfiles");
+    ValidationProfile profile = ValidationProfile.QUICK.with(ValidationCheck.MIME_TYPE);
+    assertTrue(profile.contains(ValidationCheck.MIME_TYPE));
+    assertFalse(ValidationProfile.QUICK.contains(ValidationCheck.MIME_TYPE));
+    assertEquals(ValidationProfile.QUICK, profile.without(ValidationCheck.MIME_TYPE));
+    assertEquals(ValidationProfile.FULL, ValidationProfile.STANDARD.union(ValidationProfile.FULL));
+    assertTrue(ValidationProfile.FULL.without(ValidationProfile.FULL).getChecks().isEmpty());
+    assertFalse(ValidationProfile.of(ValidationCheck.SCHEMA).isDocumentNeeded());
+  }
+
+  /**
+   * Test of parse method, of class ValidationProfile.
+   */
+  @Test
+  public void testParse() {
+    System.out.println("testParse");
+    assertEquals(ValidationProfile.QUICK, ValidationProfile.parse("quick"));
+    assertEquals(ValidationProfile.STANDARD, ValidationProfile.parse(" QUICK , schema,fileExistence,MIME_TYPE"));
+    assertEquals(ValidationProfile.FULL.without(ValidationCheck.IMAGE_URL), ValidationProfile.parse("full,-imageUrl"));
+    assertTrue(ValidationProfile.parse("").getChecks().isEmpty());
+  }
+
+  /**
+   * Test of parse method, of class ValidationProfile.
+   */
+  @Test
+  public void testParseUnknownCheck() {
+    System.out.println("testParseUnknownCheck");
+    try {
+      ValidationProfile.parse("quick,unknown");
+      assertTrue(Boolean.FALSE);
+    } catch (WorkspaceException wse) {
+      assertTrue(wse.getMessage().startsWith(ValidationProfile.UNKNOWN_CHECK));
+    }
+  }
+}
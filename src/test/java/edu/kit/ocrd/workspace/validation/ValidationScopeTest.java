@@ -0,0 +1,91 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package edu.kit.ocrd.workspace.validation;
+
+import edu.kit.ocrd.workspace.exception.WorkspaceException;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author hartmann-v
+ */
+public class ValidationScopeTest {
+
+  public ValidationScopeTest() {
+  }
+
+  @BeforeClass
+  public static void setUpClass() {
+  }
+
+  @AfterClass
+  public static void tearDownClass() {
+  }
+
+  @Before
+  public void setUp() {
+  }
+
+  @After
+  public void tearDown() {
+  }
+
+  /**
+   * Test of parsePageIds method, of class ValidationScope.
+   */
+  @Test
+  public void testParsePageIds() {
+    System.out.println("testParsePageIds");
+    ValidationScope scope = ValidationScope.parsePageIds("PHYS_0100..PHYS_0200, PHYS_0300,PHYS_0001 .. PHYS_0002,");
+    assertFalse(scope.isAllPages());
+    assertTrue(scope.isAllFileGrps());
+    assertEquals(Collections.singleton("PHYS_0300"), scope.getPageIds());
+    assertEquals(2, scope.getPageRanges().size());
+    assertArrayEquals(new String[]{"PHYS_0100", "PHYS_0200"}, scope.getPageRanges().get(0));
+    assertArrayEquals(new String[]{"PHYS_0001", "PHYS_0002"}, scope.getPageRanges().get(1));
+    assertTrue(ValidationScope.parsePageIds(" ").isAllPages());
+    for (String invalid : new String[]{"PHYS_0001..", "..PHYS_0002", "PHYS_0001..PHYS_0002..PHYS_0003"}) {
+      try {
+        ValidationScope.parsePageIds(invalid);
+        assertTrue(Boolean.FALSE);
+      } catch (WorkspaceException wse) {
+        assertTrue(wse.getMessage().startsWith(ValidationScope.INVALID_PAGE_RANGE));
+      }
+    }
+  }
+
+  /**
+   * Test of selecting file groups, of class ValidationScope.
+   */
+  @Test
+  public void testFileGrps() {
+    System.out.println("testFileGrps");
+    assertTrue(ValidationScope.ALL.isAllPages());
+    assertTrue(ValidationScope.ALL.isAllFileGrps());
+    assertTrue(ValidationScope.ALL.containsFileGrp("OCR-D-IMG"));
+    ValidationScope scope = ValidationScope.ALL.includeFileGrps("OCR-D-IMG", "OCR-D-OCR");
+    assertFalse(scope.isAllFileGrps());
+    assertTrue(scope.isAllPages());
+    assertTrue(scope.containsFileGrp("OCR-D-IMG"));
+    assertFalse(scope.containsFileGrp("OCR-D-GT-SEG-PAGE"));
+    scope = scope.excludeFileGrps("OCR-D-IMG");
+    assertFalse(scope.containsFileGrp("OCR-D-IMG"));
+    assertTrue(scope.containsFileGrp("OCR-D-OCR"));
+    scope = ValidationScope.ALL.excludeFileGrps("OCR-D-IMG");
+    assertFalse(scope.containsFileGrp("OCR-D-IMG"));
+    assertTrue(scope.containsFileGrp("OCR-D-OCR"));
+    // Scopes are immutable.
+    assertTrue(ValidationScope.ALL.isAllFileGrps());
+    assertEquals(Arrays.asList("PHYS_1", "PHYS_2"), Arrays.asList(ValidationScope.ALL.withPages("PHYS_1", "PHYS_2", "PHYS_1").getPageIds().toArray()));
+  }
+}